@@ -494,6 +494,14 @@ public class ActorSystemContext {
     @Getter
     private long ruleChainErrorPersistFrequency;
 
+    @Value("${actors.rule.chain.fused_execution.enabled:false}")
+    @Getter
+    private boolean ruleChainFusedExecutionEnabled;
+
+    @Value("${actors.rule.chain.fused_execution.max_nodes:16}")
+    @Getter
+    private int ruleChainFusedExecutionMaxNodes;
+
     @Value("${actors.rule.node.error_persist_frequency:3000}")
     @Getter
     private long ruleNodeErrorPersistFrequency;
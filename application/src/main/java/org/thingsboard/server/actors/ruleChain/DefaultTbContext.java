@@ -161,7 +161,11 @@ class DefaultTbContext implements TbContext {
             relationTypes.forEach(relationType -> mainCtx.persistDebugOutput(nodeCtx.getTenantId(), nodeCtx.getSelf().getId(), msg, relationType, th));
         }
         msg.getCallback().onProcessingEnd(nodeCtx.getSelf().getId());
-        nodeCtx.getChainActor().tell(new RuleNodeToRuleChainTellNextMsg(nodeCtx.getSelf().getRuleChainId(), nodeCtx.getSelf().getId(), relationTypes, msg, th != null ? th.getMessage() : null));
+        tellRuleChain(new RuleNodeToRuleChainTellNextMsg(nodeCtx.getSelf().getRuleChainId(), nodeCtx.getSelf().getId(), relationTypes, msg, th != null ? th.getMessage() : null));
+    }
+
+    protected void tellRuleChain(RuleNodeToRuleChainTellNextMsg tellNextMsg) {
+        nodeCtx.getChainActor().tell(tellNextMsg);
     }
 
     @Override
@@ -353,7 +357,7 @@ class DefaultTbContext implements TbContext {
             mainCtx.persistDebugOutput(nodeCtx.getTenantId(), nodeCtx.getSelf().getId(), msg, TbNodeConnectionType.FAILURE, th);
         }
         String failureMessage = getFailureMessage(th);
-        nodeCtx.getChainActor().tell(new RuleNodeToRuleChainTellNextMsg(nodeCtx.getSelf().getRuleChainId(),
+        tellRuleChain(new RuleNodeToRuleChainTellNextMsg(nodeCtx.getSelf().getRuleChainId(),
                 nodeCtx.getSelf().getId(), Collections.singleton(TbNodeConnectionType.FAILURE),
                 msg, failureMessage));
     }
@@ -362,6 +366,13 @@ class DefaultTbContext implements TbContext {
         nodeCtx.setSelf(self);
     }
 
+    /**
+     * @return true if the given context is created by the same rule chain for the same rule node, so the messages of both contexts may be passed to the node in one batch.
+     */
+    boolean hasSameNodeCtx(TbContext other) {
+        return other instanceof DefaultTbContext otherCtx && otherCtx.nodeCtx == nodeCtx && otherCtx.ruleChainName.equals(ruleChainName);
+    }
+
     @Override
     public TbMsg newMsg(String queueName, String type, EntityId originator, TbMsgMetaData metaData, String data) {
         return newMsg(queueName, type, originator, null, metaData, data);
@@ -0,0 +1,161 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors.ruleChain;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.rule.engine.api.TbNode;
+import org.thingsboard.rule.engine.api.TbNodeConfiguration;
+import org.thingsboard.server.actors.ActorSystemContext;
+import org.thingsboard.server.actors.stats.StatsPersistMsg;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.plugin.ComponentLifecycleState;
+import org.thingsboard.server.common.data.rule.RuleNode;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.queue.RuleNodeException;
+import org.thingsboard.server.common.msg.queue.RuleNodeInfo;
+
+import java.util.function.Consumer;
+
+/**
+ * Instance of a stateless rule node (see {@link org.thingsboard.rule.engine.api.RuleNode#stateless()}) that is owned
+ * by the rule chain actor and executed inline on its thread. The outputs of the node are passed straight back
+ * to the rule chain while the node is executed, all the other calls of the context behave as for the rule node actor.
+ */
+@Slf4j
+final class FusedRuleNode {
+
+    @Getter
+    private final RuleNodeCtx nodeCtx;
+    @Getter
+    private final RuleNodeInfo info;
+    private final String ruleChainName;
+    private final FusedTbContext ctx;
+    private final TbNode tbNode;
+    private final ActorSystemContext systemContext;
+    private long messagesProcessed;
+    private long errorsOccurred;
+    private long lastPersistedErrorTs;
+    private ComponentLifecycleState state = ComponentLifecycleState.SUSPENDED;
+
+    FusedRuleNode(ActorSystemContext systemContext, String ruleChainName, RuleNodeCtx nodeCtx,
+                  Consumer<RuleNodeToRuleChainTellNextMsg> ruleChain) throws Exception {
+        RuleNode ruleNode = nodeCtx.getSelf();
+        this.systemContext = systemContext;
+        this.nodeCtx = nodeCtx;
+        this.ruleChainName = ruleChainName;
+        this.info = new RuleNodeInfo(ruleNode.getId(), ruleChainName, ruleNode.getName());
+        this.ctx = new FusedTbContext(systemContext, ruleChainName, nodeCtx, ruleChain);
+        this.tbNode = (TbNode) Class.forName(ruleNode.getType()).getDeclaredConstructor().newInstance();
+        this.tbNode.init(ctx, new TbNodeConfiguration(ruleNode.getConfiguration()));
+        this.state = ComponentLifecycleState.ACTIVE;
+    }
+
+    static boolean isStateless(RuleNode ruleNode) {
+        try {
+            var annotation = Class.forName(ruleNode.getType()).getAnnotation(org.thingsboard.rule.engine.api.RuleNode.class);
+            return annotation != null && annotation.stateless();
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    RuleNode getSelf() {
+        return nodeCtx.getSelf();
+    }
+
+    /**
+     * Same as {@link org.thingsboard.server.actors.shared.ComponentMsgProcessor#checkComponentStateActive(TbMsg)}:
+     * the message of an inactive node is failed, and the error is handled as the rule node actor does.
+     */
+    boolean checkComponentStateActive(TbMsg msg) {
+        if (state == ComponentLifecycleState.ACTIVE) {
+            return true;
+        }
+        log.debug("Component is not active. Current state [{}] for rule node [{}] tenant [{}]", state, getSelf().getId(), nodeCtx.getTenantId());
+        RuleNodeException ruleNodeException = new RuleNodeException("Rule Node is not active! Failed to initialize.", ruleChainName, getSelf());
+        msg.getCallback().onFailure(ruleNodeException);
+        logAndPersist("onRuleMsg", ruleNodeException);
+        return false;
+    }
+
+    void onMsg(TbMsg msg) {
+        messagesProcessed++;
+        Thread previousOwner = ctx.owner;
+        ctx.owner = Thread.currentThread();
+        try {
+            tbNode.onMsg(ctx, msg);
+        } catch (Exception e) {
+            ctx.tellFailure(msg, e);
+        } finally {
+            ctx.owner = previousOwner;
+        }
+    }
+
+    StatsPersistMsg getAndResetStats(TenantId tenantId) {
+        StatsPersistMsg statsMsg = new StatsPersistMsg(messagesProcessed, errorsOccurred, tenantId, nodeCtx.getSelf().getId());
+        messagesProcessed = 0;
+        errorsOccurred = 0;
+        return statsMsg;
+    }
+
+    void destroy() {
+        state = ComponentLifecycleState.SUSPENDED;
+        try {
+            tbNode.destroy();
+        } catch (Exception e) {
+            log.warn("[{}][{}] Failed to stop rule node executed inline: {}", nodeCtx.getTenantId(), getSelf().getId(), e.getMessage());
+            logAndPersist("OnStop", e);
+        }
+    }
+
+    /**
+     * Same as {@link org.thingsboard.server.actors.service.ComponentActor}: the error is counted in the stats of the node
+     * and persisted at most once per the rule node error persist frequency.
+     */
+    private void logAndPersist(String method, Exception e) {
+        errorsOccurred++;
+        log.trace("[{}][{}][{}] Failed to process method: {}", getSelf().getId(), nodeCtx.getTenantId(), getSelf().getName(), method, e);
+        long ts = System.currentTimeMillis();
+        if (ts - lastPersistedErrorTs > systemContext.getRuleNodeErrorPersistFrequency()) {
+            systemContext.persistError(nodeCtx.getTenantId(), getSelf().getId(), method, e);
+            lastPersistedErrorTs = ts;
+        }
+    }
+
+    private static class FusedTbContext extends DefaultTbContext {
+
+        private final Consumer<RuleNodeToRuleChainTellNextMsg> ruleChain;
+        private volatile Thread owner;
+
+        FusedTbContext(ActorSystemContext mainCtx, String ruleChainName, RuleNodeCtx nodeCtx, Consumer<RuleNodeToRuleChainTellNextMsg> ruleChain) {
+            super(mainCtx, ruleChainName, nodeCtx);
+            this.ruleChain = ruleChain;
+        }
+
+        @Override
+        protected void tellRuleChain(RuleNodeToRuleChainTellNextMsg tellNextMsg) {
+            if (owner == Thread.currentThread()) {
+                ruleChain.accept(tellNextMsg);
+            } else {
+                // the node has answered after onMsg returned, so the rule chain actor has to be reached through its mailbox
+                super.tellRuleChain(tellNextMsg);
+            }
+        }
+
+    }
+
+}
@@ -70,6 +70,7 @@ public class RuleChainActor extends RuleEngineComponentActor<RuleChainId, RuleCh
                 break;
             case STATS_PERSIST_TICK_MSG:
                 onStatsPersistTick(id);
+                processor.onStatsPersistTick();
                 break;
             default:
                 return false;
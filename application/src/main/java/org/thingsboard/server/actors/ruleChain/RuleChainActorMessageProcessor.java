@@ -23,6 +23,7 @@ import org.thingsboard.server.actors.TbEntityActorId;
 import org.thingsboard.server.actors.service.DefaultActorService;
 import org.thingsboard.server.actors.shared.ComponentMsgProcessor;
 import org.thingsboard.server.cluster.TbClusterService;
+import org.thingsboard.server.common.data.ApiUsageRecordKey;
 import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.RuleChainId;
@@ -70,6 +71,7 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
     private final TbActorRef self;
     private final Map<RuleNodeId, RuleNodeCtx> nodeActors;
     private final Map<RuleNodeId, List<RuleNodeRelation>> nodeRoutes;
+    private final Map<RuleNodeId, FusedRuleNode> fusedNodes;
     private final RuleChainService service;
     private final TbClusterService clusterService;
     private final TbApiUsageReportClient apiUsageClient;
@@ -78,6 +80,7 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
     private RuleNodeId firstId;
     private RuleNodeCtx firstNode;
     private boolean started;
+    private int fusedDepth;
 
     RuleChainActorMessageProcessor(TenantId tenantId, RuleChain ruleChain, ActorSystemContext systemContext, TbActorRef parent, TbActorRef self) {
         super(systemContext, tenantId, ruleChain.getId());
@@ -87,6 +90,7 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
         this.self = self;
         this.nodeActors = new HashMap<>();
         this.nodeRoutes = new HashMap<>();
+        this.fusedNodes = new HashMap<>();
         this.service = systemContext.getRuleChainService();
         this.clusterService = systemContext.getClusterService();
     }
@@ -107,7 +111,9 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
                 for (RuleNode ruleNode : ruleNodeList) {
                     log.trace("[{}][{}] Creating rule node [{}]: {}", entityId, ruleNode.getId(), ruleNode.getName(), ruleNode);
                     TbActorRef ruleNodeActor = createRuleNodeActor(context, ruleNode);
-                    nodeActors.put(ruleNode.getId(), new RuleNodeCtx(tenantId, self, ruleNodeActor, ruleNode));
+                    RuleNodeCtx ruleNodeCtx = new RuleNodeCtx(tenantId, self, ruleNodeActor, ruleNode);
+                    nodeActors.put(ruleNode.getId(), ruleNodeCtx);
+                    initFusedNode(ruleNodeCtx);
                 }
                 initRoutes(ruleChain, ruleNodeList);
                 started = true;
@@ -129,11 +135,14 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
                 if (existing == null) {
                     log.trace("[{}][{}] Creating rule node [{}]: {}", entityId, ruleNode.getId(), ruleNode.getName(), ruleNode);
                     TbActorRef ruleNodeActor = createRuleNodeActor(context, ruleNode);
-                    nodeActors.put(ruleNode.getId(), new RuleNodeCtx(tenantId, self, ruleNodeActor, ruleNode));
+                    RuleNodeCtx ruleNodeCtx = new RuleNodeCtx(tenantId, self, ruleNodeActor, ruleNode);
+                    nodeActors.put(ruleNode.getId(), ruleNodeCtx);
+                    initFusedNode(ruleNodeCtx);
                 } else {
                     log.trace("[{}][{}] Updating rule node [{}]: {}", entityId, ruleNode.getId(), ruleNode.getName(), ruleNode);
                     existing.setSelf(ruleNode);
                     existing.getSelfActor().tellWithHighPriority(new RuleNodeUpdatedMsg(tenantId, existing.getSelf().getId()));
+                    initFusedNode(existing);
                 }
             }
 
@@ -142,6 +151,7 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
             removedRules.forEach(ruleNodeId -> {
                 log.trace("[{}][{}] Removing rule node [{}]", tenantId, entityId, ruleNodeId);
                 RuleNodeCtx removed = nodeActors.remove(ruleNodeId);
+                destroyFusedNode(ruleNodeId);
                 removed.getSelfActor().tellWithHighPriority(new ComponentLifecycleMsg(tenantId, removed.getSelf().getId(), ComponentLifecycleEvent.DELETED));
             });
 
@@ -155,9 +165,15 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
         nodeActors.values().stream().map(RuleNodeCtx::getSelfActor).map(TbActorRef::getActorId).forEach(ctx::stop);
         nodeActors.clear();
         nodeRoutes.clear();
+        fusedNodes.values().forEach(FusedRuleNode::destroy);
+        fusedNodes.clear();
         started = false;
     }
 
+    void onStatsPersistTick() {
+        fusedNodes.values().forEach(fusedNode -> systemContext.getStatsActor().tell(fusedNode.getAndResetStats(tenantId)));
+    }
+
     @Override
     public void onPartitionChangeMsg(PartitionChangeMsg msg) {
         log.debug("[{}][{}] onPartitionChangeMsg: [{}]", tenantId, entityId, msg);
@@ -171,6 +187,28 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
                 () -> true);
     }
 
+    private void initFusedNode(RuleNodeCtx ruleNodeCtx) {
+        RuleNode ruleNode = ruleNodeCtx.getSelf();
+        destroyFusedNode(ruleNode.getId());
+        if (!systemContext.isRuleChainFusedExecutionEnabled() || ruleNode.isSingletonMode() || !FusedRuleNode.isStateless(ruleNode)) {
+            return;
+        }
+        try {
+            fusedNodes.put(ruleNode.getId(), new FusedRuleNode(systemContext, ruleChainName, ruleNodeCtx, this::onTellNext));
+        } catch (Exception e) {
+            log.warn("[{}][{}][{}] Failed to init rule node for inline execution, the messages will be sent to the rule node actor", tenantId, entityId, ruleNode.getId(), e);
+            systemContext.persistError(tenantId, ruleNode.getId(), "OnStart", e);
+            systemContext.persistLifecycleEvent(tenantId, ruleNode.getId(), ComponentLifecycleEvent.STARTED, e);
+        }
+    }
+
+    private void destroyFusedNode(RuleNodeId ruleNodeId) {
+        FusedRuleNode fusedNode = fusedNodes.remove(ruleNodeId);
+        if (fusedNode != null) {
+            fusedNode.destroy();
+        }
+    }
+
     private void initRoutes(RuleChain ruleChain, List<RuleNode> ruleNodeList) {
         nodeRoutes.clear();
         // Populating the routes map;
@@ -389,13 +427,43 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
 
     private void pushMsgToNode(RuleNodeCtx nodeCtx, TbMsg msg, String fromRelationType) {
         if (nodeCtx != null) {
-            nodeCtx.getSelfActor().tell(new RuleChainToRuleNodeMsg(new DefaultTbContext(systemContext, ruleChainName, nodeCtx), msg, fromRelationType));
+            FusedRuleNode fusedNode = fusedNodes.isEmpty() ? null : fusedNodes.get(nodeCtx.getSelf().getId());
+            if (fusedNode != null && fusedDepth < systemContext.getRuleChainFusedExecutionMaxNodes()) {
+                pushMsgToFusedNode(fusedNode, msg, fromRelationType);
+            } else {
+                nodeCtx.getSelfActor().tell(new RuleChainToRuleNodeMsg(new DefaultTbContext(systemContext, ruleChainName, nodeCtx), msg, fromRelationType));
+            }
         } else {
             log.error("[{}][{}] RuleNodeCtx is empty", entityId, ruleChainName);
             msg.getCallback().onFailure(new RuleEngineException("Rule Node CTX is empty"));
         }
     }
 
+    // Same checks as RuleNodeActorMessageProcessor does before the message is passed to the node
+    private void pushMsgToFusedNode(FusedRuleNode fusedNode, TbMsg msg, String fromRelationType) {
+        msg.getCallback().onProcessingStart(fusedNode.getInfo());
+        if (!fusedNode.checkComponentStateActive(msg)) {
+            return;
+        }
+        int ruleNodeCount = msg.getAndIncrementRuleNodeCounter();
+        int maxRuleNodeExecutionsPerMessage = getTenantProfileConfiguration().getMaxRuleNodeExecsPerMessage();
+        if (maxRuleNodeExecutionsPerMessage != 0 && ruleNodeCount >= maxRuleNodeExecutionsPerMessage) {
+            msg.getCallback().onFailure(new RuleNodeException("Message is processed by more then " + maxRuleNodeExecutionsPerMessage + " rule nodes!", ruleChainName, fusedNode.getSelf()));
+            return;
+        }
+        apiUsageClient.report(tenantId, msg.getCustomerId(), ApiUsageRecordKey.RE_EXEC_COUNT);
+        if (fusedNode.getSelf().isDebugMode()) {
+            systemContext.persistDebugInput(tenantId, fusedNode.getSelf().getId(), msg, fromRelationType);
+        }
+        log.trace("[{}][{}][{}] Executing rule node inline", tenantId, entityId, fusedNode.getSelf().getId());
+        fusedDepth++;
+        try {
+            fusedNode.onMsg(msg);
+        } finally {
+            fusedDepth--;
+        }
+    }
+
     @Override
     protected RuleNodeException getInactiveException() {
         RuleNode firstRuleNode = firstNode != null ? firstNode.getSelf() : null;
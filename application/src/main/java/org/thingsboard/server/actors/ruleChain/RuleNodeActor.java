@@ -25,17 +25,22 @@ import org.thingsboard.server.actors.service.ContextBasedCreator;
 import org.thingsboard.server.common.data.id.RuleChainId;
 import org.thingsboard.server.common.data.id.RuleNodeId;
 import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.msg.MsgType;
 import org.thingsboard.server.common.msg.TbActorMsg;
 import org.thingsboard.server.common.msg.TbMsg;
 import org.thingsboard.server.common.msg.plugin.ComponentLifecycleMsg;
 import org.thingsboard.server.common.msg.queue.PartitionChangeMsg;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Slf4j
 public class RuleNodeActor extends RuleEngineComponentActor<RuleNodeId, RuleNodeActorMessageProcessor> {
 
     private final String ruleChainName;
     private final RuleChainId ruleChainId;
     private final RuleNodeId ruleNodeId;
+    private final List<RuleChainToRuleNodeMsg> pendingMsgs = new ArrayList<>();
 
     private RuleNodeActor(ActorSystemContext systemContext, TenantId tenantId, RuleChainId ruleChainId, String ruleChainName, RuleNodeId ruleNodeId) {
         super(systemContext, tenantId, ruleNodeId);
@@ -51,6 +56,9 @@ public class RuleNodeActor extends RuleEngineComponentActor<RuleNodeId, RuleNode
 
     @Override
     protected boolean doProcess(TbActorMsg msg) {
+        if (msg.getMsgType() != MsgType.RULE_CHAIN_TO_RULE_MSG) {
+            processPendingMsgs();
+        }
         switch (msg.getMsgType()) {
             case COMPONENT_LIFE_CYCLE_MSG:
             case RULE_NODE_UPDATED_MSG:
@@ -97,9 +105,24 @@ public class RuleNodeActor extends RuleEngineComponentActor<RuleNodeId, RuleNode
         if (log.isDebugEnabled()) {
             log.debug("[{}][{}][{}] Going to process rule engine msg: {}", ruleChainId, id, processor.getComponentName(), msg);
         }
+        // consecutive messages are processed as one batch once the mailbox run is over, see onMailboxBatchProcessed
+        pendingMsgs.add(envelope);
+    }
+
+    @Override
+    public void onMailboxBatchProcessed() {
+        processPendingMsgs();
+    }
+
+    private void processPendingMsgs() {
+        if (pendingMsgs.isEmpty()) {
+            return;
+        }
+        List<RuleChainToRuleNodeMsg> msgs = new ArrayList<>(pendingMsgs);
+        pendingMsgs.clear();
         try {
-            processor.onRuleChainToRuleNodeMsg(envelope);
-            increaseMessagesProcessedCount();
+            processor.onRuleChainToRuleNodeMsgs(msgs);
+            increaseMessagesProcessedCount(msgs.size());
         } catch (Exception e) {
             logAndPersist("onRuleMsg", e);
         }
@@ -16,6 +16,7 @@
 package org.thingsboard.server.actors.ruleChain;
 
 import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.rule.engine.api.TbContext;
 import org.thingsboard.rule.engine.api.TbNode;
 import org.thingsboard.rule.engine.api.TbNodeConfiguration;
 import org.thingsboard.server.actors.ActorSystemContext;
@@ -37,6 +38,9 @@ import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
 import org.thingsboard.server.common.stats.TbApiUsageReportClient;
 import org.thingsboard.server.gen.transport.TransportProtos;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author Andrew Shvayka
  */
@@ -143,25 +147,91 @@ public class RuleNodeActorMessageProcessor extends ComponentMsgProcessor<RuleNod
     void onRuleChainToRuleNodeMsg(RuleChainToRuleNodeMsg msg) throws Exception {
         if (!isMyNodePartition()) {
             putToNodePartition(msg.getMsg());
-        } else {
-            msg.getMsg().getCallback().onProcessingStart(info);
-            checkComponentStateActive(msg.getMsg());
-            TbMsg tbMsg = msg.getMsg();
-            int ruleNodeCount = tbMsg.getAndIncrementRuleNodeCounter();
-            int maxRuleNodeExecutionsPerMessage = getTenantProfileConfiguration().getMaxRuleNodeExecsPerMessage();
-            if (maxRuleNodeExecutionsPerMessage == 0 || ruleNodeCount < maxRuleNodeExecutionsPerMessage) {
-                apiUsageClient.report(tenantId, tbMsg.getCustomerId(), ApiUsageRecordKey.RE_EXEC_COUNT);
-                if (ruleNode.isDebugMode()) {
-                    systemContext.persistDebugInput(tenantId, entityId, msg.getMsg(), msg.getFromRelationType());
-                }
-                try {
-                    tbNode.onMsg(msg.getCtx(), msg.getMsg());
-                } catch (Exception e) {
-                    msg.getCtx().tellFailure(msg.getMsg(), e);
+        } else if (prepareToProcess(msg)) {
+            try {
+                tbNode.onMsg(msg.getCtx(), msg.getMsg());
+            } catch (Exception e) {
+                msg.getCtx().tellFailure(msg.getMsg(), e);
+            }
+        }
+    }
+
+    void onRuleChainToRuleNodeMsgs(List<RuleChainToRuleNodeMsg> msgs) throws Exception {
+        if (msgs.size() == 1) {
+            onRuleChainToRuleNodeMsg(msgs.get(0));
+            return;
+        }
+        if (!isMyNodePartition()) {
+            msgs.forEach(msg -> putToNodePartition(msg.getMsg()));
+            return;
+        }
+        List<TbMsg> tbMsgs = new ArrayList<>(msgs.size());
+        TbContext batchCtx = null;
+        Exception error = null;
+        for (RuleChainToRuleNodeMsg msg : msgs) {
+            try {
+                if (!prepareToProcess(msg)) {
+                    continue;
                 }
-            } else {
-                tbMsg.getCallback().onFailure(new RuleNodeException("Message is processed by more then " + maxRuleNodeExecutionsPerMessage + " rule nodes!", ruleChainName, ruleNode));
+            } catch (RuleNodeException e) {
+                // the message is already failed by the state check
+                error = e;
+                continue;
+            } catch (Exception e) {
+                msg.getCtx().tellFailure(msg.getMsg(), e);
+                error = e;
+                continue;
+            }
+            // the messages are passed to the node with the context they were sent with, so a batch never mixes the contexts of different rule chain versions
+            if (batchCtx == null) {
+                batchCtx = msg.getCtx();
+            } else if (!isSameCtx(batchCtx, msg.getCtx())) {
+                onMsgBatch(batchCtx, tbMsgs);
+                tbMsgs = new ArrayList<>(msgs.size());
+                batchCtx = msg.getCtx();
+            }
+            tbMsgs.add(msg.getMsg());
+        }
+        if (!tbMsgs.isEmpty()) {
+            onMsgBatch(batchCtx, tbMsgs);
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private void onMsgBatch(TbContext ctx, List<TbMsg> tbMsgs) {
+        if (tbMsgs.size() == 1) {
+            TbMsg tbMsg = tbMsgs.get(0);
+            try {
+                tbNode.onMsg(ctx, tbMsg);
+            } catch (Exception e) {
+                ctx.tellFailure(tbMsg, e);
             }
+        } else {
+            tbNode.onMsgBatch(ctx, tbMsgs);
+        }
+    }
+
+    private static boolean isSameCtx(TbContext ctx, TbContext other) {
+        return ctx == other || (ctx instanceof DefaultTbContext defaultCtx && defaultCtx.hasSameNodeCtx(other));
+    }
+
+    private boolean prepareToProcess(RuleChainToRuleNodeMsg msg) throws RuleNodeException {
+        msg.getMsg().getCallback().onProcessingStart(info);
+        checkComponentStateActive(msg.getMsg());
+        TbMsg tbMsg = msg.getMsg();
+        int ruleNodeCount = tbMsg.getAndIncrementRuleNodeCounter();
+        int maxRuleNodeExecutionsPerMessage = getTenantProfileConfiguration().getMaxRuleNodeExecsPerMessage();
+        if (maxRuleNodeExecutionsPerMessage == 0 || ruleNodeCount < maxRuleNodeExecutionsPerMessage) {
+            apiUsageClient.report(tenantId, tbMsg.getCustomerId(), ApiUsageRecordKey.RE_EXEC_COUNT);
+            if (ruleNode.isDebugMode()) {
+                systemContext.persistDebugInput(tenantId, entityId, msg.getMsg(), msg.getFromRelationType());
+            }
+            return true;
+        } else {
+            tbMsg.getCallback().onFailure(new RuleNodeException("Message is processed by more then " + maxRuleNodeExecutionsPerMessage + " rule nodes!", ruleChainName, ruleNode));
+            return false;
         }
     }
 
@@ -47,4 +47,9 @@ public abstract class TbToRuleChainActorMsg extends TbRuleEngineActorMsg impleme
         String message = reason == TbActorStopReason.STOPPED ? String.format("Rule chain [%s] stopped", target.getId()) : String.format("Failed to initialize rule chain [%s]!", target.getId());
         msg.getCallback().onFailure(new RuleEngineException(message));
     }
+
+    @Override
+    public void onTbActorMailboxOverflow() {
+        msg.getCallback().onFailure(new RuleEngineException(String.format("Rule chain [%s] mailbox is full", target.getId())));
+    }
 }
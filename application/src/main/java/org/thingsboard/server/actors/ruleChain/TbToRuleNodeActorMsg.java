@@ -39,4 +39,9 @@ public abstract class TbToRuleNodeActorMsg extends TbRuleEngineActorMsg {
         String message = reason == TbActorStopReason.STOPPED ? "Rule node stopped" : "Failed to initialize rule node!";
         msg.getCallback().onFailure(new RuleNodeException(message, ctx.getRuleChainName(), ctx.getSelf()));
     }
+
+    @Override
+    public void onTbActorMailboxOverflow() {
+        msg.getCallback().onFailure(new RuleNodeException("Rule node mailbox is full", ctx.getRuleChainName(), ctx.getSelf()));
+    }
 }
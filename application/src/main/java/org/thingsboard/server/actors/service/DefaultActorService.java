@@ -15,6 +15,7 @@
  */
 package org.thingsboard.server.actors.service;
 
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
@@ -26,20 +27,27 @@ import org.thingsboard.common.util.ThingsBoardExecutors;
 import org.thingsboard.common.util.ThingsBoardThreadFactory;
 import org.thingsboard.server.actors.ActorSystemContext;
 import org.thingsboard.server.actors.DefaultTbActorSystem;
+import org.thingsboard.server.actors.TbActorMailboxLimit;
+import org.thingsboard.server.actors.TbActorMailboxOverflowPolicy;
+import org.thingsboard.server.actors.TbActorMailboxType;
 import org.thingsboard.server.actors.TbActorRef;
 import org.thingsboard.server.actors.TbActorSystem;
 import org.thingsboard.server.actors.TbActorSystemSettings;
+import org.thingsboard.server.actors.TbMailboxStats;
 import org.thingsboard.server.actors.app.AppActor;
 import org.thingsboard.server.actors.app.AppInitMsg;
 import org.thingsboard.server.actors.stats.StatsActor;
 import org.thingsboard.server.common.msg.queue.PartitionChangeMsg;
 import org.thingsboard.server.common.msg.queue.ServiceType;
+import org.thingsboard.server.common.stats.DefaultCounter;
+import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.queue.discovery.TbApplicationEventListener;
 import org.thingsboard.server.queue.discovery.event.PartitionChangeEvent;
 import org.thingsboard.server.queue.util.AfterStartUp;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Slf4j
@@ -53,6 +61,9 @@ public class DefaultActorService extends TbApplicationEventListener<PartitionCha
     @Autowired
     private ActorSystemContext actorContext;
 
+    @Autowired
+    private StatsFactory statsFactory;
+
     private TbActorSystem system;
 
     private TbActorRef appActor;
@@ -66,6 +77,15 @@ public class DefaultActorService extends TbApplicationEventListener<PartitionCha
     @Value("${actors.system.scheduler_pool_size:1}")
     private int schedulerPoolSize;
 
+    @Value("${actors.system.mailbox_type:CONCURRENT_LINKED}")
+    private TbActorMailboxType mailboxType;
+
+    @Value("${actors.system.mailbox_stats_enabled:false}")
+    private boolean mailboxStatsEnabled;
+
+    @Value("${actors.system.virtual_threads_enabled:false}")
+    private boolean virtualThreadsEnabled;
+
     @Value("${actors.system.app_dispatcher_pool_size:1}")
     private int appDispatcherSize;
 
@@ -78,17 +98,47 @@ public class DefaultActorService extends TbApplicationEventListener<PartitionCha
     @Value("${actors.system.rule_dispatcher_pool_size:8}")
     private int ruleDispatcherSize;
 
+    @Value("${actors.system.tenant_dispatcher_mailbox_capacity:0}")
+    private int tenantDispatcherMailboxCapacity;
+
+    @Value("${actors.system.tenant_dispatcher_mailbox_overflow_policy:REJECT}")
+    private TbActorMailboxOverflowPolicy tenantDispatcherMailboxOverflowPolicy;
+
+    @Value("${actors.system.device_dispatcher_mailbox_capacity:0}")
+    private int deviceDispatcherMailboxCapacity;
+
+    @Value("${actors.system.device_dispatcher_mailbox_overflow_policy:REJECT}")
+    private TbActorMailboxOverflowPolicy deviceDispatcherMailboxOverflowPolicy;
+
+    @Value("${actors.system.rule_dispatcher_mailbox_capacity:0}")
+    private int ruleDispatcherMailboxCapacity;
+
+    @Value("${actors.system.rule_dispatcher_mailbox_overflow_policy:REJECT}")
+    private TbActorMailboxOverflowPolicy ruleDispatcherMailboxOverflowPolicy;
+
+    @Value("${actors.system.mailbox_block_timeout_ms:1000}")
+    private long mailboxBlockTimeoutMs;
+
+    @Value("${actors.system.device_dispatcher_sharded:false}")
+    private boolean deviceDispatcherSharded;
+
+    @Value("${actors.system.rule_dispatcher_sharded:false}")
+    private boolean ruleDispatcherSharded;
+
     @PostConstruct
     public void initActorSystem() {
         log.info("Initializing actor system.");
         actorContext.setActorService(this);
-        TbActorSystemSettings settings = new TbActorSystemSettings(actorThroughput, schedulerPoolSize, maxActorInitAttempts);
+        TbActorSystemSettings settings = new TbActorSystemSettings(actorThroughput, schedulerPoolSize, maxActorInitAttempts, mailboxType, mailboxStatsEnabled);
         system = new DefaultTbActorSystem(settings);
 
-        system.createDispatcher(APP_DISPATCHER_NAME, initDispatcherExecutor(APP_DISPATCHER_NAME, appDispatcherSize));
-        system.createDispatcher(TENANT_DISPATCHER_NAME, initDispatcherExecutor(TENANT_DISPATCHER_NAME, tenantDispatcherSize));
-        system.createDispatcher(DEVICE_DISPATCHER_NAME, initDispatcherExecutor(DEVICE_DISPATCHER_NAME, deviceDispatcherSize));
-        system.createDispatcher(RULE_DISPATCHER_NAME, initDispatcherExecutor(RULE_DISPATCHER_NAME, ruleDispatcherSize));
+        initDispatcher(APP_DISPATCHER_NAME, appDispatcherSize, false, TbActorMailboxLimit.UNBOUNDED);
+        initDispatcher(TENANT_DISPATCHER_NAME, tenantDispatcherSize, false,
+                new TbActorMailboxLimit(tenantDispatcherMailboxCapacity, tenantDispatcherMailboxOverflowPolicy, mailboxBlockTimeoutMs));
+        initDispatcher(DEVICE_DISPATCHER_NAME, deviceDispatcherSize, deviceDispatcherSharded,
+                new TbActorMailboxLimit(deviceDispatcherMailboxCapacity, deviceDispatcherMailboxOverflowPolicy, mailboxBlockTimeoutMs));
+        initDispatcher(RULE_DISPATCHER_NAME, ruleDispatcherSize, ruleDispatcherSharded,
+                new TbActorMailboxLimit(ruleDispatcherMailboxCapacity, ruleDispatcherMailboxOverflowPolicy, mailboxBlockTimeoutMs));
 
         actorContext.setActorSystem(system);
 
@@ -101,11 +151,33 @@ public class DefaultActorService extends TbApplicationEventListener<PartitionCha
         log.info("Actor system initialized.");
     }
 
-    private ExecutorService initDispatcherExecutor(String dispatcherName, int poolSize) {
+    private void initDispatcher(String dispatcherName, int poolSize, boolean sharded, TbActorMailboxLimit mailboxLimit) {
         if (poolSize == 0) {
             int cores = Runtime.getRuntime().availableProcessors();
             poolSize = Math.max(1, cores / 2);
         }
+        if (sharded) {
+            system.createShardedDispatcher(dispatcherName, poolSize, mailboxLimit);
+        } else {
+            system.createDispatcher(dispatcherName, initDispatcherExecutor(dispatcherName, poolSize), mailboxLimit);
+        }
+        TbMailboxStats stats = system.getMailboxStats(dispatcherName);
+        if (mailboxLimit.isBounded()) {
+            log.info("[{}] Mailbox capacity: {}, overflow policy: {}", dispatcherName, mailboxLimit.getCapacity(), mailboxLimit.getOverflowPolicy());
+            DefaultCounter overflowCounter = statsFactory.createDefaultCounter("actorMailboxOverflowMsgs", "dispatcher", dispatcherName);
+            stats.setOverflowListener(overflowCounter::increment);
+        }
+        if (mailboxStatsEnabled) {
+            statsFactory.createGauge("actorMailboxQueueSize", stats.getQueueSize(), "dispatcher", dispatcherName);
+            Timer timeInQueueTimer = statsFactory.createTimer("actorMailboxTimeInQueue", "dispatcher", dispatcherName);
+            stats.setTimeInQueueListener(timeInQueueNanos -> timeInQueueTimer.record(timeInQueueNanos, TimeUnit.NANOSECONDS));
+        }
+    }
+
+    private ExecutorService initDispatcherExecutor(String dispatcherName, int poolSize) {
+        if (virtualThreadsEnabled) {
+            return ThingsBoardExecutors.newVirtualThreadPerTaskOrWorkStealingPool(true, poolSize, dispatcherName);
+        }
         if (poolSize == 1) {
             return Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName(dispatcherName));
         } else {
@@ -51,6 +51,8 @@ import org.springframework.web.context.request.async.DeferredResult;
 import org.thingsboard.common.util.JacksonUtil;
 import org.thingsboard.rule.engine.api.MailService;
 import org.thingsboard.rule.engine.api.SmsService;
+import org.thingsboard.server.cache.TbCacheStatsInfo;
+import org.thingsboard.server.cache.TbCacheStatsService;
 import org.thingsboard.server.common.data.AdminSettings;
 import org.thingsboard.server.common.data.FeaturesInfo;
 import org.thingsboard.server.common.data.StringUtils;
@@ -116,6 +118,7 @@ public class AdminController extends BaseController {
     private final UpdateService updateService;
     private final SystemInfoService systemInfoService;
     private final AuditLogService auditLogService;
+    private final TbCacheStatsService cacheStatsService;
 
     @Value("${queue.vc.request-timeout:180000}")
     private int vcRequestTimeout;
@@ -393,6 +396,16 @@ public class AdminController extends BaseController {
         return systemInfoService.getSystemInfo();
     }
 
+    @ApiOperation(value = "Get cache stats (getCacheStats)",
+            notes = "Get hits, misses, load times and sizes of the caches of the node that processes the request. "
+                    + "The counters are accumulated since the node start. "
+                    + SYSTEM_AUTHORITY_PARAGRAPH)
+    @PreAuthorize("hasAuthority('SYS_ADMIN')")
+    @GetMapping("/cacheStats")
+    public List<TbCacheStatsInfo> getCacheStats() {
+        return cacheStatsService.getStats();
+    }
+
     @ApiOperation(value = "Get features info (getFeaturesInfo)",
             notes = "Get information about enabled/disabled features. "
                     + SYSTEM_AUTHORITY_PARAGRAPH)
@@ -25,9 +25,17 @@ public class DbCallbackExecutorService extends AbstractListeningExecutor {
     @Value("${actors.rule.db_callback_thread_pool_size}")
     private int dbCallbackExecutorThreadPoolSize;
 
+    @Value("${actors.rule.db_callback_virtual_threads_enabled:false}")
+    private boolean dbCallbackExecutorVirtualThreadsEnabled;
+
     @Override
     protected int getThreadPollSize() {
         return dbCallbackExecutorThreadPoolSize;
     }
 
+    @Override
+    protected boolean isVirtualThreadsEnabled() {
+        return dbCallbackExecutorVirtualThreadsEnabled;
+    }
+
 }
@@ -25,10 +25,18 @@ public class ExternalCallExecutorService extends AbstractListeningExecutor {
     @Value("${actors.rule.external_call_thread_pool_size}")
     private int externalCallExecutorThreadPoolSize;
 
+    @Value("${actors.rule.external_call_virtual_threads_enabled:false}")
+    private boolean externalCallExecutorVirtualThreadsEnabled;
+
     @Override
     protected int getThreadPollSize() {
         return externalCallExecutorThreadPoolSize;
     }
 
+    @Override
+    protected boolean isVirtualThreadsEnabled() {
+        return externalCallExecutorVirtualThreadsEnabled;
+    }
+
 }
 
@@ -0,0 +1,51 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.install;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.thingsboard.server.dao.util.EmbeddedTsDao;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+@Service
+@EmbeddedTsDao
+@Profile("install")
+@Slf4j
+public class EmbeddedTsDatabaseSchemaService implements TsDatabaseSchemaService {
+
+    @Value("${embedded.ts.data_dir}")
+    private String dataDir;
+
+    @Override
+    public void createDatabaseSchema() throws Exception {
+        createDatabaseSchema(true);
+    }
+
+    @Override
+    public void createDatabaseSchema(boolean createIndexes) throws Exception {
+        log.info("Creating embedded time-series storage directory {}", dataDir);
+        Files.createDirectories(Paths.get(dataDir));
+    }
+
+    @Override
+    public void createDatabaseIndexes() throws Exception {
+    }
+
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.partition;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.common.msg.queue.ServiceType;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.dao.device.DeviceCacheWarmUpService;
+import org.thingsboard.server.queue.discovery.PartitionService;
+import org.thingsboard.server.queue.util.TbCoreComponent;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads the devices of the newly assigned core partitions into the caches in the background,
+ * so the first messages after a restart or a rebalance do not all go to the database.
+ * The warm-up runs on a separate thread and does not delay the subscription of the consumers to the new partitions.
+ */
+@Slf4j
+@TbCoreComponent
+@Service
+@RequiredArgsConstructor
+public class TbCoreCacheWarmUpService {
+
+    private final PartitionService partitionService;
+    private final DeviceCacheWarmUpService deviceCacheWarmUpService;
+
+    @Value("${cache.warm_up.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cache.warm_up.time_budget_ms:30000}")
+    private long timeBudgetMs;
+
+    private ExecutorService executor;
+
+    private Set<TopicPartitionInfo> currentPartitions = Collections.emptySet();
+    // incremented on every partition change, so the running warm-up stops when its partitions are outdated
+    private volatile long generation;
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            executor = Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName("tb-core-cache-warm-up"));
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public synchronized void onPartitionsChange(Set<TopicPartitionInfo> partitions) {
+        Set<TopicPartitionInfo> addedPartitions = new HashSet<>(partitions);
+        addedPartitions.removeAll(currentPartitions);
+        currentPartitions = new HashSet<>(partitions);
+        long warmUpGeneration = ++generation;
+        if (!enabled || addedPartitions.isEmpty()) {
+            return;
+        }
+        executor.submit(() -> warmUp(addedPartitions, warmUpGeneration));
+    }
+
+    private void warmUp(Set<TopicPartitionInfo> addedPartitions, long warmUpGeneration) {
+        if (warmUpGeneration != generation) {
+            log.debug("Skipping cache warm-up for outdated partitions {}", addedPartitions);
+            return;
+        }
+        long startTs = System.currentTimeMillis();
+        try {
+            int count = deviceCacheWarmUpService.warmUp(idInfo -> {
+                if (warmUpGeneration != generation) {
+                    throw new CancellationException();
+                }
+                return addedPartitions.contains(partitionService.resolve(ServiceType.TB_CORE, idInfo.getTenantId(), idInfo.getDeviceId()));
+            }, startTs + timeBudgetMs);
+            log.info("Warmed up cache for {} devices of {} new partitions in {} ms", count, addedPartitions.size(), System.currentTimeMillis() - startTs);
+        } catch (CancellationException e) {
+            log.info("Stopped cache warm-up for {} partitions after {} ms because of the new partition change", addedPartitions.size(), System.currentTimeMillis() - startTs);
+        } catch (Exception e) {
+            log.warn("Failed to warm up cache for partitions {}", addedPartitions, e);
+        }
+    }
+
+}
@@ -32,6 +32,7 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.CloseStatus;
 import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.kv.BaseReadTsKvQuery;
 import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
 import org.thingsboard.server.common.data.kv.ReadTsKvQueryResult;
@@ -71,7 +72,9 @@ import org.thingsboard.server.service.ws.telemetry.cmd.v2.UnsubscribeCmd;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -650,29 +653,37 @@ public class DefaultTbEntityDataSubscriptionService implements TbEntityDataSubsc
                     .filter(key -> key.getType().equals(EntityKeyType.TIME_SERIES))
                     .map(EntityKey::getKey).collect(Collectors.toList());
 
-            Map<EntityData, ListenableFuture<Map<String, TsValue>>> missingTelemetryFutures = new HashMap<>();
+            Map<EntityData, Set<String>> missingTsKeysByEntity = new HashMap<>();
+            Set<EntityId> missingEntityIds = new HashSet<>();
+            Set<String> missingTsKeys = new HashSet<>();
             for (EntityData entityData : ctx.getData().getData()) {
                 Map<EntityKeyType, Map<String, TsValue>> latestEntityData = entityData.getLatest();
                 Map<String, TsValue> tsEntityData = latestEntityData.get(EntityKeyType.TIME_SERIES);
-                Set<String> missingTsKeys = new LinkedHashSet<>(allTsKeys);
+                Set<String> missingEntityTsKeys = new LinkedHashSet<>(allTsKeys);
                 if (tsEntityData != null) {
-                    missingTsKeys.removeAll(tsEntityData.keySet());
+                    missingEntityTsKeys.removeAll(tsEntityData.keySet());
                 } else {
-                    tsEntityData = new HashMap<>();
-                    latestEntityData.put(EntityKeyType.TIME_SERIES, tsEntityData);
+                    latestEntityData.put(EntityKeyType.TIME_SERIES, new HashMap<>());
+                }
+                if (!missingEntityTsKeys.isEmpty()) {
+                    missingTsKeysByEntity.put(entityData, missingEntityTsKeys);
+                    missingEntityIds.add(entityData.getEntityId());
+                    missingTsKeys.addAll(missingEntityTsKeys);
                 }
-
-                ListenableFuture<List<TsKvEntry>> missingTsData = tsService.findLatest(ctx.getTenantId(), entityData.getEntityId(), missingTsKeys);
-                missingTelemetryFutures.put(entityData, Futures.transform(missingTsData, this::toTsValue, MoreExecutors.directExecutor()));
             }
-            Futures.addCallback(Futures.allAsList(missingTelemetryFutures.values()), new FutureCallback<>() {
+            // one bulk lookup for all the entities of the page instead of a lookup per entity
+            ListenableFuture<Map<EntityId, List<TsKvEntry>>> missingTelemetryFuture = missingEntityIds.isEmpty() ?
+                    Futures.immediateFuture(Collections.emptyMap()) :
+                    tsService.findLatestByEntityIds(ctx.getTenantId(), missingEntityIds, missingTsKeys);
+            Futures.addCallback(missingTelemetryFuture, new FutureCallback<>() {
                 @Override
-                public void onSuccess(@Nullable List<Map<String, TsValue>> result) {
-                    missingTelemetryFutures.forEach((key, value) -> {
-                        try {
-                            key.getLatest().get(EntityKeyType.TIME_SERIES).putAll(value.get());
-                        } catch (InterruptedException | ExecutionException e) {
-                            log.warn("[{}][{}] Failed to lookup latest telemetry: {}:{}", ctx.getSessionId(), ctx.getCmdId(), key.getEntityId(), allTsKeys, e);
+                public void onSuccess(@Nullable Map<EntityId, List<TsKvEntry>> result) {
+                    long ts = System.currentTimeMillis();
+                    missingTsKeysByEntity.forEach((entityData, keys) -> {
+                        Map<String, TsValue> found = result != null ? toTsValue(result.getOrDefault(entityData.getEntityId(), Collections.emptyList())) : Collections.emptyMap();
+                        Map<String, TsValue> tsEntityData = entityData.getLatest().get(EntityKeyType.TIME_SERIES);
+                        for (String key : keys) {
+                            tsEntityData.put(key, found.getOrDefault(key, new TsValue(ts, null)));
                         }
                     });
                     EntityDataUpdate update;
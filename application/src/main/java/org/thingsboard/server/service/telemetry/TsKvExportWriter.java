@@ -0,0 +1,149 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.telemetry;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the exported time series records to the output stream one by one as they are read from the DB.
+ */
+public abstract class TsKvExportWriter implements Closeable {
+
+    public enum Format {
+        JSON("application/x-ndjson", "jsonl"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String fileExtension;
+
+        Format(String contentType, String fileExtension) {
+            this.contentType = contentType;
+            this.fileExtension = fileExtension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getFileExtension() {
+            return fileExtension;
+        }
+    }
+
+    protected final Writer writer;
+
+    private TsKvExportWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    public static TsKvExportWriter create(Format format, OutputStream out) throws IOException {
+        return switch (format) {
+            case JSON -> new JsonLinesWriter(out);
+            case CSV -> new CsvWriter(out);
+        };
+    }
+
+    public abstract void write(TsKvEntry entry) throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * A JSON object per line: {"ts":1609459200000,"key":"temperature","value":22.4}
+     */
+    private static class JsonLinesWriter extends TsKvExportWriter {
+
+        private final JsonGenerator generator;
+
+        private JsonLinesWriter(OutputStream out) throws IOException {
+            super(out);
+            this.generator = JacksonUtil.OBJECT_MAPPER.getFactory().createGenerator(writer);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void write(TsKvEntry entry) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("ts", entry.getTs());
+            generator.writeStringField("key", entry.getKey());
+            generator.writeFieldName("value");
+            switch (entry.getDataType()) {
+                case BOOLEAN -> generator.writeBoolean(entry.getBooleanValue().orElse(false));
+                case LONG -> generator.writeNumber(entry.getLongValue().orElse(0L));
+                case DOUBLE -> generator.writeNumber(entry.getDoubleValue().orElse(0.0));
+                case JSON -> generator.writeRawValue(entry.getJsonValue().orElse("null"));
+                default -> generator.writeString(entry.getValueAsString());
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.flush();
+            super.close();
+        }
+
+    }
+
+    /**
+     * The 'ts,key,value' header followed by a line per record.
+     */
+    private static class CsvWriter extends TsKvExportWriter {
+
+        private CsvWriter(OutputStream out) throws IOException {
+            super(out);
+            writer.write("ts,key,value\n");
+        }
+
+        @Override
+        public void write(TsKvEntry entry) throws IOException {
+            writer.write(Long.toString(entry.getTs()));
+            writer.write(',');
+            writeField(entry.getKey());
+            writer.write(',');
+            writeField(entry.getValueAsString());
+            writer.write('\n');
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+            } else {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,275 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors.ruleChain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.rule.engine.api.TbContext;
+import org.thingsboard.rule.engine.api.TbNode;
+import org.thingsboard.rule.engine.api.TbNodeConfiguration;
+import org.thingsboard.rule.engine.filter.TbMsgTypeFilterNodeConfiguration;
+import org.thingsboard.server.actors.ActorSystemContext;
+import org.thingsboard.server.actors.TbActorCtx;
+import org.thingsboard.server.actors.TbActorId;
+import org.thingsboard.server.actors.TbActorRef;
+import org.thingsboard.server.actors.TbEntityActorId;
+import org.thingsboard.server.actors.stats.StatsPersistMsg;
+import org.thingsboard.server.common.data.TenantProfile;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.RuleChainId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.msg.TbMsgType;
+import org.thingsboard.server.common.data.msg.TbNodeConnectionType;
+import org.thingsboard.server.common.data.relation.EntityRelation;
+import org.thingsboard.server.common.data.relation.RelationTypeGroup;
+import org.thingsboard.server.common.data.rule.RuleChain;
+import org.thingsboard.server.common.data.rule.RuleChainType;
+import org.thingsboard.server.common.data.rule.RuleNode;
+import org.thingsboard.server.common.data.tenant.profile.DefaultTenantProfileConfiguration;
+import org.thingsboard.server.common.data.tenant.profile.TenantProfileData;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+import org.thingsboard.server.common.msg.queue.QueueToRuleEngineMsg;
+import org.thingsboard.server.common.msg.queue.RuleNodeException;
+import org.thingsboard.server.common.msg.queue.RuleNodeInfo;
+import org.thingsboard.server.common.msg.queue.TbMsgCallback;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.common.stats.TbApiUsageReportClient;
+import org.thingsboard.server.dao.rule.RuleChainService;
+import org.thingsboard.server.dao.tenant.TbTenantProfileCache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RuleChainActorMessageProcessorTest {
+
+    TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    RuleChainId ruleChainId = new RuleChainId(UUID.randomUUID());
+    DeviceId deviceId = new DeviceId(UUID.randomUUID());
+
+    ActorSystemContext systemContext;
+    RuleChainService ruleChainService;
+    TbActorCtx actorCtx;
+    TbActorRef statsActor;
+    Map<TbActorId, TbActorRef> nodeActors;
+
+    RuleChain ruleChain;
+    RuleNode switchNode;
+    RuleNode filterNode;
+    RuleNode saveNode;
+
+    @Before
+    public void setUp() {
+        systemContext = mock(ActorSystemContext.class);
+        ruleChainService = mock(RuleChainService.class);
+        actorCtx = mock(TbActorCtx.class);
+        statsActor = mock(TbActorRef.class);
+        nodeActors = new HashMap<>();
+
+        switchNode = createRuleNode("Switch", "org.thingsboard.rule.engine.filter.TbMsgTypeSwitchNode", JacksonUtil.newObjectNode());
+        filterNode = createRuleNode("Filter", "org.thingsboard.rule.engine.filter.TbMsgTypeFilterNode",
+                JacksonUtil.valueToTree(new TbMsgTypeFilterNodeConfiguration().defaultConfiguration()));
+        saveNode = createRuleNode("Save", "org.thingsboard.rule.engine.telemetry.TbMsgTimeseriesNode", JacksonUtil.newObjectNode());
+        ruleChain = new RuleChain(ruleChainId);
+        ruleChain.setTenantId(tenantId);
+        ruleChain.setName("Root Rule Chain");
+        ruleChain.setType(RuleChainType.CORE);
+        ruleChain.setFirstRuleNodeId(switchNode.getId());
+
+        when(ruleChainService.findRuleChainById(tenantId, ruleChainId)).thenReturn(ruleChain);
+        when(ruleChainService.getRuleChainNodes(tenantId, ruleChainId)).thenReturn(List.of(switchNode, filterNode, saveNode));
+        when(ruleChainService.getRuleNodeRelations(TenantId.SYS_TENANT_ID, switchNode.getId())).thenReturn(List.of(
+                new EntityRelation(switchNode.getId(), filterNode.getId(), TbMsgType.POST_TELEMETRY_REQUEST.getRuleNodeConnection(), RelationTypeGroup.RULE_NODE)));
+        when(ruleChainService.getRuleNodeRelations(TenantId.SYS_TENANT_ID, filterNode.getId())).thenReturn(List.of(
+                new EntityRelation(filterNode.getId(), saveNode.getId(), TbNodeConnectionType.TRUE, RelationTypeGroup.RULE_NODE)));
+        when(ruleChainService.getRuleNodeRelations(TenantId.SYS_TENANT_ID, saveNode.getId())).thenReturn(List.of());
+
+        TenantProfile tenantProfile = new TenantProfile();
+        TenantProfileData profileData = new TenantProfileData();
+        profileData.setConfiguration(DefaultTenantProfileConfiguration.builder().build());
+        tenantProfile.setProfileData(profileData);
+        TbTenantProfileCache tenantProfileCache = mock(TbTenantProfileCache.class);
+        when(tenantProfileCache.get(tenantId)).thenReturn(tenantProfile);
+
+        when(systemContext.getRuleChainService()).thenReturn(ruleChainService);
+        when(systemContext.getTenantProfileCache()).thenReturn(tenantProfileCache);
+        when(systemContext.getApiUsageClient()).thenReturn(mock(TbApiUsageReportClient.class));
+        when(systemContext.getStatsActor()).thenReturn(statsActor);
+        when(systemContext.resolve(eq(tenantId), eq(deviceId), any(TbMsg.class))).thenReturn(new TopicPartitionInfo("Main", tenantId, 0, true));
+        when(systemContext.isRuleChainFusedExecutionEnabled()).thenReturn(true);
+        when(systemContext.getRuleChainFusedExecutionMaxNodes()).thenReturn(16);
+        when(actorCtx.getOrCreateChildActor(any(), any(), any(), any())).thenAnswer(invocation ->
+                nodeActors.computeIfAbsent(invocation.getArgument(0), actorId -> mock(TbActorRef.class)));
+    }
+
+    @Test
+    public void givenStatelessNodes_whenMsgPushed_thenNodesAreExecutedInlineUntilStatefulNode() {
+        switchNode.setDebugMode(true);
+        TbMsgCallback callback = newCallback();
+
+        startProcessor().onQueueToRuleEngineMsg(new QueueToRuleEngineMsg(tenantId, newMsg(callback), null, null));
+
+        verify(nodeActor(switchNode), never()).tell(any());
+        verify(nodeActor(filterNode), never()).tell(any());
+        ArgumentCaptor<RuleChainToRuleNodeMsg> captor = ArgumentCaptor.forClass(RuleChainToRuleNodeMsg.class);
+        verify(nodeActor(saveNode)).tell(captor.capture());
+        assertThat(captor.getValue().getFromRelationType()).isEqualTo(TbNodeConnectionType.TRUE);
+
+        verify(callback, times(2)).onProcessingStart(any(RuleNodeInfo.class));
+        verify(callback).onProcessingEnd(switchNode.getId());
+        verify(callback).onProcessingEnd(filterNode.getId());
+        verify(callback, never()).onFailure(any());
+        verify(systemContext).persistDebugInput(eq(tenantId), eq(switchNode.getId()), any(TbMsg.class), eq(""));
+        verify(systemContext).persistDebugOutput(eq(tenantId), eq(switchNode.getId()), any(TbMsg.class),
+                eq(TbMsgType.POST_TELEMETRY_REQUEST.getRuleNodeConnection()), eq(null));
+        verify(systemContext, never()).persistDebugInput(any(), eq(filterNode.getId()), any(), any());
+    }
+
+    @Test
+    public void givenFusedExecutionDisabled_whenMsgPushed_thenMsgIsSentToFirstNodeActor() {
+        when(systemContext.isRuleChainFusedExecutionEnabled()).thenReturn(false);
+
+        startProcessor().onQueueToRuleEngineMsg(new QueueToRuleEngineMsg(tenantId, newMsg(newCallback()), null, null));
+
+        verify(nodeActor(switchNode)).tell(any(RuleChainToRuleNodeMsg.class));
+        verify(nodeActor(filterNode), never()).tell(any());
+        verify(nodeActor(saveNode), never()).tell(any());
+    }
+
+    @Test
+    public void givenMaxFusedNodesReached_whenMsgPushed_thenNextNodeGetsMsgThroughActor() {
+        when(systemContext.getRuleChainFusedExecutionMaxNodes()).thenReturn(1);
+
+        startProcessor().onQueueToRuleEngineMsg(new QueueToRuleEngineMsg(tenantId, newMsg(newCallback()), null, null));
+
+        verify(nodeActor(switchNode), never()).tell(any());
+        verify(nodeActor(filterNode)).tell(any(RuleChainToRuleNodeMsg.class));
+        verify(nodeActor(saveNode), never()).tell(any());
+    }
+
+    @Test
+    public void givenMsgsExecutedInline_whenStatsPersistTick_thenStatsAreReportedPerNode() {
+        RuleChainActorMessageProcessor processor = startProcessor();
+        processor.onQueueToRuleEngineMsg(new QueueToRuleEngineMsg(tenantId, newMsg(newCallback()), null, null));
+        processor.onQueueToRuleEngineMsg(new QueueToRuleEngineMsg(tenantId, newMsg(newCallback()), null, null));
+
+        processor.onStatsPersistTick();
+
+        ArgumentCaptor<StatsPersistMsg> captor = ArgumentCaptor.forClass(StatsPersistMsg.class);
+        verify(statsActor, times(2)).tell(captor.capture());
+        assertThat(captor.getAllValues()).extracting(StatsPersistMsg::getEntityId)
+                .containsExactlyInAnyOrder(switchNode.getId(), filterNode.getId());
+        assertThat(captor.getAllValues()).extracting(StatsPersistMsg::getMessagesProcessed).containsOnly(2L);
+
+        processor.onStatsPersistTick();
+        ArgumentCaptor<StatsPersistMsg> nextCaptor = ArgumentCaptor.forClass(StatsPersistMsg.class);
+        verify(statsActor, times(4)).tell(nextCaptor.capture());
+        assertThat(nextCaptor.getAllValues().subList(2, 4)).allMatch(StatsPersistMsg::isEmpty);
+    }
+
+    @Test
+    public void givenFailingNode_whenMsgExecutedInline_thenFailureIsToldOnceAsByActor() throws Exception {
+        RuleNode failingNode = createRuleNode("Failing", FailingNode.class.getName(), JacksonUtil.newObjectNode());
+        List<RuleNodeToRuleChainTellNextMsg> outputs = new ArrayList<>();
+        FusedRuleNode fusedNode = new FusedRuleNode(systemContext, ruleChain.getName(),
+                new RuleNodeCtx(tenantId, mock(TbActorRef.class), mock(TbActorRef.class), failingNode), outputs::add);
+
+        fusedNode.onMsg(newMsg(newCallback()));
+        fusedNode.onMsg(newMsg(newCallback()));
+
+        assertThat(outputs).hasSize(2).allMatch(msg -> msg.getRelationTypes().contains(TbNodeConnectionType.FAILURE));
+        verify(systemContext, never()).persistError(any(), any(), any(), any());
+        StatsPersistMsg stats = fusedNode.getAndResetStats(tenantId);
+        assertThat(stats.getMessagesProcessed()).isEqualTo(2);
+        assertThat(stats.getErrorsOccurred()).isZero();
+    }
+
+    @Test
+    public void givenDestroyedNode_whenStateChecked_thenMsgIsFailedAndErrorIsPersisted() throws Exception {
+        RuleNode failingNode = createRuleNode("Failing", FailingNode.class.getName(), JacksonUtil.newObjectNode());
+        when(systemContext.getRuleNodeErrorPersistFrequency()).thenReturn(3000L);
+        FusedRuleNode fusedNode = new FusedRuleNode(systemContext, ruleChain.getName(),
+                new RuleNodeCtx(tenantId, mock(TbActorRef.class), mock(TbActorRef.class), failingNode), msg -> {});
+        TbMsgCallback callback = newCallback();
+        assertThat(fusedNode.checkComponentStateActive(newMsg(callback))).isTrue();
+
+        fusedNode.destroy();
+
+        assertThat(fusedNode.checkComponentStateActive(newMsg(callback))).isFalse();
+        verify(callback).onFailure(any(RuleNodeException.class));
+        verify(systemContext).persistError(eq(tenantId), eq(failingNode.getId()), eq("onRuleMsg"), any(RuleNodeException.class));
+        assertThat(fusedNode.getAndResetStats(tenantId).getErrorsOccurred()).isEqualTo(1);
+    }
+
+    private RuleChainActorMessageProcessor startProcessor() {
+        RuleChainActorMessageProcessor processor = new RuleChainActorMessageProcessor(tenantId, ruleChain, systemContext, actorCtx, actorCtx);
+        processor.start(actorCtx);
+        return processor;
+    }
+
+    private TbMsg newMsg(TbMsgCallback callback) {
+        return TbMsg.newMsg(TbMsgType.POST_TELEMETRY_REQUEST, deviceId, TbMsgMetaData.EMPTY, TbMsg.EMPTY_JSON_OBJECT, callback);
+    }
+
+    private TbMsgCallback newCallback() {
+        TbMsgCallback callback = mock(TbMsgCallback.class);
+        when(callback.isMsgValid()).thenReturn(true);
+        return callback;
+    }
+
+    private TbActorRef nodeActor(RuleNode ruleNode) {
+        return nodeActors.get(new TbEntityActorId(ruleNode.getId()));
+    }
+
+    private RuleNode createRuleNode(String name, String type, JsonNode configuration) {
+        RuleNode ruleNode = new RuleNode(new RuleNodeId(UUID.randomUUID()));
+        ruleNode.setRuleChainId(ruleChainId);
+        ruleNode.setName(name);
+        ruleNode.setType(type);
+        ruleNode.setConfiguration(configuration);
+        return ruleNode;
+    }
+
+    public static class FailingNode implements TbNode {
+
+        @Override
+        public void init(TbContext ctx, TbNodeConfiguration configuration) {
+        }
+
+        @Override
+        public void onMsg(TbContext ctx, TbMsg msg) {
+            throw new RuntimeException("Failed to process message");
+        }
+
+    }
+
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors.ruleChain;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.rule.engine.api.TbContext;
+import org.thingsboard.rule.engine.api.TbNode;
+import org.thingsboard.rule.engine.api.TbNodeConfiguration;
+import org.thingsboard.server.actors.ActorSystemContext;
+import org.thingsboard.server.actors.TbActorRef;
+import org.thingsboard.server.common.data.TenantProfile;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.RuleChainId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.msg.TbMsgType;
+import org.thingsboard.server.common.data.msg.TbNodeConnectionType;
+import org.thingsboard.server.common.data.rule.RuleNode;
+import org.thingsboard.server.common.data.tenant.profile.DefaultTenantProfileConfiguration;
+import org.thingsboard.server.common.data.tenant.profile.TenantProfileData;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+import org.thingsboard.server.common.msg.queue.TbMsgCallback;
+import org.thingsboard.server.common.stats.TbApiUsageReportClient;
+import org.thingsboard.server.dao.rule.RuleChainService;
+import org.thingsboard.server.dao.tenant.TbTenantProfileCache;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RuleNodeActorMessageProcessorTest {
+
+    TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    RuleChainId ruleChainId = new RuleChainId(UUID.randomUUID());
+    DeviceId deviceId = new DeviceId(UUID.randomUUID());
+
+    ActorSystemContext systemContext;
+    TbActorRef chainActor;
+    RuleNode ruleNode;
+    RuleNodeActorMessageProcessor processor;
+
+    @Before
+    public void setUp() throws Exception {
+        RecordingNode.calls.clear();
+        systemContext = mock(ActorSystemContext.class);
+        chainActor = mock(TbActorRef.class);
+
+        ruleNode = new RuleNode(new RuleNodeId(UUID.randomUUID()));
+        ruleNode.setRuleChainId(ruleChainId);
+        ruleNode.setName("Recording");
+        ruleNode.setType(RecordingNode.class.getName());
+        ruleNode.setConfiguration(JacksonUtil.newObjectNode());
+        ruleNode.setDebugMode(true);
+
+        RuleChainService ruleChainService = mock(RuleChainService.class);
+        when(ruleChainService.findRuleNodeById(tenantId, ruleNode.getId())).thenReturn(ruleNode);
+        TenantProfile tenantProfile = new TenantProfile();
+        TenantProfileData profileData = new TenantProfileData();
+        profileData.setConfiguration(DefaultTenantProfileConfiguration.builder().build());
+        tenantProfile.setProfileData(profileData);
+        TbTenantProfileCache tenantProfileCache = mock(TbTenantProfileCache.class);
+        when(tenantProfileCache.get(tenantId)).thenReturn(tenantProfile);
+
+        when(systemContext.getRuleChainService()).thenReturn(ruleChainService);
+        when(systemContext.getTenantProfileCache()).thenReturn(tenantProfileCache);
+        when(systemContext.getApiUsageClient()).thenReturn(mock(TbApiUsageReportClient.class));
+
+        processor = new RuleNodeActorMessageProcessor(tenantId, "Root Rule Chain", ruleNode.getId(), systemContext, chainActor, mock(TbActorRef.class));
+        processor.start(null);
+    }
+
+    @Test
+    public void givenMsgFailedToPrepare_whenBatchProcessed_thenOnlyThisMsgIsFailedAndOthersArePassedToNode() {
+        TbContext ctx = newCtx();
+        TbMsg msg1 = newMsg();
+        TbMsg msg2 = newMsg();
+        TbMsg msg3 = newMsg();
+        RuntimeException error = new RuntimeException("Failed to persist debug input");
+        doThrow(error).when(systemContext).persistDebugInput(eq(tenantId), eq(ruleNode.getId()), same(msg2), any());
+
+        assertThatThrownBy(() -> processor.onRuleChainToRuleNodeMsgs(List.of(
+                new RuleChainToRuleNodeMsg(ctx, msg1, ""),
+                new RuleChainToRuleNodeMsg(ctx, msg2, ""),
+                new RuleChainToRuleNodeMsg(ctx, msg3, "")))).isSameAs(error);
+
+        assertThat(RecordingNode.calls).hasSize(1);
+        assertThat(RecordingNode.calls.get(0).ctx()).isSameAs(ctx);
+        assertThat(RecordingNode.calls.get(0).msgs()).containsExactly(msg1, msg3);
+        ArgumentCaptor<RuleNodeToRuleChainTellNextMsg> captor = ArgumentCaptor.forClass(RuleNodeToRuleChainTellNextMsg.class);
+        verify(chainActor).tell(captor.capture());
+        assertThat(captor.getValue().getMsg()).isSameAs(msg2);
+        assertThat(captor.getValue().getRelationTypes()).containsExactly(TbNodeConnectionType.FAILURE);
+    }
+
+    @Test
+    public void givenMsgsSentWithDifferentNodeCtx_whenBatchProcessed_thenEachMsgIsPassedWithItsOwnCtx() throws Exception {
+        RuleNodeCtx nodeCtx = newNodeCtx();
+        TbContext ctx1 = new DefaultTbContext(systemContext, "Root Rule Chain", nodeCtx);
+        TbContext sameNodeCtx = new DefaultTbContext(systemContext, "Root Rule Chain", nodeCtx);
+        TbContext ctx2 = newCtx();
+        TbMsg msg1 = newMsg();
+        TbMsg msg2 = newMsg();
+        TbMsg msg3 = newMsg();
+
+        processor.onRuleChainToRuleNodeMsgs(List.of(
+                new RuleChainToRuleNodeMsg(ctx1, msg1, ""),
+                new RuleChainToRuleNodeMsg(sameNodeCtx, msg2, ""),
+                new RuleChainToRuleNodeMsg(ctx2, msg3, "")));
+
+        assertThat(RecordingNode.calls).hasSize(2);
+        assertThat(RecordingNode.calls.get(0).ctx()).isSameAs(ctx1);
+        assertThat(RecordingNode.calls.get(0).msgs()).containsExactly(msg1, msg2);
+        assertThat(RecordingNode.calls.get(1).ctx()).isSameAs(ctx2);
+        assertThat(RecordingNode.calls.get(1).msgs()).containsExactly(msg3);
+    }
+
+    private TbContext newCtx() {
+        return new DefaultTbContext(systemContext, "Root Rule Chain", newNodeCtx());
+    }
+
+    private RuleNodeCtx newNodeCtx() {
+        return new RuleNodeCtx(tenantId, chainActor, mock(TbActorRef.class), ruleNode);
+    }
+
+    private TbMsg newMsg() {
+        TbMsgCallback callback = mock(TbMsgCallback.class);
+        when(callback.isMsgValid()).thenReturn(true);
+        return TbMsg.newMsg(TbMsgType.POST_TELEMETRY_REQUEST, deviceId, TbMsgMetaData.EMPTY, TbMsg.EMPTY_JSON_OBJECT, callback);
+    }
+
+    public static class RecordingNode implements TbNode {
+
+        record Call(TbContext ctx, List<TbMsg> msgs) {}
+
+        static final List<Call> calls = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void init(TbContext ctx, TbNodeConfiguration configuration) {
+        }
+
+        @Override
+        public void onMsg(TbContext ctx, TbMsg msg) {
+            calls.add(new Call(ctx, List.of(msg)));
+        }
+
+        @Override
+        public void onMsgBatch(TbContext ctx, List<TbMsg> msgs) {
+            calls.add(new Call(ctx, List.copyOf(msgs)));
+        }
+
+    }
+
+}
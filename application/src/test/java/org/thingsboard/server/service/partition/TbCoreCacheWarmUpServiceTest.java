@@ -0,0 +1,126 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.partition;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.DeviceIdInfo;
+import org.thingsboard.server.common.msg.queue.ServiceType;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.dao.device.DeviceCacheWarmUpService;
+import org.thingsboard.server.queue.discovery.PartitionService;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TbCoreCacheWarmUpServiceTest {
+
+    private final TopicPartitionInfo partition0 = new TopicPartitionInfo("tb_core", null, 0, true);
+    private final TopicPartitionInfo partition1 = new TopicPartitionInfo("tb_core", null, 1, true);
+
+    private PartitionService partitionService;
+    private DeviceCacheWarmUpService deviceCacheWarmUpService;
+    private TbCoreCacheWarmUpService service;
+
+    @BeforeEach
+    public void setUp() {
+        partitionService = mock(PartitionService.class);
+        deviceCacheWarmUpService = mock(DeviceCacheWarmUpService.class);
+        when(partitionService.resolve(any(ServiceType.class), any(), any())).thenReturn(partition0);
+        service = new TbCoreCacheWarmUpService(partitionService, deviceCacheWarmUpService);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "timeBudgetMs", 30000L);
+        service.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    public void testPartitionChangeDoesNotWaitForWarmUp() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        when(deviceCacheWarmUpService.warmUp(any(), anyLong())).thenAnswer(invocation -> {
+            started.countDown();
+            finish.await();
+            return 0;
+        });
+
+        service.onPartitionsChange(Set.of(partition0));
+
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        finish.countDown();
+    }
+
+    @Test
+    public void testNewPartitionChangeStopsRunningWarmUp() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch changed = new CountDownLatch(1);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        DeviceIdInfo device = new DeviceIdInfo(UUID.randomUUID(), null, UUID.randomUUID());
+        when(deviceCacheWarmUpService.warmUp(any(), anyLong())).thenAnswer(invocation -> {
+            Predicate<DeviceIdInfo> filter = invocation.getArgument(0);
+            assertThat(filter.test(device)).isTrue();
+            started.countDown();
+            changed.await();
+            try {
+                filter.test(device);
+            } catch (Throwable e) {
+                error.set(e);
+                throw e;
+            }
+            return 1;
+        });
+
+        service.onPartitionsChange(Set.of(partition0));
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        service.onPartitionsChange(Set.of(partition0, partition1));
+        changed.countDown();
+
+        await().atMost(10, TimeUnit.SECONDS).until(() -> error.get() != null);
+        assertThat(error.get()).isInstanceOf(CancellationException.class);
+    }
+
+    @Test
+    public void testWarmUpIsSkippedWhenDisabled() {
+        service.destroy();
+        service = new TbCoreCacheWarmUpService(partitionService, deviceCacheWarmUpService);
+        service.init();
+
+        service.onPartitionsChange(Set.of(partition0));
+
+        verify(deviceCacheWarmUpService, never()).warmUp(any(), anyLong());
+    }
+
+}
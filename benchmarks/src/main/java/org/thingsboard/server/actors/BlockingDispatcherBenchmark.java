@@ -0,0 +1,162 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.common.util.ThingsBoardExecutors;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.msg.MsgType;
+import org.thingsboard.server.common.msg.TbActorMsg;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compares the throughput of the actor dispatchers backed by the work stealing pool and by the virtual thread
+ * per task executor when the actors block while processing the messages, e.g. rule nodes that wait for JDBC or HTTP calls.
+ * The VIRTUAL executor type requires the benchmarks to be executed on Java 21 or later.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class BlockingDispatcherBenchmark {
+
+    private static final String DISPATCHER_NAME = "benchmark-dispatcher";
+    private static final int MSGS_PER_INVOCATION = 2_000;
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    private String executorType;
+
+    @Param({"8"})
+    private int dispatcherPoolSize;
+
+    @Param({"100", "1000"})
+    private int actorsCount;
+
+    @Param({"1000"})
+    private long blockingMicros;
+
+    private TbActorSystem actorSystem;
+    private TbActorId[] actorIds;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        boolean virtual = "VIRTUAL".equals(executorType);
+        if (virtual && !ThingsBoardExecutors.isVirtualThreadsSupported()) {
+            throw new IllegalStateException("Virtual threads require Java 21 or later, current runtime is Java " + Runtime.version());
+        }
+        ExecutorService executor = ThingsBoardExecutors.newVirtualThreadPerTaskOrWorkStealingPool(virtual, dispatcherPoolSize, DISPATCHER_NAME);
+        actorSystem = new DefaultTbActorSystem(new TbActorSystemSettings(5, 1, 10));
+        actorSystem.createDispatcher(DISPATCHER_NAME, executor);
+        actorIds = new TbActorId[actorsCount];
+        long blockingNanos = TimeUnit.MICROSECONDS.toNanos(blockingMicros);
+        for (int i = 0; i < actorsCount; i++) {
+            TbActorId actorId = new TbEntityActorId(new DeviceId(UUID.randomUUID()));
+            actorSystem.createRootActor(DISPATCHER_NAME, new BlockingActorCreator(actorId, blockingNanos));
+            actorIds[i] = actorId;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        actorSystem.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MSGS_PER_INVOCATION)
+    public void tellBlockingActors() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(MSGS_PER_INVOCATION);
+        CountDownMsg msg = new CountDownMsg(latch);
+        for (int i = 0; i < MSGS_PER_INVOCATION; i++) {
+            actorSystem.tell(actorIds[i % actorsCount], msg);
+        }
+        latch.await();
+    }
+
+    private static class CountDownMsg implements TbActorMsg {
+
+        private final CountDownLatch latch;
+
+        CountDownMsg(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public MsgType getMsgType() {
+            return MsgType.QUEUE_TO_RULE_ENGINE_MSG;
+        }
+
+    }
+
+    private static class BlockingActor extends AbstractTbActor {
+
+        private final long blockingNanos;
+
+        BlockingActor(long blockingNanos) {
+            this.blockingNanos = blockingNanos;
+        }
+
+        @Override
+        public boolean process(TbActorMsg msg) {
+            LockSupport.parkNanos(blockingNanos);
+            ((CountDownMsg) msg).latch.countDown();
+            return true;
+        }
+
+    }
+
+    private static class BlockingActorCreator implements TbActorCreator {
+
+        private final TbActorId actorId;
+        private final long blockingNanos;
+
+        BlockingActorCreator(TbActorId actorId, long blockingNanos) {
+            this.actorId = actorId;
+            this.blockingNanos = blockingNanos;
+        }
+
+        @Override
+        public TbActorId createActorId() {
+            return actorId;
+        }
+
+        @Override
+        public TbActor createActor() {
+            return new BlockingActor(blockingNanos);
+        }
+
+    }
+
+}
@@ -0,0 +1,178 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.common.util.ThingsBoardExecutors;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.msg.MsgType;
+import org.thingsboard.server.common.msg.TbActorMsg;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of {@link DefaultTbActorSystem#tell(TbActorId, TbActorMsg)} together with
+ * the mailbox processing ({@link TbActorMailbox}) of the messages on the dispatcher threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TbActorSystemBenchmark {
+
+    private static final String DISPATCHER_NAME = "benchmark-dispatcher";
+    private static final int MSGS_PER_INVOCATION = 100_000;
+
+    @Param({"1", "100", "10000"})
+    private int actorsCount;
+
+    @Param({"1", "4"})
+    private int dispatcherPoolSize;
+
+    @Param({"false", "true"})
+    private boolean shardedDispatcher;
+
+    @Param({"5"})
+    private int actorThroughput;
+
+    @Param({"CONCURRENT_LINKED", "MPSC_ARRAY"})
+    private TbActorMailboxType mailboxType;
+
+    private TbActorSystem actorSystem;
+    private TbActorId[] actorIds;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        actorSystem = new DefaultTbActorSystem(new TbActorSystemSettings(actorThroughput, 1, 10, mailboxType));
+        if (shardedDispatcher) {
+            actorSystem.createShardedDispatcher(DISPATCHER_NAME, dispatcherPoolSize);
+        } else {
+            actorSystem.createDispatcher(DISPATCHER_NAME, createExecutor());
+        }
+        actorIds = new TbActorId[actorsCount];
+        for (int i = 0; i < actorsCount; i++) {
+            TbActorId actorId = new TbEntityActorId(new DeviceId(UUID.randomUUID()));
+            actorSystem.createRootActor(DISPATCHER_NAME, new CountDownActorCreator(actorId));
+            actorIds[i] = actorId;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        actorSystem.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MSGS_PER_INVOCATION)
+    public void tell() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(MSGS_PER_INVOCATION);
+        CountDownMsg msg = new CountDownMsg(latch);
+        for (int i = 0; i < MSGS_PER_INVOCATION; i++) {
+            actorSystem.tell(actorIds[i % actorsCount], msg);
+        }
+        latch.await();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MSGS_PER_INVOCATION)
+    public void tellWithHighPriority() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(MSGS_PER_INVOCATION);
+        CountDownMsg msg = new CountDownMsg(latch);
+        for (int i = 0; i < MSGS_PER_INVOCATION; i++) {
+            TbActorId actorId = actorIds[i % actorsCount];
+            if ((i & 7) == 0) {
+                actorSystem.tellWithHighPriority(actorId, msg);
+            } else {
+                actorSystem.tell(actorId, msg);
+            }
+        }
+        latch.await();
+    }
+
+    private ExecutorService createExecutor() {
+        if (dispatcherPoolSize == 1) {
+            return Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName(DISPATCHER_NAME));
+        } else {
+            return ThingsBoardExecutors.newWorkStealingPool(dispatcherPoolSize, DISPATCHER_NAME);
+        }
+    }
+
+    private static class CountDownMsg implements TbActorMsg {
+
+        private final CountDownLatch latch;
+
+        CountDownMsg(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public MsgType getMsgType() {
+            return MsgType.QUEUE_TO_RULE_ENGINE_MSG;
+        }
+
+    }
+
+    private static class CountDownActor extends AbstractTbActor {
+
+        @Override
+        public boolean process(TbActorMsg msg) {
+            ((CountDownMsg) msg).latch.countDown();
+            return true;
+        }
+
+    }
+
+    private static class CountDownActorCreator implements TbActorCreator {
+
+        private final TbActorId actorId;
+
+        CountDownActorCreator(TbActorId actorId) {
+            this.actorId = actorId;
+        }
+
+        @Override
+        public TbActorId createActorId() {
+            return actorId;
+        }
+
+        @Override
+        public TbActor createActor() {
+            return new CountDownActor();
+        }
+
+    }
+
+}
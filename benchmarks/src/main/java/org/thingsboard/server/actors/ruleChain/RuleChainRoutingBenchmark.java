@@ -0,0 +1,250 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors.ruleChain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.thingsboard.server.actors.ActorSystemContext;
+import org.thingsboard.server.actors.TbActorCreator;
+import org.thingsboard.server.actors.TbActorCtx;
+import org.thingsboard.server.actors.TbActorId;
+import org.thingsboard.server.actors.TbActorRef;
+import org.thingsboard.server.actors.TbEntityActorId;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.RuleChainId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.msg.TbMsgType;
+import org.thingsboard.server.common.data.msg.TbNodeConnectionType;
+import org.thingsboard.server.common.data.relation.EntityRelation;
+import org.thingsboard.server.common.data.relation.RelationTypeGroup;
+import org.thingsboard.server.common.data.rule.RuleChain;
+import org.thingsboard.server.common.data.rule.RuleChainType;
+import org.thingsboard.server.common.data.rule.RuleNode;
+import org.thingsboard.server.common.msg.TbActorMsg;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+import org.thingsboard.server.common.msg.queue.QueueToRuleEngineMsg;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.dao.rule.RuleChainService;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Measures the routing of a message through a linear rule chain by {@link RuleChainActorMessageProcessor}.
+ * Rule node actors are replaced with in-memory references, so only the rule chain side of every hop is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class RuleChainRoutingBenchmark {
+
+    private static final Set<String> SUCCESS = Collections.singleton(TbNodeConnectionType.SUCCESS);
+
+    @Param({"3", "10"})
+    private int chainLength;
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final RuleChainId ruleChainId = new RuleChainId(UUID.randomUUID());
+    private final EntityId originator = new DeviceId(UUID.randomUUID());
+
+    private RuleChainActorMessageProcessor processor;
+    private RuleNodeId[] ruleNodeIds;
+    private InMemoryActorRef lastNodeActor;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        List<RuleNode> ruleNodes = new ArrayList<>(chainLength);
+        Map<RuleNodeId, List<EntityRelation>> relations = new HashMap<>();
+        ruleNodeIds = new RuleNodeId[chainLength];
+        for (int i = 0; i < chainLength; i++) {
+            RuleNode ruleNode = new RuleNode(new RuleNodeId(UUID.randomUUID()));
+            ruleNode.setRuleChainId(ruleChainId);
+            ruleNode.setName("Node " + i);
+            ruleNode.setType("org.thingsboard.rule.engine.filter.TbMsgTypeFilterNode");
+            ruleNodes.add(ruleNode);
+            ruleNodeIds[i] = ruleNode.getId();
+        }
+        for (int i = 0; i < chainLength; i++) {
+            List<EntityRelation> nodeRelations = new ArrayList<>();
+            if (i + 1 < chainLength) {
+                nodeRelations.add(new EntityRelation(ruleNodeIds[i], ruleNodeIds[i + 1], TbNodeConnectionType.SUCCESS, RelationTypeGroup.RULE_NODE));
+            }
+            relations.put(ruleNodeIds[i], nodeRelations);
+        }
+        RuleChain ruleChain = new RuleChain(ruleChainId);
+        ruleChain.setTenantId(tenantId);
+        ruleChain.setName("Benchmark Rule Chain");
+        ruleChain.setType(RuleChainType.CORE);
+        ruleChain.setFirstRuleNodeId(ruleNodeIds[0]);
+
+        InMemoryActorSystemContext systemContext = new InMemoryActorSystemContext(ruleChain, ruleNodes, relations);
+        InMemoryActorCtx actorCtx = new InMemoryActorCtx(new TbEntityActorId(ruleChainId));
+        processor = new RuleChainActorMessageProcessor(tenantId, ruleChain, systemContext, actorCtx, actorCtx);
+        processor.start(actorCtx);
+        lastNodeActor = actorCtx.children.get(new TbEntityActorId(ruleNodeIds[chainLength - 1]));
+    }
+
+    @Benchmark
+    public void routeMsgThroughChain(Blackhole blackhole) {
+        TbMsg msg = TbMsg.newMsg(TbMsgType.POST_TELEMETRY_REQUEST, originator, TbMsgMetaData.EMPTY, TbMsg.EMPTY_JSON_OBJECT);
+        processor.onQueueToRuleEngineMsg(new QueueToRuleEngineMsg(tenantId, msg, null, null));
+        for (RuleNodeId ruleNodeId : ruleNodeIds) {
+            processor.onTellNext(new RuleNodeToRuleChainTellNextMsg(ruleChainId, ruleNodeId, SUCCESS, msg, null));
+        }
+        blackhole.consume(lastNodeActor.lastMsg);
+    }
+
+    private static class InMemoryActorSystemContext extends ActorSystemContext {
+
+        private final RuleChainService ruleChainService;
+        private final TopicPartitionInfo tpi = new TopicPartitionInfo("tb_rule_engine.main", null, 0, true);
+
+        InMemoryActorSystemContext(RuleChain ruleChain, List<RuleNode> ruleNodes, Map<RuleNodeId, List<EntityRelation>> relations) {
+            this.ruleChainService = (RuleChainService) Proxy.newProxyInstance(RuleChainService.class.getClassLoader(),
+                    new Class[]{RuleChainService.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "findRuleChainById" -> ruleChain;
+                        case "getRuleChainNodes" -> ruleNodes;
+                        case "getRuleNodeRelations" -> relations.getOrDefault((RuleNodeId) args[1], Collections.emptyList());
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        @Override
+        public RuleChainService getRuleChainService() {
+            return ruleChainService;
+        }
+
+        @Override
+        public TopicPartitionInfo resolve(TenantId tenantId, EntityId entityId, TbMsg msg) {
+            return tpi;
+        }
+
+    }
+
+    private static class InMemoryActorRef implements TbActorRef {
+
+        private final TbActorId actorId;
+        private volatile TbActorMsg lastMsg;
+
+        InMemoryActorRef(TbActorId actorId) {
+            this.actorId = actorId;
+        }
+
+        @Override
+        public TbActorId getActorId() {
+            return actorId;
+        }
+
+        @Override
+        public void tell(TbActorMsg actorMsg) {
+            lastMsg = actorMsg;
+        }
+
+        @Override
+        public void tellWithHighPriority(TbActorMsg actorMsg) {
+            lastMsg = actorMsg;
+        }
+
+    }
+
+    private static class InMemoryActorCtx extends InMemoryActorRef implements TbActorCtx {
+
+        private final Map<TbActorId, InMemoryActorRef> children = new HashMap<>();
+
+        InMemoryActorCtx(TbActorId actorId) {
+            super(actorId);
+        }
+
+        @Override
+        public TbActorId getSelf() {
+            return getActorId();
+        }
+
+        @Override
+        public TbActorRef getParentRef() {
+            return this;
+        }
+
+        @Override
+        public void tell(TbActorId target, TbActorMsg msg) {
+            children.get(target).tell(msg);
+        }
+
+        @Override
+        public void stop(TbActorId target) {
+            children.remove(target);
+        }
+
+        @Override
+        public TbActorRef getOrCreateChildActor(TbActorId actorId, Supplier<String> dispatcher, Supplier<TbActorCreator> creator, Supplier<Boolean> createCondition) {
+            return children.computeIfAbsent(actorId, InMemoryActorRef::new);
+        }
+
+        @Override
+        public void broadcastToChildren(TbActorMsg msg) {
+            children.values().forEach(child -> child.tell(msg));
+        }
+
+        @Override
+        public void broadcastToChildren(TbActorMsg msg, boolean highPriority) {
+            broadcastToChildren(msg);
+        }
+
+        @Override
+        public void broadcastToChildrenByType(TbActorMsg msg, EntityType entityType) {
+            broadcastToChildren(msg, actorId -> entityType.equals(actorId.getEntityType()));
+        }
+
+        @Override
+        public void broadcastToChildren(TbActorMsg msg, Predicate<TbActorId> childFilter) {
+            children.values().stream().filter(child -> childFilter.test(child.getActorId())).forEach(child -> child.tell(msg));
+        }
+
+        @Override
+        public List<TbActorId> filterChildren(Predicate<TbActorId> childFilter) {
+            return children.keySet().stream().filter(childFilter).toList();
+        }
+
+    }
+
+}
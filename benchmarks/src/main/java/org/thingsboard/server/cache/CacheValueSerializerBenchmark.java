@@ -0,0 +1,255 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.MessageLite;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.cache.device.DeviceCacheKey;
+import org.thingsboard.server.cache.device.DeviceRedisCache;
+import org.thingsboard.server.common.data.AttributeScope;
+import org.thingsboard.server.common.data.Device;
+import org.thingsboard.server.common.data.DeviceProfile;
+import org.thingsboard.server.common.data.DeviceProfileProvisionType;
+import org.thingsboard.server.common.data.DeviceProfileType;
+import org.thingsboard.server.common.data.DeviceTransportType;
+import org.thingsboard.server.common.data.device.data.DefaultDeviceConfiguration;
+import org.thingsboard.server.common.data.device.data.DefaultDeviceTransportConfiguration;
+import org.thingsboard.server.common.data.device.data.DeviceData;
+import org.thingsboard.server.common.data.device.profile.DefaultDeviceProfileConfiguration;
+import org.thingsboard.server.common.data.device.profile.DefaultDeviceProfileTransportConfiguration;
+import org.thingsboard.server.common.data.device.profile.DeviceProfileData;
+import org.thingsboard.server.common.data.device.profile.DisabledDeviceProfileProvisionConfiguration;
+import org.thingsboard.server.common.data.id.DeviceCredentialsId;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.DeviceProfileId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.AttributeKvEntry;
+import org.thingsboard.server.common.data.kv.BaseAttributeKvEntry;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.DoubleDataEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.common.data.security.DeviceCredentials;
+import org.thingsboard.server.common.data.security.DeviceCredentialsType;
+import org.thingsboard.server.common.util.KvProtoUtil;
+import org.thingsboard.server.common.util.ProtoUtils;
+import org.thingsboard.server.dao.attributes.AttributeCacheKey;
+import org.thingsboard.server.dao.attributes.AttributeRedisCache;
+import org.thingsboard.server.dao.device.DeviceCredentialsRedisCache;
+import org.thingsboard.server.dao.device.DeviceProfileCacheKey;
+import org.thingsboard.server.dao.device.DeviceProfileRedisCache;
+import org.thingsboard.server.dao.timeseries.TsLatestCacheKey;
+import org.thingsboard.server.dao.timeseries.TsLatestRedisCache;
+import org.thingsboard.server.gen.transport.TransportProtos;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Compares the serializers of the Redis cache values: Java serialization, JSON, plain protobuf messages (the format of the hot
+ * caches before the compact serializers) and the compact serializers used by the caches. The sizes of the serialized values
+ * are printed on setup, e.g. {@code # DEVICE/COMPACT: 246 bytes}. The attributes and the latest time-series can't be read
+ * from JSON, so {@code deserialize} fails for these types with the JSON format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class CacheValueSerializerBenchmark {
+
+    public enum ValueType {
+        DEVICE, DEVICE_PROFILE, DEVICE_CREDENTIALS, ATTRIBUTE, TS_LATEST
+    }
+
+    public enum Format {
+        JAVA, JSON, PROTO, COMPACT
+    }
+
+    @Param({"DEVICE", "DEVICE_PROFILE", "DEVICE_CREDENTIALS", "ATTRIBUTE", "TS_LATEST"})
+    private ValueType type;
+
+    @Param({"JAVA", "JSON", "PROTO", "COMPACT"})
+    private Format format;
+
+    private TbRedisSerializer<Object, Object> serializer;
+    private Object key;
+    private Object value;
+    private byte[] bytes;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        TBRedisCacheConfiguration configuration = new TBRedisCacheConfiguration() {
+            @Override
+            protected JedisConnectionFactory loadFactory() {
+                return new JedisConnectionFactory();
+            }
+        };
+        JedisConnectionFactory connectionFactory = new JedisConnectionFactory();
+        TbRedisSerializer<?, ?> compact;
+        TbRedisSerializer<?, ?> proto;
+        Class<?> valueClass;
+        switch (type) {
+            case DEVICE -> {
+                Device device = createDevice();
+                key = new DeviceCacheKey(device.getTenantId(), device.getId());
+                value = device;
+                valueClass = Device.class;
+                compact = new DeviceRedisCache(configuration, null, connectionFactory).getValueSerializer();
+                proto = new ProtoSerializer<>(ProtoUtils::toProto, b -> ProtoUtils.fromProto(TransportProtos.DeviceProto.parseFrom(b)));
+            }
+            case DEVICE_PROFILE -> {
+                DeviceProfile deviceProfile = createDeviceProfile();
+                key = DeviceProfileCacheKey.forId(deviceProfile.getId());
+                value = deviceProfile;
+                valueClass = DeviceProfile.class;
+                compact = new DeviceProfileRedisCache(configuration, null, connectionFactory).getValueSerializer();
+                proto = new ProtoSerializer<>(ProtoUtils::toProto, b -> ProtoUtils.fromProto(TransportProtos.DeviceProfileProto.parseFrom(b)));
+            }
+            case DEVICE_CREDENTIALS -> {
+                DeviceCredentials credentials = createDeviceCredentials();
+                key = credentials.getCredentialsId();
+                value = credentials;
+                valueClass = DeviceCredentials.class;
+                compact = new DeviceCredentialsRedisCache(configuration, null, connectionFactory).getValueSerializer();
+                proto = new ProtoSerializer<>(ProtoUtils::toProto, b -> ProtoUtils.fromProto(TransportProtos.DeviceCredentialsProto.parseFrom(b)));
+            }
+            case ATTRIBUTE -> {
+                AttributeKvEntry attribute = new BaseAttributeKvEntry(new DoubleDataEntry("temperature", 42.5), System.currentTimeMillis(), 1L);
+                key = new AttributeCacheKey(AttributeScope.SERVER_SCOPE, new DeviceId(UUID.randomUUID()), attribute.getKey());
+                value = attribute;
+                valueClass = BaseAttributeKvEntry.class;
+                compact = new AttributeRedisCache(configuration, null, connectionFactory).getValueSerializer();
+                proto = new ProtoSerializer<AttributeKvEntry>(ProtoUtils::toProto, b -> ProtoUtils.fromProto(TransportProtos.AttributeValueProto.parseFrom(b)));
+            }
+            case TS_LATEST -> {
+                TsKvEntry entry = new BasicTsKvEntry(System.currentTimeMillis(), new DoubleDataEntry("temperature", 42.5), 1L);
+                key = new TsLatestCacheKey(new DeviceId(UUID.randomUUID()), entry.getKey());
+                value = entry;
+                valueClass = BasicTsKvEntry.class;
+                compact = new TsLatestRedisCache(configuration, null, connectionFactory).getValueSerializer();
+                proto = new ProtoSerializer<TsKvEntry>(e -> KvProtoUtil.toTsKvProto(e.getTs(), e, e.getVersion()),
+                        b -> KvProtoUtil.fromTsKvProto(TransportProtos.TsKvProto.parseFrom(b)));
+            }
+            default -> throw new IllegalArgumentException("Unsupported value type: " + type);
+        }
+        serializer = (TbRedisSerializer<Object, Object>) switch (format) {
+            case JAVA -> new TbJavaRedisSerializer<>();
+            case JSON -> new TbJsonRedisSerializer<>(valueClass);
+            case PROTO -> proto;
+            case COMPACT -> compact;
+        };
+        bytes = serializer.serialize(value);
+        System.out.printf("# %s/%s: %d bytes%n", type, format, bytes.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(key, bytes);
+    }
+
+    private static Device createDevice() {
+        Device device = new Device(new DeviceId(UUID.randomUUID()));
+        device.setCreatedTime(System.currentTimeMillis());
+        device.setTenantId(TenantId.fromUUID(UUID.randomUUID()));
+        device.setName("Thermostat A1");
+        device.setType("thermostat");
+        device.setLabel("Floor 1");
+        device.setDeviceProfileId(new DeviceProfileId(UUID.randomUUID()));
+        device.setAdditionalInfo(JacksonUtil.newObjectNode().put("description", "Benchmark device").put("gateway", false));
+        DeviceData deviceData = new DeviceData();
+        deviceData.setConfiguration(new DefaultDeviceConfiguration());
+        deviceData.setTransportConfiguration(new DefaultDeviceTransportConfiguration());
+        device.setDeviceData(deviceData);
+        device.setVersion(1L);
+        return device;
+    }
+
+    private static DeviceProfile createDeviceProfile() {
+        DeviceProfile deviceProfile = new DeviceProfile(new DeviceProfileId(UUID.randomUUID()));
+        deviceProfile.setCreatedTime(System.currentTimeMillis());
+        deviceProfile.setTenantId(TenantId.fromUUID(UUID.randomUUID()));
+        deviceProfile.setName("thermostat");
+        deviceProfile.setDescription("Benchmark device profile");
+        deviceProfile.setType(DeviceProfileType.DEFAULT);
+        deviceProfile.setTransportType(DeviceTransportType.DEFAULT);
+        deviceProfile.setProvisionType(DeviceProfileProvisionType.DISABLED);
+        DeviceProfileData profileData = new DeviceProfileData();
+        profileData.setConfiguration(new DefaultDeviceProfileConfiguration());
+        profileData.setTransportConfiguration(new DefaultDeviceProfileTransportConfiguration());
+        profileData.setProvisionConfiguration(new DisabledDeviceProfileProvisionConfiguration(null));
+        deviceProfile.setProfileData(profileData);
+        deviceProfile.setVersion(1L);
+        return deviceProfile;
+    }
+
+    private static DeviceCredentials createDeviceCredentials() {
+        DeviceCredentials credentials = new DeviceCredentials(new DeviceCredentialsId(UUID.randomUUID()));
+        credentials.setCreatedTime(System.currentTimeMillis());
+        credentials.setDeviceId(new DeviceId(UUID.randomUUID()));
+        credentials.setCredentialsType(DeviceCredentialsType.ACCESS_TOKEN);
+        credentials.setCredentialsId("A1_TEST_TOKEN_4f1e2b");
+        credentials.setVersion(1L);
+        return credentials;
+    }
+
+    private interface ProtoParser<V> {
+
+        V parse(byte[] bytes) throws InvalidProtocolBufferException;
+
+    }
+
+    private record ProtoSerializer<V>(Function<V, MessageLite> toProto, ProtoParser<V> parser) implements TbRedisSerializer<Object, V> {
+
+        @Override
+        public byte[] serialize(V value) throws SerializationException {
+            return toProto.apply(value).toByteArray();
+        }
+
+        @Override
+        public V deserialize(Object key, byte[] bytes) throws SerializationException {
+            try {
+                return parser.parse(bytes);
+            } catch (InvalidProtocolBufferException e) {
+                throw new SerializationException(e.getMessage());
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.adaptor;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.server.common.data.kv.KvEntry;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link JsonConverter#convertToTelemetry(JsonElement, long)} for the payload formats accepted by the transports.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class JsonConverterBenchmark {
+
+    @Param({"FLAT", "WITH_TS", "ARRAY"})
+    private PayloadFormat format;
+
+    @Param({"8", "64"})
+    private int keysCount;
+
+    private String payload;
+    private JsonElement parsedPayload;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        StringBuilder values = new StringBuilder("{");
+        for (int i = 0; i < keysCount; i++) {
+            if (i > 0) {
+                values.append(',');
+            }
+            switch (i % 4) {
+                case 0 -> values.append("\"temperature").append(i).append("\":").append(21.5 + i);
+                case 1 -> values.append("\"counter").append(i).append("\":").append(1000L + i);
+                case 2 -> values.append("\"active").append(i).append("\":").append(i % 3 == 0);
+                default -> values.append("\"status").append(i).append("\":\"ok-").append(i).append('"');
+            }
+        }
+        values.append('}');
+        long ts = System.currentTimeMillis();
+        payload = switch (format) {
+            case FLAT -> values.toString();
+            case WITH_TS -> "{\"ts\":" + ts + ",\"values\":" + values + "}";
+            case ARRAY -> "[{\"ts\":" + ts + ",\"values\":" + values + "},{\"ts\":" + (ts + 1) + ",\"values\":" + values + "}]";
+        };
+        parsedPayload = JsonParser.parseString(payload);
+    }
+
+    @Benchmark
+    public Map<Long, List<KvEntry>> convertToTelemetry() {
+        return JsonConverter.convertToTelemetry(parsedPayload, System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public Map<Long, List<KvEntry>> parseAndConvertToTelemetry() {
+        return JsonConverter.convertToTelemetry(JsonParser.parseString(payload), System.currentTimeMillis());
+    }
+
+    public enum PayloadFormat {
+        FLAT, WITH_TS, ARRAY
+    }
+
+}
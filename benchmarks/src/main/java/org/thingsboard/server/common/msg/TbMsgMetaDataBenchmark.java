@@ -0,0 +1,104 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.msg;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.RuleChainId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+import org.thingsboard.server.common.data.msg.TbMsgType;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of the {@link TbMsgMetaData} copies done by the rule engine on every hop of a message.
+ * Run with {@code -prof gc} to see the allocation rate per message ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class TbMsgMetaDataBenchmark {
+
+    private static final String QUEUE_NAME = "Main";
+
+    @Param({"4", "12", "32"})
+    private int metaDataSize;
+
+    private TbMsg msg;
+    private RuleChainId ruleChainId;
+    private RuleNodeId ruleNodeId;
+    private String lastKey;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        TbMsgMetaData metaData = new TbMsgMetaData();
+        for (int i = 0; i < metaDataSize; i++) {
+            metaData.putValue("key" + i, "value" + i);
+        }
+        lastKey = "key" + (metaDataSize - 1);
+        ruleChainId = new RuleChainId(UUID.randomUUID());
+        ruleNodeId = new RuleNodeId(UUID.randomUUID());
+        msg = TbMsg.newMsg(QUEUE_NAME, TbMsgType.POST_TELEMETRY_REQUEST, new DeviceId(UUID.randomUUID()), metaData, TbMsg.EMPTY_JSON_OBJECT,
+                ruleChainId, ruleNodeId);
+    }
+
+    /**
+     * Hop of a node that passes the metadata through, e.g. a filter or a transformation of the data only.
+     */
+    @Benchmark
+    public TbMsg transformMsgMetadata() {
+        return TbMsg.transformMsgMetadata(msg, msg.getMetaData());
+    }
+
+    /**
+     * Copy made for every message enqueued to the next rule chain or queue (enqueueForTellNext).
+     */
+    @Benchmark
+    public TbMsg newMsgForTellNext() {
+        return TbMsg.newMsg(msg, QUEUE_NAME, ruleChainId, ruleNodeId);
+    }
+
+    /**
+     * Hop of an enrichment node that adds one value to a copy of the metadata.
+     */
+    @Benchmark
+    public TbMsg copyAndPutValue() {
+        TbMsgMetaData metaData = msg.getMetaData().copy();
+        metaData.putValue("enriched", "value");
+        return TbMsg.transformMsgMetadata(msg, metaData);
+    }
+
+    @Benchmark
+    public String getValue() {
+        return msg.getMetaData().getValue(lastKey);
+    }
+
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.msg;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.RuleChainId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+import org.thingsboard.server.common.data.msg.TbMsgType;
+import org.thingsboard.server.common.msg.queue.TbMsgCallback;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the protobuf round-trip of {@link TbMsg} as it is done for every message pushed to and polled from the rule engine queues.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class TbMsgSerializationBenchmark {
+
+    private static final String QUEUE_NAME = "Main";
+
+    @Param({"4", "16"})
+    private int metaDataSize;
+
+    @Param({"64", "1024"})
+    private int dataSize;
+
+    private TbMsg msg;
+    private byte[] bytes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        TbMsgMetaData metaData = new TbMsgMetaData();
+        for (int i = 0; i < metaDataSize; i++) {
+            metaData.putValue("key" + i, "value" + i);
+        }
+        StringBuilder data = new StringBuilder("{");
+        for (int i = 0; data.length() < dataSize; i++) {
+            if (i > 0) {
+                data.append(',');
+            }
+            data.append("\"temperature").append(i).append("\":").append(20.5 + i);
+        }
+        data.append('}');
+        msg = TbMsg.newMsg(QUEUE_NAME, TbMsgType.POST_TELEMETRY_REQUEST, new DeviceId(UUID.randomUUID()), metaData, data.toString(),
+                new RuleChainId(UUID.randomUUID()), new RuleNodeId(UUID.randomUUID()));
+        bytes = TbMsg.toByteArray(msg);
+    }
+
+    @Benchmark
+    public byte[] toByteArray() {
+        return TbMsg.toByteArray(msg);
+    }
+
+    @Benchmark
+    public TbMsg fromBytes() {
+        return TbMsg.fromBytes(QUEUE_NAME, bytes, TbMsgCallback.EMPTY);
+    }
+
+    @Benchmark
+    public TbMsg roundTrip() {
+        return TbMsg.fromBytes(QUEUE_NAME, TbMsg.toByteString(msg).toByteArray(), TbMsgCallback.EMPTY);
+    }
+
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.util;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.Device;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.DeviceProfileId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.AttributeKvEntry;
+import org.thingsboard.server.common.data.kv.BaseAttributeKvEntry;
+import org.thingsboard.server.common.data.kv.DoubleDataEntry;
+import org.thingsboard.server.gen.transport.TransportProtos;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ProtoUtils} round-trips of the entities that are most frequently passed between the services.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ProtoUtilsBenchmark {
+
+    private Device device;
+    private byte[] deviceBytes;
+    private AttributeKvEntry attribute;
+    private byte[] attributeBytes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        device = new Device(new DeviceId(UUID.randomUUID()));
+        device.setCreatedTime(System.currentTimeMillis());
+        device.setTenantId(TenantId.fromUUID(UUID.randomUUID()));
+        device.setName("Thermostat A1");
+        device.setType("thermostat");
+        device.setLabel("Floor 1");
+        device.setDeviceProfileId(new DeviceProfileId(UUID.randomUUID()));
+        device.setAdditionalInfo(JacksonUtil.newObjectNode().put("description", "Benchmark device").put("gateway", false));
+        device.setVersion(1L);
+        deviceBytes = ProtoUtils.toProto(device).toByteArray();
+
+        attribute = new BaseAttributeKvEntry(new DoubleDataEntry("temperature", 42.5), System.currentTimeMillis(), 1L);
+        attributeBytes = ProtoUtils.toProto(attribute).toByteArray();
+    }
+
+    @Benchmark
+    public byte[] deviceToProto() {
+        return ProtoUtils.toProto(device).toByteArray();
+    }
+
+    @Benchmark
+    public Device deviceFromProto() throws InvalidProtocolBufferException {
+        return ProtoUtils.fromProto(TransportProtos.DeviceProto.parseFrom(deviceBytes));
+    }
+
+    @Benchmark
+    public byte[] attributeToProto() {
+        return ProtoUtils.toProto(attribute).toByteArray();
+    }
+
+    @Benchmark
+    public AttributeKvEntry attributeFromProto() throws InvalidProtocolBufferException {
+        return ProtoUtils.fromProto(TransportProtos.AttributeValueProto.parseFrom(attributeBytes));
+    }
+
+}
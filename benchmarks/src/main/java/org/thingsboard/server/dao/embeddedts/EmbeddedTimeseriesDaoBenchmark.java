@@ -0,0 +1,234 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.embeddedts;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ReflectionUtils;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.common.data.kv.BaseReadTsKvQuery;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.DoubleDataEntry;
+import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
+
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares the embedded time-series storage with the SQL one on the writes, the raw reads of an hour and the hourly
+ * averages of a day of per-second points.
+ * <p>
+ * The SQL engine runs the statements of the SQL DAO over plain JDBC against a PostgreSQL database with the Thingsboard schema,
+ * the writes are sent in batches of {@link #SQL_BATCH_SIZE} like the SQL DAO queue does. It is not in the default parameters
+ * since it needs the database, run it with e.g.
+ * {@code -p engine=EMBEDDED,SQL -jvmArgsAppend "-Dbenchmark.jdbc.url=jdbc:postgresql://localhost:5432/thingsboard -Dbenchmark.jdbc.user=postgres -Dbenchmark.jdbc.password=postgres"}.
+ * The benchmark rows are written for the random entity ids and deleted at the end.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class EmbeddedTimeseriesDaoBenchmark {
+
+    private static final String KEY = "temperature";
+    private static final int KEY_ID = Integer.MAX_VALUE;
+    private static final long SECOND = 1000L;
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final long START_TS = 1_700_006_400_000L;
+    private static final int SQL_BATCH_SIZE = 1000;
+
+    private static final String SQL_INSERT = "INSERT INTO ts_kv (entity_id, key, ts, bool_v, str_v, long_v, dbl_v, json_v) VALUES (?, ?, ?, ?, ?, ?, ?, cast(? AS json)) " +
+            "ON CONFLICT (entity_id, key, ts) DO UPDATE SET bool_v = ?, str_v = ?, long_v = ?, dbl_v = ?, json_v = cast(? AS json);";
+    private static final String SQL_FIND = "SELECT ts, dbl_v FROM ts_kv WHERE entity_id = ? AND key = ? AND ts >= ? AND ts < ? ORDER BY ts LIMIT ?";
+    private static final String SQL_AGGREGATE = "SELECT (ts - ?) / ? AS interval_idx, avg(dbl_v) FROM ts_kv WHERE entity_id = ? AND key = ? AND ts >= ? AND ts < ? GROUP BY interval_idx";
+    private static final String SQL_DELETE = "DELETE FROM ts_kv WHERE entity_id = ? AND key = ?";
+
+    @Param({"EMBEDDED"})
+    private String engine;
+
+    private final DeviceId readEntityId = new DeviceId(UUID.randomUUID());
+    private final DeviceId writeEntityId = new DeviceId(UUID.randomUUID());
+    private long writeTs = START_TS;
+    private long readHour;
+
+    private Path dataDir;
+    private EmbeddedTsExecutorService executor;
+    private EmbeddedTimeseriesDao dao;
+
+    private Connection connection;
+    private PreparedStatement sqlInsert;
+    private int sqlPending;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        if ("SQL".equals(engine)) {
+            connection = DriverManager.getConnection(System.getProperty("benchmark.jdbc.url"),
+                    System.getProperty("benchmark.jdbc.user"), System.getProperty("benchmark.jdbc.password"));
+            sqlInsert = connection.prepareStatement(SQL_INSERT);
+        } else {
+            dataDir = Files.createTempDirectory("tb-embedded-ts-benchmark");
+            EmbeddedTsStore store = new EmbeddedTsStore();
+            setField(store, "dataDir", dataDir.toString());
+            setField(store, "partitioning", "DAYS");
+            setField(store, "segmentSize", 1024 * 1024);
+            setField(store, "latestSegmentSize", 4096);
+            store.init();
+            executor = new EmbeddedTsExecutorService();
+            setField(executor, "poolSize", 1);
+            executor.init();
+            dao = new EmbeddedTimeseriesDao(store, executor);
+        }
+        for (long ts = START_TS; ts < START_TS + DAY; ts += SECOND) {
+            save(readEntityId, ts);
+        }
+        flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (connection != null) {
+            flush();
+            for (DeviceId entityId : new DeviceId[]{readEntityId, writeEntityId}) {
+                try (PreparedStatement delete = connection.prepareStatement(SQL_DELETE)) {
+                    delete.setObject(1, entityId.getId());
+                    delete.setInt(2, KEY_ID);
+                    delete.executeUpdate();
+                }
+            }
+            connection.close();
+        } else {
+            executor.destroy();
+            try (Stream<Path> files = Files.walk(dataDir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    public void save() throws Exception {
+        save(writeEntityId, writeTs += SECOND);
+    }
+
+    @Benchmark
+    public int findHour() throws Exception {
+        long startTs = START_TS + (readHour++ % 24) * HOUR;
+        if (connection != null) {
+            try (PreparedStatement find = connection.prepareStatement(SQL_FIND)) {
+                find.setObject(1, readEntityId.getId());
+                find.setInt(2, KEY_ID);
+                find.setLong(3, startTs);
+                find.setLong(4, startTs + HOUR);
+                find.setInt(5, 10000);
+                return count(find);
+            }
+        }
+        ReadTsKvQuery query = new BaseReadTsKvQuery(KEY, startTs, startTs + HOUR, 0, 10000, Aggregation.NONE, "ASC");
+        return dao.findAllAsync(TenantId.SYS_TENANT_ID, readEntityId, query).get().getData().size();
+    }
+
+    @Benchmark
+    public int averageDayByHour() throws Exception {
+        if (connection != null) {
+            try (PreparedStatement aggregate = connection.prepareStatement(SQL_AGGREGATE)) {
+                aggregate.setLong(1, START_TS);
+                aggregate.setLong(2, HOUR);
+                aggregate.setObject(3, readEntityId.getId());
+                aggregate.setInt(4, KEY_ID);
+                aggregate.setLong(5, START_TS);
+                aggregate.setLong(6, START_TS + DAY);
+                return count(aggregate);
+            }
+        }
+        ReadTsKvQuery query = new BaseReadTsKvQuery(KEY, START_TS, START_TS + DAY, HOUR, 0, Aggregation.AVG, "ASC");
+        return dao.findAllAsync(TenantId.SYS_TENANT_ID, readEntityId, query).get().getData().size();
+    }
+
+    private void save(DeviceId entityId, long ts) throws Exception {
+        double value = 20 + Math.round(Math.sin(ts / (double) HOUR) * 100) / 10.0;
+        if (connection == null) {
+            dao.save(TenantId.SYS_TENANT_ID, entityId, new BasicTsKvEntry(ts, new DoubleDataEntry(KEY, value)), 0).get();
+            return;
+        }
+        sqlInsert.setObject(1, entityId.getId());
+        sqlInsert.setInt(2, KEY_ID);
+        sqlInsert.setLong(3, ts);
+        sqlInsert.setNull(4, Types.BOOLEAN);
+        sqlInsert.setNull(5, Types.VARCHAR);
+        sqlInsert.setNull(6, Types.BIGINT);
+        sqlInsert.setDouble(7, value);
+        sqlInsert.setNull(8, Types.VARCHAR);
+        sqlInsert.setNull(9, Types.BOOLEAN);
+        sqlInsert.setNull(10, Types.VARCHAR);
+        sqlInsert.setNull(11, Types.BIGINT);
+        sqlInsert.setDouble(12, value);
+        sqlInsert.setNull(13, Types.VARCHAR);
+        sqlInsert.addBatch();
+        if (++sqlPending == SQL_BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    private void flush() throws SQLException {
+        if (sqlPending > 0) {
+            sqlInsert.executeBatch();
+            sqlPending = 0;
+        }
+    }
+
+    private static void setField(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+
+    private static int count(PreparedStatement statement) throws SQLException {
+        int count = 0;
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+import org.thingsboard.server.common.msg.TbActorMsg;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Decorator that limits the number of normal priority messages according to the {@link TbActorMailboxLimit}.
+ * Producers must not poll the single-consumer lanes, so {@link TbActorMailboxOverflowPolicy#DROP_OLDEST} only counts
+ * the messages to evict, and the consumer evicts them before taking the next normal priority message.
+ */
+class BoundedMailboxQueue implements TbActorMailboxQueue {
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final TbActorMailboxQueue delegate;
+    private final TbMailboxStats stats;
+    private final int capacity;
+    private final TbActorMailboxOverflowPolicy overflowPolicy;
+    private final long blockTimeoutNanos;
+    private final AtomicInteger normalPrioritySize = new AtomicInteger();
+    private final AtomicInteger pendingEvictions = new AtomicInteger();
+
+    BoundedMailboxQueue(TbActorMailboxQueue delegate, TbActorMailboxLimit limit, TbMailboxStats stats) {
+        this.delegate = delegate;
+        this.stats = stats;
+        this.capacity = limit.getCapacity();
+        this.overflowPolicy = limit.getOverflowPolicy();
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(limit.getBlockTimeoutMs());
+    }
+
+    @Override
+    public boolean add(TbActorMsg msg, boolean highPriority) {
+        if (highPriority) {
+            return delegate.add(msg, true);
+        }
+        boolean acquired = switch (overflowPolicy) {
+            case DROP_OLDEST -> {
+                if (normalPrioritySize.incrementAndGet() > capacity) {
+                    pendingEvictions.incrementAndGet();
+                }
+                yield true;
+            }
+            case REJECT -> tryAcquire();
+            case BLOCK -> tryAcquire(blockTimeoutNanos);
+        };
+        if (!acquired) {
+            stats.onOverflow();
+            msg.onTbActorMailboxOverflow();
+            return false;
+        }
+        if (!delegate.add(msg, false)) {
+            normalPrioritySize.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public TbActorMsg pollHighPriority() {
+        return delegate.pollHighPriority();
+    }
+
+    @Override
+    public TbActorMsg pollNormalPriority() {
+        while (pendingEvictions.get() > 0) {
+            TbActorMsg evicted = delegate.pollNormalPriority();
+            if (evicted == null) {
+                break;
+            }
+            pendingEvictions.decrementAndGet();
+            normalPrioritySize.decrementAndGet();
+            stats.onOverflow();
+            evicted.onTbActorMailboxOverflow();
+        }
+        TbActorMsg msg = delegate.pollNormalPriority();
+        if (msg != null) {
+            normalPrioritySize.decrementAndGet();
+        }
+        return msg;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return delegate.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void forEach(Consumer<TbActorMsg> action) {
+        delegate.forEach(action);
+    }
+
+    private boolean tryAcquire() {
+        int size;
+        do {
+            size = normalPrioritySize.get();
+            if (size >= capacity) {
+                return false;
+            }
+        } while (!normalPrioritySize.compareAndSet(size, size + 1));
+        return true;
+    }
+
+    private boolean tryAcquire(long timeoutNanos) {
+        if (tryAcquire()) {
+            return true;
+        }
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            if (tryAcquire()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
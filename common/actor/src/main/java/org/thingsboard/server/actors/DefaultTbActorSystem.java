@@ -21,6 +21,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.common.util.ThingsBoardThreadFactory;
 import org.thingsboard.server.common.msg.TbActorMsg;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -56,9 +57,36 @@ public class DefaultTbActorSystem implements TbActorSystem {
 
     @Override
     public void createDispatcher(String dispatcherId, ExecutorService executor) {
-        Dispatcher current = dispatchers.putIfAbsent(dispatcherId, new Dispatcher(dispatcherId, executor));
+        createDispatcher(dispatcherId, executor, TbActorMailboxLimit.UNBOUNDED);
+    }
+
+    @Override
+    public void createDispatcher(String dispatcherId, ExecutorService executor, TbActorMailboxLimit mailboxLimit) {
+        registerDispatcher(new Dispatcher(dispatcherId, Collections.singletonList(executor), mailboxLimit));
+    }
+
+    @Override
+    public void createShardedDispatcher(String dispatcherId, int shardsCount) {
+        createShardedDispatcher(dispatcherId, shardsCount, TbActorMailboxLimit.UNBOUNDED);
+    }
+
+    @Override
+    public void createShardedDispatcher(String dispatcherId, int shardsCount, TbActorMailboxLimit mailboxLimit) {
+        if (shardsCount < 1) {
+            throw new IllegalArgumentException("Dispatcher [" + dispatcherId + "] shards count must be positive: " + shardsCount);
+        }
+        List<ExecutorService> executors = new ArrayList<>(shardsCount);
+        for (int i = 0; i < shardsCount; i++) {
+            executors.add(Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName(dispatcherId + "-shard-" + i)));
+        }
+        registerDispatcher(new Dispatcher(dispatcherId, executors, mailboxLimit));
+    }
+
+    private void registerDispatcher(Dispatcher dispatcher) {
+        Dispatcher current = dispatchers.putIfAbsent(dispatcher.getDispatcherId(), dispatcher);
         if (current != null) {
-            throw new RuntimeException("Dispatcher with id [" + dispatcherId + "] is already registered!");
+            dispatcher.shutdownNow();
+            throw new RuntimeException("Dispatcher with id [" + dispatcher.getDispatcherId() + "] is already registered!");
         }
     }
 
@@ -66,12 +94,21 @@ public class DefaultTbActorSystem implements TbActorSystem {
     public void destroyDispatcher(String dispatcherId) {
         Dispatcher dispatcher = dispatchers.remove(dispatcherId);
         if (dispatcher != null) {
-            dispatcher.getExecutor().shutdownNow();
+            dispatcher.shutdownNow();
         } else {
             throw new RuntimeException("Dispatcher with id [" + dispatcherId + "] is not registered!");
         }
     }
 
+    @Override
+    public TbMailboxStats getMailboxStats(String dispatcherId) {
+        Dispatcher dispatcher = dispatchers.get(dispatcherId);
+        if (dispatcher == null) {
+            throw new RuntimeException("Dispatcher with id [" + dispatcherId + "] is not registered!");
+        }
+        return dispatcher.getStats();
+    }
+
     @Override
     public TbActorRef getActor(TbActorId actorId) {
         return actors.get(actorId);
@@ -216,9 +253,9 @@ public class DefaultTbActorSystem implements TbActorSystem {
     @Override
     public void stop() {
         dispatchers.values().forEach(dispatcher -> {
-            dispatcher.getExecutor().shutdown();
+            dispatcher.shutdown();
             try {
-                dispatcher.getExecutor().awaitTermination(3, TimeUnit.SECONDS);
+                dispatcher.awaitTermination(3, TimeUnit.SECONDS);
             } catch (InterruptedException e) {
                 log.warn("[{}] Failed to stop dispatcher", dispatcher.getDispatcherId(), e);
             }
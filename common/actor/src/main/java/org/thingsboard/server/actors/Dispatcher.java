@@ -15,14 +15,59 @@
  */
 package org.thingsboard.server.actors;
 
-import lombok.Data;
+import lombok.Getter;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
-@Data
+/**
+ * Executors of the actor mailboxes. A sharded dispatcher consists of several single-threaded event loops,
+ * and each mailbox is pinned to one of them by the hash of the {@link TbActorId}, so all the messages of the actor
+ * are processed by the same thread.
+ */
+@Getter
 class Dispatcher {
 
     private final String dispatcherId;
-    private final ExecutorService executor;
+    private final List<ExecutorService> executors;
+    private final TbActorMailboxLimit mailboxLimit;
+    private final TbMailboxStats stats;
+
+    Dispatcher(String dispatcherId, ExecutorService executor) {
+        this(dispatcherId, Collections.singletonList(executor), TbActorMailboxLimit.UNBOUNDED);
+    }
+
+    Dispatcher(String dispatcherId, List<ExecutorService> executors, TbActorMailboxLimit mailboxLimit) {
+        this.dispatcherId = dispatcherId;
+        this.executors = executors;
+        this.mailboxLimit = mailboxLimit;
+        this.stats = new TbMailboxStats(dispatcherId);
+    }
+
+    ExecutorService getExecutor(TbActorId actorId) {
+        int shards = executors.size();
+        return shards == 1 ? executors.get(0) : executors.get(Math.floorMod(actorId.hashCode(), shards));
+    }
+
+    boolean isSharded() {
+        return executors.size() > 1;
+    }
+
+    void shutdown() {
+        executors.forEach(ExecutorService::shutdown);
+    }
+
+    void shutdownNow() {
+        executors.forEach(ExecutorService::shutdownNow);
+    }
+
+    void awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (ExecutorService executor : executors) {
+            executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+    }
 
 }
@@ -0,0 +1,67 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+import org.thingsboard.server.common.msg.TbActorMsg;
+
+import java.util.function.Consumer;
+
+class MpscArrayMailboxQueue implements TbActorMailboxQueue {
+
+    // High priority messages are rare (lifecycle, partition change, etc.), so the lane is kept small to save heap for idle actors.
+    private static final int HIGH_PRIORITY_CHUNK_SIZE = 4;
+    private static final int NORMAL_PRIORITY_CHUNK_SIZE = 32;
+
+    private final MpscChunkedArrayQueue<TbActorMsg> highPriorityMsgs = new MpscChunkedArrayQueue<>(HIGH_PRIORITY_CHUNK_SIZE);
+    private final MpscChunkedArrayQueue<TbActorMsg> normalPriorityMsgs = new MpscChunkedArrayQueue<>(NORMAL_PRIORITY_CHUNK_SIZE);
+
+    @Override
+    public boolean add(TbActorMsg msg, boolean highPriority) {
+        if (highPriority) {
+            highPriorityMsgs.offer(msg);
+        } else {
+            normalPriorityMsgs.offer(msg);
+        }
+        return true;
+    }
+
+    @Override
+    public TbActorMsg pollHighPriority() {
+        return highPriorityMsgs.poll();
+    }
+
+    @Override
+    public TbActorMsg pollNormalPriority() {
+        return normalPriorityMsgs.poll();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return highPriorityMsgs.isEmpty() && normalPriorityMsgs.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return highPriorityMsgs.size() + normalPriorityMsgs.size();
+    }
+
+    @Override
+    public void forEach(Consumer<TbActorMsg> action) {
+        highPriorityMsgs.forEach(action);
+        normalPriorityMsgs.forEach(action);
+    }
+
+}
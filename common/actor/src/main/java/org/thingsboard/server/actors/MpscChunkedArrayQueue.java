@@ -0,0 +1,186 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
+
+/**
+ * Unbounded multi-producer single-consumer queue that stores elements in linked fixed-size array chunks.
+ * Producers claim a slot with a single atomic increment, so no node is allocated per element.
+ * The consumer side ({@link #poll()}) must be invoked by one thread at a time.
+ * The first chunk is allocated by the first offer, so an idle queue holds no array at all.
+ */
+final class MpscChunkedArrayQueue<E> {
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<MpscChunkedArrayQueue, Chunk> PRODUCER_CHUNK =
+            AtomicReferenceFieldUpdater.newUpdater(MpscChunkedArrayQueue.class, Chunk.class, "producerChunk");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<Chunk, Chunk> NEXT =
+            AtomicReferenceFieldUpdater.newUpdater(Chunk.class, Chunk.class, "next");
+
+    private final int chunkShift;
+    private final int chunkMask;
+    private final AtomicLong producerIndex = new AtomicLong();
+    // Hint for the producers, always points to one of the latest chunks. Null until the first offer.
+    private volatile Chunk<E> producerChunk;
+    // Written only by the consumer. Null until the first poll.
+    private volatile Chunk<E> consumerChunk;
+    private volatile long consumerIndex;
+
+    MpscChunkedArrayQueue(int chunkSize) {
+        if (chunkSize <= 0 || Integer.bitCount(chunkSize) != 1) {
+            throw new IllegalArgumentException("Chunk size must be a positive power of two: " + chunkSize);
+        }
+        this.chunkShift = Integer.numberOfTrailingZeros(chunkSize);
+        this.chunkMask = chunkSize - 1;
+    }
+
+    void offer(E e) {
+        Objects.requireNonNull(e);
+        long index = producerIndex.getAndIncrement();
+        Chunk<E> chunk = findProducerChunk(index >>> chunkShift);
+        chunk.slots.set((int) (index & chunkMask), e);
+    }
+
+    E poll() {
+        long index = consumerIndex;
+        if (index == producerIndex.get()) {
+            return null;
+        }
+        Chunk<E> chunk = consumerChunk;
+        if (chunk == null) {
+            while ((chunk = findFirstChunk()) == null) {
+                // The producer that claimed the first slot is allocating the first chunk right now.
+                Thread.onSpinWait();
+            }
+            consumerChunk = chunk;
+        }
+        if (chunk.index != index >>> chunkShift) {
+            Chunk<E> next;
+            while ((next = chunk.next) == null) {
+                // The producer that claimed the first slot of the next chunk is linking it right now.
+                Thread.onSpinWait();
+            }
+            // Previous chunks are fully consumed and are not needed by the producers anymore.
+            next.prev = null;
+            consumerChunk = next;
+            chunk = next;
+        }
+        int offset = (int) (index & chunkMask);
+        E e;
+        while ((e = chunk.slots.get(offset)) == null) {
+            // The slot is claimed but the element is not stored yet.
+            Thread.onSpinWait();
+        }
+        chunk.slots.lazySet(offset, null);
+        consumerIndex = index + 1;
+        return e;
+    }
+
+    boolean isEmpty() {
+        return consumerIndex == producerIndex.get();
+    }
+
+    int size() {
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, producerIndex.get() - consumerIndex));
+    }
+
+    void forEach(Consumer<? super E> action) {
+        long index = consumerIndex;
+        Chunk<E> chunk = consumerChunk;
+        if (chunk == null) {
+            chunk = findFirstChunk();
+        }
+        long end = producerIndex.get();
+        while (chunk != null && index < end) {
+            long chunkIndex = index >>> chunkShift;
+            if (chunk.index < chunkIndex) {
+                chunk = chunk.next;
+            } else {
+                if (chunk.index > chunkIndex) {
+                    // The consumer has moved to the next chunk concurrently.
+                    index = chunk.index << chunkShift;
+                    continue;
+                }
+                E e = chunk.slots.get((int) (index & chunkMask));
+                if (e != null) {
+                    action.accept(e);
+                }
+                index++;
+            }
+        }
+    }
+
+    /**
+     * Returns the chunk with index 0 while it is not consumed yet, or null if it is not allocated yet.
+     */
+    private Chunk<E> findFirstChunk() {
+        Chunk<E> chunk = producerChunk;
+        while (chunk != null && chunk.index > 0) {
+            chunk = chunk.prev;
+        }
+        return chunk;
+    }
+
+    private Chunk<E> findProducerChunk(long chunkIndex) {
+        Chunk<E> chunk = producerChunk;
+        if (chunk == null) {
+            Chunk<E> first = new Chunk<>(0, chunkMask + 1, null);
+            chunk = PRODUCER_CHUNK.compareAndSet(this, null, first) ? first : producerChunk;
+        }
+        // The chunk may be behind the hint if other producers have already moved it forward.
+        // Chunks that are not consumed yet keep their previous links, so the walk back never reaches null.
+        while (chunk.index > chunkIndex) {
+            chunk = chunk.prev;
+        }
+        while (chunk.index < chunkIndex) {
+            Chunk<E> next = chunk.next;
+            if (next == null) {
+                Chunk<E> newChunk = new Chunk<>(chunk.index + 1, chunkMask + 1, chunk);
+                next = NEXT.compareAndSet(chunk, null, newChunk) ? newChunk : chunk.next;
+            }
+            chunk = next;
+        }
+        Chunk<E> hint;
+        while ((hint = producerChunk).index < chunk.index) {
+            if (PRODUCER_CHUNK.compareAndSet(this, hint, chunk)) {
+                break;
+            }
+        }
+        return chunk;
+    }
+
+    private static final class Chunk<E> {
+
+        private final long index;
+        private final AtomicReferenceArray<E> slots;
+        private volatile Chunk<E> prev;
+        private volatile Chunk<E> next;
+
+        private Chunk(long index, int size, Chunk<E> prev) {
+            this.index = index;
+            this.slots = new AtomicReferenceArray<>(size);
+            this.prev = prev;
+        }
+
+    }
+
+}
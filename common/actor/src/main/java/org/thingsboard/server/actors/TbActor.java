@@ -27,6 +27,13 @@ public interface TbActor {
     default void init(TbActorCtx ctx) throws TbActorException {
     }
 
+    /**
+     * Called by the mailbox after it processed a run of up to actor throughput messages and before the actor is released,
+     * so the actor may accumulate consecutive messages in {@link #process(TbActorMsg)} and handle them here as a batch.
+     */
+    default void onMailboxBatchProcessed() {
+    }
+
     default void destroy(TbActorStopReason stopReason, Throwable cause) throws TbActorException {
     }
 
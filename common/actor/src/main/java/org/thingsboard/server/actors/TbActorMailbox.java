@@ -15,8 +15,8 @@
  */
 package org.thingsboard.server.actors;
 
+import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.msg.MsgType;
@@ -25,7 +25,7 @@ import org.thingsboard.server.common.msg.TbActorMsg;
 import org.thingsboard.server.common.msg.TbActorStopReason;
 
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
@@ -33,7 +33,6 @@ import java.util.function.Supplier;
 
 @Slf4j
 @Getter
-@RequiredArgsConstructor
 public final class TbActorMailbox implements TbActorCtx {
     private static final boolean HIGH_PRIORITY = true;
     private static final boolean NORMAL_PRIORITY = false;
@@ -50,15 +49,39 @@ public final class TbActorMailbox implements TbActorCtx {
     private final TbActorRef parentRef;
     private final TbActor actor;
     private final Dispatcher dispatcher;
-    private final ConcurrentLinkedQueue<TbActorMsg> highPriorityMsgs = new ConcurrentLinkedQueue<>();
-    private final ConcurrentLinkedQueue<TbActorMsg> normalPriorityMsgs = new ConcurrentLinkedQueue<>();
+    @Getter(AccessLevel.NONE)
+    private final ExecutorService executor;
+    @Getter(AccessLevel.NONE)
+    private final TbActorMailboxQueue msgs;
+    @Getter(AccessLevel.NONE)
+    private final boolean recheckInPlace;
     private final AtomicBoolean busy = new AtomicBoolean(FREE);
     private final AtomicBoolean ready = new AtomicBoolean(NOT_READY);
     private final AtomicBoolean destroyInProgress = new AtomicBoolean();
     private volatile TbActorStopReason stopReason;
 
+    public TbActorMailbox(TbActorSystem system, TbActorSystemSettings settings, TbActorId selfId, TbActorRef parentRef, TbActor actor, Dispatcher dispatcher) {
+        this.system = system;
+        this.settings = settings;
+        this.selfId = selfId;
+        this.parentRef = parentRef;
+        this.actor = actor;
+        this.dispatcher = dispatcher;
+        this.executor = dispatcher.getExecutor(selfId);
+        TbActorMailboxQueue queue = TbActorMailboxQueue.create(settings.getMailboxType());
+        if (settings.isMailboxStatsEnabled()) {
+            queue = new TimedMailboxQueue(queue, dispatcher.getStats());
+        }
+        if (dispatcher.getMailboxLimit().isBounded()) {
+            queue = new BoundedMailboxQueue(queue, dispatcher.getMailboxLimit(), dispatcher.getStats());
+        }
+        this.msgs = queue;
+        // The event loop of a sharded dispatcher is never shared with other mailbox tasks of this actor, so there is nothing to gain from resubmitting
+        this.recheckInPlace = settings.getMailboxType() == TbActorMailboxType.MPSC_ARRAY || dispatcher.isSharded();
+    }
+
     public void initActor() {
-        dispatcher.getExecutor().execute(() -> tryInit(1));
+        executor.execute(() -> tryInit(1));
     }
 
     private void tryInit(int attempt) {
@@ -87,11 +110,11 @@ public final class TbActorMailbox implements TbActorCtx {
             } else if (strategy.getRetryDelay() > 0) {
                 log.info("[{}] Failed to init actor, attempt {}, going to retry in attempts in {}ms", selfId, attempt, strategy.getRetryDelay());
                 log.debug("[{}] Error", selfId, t);
-                system.getScheduler().schedule(() -> dispatcher.getExecutor().execute(() -> tryInit(attemptIdx)), strategy.getRetryDelay(), TimeUnit.MILLISECONDS);
+                system.getScheduler().schedule(() -> executor.execute(() -> tryInit(attemptIdx)), strategy.getRetryDelay(), TimeUnit.MILLISECONDS);
             } else {
                 log.info("[{}] Failed to init actor, attempt {}, going to retry immediately", selfId, attempt);
                 log.debug("[{}] Error", selfId, t);
-                dispatcher.getExecutor().execute(() -> tryInit(attemptIdx));
+                executor.execute(() -> tryInit(attemptIdx));
             }
         }
     }
@@ -105,12 +128,11 @@ public final class TbActorMailbox implements TbActorCtx {
 
     private void enqueue(TbActorMsg msg, boolean highPriority) {
         if (!destroyInProgress.get()) {
-            if (highPriority) {
-                highPriorityMsgs.add(msg);
+            if (msgs.add(msg, highPriority)) {
+                tryProcessQueue(true);
             } else {
-                normalPriorityMsgs.add(msg);
+                log.debug("[{}] Mailbox is full, message rejected: {}", selfId, msg);
             }
-            tryProcessQueue(true);
         } else {
             if (highPriority && msg.getMsgType().equals(MsgType.RULE_NODE_UPDATED_MSG)) {
                 synchronized (this) {
@@ -130,9 +152,9 @@ public final class TbActorMailbox implements TbActorCtx {
 
     private void tryProcessQueue(boolean newMsg) {
         if (ready.get() == READY) {
-            if (newMsg || !highPriorityMsgs.isEmpty() || !normalPriorityMsgs.isEmpty()) {
+            if (newMsg || !msgs.isEmpty()) {
                 if (busy.compareAndSet(FREE, BUSY)) {
-                    dispatcher.getExecutor().execute(this::processMailbox);
+                    executor.execute(this::processMailbox);
                 } else {
                     log.trace("[{}] MessageBox is busy, new msg: {}", selfId, newMsg);
                 }
@@ -147,10 +169,7 @@ public final class TbActorMailbox implements TbActorCtx {
     private void processMailbox() {
         boolean noMoreElements = false;
         for (int i = 0; i < settings.getActorThroughput(); i++) {
-            TbActorMsg msg = highPriorityMsgs.poll();
-            if (msg == null) {
-                msg = normalPriorityMsgs.poll();
-            }
+            TbActorMsg msg = msgs.poll();
             if (msg != null) {
                 try {
                     log.debug("[{}] Going to process message: {}", selfId, msg);
@@ -170,14 +189,27 @@ public final class TbActorMailbox implements TbActorCtx {
                 break;
             }
         }
+        try {
+            actor.onMailboxBatchProcessed();
+        } catch (Throwable t) {
+            log.debug("[{}] Failed to process batch of messages", selfId, t);
+        }
         if (noMoreElements) {
             busy.set(FREE);
-            dispatcher.getExecutor().execute(() -> tryProcessQueue(false));
+            if (recheckInPlace) {
+                tryProcessQueue(false);
+            } else {
+                executor.execute(() -> tryProcessQueue(false));
+            }
         } else {
-            dispatcher.getExecutor().execute(this::processMailbox);
+            executor.execute(this::processMailbox);
         }
     }
 
+    public int getQueueSize() {
+        return msgs.size();
+    }
+
     @Override
     public TbActorId getSelf() {
         return selfId;
@@ -233,12 +265,11 @@ public final class TbActorMailbox implements TbActorCtx {
             stopReason = TbActorStopReason.STOPPED;
         }
         destroyInProgress.set(true);
-        dispatcher.getExecutor().execute(() -> {
+        executor.execute(() -> {
             try {
                 ready.set(NOT_READY);
                 actor.destroy(stopReason, cause);
-                highPriorityMsgs.forEach(msg -> msg.onTbActorStopped(stopReason));
-                normalPriorityMsgs.forEach(msg -> msg.onTbActorStopped(stopReason));
+                msgs.forEach(msg -> msg.onTbActorStopped(stopReason));
             } catch (Throwable t) {
                 log.warn("[{}] Failed to destroy actor: {}", selfId, t);
             }
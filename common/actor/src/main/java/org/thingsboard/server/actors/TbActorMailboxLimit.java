@@ -0,0 +1,44 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+import lombok.Data;
+
+/**
+ * Capacity of the normal priority messages in every mailbox of a dispatcher.
+ * High priority messages (lifecycle, partition changes, etc.) are never limited.
+ * Overflowed messages are notified via {@link org.thingsboard.server.common.msg.TbActorMsg#onTbActorMailboxOverflow()}.
+ */
+@Data
+public class TbActorMailboxLimit {
+
+    public static final TbActorMailboxLimit UNBOUNDED = new TbActorMailboxLimit(0, TbActorMailboxOverflowPolicy.REJECT, 0);
+
+    /**
+     * Max number of normal priority messages in the mailbox, 0 means unbounded.
+     */
+    private final int capacity;
+    private final TbActorMailboxOverflowPolicy overflowPolicy;
+    /**
+     * Max time the producer waits for the free space with {@link TbActorMailboxOverflowPolicy#BLOCK} policy.
+     */
+    private final long blockTimeoutMs;
+
+    public boolean isBounded() {
+        return capacity > 0;
+    }
+
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+import org.thingsboard.server.common.msg.TbActorMsg;
+
+import java.util.function.Consumer;
+
+/**
+ * Message storage of the {@link TbActorMailbox}.
+ * Messages may be added from any thread, while {@link #poll()} is invoked only by the thread that owns the busy flag of the mailbox.
+ */
+interface TbActorMailboxQueue {
+
+    /**
+     * @return false if the message was not added because the queue is full.
+     */
+    boolean add(TbActorMsg msg, boolean highPriority);
+
+    TbActorMsg pollHighPriority();
+
+    TbActorMsg pollNormalPriority();
+
+    /**
+     * @return next high priority message, next normal priority message if there are no high priority messages, or null if the queue is empty.
+     */
+    default TbActorMsg poll() {
+        TbActorMsg msg = pollHighPriority();
+        if (msg == null) {
+            msg = pollNormalPriority();
+        }
+        return msg;
+    }
+
+    boolean isEmpty();
+
+    /**
+     * @return number of the messages in the queue. May traverse the queue, so it is not intended for the processing path.
+     */
+    int size();
+
+    /**
+     * Weakly consistent traversal of the messages that are not polled yet.
+     */
+    void forEach(Consumer<TbActorMsg> action);
+
+    static TbActorMailboxQueue create(TbActorMailboxType type) {
+        return switch (type) {
+            case CONCURRENT_LINKED -> new ConcurrentLinkedMailboxQueue();
+            case MPSC_ARRAY -> new MpscArrayMailboxQueue();
+        };
+    }
+
+}
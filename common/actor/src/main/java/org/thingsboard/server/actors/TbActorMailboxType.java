@@ -0,0 +1,31 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+public enum TbActorMailboxType {
+
+    /**
+     * Two {@link java.util.concurrent.ConcurrentLinkedQueue} lanes, one node is allocated per message.
+     * Drained mailbox is re-checked for new messages by a separate dispatcher task.
+     */
+    CONCURRENT_LINKED,
+    /**
+     * Two array-backed multi-producer single-consumer lanes, messages are stored in pre-allocated chunks.
+     * Drained mailbox is re-checked for new messages in place, without the extra dispatcher task.
+     */
+    MPSC_ARRAY
+
+}
@@ -28,8 +28,20 @@ public interface TbActorSystem {
 
     void createDispatcher(String dispatcherId, ExecutorService executor);
 
+    void createDispatcher(String dispatcherId, ExecutorService executor, TbActorMailboxLimit mailboxLimit);
+
+    /**
+     * Creates a dispatcher of the given number of single-threaded event loops.
+     * Every actor of the dispatcher is pinned to one of the loops by the hash of its {@link TbActorId}.
+     */
+    void createShardedDispatcher(String dispatcherId, int shardsCount);
+
+    void createShardedDispatcher(String dispatcherId, int shardsCount, TbActorMailboxLimit mailboxLimit);
+
     void destroyDispatcher(String dispatcherId);
 
+    TbMailboxStats getMailboxStats(String dispatcherId);
+
     TbActorRef getActor(TbActorId actorId);
 
     TbActorRef createRootActor(String dispatcherId, TbActorCreator creator);
@@ -0,0 +1,83 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
+/**
+ * Mailbox statistics of the actors that belong to the same dispatcher.
+ * Queue size and time in queue are collected only if {@link TbActorSystemSettings#isMailboxStatsEnabled()} is set,
+ * while the overflowed messages of the bounded mailboxes are always counted.
+ */
+@Getter
+public class TbMailboxStats {
+
+    private static final LongConsumer NO_OP_LISTENER = timeInQueueNanos -> {};
+    private static final Runnable NO_OP_OVERFLOW_LISTENER = () -> {};
+
+    private final String dispatcherId;
+    /**
+     * Number of messages waiting in the mailboxes. {@link LongAdder} is a {@link Number}, so it may be registered as a gauge.
+     */
+    private final LongAdder queueSize = new LongAdder();
+    private final LongAdder dequeuedMsgs = new LongAdder();
+    private final LongAdder totalTimeInQueueNanos = new LongAdder();
+    /**
+     * Number of messages rejected or evicted because the mailbox was full.
+     */
+    private final LongAdder overflowMsgs = new LongAdder();
+    /**
+     * Receives the time in nanoseconds that every processed message has spent in the mailbox, e.g. to record it to a timer.
+     */
+    @Setter
+    private volatile LongConsumer timeInQueueListener = NO_OP_LISTENER;
+    @Setter
+    private volatile Runnable overflowListener = NO_OP_OVERFLOW_LISTENER;
+
+    TbMailboxStats(String dispatcherId) {
+        this.dispatcherId = dispatcherId;
+    }
+
+    void onEnqueue() {
+        queueSize.increment();
+    }
+
+    void onDequeue(long timeInQueueNanos) {
+        queueSize.decrement();
+        dequeuedMsgs.increment();
+        totalTimeInQueueNanos.add(timeInQueueNanos);
+        timeInQueueListener.accept(timeInQueueNanos);
+    }
+
+    void onDiscard() {
+        queueSize.decrement();
+    }
+
+    void onOverflow() {
+        overflowMsgs.increment();
+        overflowListener.run();
+    }
+
+    public double getAvgTimeInQueueNanos() {
+        long count = dequeuedMsgs.sum();
+        return count > 0 ? (double) totalTimeInQueueNanos.sum() / count : 0.0;
+    }
+
+}
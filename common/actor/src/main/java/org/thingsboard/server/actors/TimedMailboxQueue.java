@@ -0,0 +1,109 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+import lombok.RequiredArgsConstructor;
+import org.thingsboard.server.common.msg.MsgType;
+import org.thingsboard.server.common.msg.TbActorMsg;
+import org.thingsboard.server.common.msg.TbActorStopReason;
+
+import java.util.function.Consumer;
+
+/**
+ * Decorator that stores the enqueue time together with every message and reports the queue size
+ * and the time spent in the queue to the {@link TbMailboxStats} of the dispatcher.
+ */
+@RequiredArgsConstructor
+class TimedMailboxQueue implements TbActorMailboxQueue {
+
+    private final TbActorMailboxQueue delegate;
+    private final TbMailboxStats stats;
+
+    @Override
+    public boolean add(TbActorMsg msg, boolean highPriority) {
+        stats.onEnqueue();
+        if (delegate.add(new TimedActorMsg(msg, System.nanoTime()), highPriority)) {
+            return true;
+        } else {
+            stats.onDiscard();
+            return false;
+        }
+    }
+
+    @Override
+    public TbActorMsg pollHighPriority() {
+        return unwrap((TimedActorMsg) delegate.pollHighPriority());
+    }
+
+    @Override
+    public TbActorMsg pollNormalPriority() {
+        return unwrap((TimedActorMsg) delegate.pollNormalPriority());
+    }
+
+    private TbActorMsg unwrap(TimedActorMsg timedMsg) {
+        if (timedMsg == null) {
+            return null;
+        }
+        stats.onDequeue(System.nanoTime() - timedMsg.enqueueTs);
+        return timedMsg.msg;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return delegate.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    /**
+     * The traversal is used to notify the pending messages on actor destroy,
+     * so the traversed messages are excluded from the queue size.
+     */
+    @Override
+    public void forEach(Consumer<TbActorMsg> action) {
+        delegate.forEach(msg -> {
+            stats.onDiscard();
+            action.accept(((TimedActorMsg) msg).msg);
+        });
+    }
+
+    @RequiredArgsConstructor
+    private static class TimedActorMsg implements TbActorMsg {
+
+        private final TbActorMsg msg;
+        private final long enqueueTs;
+
+        @Override
+        public MsgType getMsgType() {
+            return msg.getMsgType();
+        }
+
+        @Override
+        public void onTbActorStopped(TbActorStopReason reason) {
+            msg.onTbActorStopped(reason);
+        }
+
+        @Override
+        public void onTbActorMailboxOverflow() {
+            msg.onTbActorMailboxOverflow();
+        }
+
+    }
+
+}
@@ -24,11 +24,15 @@ import org.junit.jupiter.api.Test;
 import org.thingsboard.common.util.ThingsBoardExecutors;
 import org.thingsboard.common.util.ThingsBoardThreadFactory;
 import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.msg.TbActorMsg;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -55,11 +59,15 @@ public class ActorSystemTest {
         int cores = Runtime.getRuntime().availableProcessors();
         parallelism = Math.max(2, cores / 2);
         log.debug("parallelism {}", parallelism);
-        TbActorSystemSettings settings = new TbActorSystemSettings(5, parallelism, 42);
+        TbActorSystemSettings settings = new TbActorSystemSettings(5, parallelism, 42, getMailboxType());
         actorSystem = new DefaultTbActorSystem(settings);
         submitPool = Executors.newFixedThreadPool(parallelism, ThingsBoardThreadFactory.forName(getClass().getSimpleName() + "-submit-test-scope")); //order guaranteed
     }
 
+    protected TbActorMailboxType getMailboxType() {
+        return TbActorMailboxType.CONCURRENT_LINKED;
+    }
+
     @AfterEach
     public void shutdownActorSystem() {
         actorSystem.stop();
@@ -111,6 +119,126 @@ public class ActorSystemTest {
         testActorsAndMessages(1000, 1000, 10);
     }
 
+    @Test
+    public void test1KActorsAnd1KMessagesShardedDispatcher() throws InterruptedException {
+        actorSystem.createShardedDispatcher(ROOT_DISPATCHER, parallelism);
+        testActorsAndMessages(1000, 1000, 10);
+    }
+
+    @Test
+    public void testShardedDispatcherProcessesActorMessagesOnSameThread() throws InterruptedException {
+        actorSystem.createShardedDispatcher(ROOT_DISPATCHER, parallelism);
+        int msgNumber = 10000;
+        Set<String> threadNames = ConcurrentHashMap.newKeySet();
+        CountDownLatch latch = new CountDownLatch(msgNumber);
+        TbActorId actorId = new TbEntityActorId(new DeviceId(UUID.randomUUID()));
+        actorSystem.createRootActor(ROOT_DISPATCHER, new TbActorCreator() {
+            @Override
+            public TbActorId createActorId() {
+                return actorId;
+            }
+
+            @Override
+            public TbActor createActor() {
+                return new AbstractTbActor() {
+                    @Override
+                    public boolean process(TbActorMsg msg) {
+                        threadNames.add(Thread.currentThread().getName());
+                        latch.countDown();
+                        return true;
+                    }
+                };
+            }
+        });
+        for (int i = 0; i < msgNumber; i++) {
+            int value = i;
+            submitPool.execute(() -> actorSystem.tell(actorId, new IntTbActorMsg(value)));
+        }
+
+        Assertions.assertTrue(latch.await(TIMEOUT_AWAIT_MAX_SEC, TimeUnit.SECONDS));
+        assertThat(threadNames).hasSize(1);
+        assertThat(threadNames.iterator().next()).startsWith(ROOT_DISPATCHER + "-shard-");
+    }
+
+    @Test
+    public void testMailboxBatchProcessedAfterEachRunOfMessages() throws InterruptedException {
+        executor = Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName(getClass().getSimpleName()));
+        actorSystem.createDispatcher(ROOT_DISPATCHER, executor);
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        CountDownLatch processed = new CountDownLatch(12);
+        TbActorId actorId = new TbEntityActorId(new DeviceId(UUID.randomUUID()));
+        actorSystem.createRootActor(ROOT_DISPATCHER, new TbActorCreator() {
+            @Override
+            public TbActorId createActorId() {
+                return actorId;
+            }
+
+            @Override
+            public TbActor createActor() {
+                return new AbstractTbActor() {
+                    private final List<TbActorMsg> pending = new ArrayList<>();
+
+                    @Override
+                    public boolean process(TbActorMsg msg) {
+                        pending.add(msg);
+                        return true;
+                    }
+
+                    @Override
+                    public void onMailboxBatchProcessed() {
+                        if (!pending.isEmpty()) {
+                            batchSizes.add(pending.size());
+                            pending.forEach(msg -> processed.countDown());
+                            pending.clear();
+                        }
+                    }
+                };
+            }
+        });
+        CountDownLatch dispatcherBlocked = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                dispatcherBlocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        for (int i = 0; i < 12; i++) {
+            actorSystem.tell(actorId, new IntTbActorMsg(i));
+        }
+        dispatcherBlocked.countDown();
+
+        Assertions.assertTrue(processed.await(TIMEOUT_AWAIT_MAX_SEC, TimeUnit.SECONDS));
+        assertThat(batchSizes).containsExactly(5, 5, 2);
+    }
+
+    @Test
+    public void testMailboxStats() throws InterruptedException {
+        TbActorSystem statsActorSystem = new DefaultTbActorSystem(new TbActorSystemSettings(5, 1, 42, getMailboxType(), true));
+        try {
+            statsActorSystem.createShardedDispatcher(ROOT_DISPATCHER, 2);
+            TbMailboxStats stats = statsActorSystem.getMailboxStats(ROOT_DISPATCHER);
+            AtomicInteger listenerInvocations = new AtomicInteger();
+            stats.setTimeInQueueListener(timeInQueueNanos -> listenerInvocations.incrementAndGet());
+            ActorTestCtx testCtx = getActorTestCtx(100);
+            TbActorRef actorRef = statsActorSystem.createRootActor(ROOT_DISPATCHER, new TestRootActor.TestRootActorCreator(
+                    new TbEntityActorId(new DeviceId(UUID.randomUUID())), testCtx));
+            for (int i = 0; i < 100; i++) {
+                actorRef.tell(new IntTbActorMsg(i));
+            }
+
+            Assertions.assertTrue(testCtx.getLatch().await(TIMEOUT_AWAIT_MAX_SEC, TimeUnit.SECONDS));
+            Awaitility.await("all messages are polled from the mailbox").atMost(TIMEOUT_AWAIT_MAX_SEC, TimeUnit.SECONDS)
+                    .until(() -> stats.getDequeuedMsgs().sum() == 100);
+            assertThat(stats.getQueueSize().sum()).isZero();
+            assertThat(((TbActorMailbox) actorRef).getQueueSize()).isZero();
+            assertThat(listenerInvocations.get()).isEqualTo(100);
+            assertThat(stats.getAvgTimeInQueueNanos()).isPositive();
+        } finally {
+            statsActorSystem.stop();
+        }
+    }
+
     @Test
     public void testNoMessagesAfterDestroy() throws InterruptedException {
         executor = ThingsBoardExecutors.newWorkStealingPool(parallelism, getClass());
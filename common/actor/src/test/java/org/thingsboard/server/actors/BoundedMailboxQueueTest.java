@@ -0,0 +1,133 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.msg.MsgType;
+import org.thingsboard.server.common.msg.TbActorMsg;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BoundedMailboxQueueTest {
+
+    private final List<Integer> overflowed = new ArrayList<>();
+    private final TbMailboxStats stats = new TbMailboxStats("test-dispatcher");
+
+    @Test
+    public void testRejectPolicy() {
+        TbActorMailboxQueue queue = createQueue(2, TbActorMailboxOverflowPolicy.REJECT, 0);
+
+        assertThat(queue.add(new OverflowAwareMsg(1), false)).isTrue();
+        assertThat(queue.add(new OverflowAwareMsg(2), false)).isTrue();
+        assertThat(queue.add(new OverflowAwareMsg(3), false)).isFalse();
+        assertThat(overflowed).containsExactly(3);
+        assertThat(stats.getOverflowMsgs().sum()).isEqualTo(1);
+
+        assertThat(valueOf(queue.poll())).isEqualTo(1);
+        assertThat(queue.add(new OverflowAwareMsg(4), false)).isTrue();
+        assertThat(valueOf(queue.poll())).isEqualTo(2);
+        assertThat(valueOf(queue.poll())).isEqualTo(4);
+        assertThat(queue.poll()).isNull();
+    }
+
+    @Test
+    public void testDropOldestPolicy() {
+        TbActorMailboxQueue queue = createQueue(2, TbActorMailboxOverflowPolicy.DROP_OLDEST, 0);
+
+        for (int i = 1; i <= 5; i++) {
+            assertThat(queue.add(new OverflowAwareMsg(i), false)).isTrue();
+        }
+
+        assertThat(valueOf(queue.poll())).isEqualTo(4);
+        assertThat(overflowed).containsExactly(1, 2, 3);
+        assertThat(stats.getOverflowMsgs().sum()).isEqualTo(3);
+        assertThat(valueOf(queue.poll())).isEqualTo(5);
+        assertThat(queue.poll()).isNull();
+    }
+
+    @Test
+    public void testBlockPolicyRejectsAfterTimeout() {
+        TbActorMailboxQueue queue = createQueue(1, TbActorMailboxOverflowPolicy.BLOCK, 50);
+
+        assertThat(queue.add(new OverflowAwareMsg(1), false)).isTrue();
+        long startTs = System.nanoTime();
+        assertThat(queue.add(new OverflowAwareMsg(2), false)).isFalse();
+        assertThat(System.nanoTime() - startTs).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(overflowed).containsExactly(2);
+    }
+
+    @Test
+    public void testBlockPolicyWaitsForFreeSpace() throws Exception {
+        TbActorMailboxQueue queue = createQueue(1, TbActorMailboxOverflowPolicy.BLOCK, 10000);
+        assertThat(queue.add(new OverflowAwareMsg(1), false)).isTrue();
+
+        CompletableFuture<Boolean> blockedAdd = CompletableFuture.supplyAsync(() -> queue.add(new OverflowAwareMsg(2), false));
+        Thread.sleep(50);
+        assertThat(blockedAdd).isNotDone();
+        assertThat(valueOf(queue.poll())).isEqualTo(1);
+
+        assertThat(blockedAdd.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(valueOf(queue.poll())).isEqualTo(2);
+        assertThat(overflowed).isEmpty();
+    }
+
+    @Test
+    public void testHighPriorityMsgsAreNotLimited() {
+        TbActorMailboxQueue queue = createQueue(1, TbActorMailboxOverflowPolicy.REJECT, 0);
+
+        assertThat(queue.add(new OverflowAwareMsg(1), false)).isTrue();
+        for (int i = 2; i <= 10; i++) {
+            assertThat(queue.add(new OverflowAwareMsg(i), true)).isTrue();
+        }
+        assertThat(queue.size()).isEqualTo(10);
+        assertThat(overflowed).isEmpty();
+    }
+
+    private TbActorMailboxQueue createQueue(int capacity, TbActorMailboxOverflowPolicy policy, long blockTimeoutMs) {
+        return new BoundedMailboxQueue(TbActorMailboxQueue.create(TbActorMailboxType.MPSC_ARRAY),
+                new TbActorMailboxLimit(capacity, policy, blockTimeoutMs), stats);
+    }
+
+    private static int valueOf(TbActorMsg msg) {
+        return ((OverflowAwareMsg) msg).value;
+    }
+
+    private class OverflowAwareMsg implements TbActorMsg {
+
+        private final int value;
+
+        OverflowAwareMsg(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public MsgType getMsgType() {
+            return MsgType.QUEUE_TO_RULE_ENGINE_MSG;
+        }
+
+        @Override
+        public void onTbActorMailboxOverflow() {
+            overflowed.add(value);
+        }
+
+    }
+
+}
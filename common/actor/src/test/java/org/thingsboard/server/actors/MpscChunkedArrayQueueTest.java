@@ -0,0 +1,145 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MpscChunkedArrayQueueTest {
+
+    @Test
+    public void testFifoOrderAcrossChunks() {
+        MpscChunkedArrayQueue<Integer> queue = new MpscChunkedArrayQueue<>(4);
+        assertThat(queue.isEmpty()).isTrue();
+        assertThat(queue.poll()).isNull();
+        for (int i = 0; i < 10; i++) {
+            queue.offer(i);
+        }
+        assertThat(queue.isEmpty()).isFalse();
+        assertThat(queue.size()).isEqualTo(10);
+
+        List<Integer> traversed = new ArrayList<>();
+        queue.forEach(traversed::add);
+        assertThat(traversed).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(queue.poll()).isEqualTo(i);
+        }
+        assertThat(queue.poll()).isNull();
+        assertThat(queue.isEmpty()).isTrue();
+        assertThat(queue.size()).isZero();
+    }
+
+    @Test
+    public void testInterleavedOfferAndPoll() {
+        MpscChunkedArrayQueue<Integer> queue = new MpscChunkedArrayQueue<>(2);
+        int next = 0;
+        for (int i = 0; i < 100; i++) {
+            queue.offer(i * 2);
+            queue.offer(i * 2 + 1);
+            assertThat(queue.poll()).isEqualTo(next++);
+        }
+        while (!queue.isEmpty()) {
+            assertThat(queue.poll()).isEqualTo(next++);
+        }
+        assertThat(next).isEqualTo(200);
+    }
+
+    @Test
+    public void testFirstChunkIsAllocatedOnFirstOffer() {
+        MpscChunkedArrayQueue<Integer> queue = new MpscChunkedArrayQueue<>(4);
+        assertThat(ReflectionTestUtils.getField(queue, "producerChunk")).isNull();
+        assertThat(queue.poll()).isNull();
+        List<Integer> seen = new ArrayList<>();
+        queue.forEach(seen::add);
+        assertThat(seen).isEmpty();
+
+        for (int i = 0; i < 6; i++) {
+            queue.offer(i);
+        }
+        assertThat(ReflectionTestUtils.getField(queue, "producerChunk")).isNotNull();
+        queue.forEach(seen::add);
+        assertThat(seen).containsExactly(0, 1, 2, 3, 4, 5);
+        for (int i = 0; i < 6; i++) {
+            assertThat(queue.poll()).isEqualTo(i);
+        }
+        assertThat(queue.poll()).isNull();
+    }
+
+    @Test
+    public void testInvalidChunkSize() {
+        assertThatThrownBy(() -> new MpscChunkedArrayQueue<>(3)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new MpscChunkedArrayQueue<>(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testConcurrentProducersKeepPerProducerOrder() throws InterruptedException {
+        int producers = 4;
+        int msgsPerProducer = 100_000;
+        MpscChunkedArrayQueue<long[]> queue = new MpscChunkedArrayQueue<>(32);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        try {
+            for (int p = 0; p < producers; p++) {
+                long producerId = p;
+                executor.execute(() -> {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = 0; i < msgsPerProducer; i++) {
+                        queue.offer(new long[]{producerId, i});
+                    }
+                });
+            }
+            startLatch.countDown();
+
+            long[] lastSeq = new long[producers];
+            Arrays.fill(lastSeq, -1);
+            int received = 0;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (received < producers * msgsPerProducer && System.nanoTime() < deadline) {
+                long[] msg = queue.poll();
+                if (msg == null) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                int producerId = (int) msg[0];
+                assertThat(msg[1]).isEqualTo(lastSeq[producerId] + 1);
+                lastSeq[producerId] = msg[1];
+                received++;
+            }
+            assertThat(received).isEqualTo(producers * msgsPerProducer);
+            assertThat(queue.isEmpty()).isTrue();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
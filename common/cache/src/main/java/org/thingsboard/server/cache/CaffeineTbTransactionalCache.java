@@ -15,10 +15,12 @@
  */
 package org.thingsboard.server.cache;
 
+import jakarta.annotation.PostConstruct;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NullValue;
 
 import java.io.Serializable;
 import java.util.Collection;
@@ -32,8 +34,9 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
-@RequiredArgsConstructor
 public abstract class CaffeineTbTransactionalCache<K extends Serializable, V extends Serializable> implements TbTransactionalCache<K, V> {
 
     @Getter
@@ -42,16 +45,35 @@ public abstract class CaffeineTbTransactionalCache<K extends Serializable, V ext
     protected final Lock lock = new ReentrantLock();
     private final Map<K, Set<UUID>> objectTransactions = new HashMap<>();
     private final Map<UUID, CaffeineTbCacheTransaction<K, V>> transactions = new HashMap<>();
+    protected TbCacheStats stats;
 
-    public CaffeineTbTransactionalCache(CacheManager cacheManager, String cacheName) {
+    @Autowired(required = false)
+    private TbCacheStatsService cacheStatsService;
+
+    public CaffeineTbTransactionalCache(String cacheName, Cache cache) {
         this.cacheName = cacheName;
-        this.cache = Optional.ofNullable(cacheManager.getCache(cacheName))
-                .orElseThrow(() -> new IllegalArgumentException("Cache '" + cacheName + "' is not configured"));
+        this.cache = cache;
+        this.stats = new TbCacheStats(cacheName);
+    }
+
+    public CaffeineTbTransactionalCache(CacheManager cacheManager, String cacheName) {
+        this(cacheName, Optional.ofNullable(cacheManager.getCache(cacheName))
+                .orElseThrow(() -> new IllegalArgumentException("Cache '" + cacheName + "' is not configured")));
+    }
+
+    @PostConstruct
+    public void initStats() {
+        if (cacheStatsService != null) {
+            var nativeCache = getNativeCache();
+            stats = cacheStatsService.register(cacheName, nativeCache::estimatedSize, () -> nativeCache.stats().evictionCount());
+        }
     }
 
     @Override
     public TbCacheValueWrapper<V> get(K key) {
-        return SimpleTbCacheValueWrapper.wrap(cache.get(key));
+        TbCacheValueWrapper<V> value = SimpleTbCacheValueWrapper.wrap(cache.get(key));
+        stats.recordHit(value != null);
+        return value;
     }
 
     @Override
@@ -59,6 +81,28 @@ public abstract class CaffeineTbTransactionalCache<K extends Serializable, V ext
         return get(key);
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<K, TbCacheValueWrapper<V>> getAll(Collection<K> keys) {
+        Map<K, TbCacheValueWrapper<V>> result = new HashMap<>();
+        getNativeCache().getAllPresent(keys).forEach((key, value) -> result.put((K) key, toValueWrapper(value)));
+        stats.recordHits(result.size(), keys.size() - result.size());
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> getNativeCache() {
+        return (com.github.benmanes.caffeine.cache.Cache<Object, Object>) cache.getNativeCache();
+    }
+
+    /**
+     * Converts the value stored in the cache to the cached value.
+     */
+    @SuppressWarnings("unchecked")
+    protected TbCacheValueWrapper<V> toValueWrapper(Object storeValue) {
+        return SimpleTbCacheValueWrapper.wrap(storeValue instanceof NullValue ? null : (V) storeValue);
+    }
+
     @Override
     public void put(K key, V value) {
         lock.lock();
@@ -111,6 +155,11 @@ public abstract class CaffeineTbTransactionalCache<K extends Serializable, V ext
         evict(key);
     }
 
+    @Override
+    public <R> R getAndPutInTransaction(K key, Supplier<R> dbCall, Function<V, R> cacheValueToResult, Function<R, V> dbValueToCacheValue, boolean cacheNullValue) {
+        return TbTransactionalCache.super.getAndPutInTransaction(key, () -> stats.recordLoad(dbCall), cacheValueToResult, dbValueToCacheValue, cacheNullValue);
+    }
+
     @Override
     public TbCacheTransaction<K, V> newTransactionForKey(K key) {
         return newTransaction(Collections.singletonList(key));
@@ -0,0 +1,125 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Getter;
+import org.thingsboard.server.common.data.HasVersion;
+import org.thingsboard.server.common.stats.StatsFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local copy of the values read from the Redis cache. The entries are dropped by the invalidation messages that the nodes
+ * publish when they change the values, and expire after the TTL in case a message is lost.
+ * A value read from Redis is kept only if no invalidation of a key of the same stripe happened while it was read,
+ * so that a concurrent change is not overwritten by the stale value while the changes of the other keys do not block the reads.
+ */
+public class RedisNearCache<V> {
+
+    public static final String STATS_NAME = "near_cache";
+    private static final int STRIPES = 1024;
+
+    @Getter
+    private final String cacheName;
+    private final Cache<String, TbCacheValueWrapper<V>> cache;
+    private final AtomicLongArray invalidations = new AtomicLongArray(STRIPES);
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    public RedisNearCache(String cacheName, int maxSize, long ttlInSec, StatsFactory statsFactory) {
+        this.cacheName = cacheName;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlInSec, TimeUnit.SECONDS)
+                .build();
+        this.hits = statsFactory.createGauge(STATS_NAME, new LongAdder(), "cacheName", cacheName, "result", "hit");
+        this.misses = statsFactory.createGauge(STATS_NAME, new LongAdder(), "cacheName", cacheName, "result", "miss");
+    }
+
+    public TbCacheValueWrapper<V> get(String key) {
+        TbCacheValueWrapper<V> value = cache.getIfPresent(key);
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+
+    /**
+     * @return the stamp to pass to {@link #put} for the value of the key that is about to be read from Redis
+     */
+    public long getStamp(String key) {
+        return invalidations.get(stripe(key));
+    }
+
+    public void put(String key, TbCacheValueWrapper<V> value, long stamp) {
+        int stripe = stripe(key);
+        if (invalidations.get(stripe) != stamp) {
+            return;
+        }
+        cache.put(key, value);
+        // the invalidation could happen between the check and the put
+        if (invalidations.get(stripe) != stamp) {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * Drops the value of the key. With the version, the value is kept if it is versioned and is not older than the version.
+     */
+    public void invalidate(String key, Long version) {
+        invalidations.incrementAndGet(stripe(key));
+        if (version == null) {
+            cache.invalidate(key);
+        } else {
+            cache.asMap().computeIfPresent(key, (k, value) -> isUpToDate(value, version) ? value : null);
+        }
+    }
+
+    public void invalidateAll() {
+        for (int i = 0; i < STRIPES; i++) {
+            invalidations.incrementAndGet(i);
+        }
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private static int stripe(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private static boolean isUpToDate(TbCacheValueWrapper<?> value, long version) {
+        return value.get() instanceof HasVersion versioned && versioned.getVersion() != null && versioned.getVersion() >= version;
+    }
+
+}
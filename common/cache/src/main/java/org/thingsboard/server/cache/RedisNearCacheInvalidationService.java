@@ -0,0 +1,151 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.Subscription;
+import org.springframework.stereotype.Component;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the near caches of the nodes coherent: the node that changes a value publishes the invalidation message
+ * '{node id}|{version}|{cache name}|{key}' to the Redis channel, the other nodes drop the value from their near caches.
+ * All the near caches are cleared when the subscription is (re)established, because the messages published in between are lost.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "cache", value = "type", havingValue = "redis")
+public class RedisNearCacheInvalidationService implements MessageListener {
+
+    private static final String SEPARATOR = "|";
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, RedisNearCache<?>> nearCaches = new ConcurrentHashMap<>();
+    private final RedisConnectionFactory connectionFactory;
+    private final byte[] channel;
+    private final boolean enabled;
+
+    private ExecutorService subscriptionExecutor;
+    private volatile RedisConnection subscriptionConnection;
+    private volatile boolean stopped;
+
+    @Autowired
+    public RedisNearCacheInvalidationService(RedisConnectionFactory connectionFactory, TBRedisCacheConfiguration configuration) {
+        this.connectionFactory = connectionFactory;
+        this.channel = configuration.getNearCacheInvalidationChannel().getBytes(StandardCharsets.UTF_8);
+        this.enabled = configuration.isNearCacheEnabled();
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            subscriptionExecutor = Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName("redis-near-cache-invalidation"));
+            subscriptionExecutor.submit(this::subscribe);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        stopped = true;
+        RedisConnection connection = subscriptionConnection;
+        Subscription subscription = connection != null ? connection.getSubscription() : null;
+        if (subscription != null) {
+            try {
+                subscription.unsubscribe();
+            } catch (Exception e) {
+                log.debug("Failed to unsubscribe from the near cache invalidation channel", e);
+            }
+        }
+        if (subscriptionExecutor != null) {
+            subscriptionExecutor.shutdownNow();
+        }
+    }
+
+    public void register(RedisNearCache<?> nearCache) {
+        nearCaches.put(nearCache.getCacheName(), nearCache);
+    }
+
+    /**
+     * Drops the value from the near cache of this node and notifies the other nodes.
+     */
+    public void invalidate(String cacheName, String key, Long version) {
+        RedisNearCache<?> nearCache = nearCaches.get(cacheName);
+        if (nearCache == null) {
+            return;
+        }
+        nearCache.invalidate(key, version);
+        byte[] message = String.join(SEPARATOR, nodeId, version != null ? version.toString() : "", cacheName, key).getBytes(StandardCharsets.UTF_8);
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.publish(channel, message);
+        } catch (Exception e) {
+            log.warn("[{}] Failed to publish the near cache invalidation of the key [{}]", cacheName, key, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4);
+        if (parts.length < 4 || nodeId.equals(parts[0])) {
+            return;
+        }
+        RedisNearCache<?> nearCache = nearCaches.get(parts[2]);
+        if (nearCache != null) {
+            try {
+                nearCache.invalidate(parts[3], parts[1].isEmpty() ? null : Long.parseLong(parts[1]));
+            } catch (NumberFormatException e) {
+                log.warn("Invalid near cache invalidation message: {}", parts, e);
+                nearCache.invalidate(parts[3], null);
+            }
+        }
+    }
+
+    private void subscribe() {
+        while (!stopped) {
+            try (RedisConnection connection = connectionFactory.getConnection()) {
+                subscriptionConnection = connection;
+                nearCaches.values().forEach(RedisNearCache::invalidateAll);
+                // blocks until the subscription is closed
+                connection.subscribe(this, channel);
+            } catch (Exception e) {
+                if (!stopped) {
+                    log.warn("Near cache invalidation subscription failed, the near caches are cleared on the next attempt", e);
+                    try {
+                        TimeUnit.SECONDS.sleep(1);
+                    } catch (InterruptedException ie) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+}
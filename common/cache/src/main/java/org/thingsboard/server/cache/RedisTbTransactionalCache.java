@@ -15,6 +15,7 @@
  */
 package org.thingsboard.server.cache;
 
+import jakarta.annotation.PostConstruct;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,14 +30,19 @@ import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.thingsboard.server.common.data.FstStatsService;
+import org.thingsboard.server.common.stats.StatsFactory;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.util.JedisClusterCRC16;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
@@ -51,15 +57,28 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
     @Autowired
     private FstStatsService fstStatsService;
 
+    @Autowired(required = false)
+    private RedisNearCacheInvalidationService nearCacheInvalidationService;
+
+    @Autowired(required = false)
+    private StatsFactory statsFactory;
+
+    @Autowired(required = false)
+    private TbCacheStatsService cacheStatsService;
+
     @Getter
     private final String cacheName;
     @Getter
     private final JedisConnectionFactory connectionFactory;
     private final RedisSerializer<String> keySerializer = StringRedisSerializer.UTF_8;
+    @Getter
     private final TbRedisSerializer<K, V> valueSerializer;
     protected final Expiration evictExpiration;
     protected final Expiration cacheTtl;
     protected final boolean cacheEnabled;
+    private final TBRedisCacheConfiguration configuration;
+    private RedisNearCache<V> nearCache;
+    protected TbCacheStats stats;
 
     public RedisTbTransactionalCache(String cacheName,
                                      CacheSpecsMap cacheSpecsMap,
@@ -69,6 +88,7 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
         this.cacheName = cacheName;
         this.connectionFactory = (JedisConnectionFactory) connectionFactory;
         this.valueSerializer = valueSerializer;
+        this.configuration = configuration;
         this.evictExpiration = Expiration.from(configuration.getEvictTtlInMs(), TimeUnit.MILLISECONDS);
         this.cacheTtl = Optional.ofNullable(cacheSpecsMap)
                 .map(CacheSpecsMap::getSpecs)
@@ -82,6 +102,21 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
                 .map(CacheSpecs::getMaxSize)
                 .map(size -> size > 0)
                 .orElse(false);
+        this.stats = new TbCacheStats(cacheName);
+    }
+
+    @PostConstruct
+    public void initNearCache() {
+        if (cacheEnabled && configuration.isNearCacheEnabled() && configuration.getNearCacheNames().contains(cacheName)
+                && nearCacheInvalidationService != null && statsFactory != null) {
+            nearCache = new RedisNearCache<>(cacheName, configuration.getNearCacheMaxSize(), configuration.getNearCacheTtlInSec(), statsFactory);
+            nearCacheInvalidationService.register(nearCache);
+            log.info("[{}] Near cache enabled", cacheName);
+        }
+        if (cacheEnabled && cacheStatsService != null) {
+            RedisNearCache<V> nearCache = this.nearCache;
+            stats = cacheStatsService.register(cacheName, nearCache != null ? nearCache::size : null, null);
+        }
     }
 
     @Override
@@ -94,23 +129,115 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
         if (!cacheEnabled) {
             return null;
         }
+        RedisNearCache<V> nearCache = this.nearCache;
+        TbCacheValueWrapper<V> value;
+        if (nearCache == null) {
+            value = doGet(key, transactionMode);
+        } else {
+            String nearCacheKey = key.toString();
+            value = nearCache.get(nearCacheKey);
+            if (value == null) {
+                long stamp = nearCache.getStamp(nearCacheKey);
+                value = doGet(key, transactionMode);
+                if (value != null) {
+                    nearCache.put(nearCacheKey, value, stamp);
+                }
+            }
+        }
+        stats.recordHit(value != null);
+        return value;
+    }
+
+    @Override
+    public Map<K, TbCacheValueWrapper<V>> getAll(Collection<K> keys) {
+        if (!cacheEnabled || keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<K, TbCacheValueWrapper<V>> result = new HashMap<>();
+        RedisNearCache<V> nearCache = this.nearCache;
+        List<K> missingKeys;
+        long[] stamps = null;
+        if (nearCache == null) {
+            missingKeys = new ArrayList<>(keys);
+        } else {
+            missingKeys = new ArrayList<>();
+            for (K key : keys) {
+                TbCacheValueWrapper<V> value = nearCache.get(key.toString());
+                if (value != null) {
+                    result.put(key, value);
+                } else {
+                    missingKeys.add(key);
+                }
+            }
+            if (missingKeys.isEmpty()) {
+                stats.recordHits(result.size(), 0);
+                return result;
+            }
+            stamps = new long[missingKeys.size()];
+            for (int i = 0; i < missingKeys.size(); i++) {
+                stamps[i] = nearCache.getStamp(missingKeys.get(i).toString());
+            }
+        }
+        List<byte[]> rawValues;
         try (var connection = connectionFactory.getConnection()) {
-            byte[] rawKey = getRawKey(key);
-            byte[] rawValue = doGet(connection, rawKey, transactionMode);
-            if (rawValue == null || rawValue.length == 0) {
-                return null;
-            } else if (Arrays.equals(rawValue, BINARY_NULL_VALUE)) {
-                return SimpleTbCacheValueWrapper.empty();
-            } else {
-                long startTime = System.nanoTime();
-                V value = valueSerializer.deserialize(key, rawValue);
+            rawValues = connection.stringCommands().mGet(missingKeys.stream().map(this::getRawKey).toArray(byte[][]::new));
+        }
+        if (rawValues != null) {
+            for (int i = 0; i < missingKeys.size(); i++) {
+                K key = missingKeys.get(i);
+                TbCacheValueWrapper<V> value = toValueWrapper(key, unwrapRawValue(rawValues.get(i)));
                 if (value != null) {
-                    fstStatsService.recordDecodeTime(value.getClass(), startTime);
-                    fstStatsService.incrementDecode(value.getClass());
+                    result.put(key, value);
+                    if (nearCache != null) {
+                        nearCache.put(key.toString(), value, stamps[i]);
+                    }
                 }
-                return SimpleTbCacheValueWrapper.wrap(value);
             }
         }
+        stats.recordHits(result.size(), keys.size() - result.size());
+        return result;
+    }
+
+    /**
+     * Extracts the serialized value from the value returned by MGET.
+     */
+    protected byte[] unwrapRawValue(byte[] rawValue) {
+        return rawValue;
+    }
+
+    private TbCacheValueWrapper<V> doGet(K key, boolean transactionMode) {
+        try (var connection = connectionFactory.getConnection()) {
+            byte[] rawKey = getRawKey(key);
+            byte[] rawValue = doGet(connection, rawKey, transactionMode);
+            return toValueWrapper(key, rawValue);
+        }
+    }
+
+    /**
+     * Invalidates the near caches of all the nodes after the value of the key is changed in Redis.
+     *
+     * @param version the version of the new value of the versioned cache, the near caches keep the values that are not older
+     */
+    protected void onChanged(K key, Long version) {
+        if (nearCache != null) {
+            nearCacheInvalidationService.invalidate(cacheName, key.toString(), version);
+        }
+    }
+
+    protected TbCacheValueWrapper<V> toValueWrapper(K key, byte[] rawValue) {
+        if (rawValue == null || rawValue.length == 0) {
+            return null;
+        } else if (Arrays.equals(rawValue, BINARY_NULL_VALUE)) {
+            return SimpleTbCacheValueWrapper.empty();
+        } else {
+            long startTime = System.nanoTime();
+            V value = valueSerializer.deserialize(key, rawValue);
+            if (value != null) {
+                fstStatsService.recordDecodeTime(value.getClass(), startTime);
+                fstStatsService.incrementDecode(value.getClass());
+            }
+            return SimpleTbCacheValueWrapper.wrap(value);
+        }
     }
 
     protected byte[] doGet(RedisConnection connection, byte[] rawKey, boolean transactionMode) {
@@ -125,6 +252,7 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
         try (var connection = connectionFactory.getConnection()) {
             put(key, value, connection, false);
         }
+        onChanged(key, null);
     }
 
     public void put(K key, V value, RedisConnection connection, boolean transactionMode) {
@@ -149,6 +277,7 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
         try (var connection = connectionFactory.getConnection()) {
             connection.keyCommands().del(getRawKey(key));
         }
+        onChanged(key, null);
     }
 
     @Override
@@ -163,6 +292,7 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
         try (var connection = connectionFactory.getConnection()) {
             connection.keyCommands().del(keys.stream().map(this::getRawKey).toArray(byte[][]::new));
         }
+        keys.forEach(key -> onChanged(key, null));
     }
 
     @Override
@@ -178,6 +308,7 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
                 connection.stringCommands().set(rawKey, getRawValue(value), evictExpiration, RedisStringCommands.SetOption.UPSERT);
             }
         }
+        onChanged(key, null);
     }
 
     @Override
@@ -198,7 +329,7 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
         if (!cacheEnabled) {
             return dbCall.get();
         }
-        return TbTransactionalCache.super.getAndPutInTransaction(key, dbCall, cacheValueToResult, dbValueToCacheValue, cacheNullValue);
+        return TbTransactionalCache.super.getAndPutInTransaction(key, () -> stats.recordLoad(dbCall), cacheValueToResult, dbValueToCacheValue, cacheNullValue);
     }
 
     protected RedisConnection getConnection(byte[] rawKey) {
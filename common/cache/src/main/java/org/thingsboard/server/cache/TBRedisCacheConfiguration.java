@@ -70,6 +70,21 @@ public abstract class TBRedisCacheConfiguration {
     @Value("${redis.evictTtlInMs:60000}")
     private int evictTtlInMs;
 
+    @Value("${redis.near_cache.enabled:false}")
+    private boolean nearCacheEnabled;
+
+    @Value("${redis.near_cache.cache_names:devices,deviceProfiles,relations}")
+    private List<String> nearCacheNames;
+
+    @Value("${redis.near_cache.max_size:10000}")
+    private int nearCacheMaxSize;
+
+    @Value("${redis.near_cache.ttl_sec:60}")
+    private long nearCacheTtlInSec;
+
+    @Value("${redis.near_cache.invalidation_channel:tb_cache_invalidation}")
+    private String nearCacheInvalidationChannel;
+
     @Value("${redis.pool_config.maxTotal:128}")
     private int maxTotal;
 
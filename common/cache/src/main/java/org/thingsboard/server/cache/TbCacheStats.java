@@ -0,0 +1,121 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache;
+
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import org.thingsboard.server.common.stats.StatsFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Hits, misses and load times of a single {@link TbTransactionalCache}.
+ * The stats of the cache that is not registered in the {@link TbCacheStatsService} are counted but not exported.
+ */
+public class TbCacheStats {
+
+    public static final String STATS_NAME = "cache";
+
+    @Getter
+    private final String cacheName;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadTimeNanos = new LongAdder();
+    private final Timer loadTimer;
+    private final LongSupplier sizeSupplier;
+    private final LongSupplier evictionsSupplier;
+
+    public TbCacheStats(String cacheName) {
+        this.cacheName = cacheName;
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.loadTimer = null;
+        this.sizeSupplier = null;
+        this.evictionsSupplier = null;
+    }
+
+    /**
+     * @param sizeSupplier      the number of the entries in the cache, null if the cache can't tell its size
+     * @param evictionsSupplier the number of the entries evicted due to the size or TTL limits, null if not known
+     */
+    public TbCacheStats(String cacheName, StatsFactory statsFactory, LongSupplier sizeSupplier, LongSupplier evictionsSupplier) {
+        this.cacheName = cacheName;
+        this.hits = statsFactory.createGauge(STATS_NAME, new LongAdder(), "cacheName", cacheName, "result", "hit");
+        this.misses = statsFactory.createGauge(STATS_NAME, new LongAdder(), "cacheName", cacheName, "result", "miss");
+        this.loadTimer = statsFactory.createTimer(STATS_NAME + ".load", "cacheName", cacheName);
+        this.sizeSupplier = sizeSupplier;
+        this.evictionsSupplier = evictionsSupplier;
+        if (sizeSupplier != null) {
+            statsFactory.createGauge(STATS_NAME + ".size", sizeSupplier, LongSupplier::getAsLong, "cacheName", cacheName);
+        }
+        if (evictionsSupplier != null) {
+            statsFactory.createGauge(STATS_NAME + ".evictions", evictionsSupplier, LongSupplier::getAsLong, "cacheName", cacheName);
+        }
+    }
+
+    public void recordHit(boolean hit) {
+        if (hit) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+    }
+
+    public void recordHits(int hitCount, int missCount) {
+        hits.add(hitCount);
+        misses.add(missCount);
+    }
+
+    /**
+     * Calls the loader of the value that is missing in the cache and records the time it took.
+     */
+    public <R> R recordLoad(Supplier<R> loader) {
+        long startTs = System.nanoTime();
+        try {
+            return loader.get();
+        } finally {
+            long loadTime = System.nanoTime() - startTs;
+            loads.increment();
+            loadTimeNanos.add(loadTime);
+            if (loadTimer != null) {
+                loadTimer.record(loadTime, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    public TbCacheStatsInfo getInfo() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long loadCount = loads.sum();
+        long requestCount = hitCount + missCount;
+        return TbCacheStatsInfo.builder()
+                .cacheName(cacheName)
+                .hits(hitCount)
+                .misses(missCount)
+                .hitRatio(requestCount > 0 ? (double) hitCount / requestCount : 0.0)
+                .loads(loadCount)
+                .avgLoadTimeMs(loadCount > 0 ? (double) TimeUnit.NANOSECONDS.toMicros(loadTimeNanos.sum()) / loadCount / 1000 : 0.0)
+                .maxLoadTimeMs(loadTimer != null ? loadTimer.max(TimeUnit.MILLISECONDS) : null)
+                .size(sizeSupplier != null ? sizeSupplier.getAsLong() : null)
+                .evictions(evictionsSupplier != null ? evictionsSupplier.getAsLong() : null)
+                .build();
+    }
+
+}
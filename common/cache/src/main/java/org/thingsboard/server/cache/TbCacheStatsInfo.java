@@ -0,0 +1,45 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class TbCacheStatsInfo {
+
+    @Schema(description = "Name of the cache, as in the 'cache.specs' configuration")
+    private final String cacheName;
+    @Schema(description = "Number of the lookups that found the value in the cache")
+    private final long hits;
+    @Schema(description = "Number of the lookups that did not find the value in the cache")
+    private final long misses;
+    @Schema(description = "Share of the lookups that found the value in the cache, from 0 to 1")
+    private final double hitRatio;
+    @Schema(description = "Number of the values loaded from the database on a cache miss")
+    private final long loads;
+    @Schema(description = "Average time of loading the value from the database, in milliseconds")
+    private final double avgLoadTimeMs;
+    @Schema(description = "Maximum time of loading the value from the database within the recent time window, in milliseconds")
+    private final Double maxLoadTimeMs;
+    @Schema(description = "Number of the entries in the local cache. Not set for the Redis cache without the near cache")
+    private final Long size;
+    @Schema(description = "Number of the entries evicted from the local cache due to the size or TTL limits. Not set for the Redis cache")
+    private final Long evictions;
+
+}
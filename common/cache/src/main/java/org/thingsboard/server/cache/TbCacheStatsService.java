@@ -0,0 +1,49 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.thingsboard.server.common.stats.StatsFactory;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the stats of all the caches of this node and exports them through Micrometer.
+ */
+@Service
+@RequiredArgsConstructor
+public class TbCacheStatsService {
+
+    private final StatsFactory statsFactory;
+    private final ConcurrentMap<String, TbCacheStats> stats = new ConcurrentHashMap<>();
+
+    public TbCacheStats register(String cacheName, LongSupplier sizeSupplier, LongSupplier evictionsSupplier) {
+        return stats.computeIfAbsent(cacheName, name -> new TbCacheStats(name, statsFactory, sizeSupplier, evictionsSupplier));
+    }
+
+    public List<TbCacheStatsInfo> getStats() {
+        return stats.values().stream()
+                .map(TbCacheStats::getInfo)
+                .sorted(Comparator.comparing(TbCacheStatsInfo::getCacheName))
+                .toList();
+    }
+
+}
@@ -76,7 +76,8 @@ public class TbCaffeineCacheConfiguration {
                 .weigher(collectionSafeWeigher())
                 .maximumWeight(cacheSpec.getMaxSize())
                 .expireAfterWrite(cacheSpec.getTimeToLiveInMinutes(), TimeUnit.MINUTES)
-                .ticker(ticker());
+                .ticker(ticker())
+                .recordStats();
         return new CaffeineCache(name, caffeineBuilder.build());
     }
 
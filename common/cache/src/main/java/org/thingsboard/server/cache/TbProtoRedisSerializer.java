@@ -0,0 +1,92 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+
+/**
+ * Serializes the cache values to protobuf messages prefixed by a two bytes header: the zero marker and the format version.
+ * <p>
+ * A protobuf message never starts with the zero byte (field number 0 is invalid), as well as JSON and Java serialization
+ * streams, so the values without the header are the entries written by the nodes of the previous versions. They are read by
+ * {@link #fromLegacy(Object, byte[])} to keep the cache usable during the rolling upgrade. The format version allows to change
+ * the layout of the payload later without flushing the cache.
+ */
+public abstract class TbProtoRedisSerializer<K, V> implements TbRedisSerializer<K, V> {
+
+    static final byte MARKER = 0;
+    static final int HEADER_LENGTH = 2;
+
+    private final byte formatVersion;
+
+    protected TbProtoRedisSerializer(int formatVersion) {
+        if (formatVersion < 1 || formatVersion > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Unsupported format version: " + formatVersion);
+        }
+        this.formatVersion = (byte) formatVersion;
+    }
+
+    @Override
+    public byte[] serialize(V value) throws SerializationException {
+        MessageLite proto = toProto(value);
+        int size = proto.getSerializedSize();
+        byte[] bytes = new byte[HEADER_LENGTH + size];
+        bytes[0] = MARKER;
+        bytes[1] = formatVersion;
+        try {
+            CodedOutputStream output = CodedOutputStream.newInstance(bytes, HEADER_LENGTH, size);
+            proto.writeTo(output);
+            output.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new SerializationException("Failed to serialize the value", e);
+        }
+        return bytes;
+    }
+
+    @Override
+    public V deserialize(K key, byte[] bytes) throws SerializationException {
+        try {
+            if (bytes.length < HEADER_LENGTH || bytes[0] != MARKER) {
+                return fromLegacy(key, bytes);
+            }
+            byte version = bytes[1];
+            if (version < 1 || version > formatVersion) {
+                throw new SerializationException("Unsupported format version of the cache value: " + version);
+            }
+            return fromProto(key, version, CodedInputStream.newInstance(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH));
+        } catch (IOException e) {
+            throw new SerializationException(e.getMessage(), e);
+        }
+    }
+
+    protected abstract MessageLite toProto(V value);
+
+    /**
+     * @param formatVersion the format version the value was written with, from 1 to the current format version
+     */
+    protected abstract V fromProto(K key, int formatVersion, CodedInputStream input) throws IOException;
+
+    /**
+     * Reads the value written before the header was introduced.
+     */
+    protected abstract V fromLegacy(K key, byte[] bytes) throws IOException;
+
+}
@@ -18,6 +18,7 @@ package org.thingsboard.server.cache;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -29,6 +30,11 @@ public interface TbTransactionalCache<K extends Serializable, V extends Serializ
 
     TbCacheValueWrapper<V> get(K key, boolean transactionMode);
 
+    /**
+     * Returns the cached values of the keys using a single request to the cache, the keys that are not in the cache are omitted.
+     */
+    Map<K, TbCacheValueWrapper<V>> getAll(Collection<K> keys);
+
     void put(K key, V value);
 
     void putIfAbsent(K key, V value);
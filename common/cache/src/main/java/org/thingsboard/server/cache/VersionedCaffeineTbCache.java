@@ -21,6 +21,7 @@ import org.thingsboard.server.common.data.HasVersion;
 import org.thingsboard.server.common.data.util.TbPair;
 
 import java.io.Serializable;
+import java.util.function.Supplier;
 
 public abstract class VersionedCaffeineTbCache<K extends Serializable, V extends Serializable & HasVersion> extends CaffeineTbTransactionalCache<K, V> implements VersionedTbCache<K, V> {
 
@@ -31,12 +32,24 @@ public abstract class VersionedCaffeineTbCache<K extends Serializable, V extends
     @Override
     public TbCacheValueWrapper<V> get(K key) {
         TbPair<Long, V> versionValuePair = doGet(key);
+        stats.recordHit(versionValuePair != null);
         if (versionValuePair != null) {
             return SimpleTbCacheValueWrapper.wrap(versionValuePair.getSecond());
         }
         return null;
     }
 
+    @Override
+    public V get(K key, Supplier<V> supplier, boolean putToCache) {
+        return VersionedTbCache.super.get(key, () -> stats.recordLoad(supplier), putToCache);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected TbCacheValueWrapper<V> toValueWrapper(Object storeValue) {
+        return SimpleTbCacheValueWrapper.wrap(((TbPair<Long, V>) storeValue).getSecond());
+    }
+
     @Override
     public void put(K key, V value) {
         Long version = getVersion(value);
@@ -28,6 +28,8 @@ import org.thingsboard.server.common.data.HasVersion;
 
 import java.io.Serializable;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Supplier;
 
 @Slf4j
 public abstract class VersionedRedisTbCache<K extends Serializable, V extends Serializable & HasVersion> extends RedisTbTransactionalCache<K, V> implements VersionedTbCache<K, V> {
@@ -78,6 +80,11 @@ public abstract class VersionedRedisTbCache<K extends Serializable, V extends Se
         }
     }
 
+    @Override
+    public V get(K key, Supplier<V> supplier, boolean putToCache) {
+        return VersionedTbCache.super.get(key, () -> stats.recordLoad(supplier), putToCache);
+    }
+
     @Override
     protected byte[] doGet(RedisConnection connection, byte[] rawKey, boolean transactionMode) {
         if (transactionMode) {
@@ -86,6 +93,12 @@ public abstract class VersionedRedisTbCache<K extends Serializable, V extends Se
         return connection.stringCommands().getRange(rawKey, VERSION_SIZE, VALUE_END_OFFSET);
     }
 
+    @Override
+    protected byte[] unwrapRawValue(byte[] rawValue) {
+        // the value is prefixed with the version, see SET_VERSIONED_VALUE_LUA_SCRIPT
+        return rawValue != null && rawValue.length > VERSION_SIZE ? Arrays.copyOfRange(rawValue, VERSION_SIZE, rawValue.length) : null;
+    }
+
     @Override
     public void put(K key, V value) {
         Long version = getVersion(value);
@@ -93,6 +106,7 @@ public abstract class VersionedRedisTbCache<K extends Serializable, V extends Se
             return;
         }
         doPut(key, value, version, cacheTtl);
+        onChanged(key, version);
     }
 
     @Override
@@ -107,6 +121,7 @@ public abstract class VersionedRedisTbCache<K extends Serializable, V extends Se
         }
         byte[] rawKey = getRawKey(key);
         doPut(rawKey, value, version, cacheTtl, connection);
+        onChanged(key, version);
     }
 
     private void doPut(K key, V value, Long version, Expiration expiration) {
@@ -146,6 +161,7 @@ public abstract class VersionedRedisTbCache<K extends Serializable, V extends Se
         log.trace("evict [{}][{}]", key, version);
         if (version != null) {
             doPut(key, null, version, evictExpiration);
+            onChanged(key, version);
         }
     }
 
@@ -15,39 +15,41 @@
  */
 package org.thingsboard.server.cache.device;
 
-import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.MessageLite;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.serializer.SerializationException;
 import org.springframework.stereotype.Service;
 import org.thingsboard.server.cache.CacheSpecsMap;
 import org.thingsboard.server.cache.TBRedisCacheConfiguration;
-import org.thingsboard.server.cache.TbRedisSerializer;
+import org.thingsboard.server.cache.TbProtoRedisSerializer;
 import org.thingsboard.server.cache.VersionedRedisTbCache;
 import org.thingsboard.server.common.data.CacheConstants;
 import org.thingsboard.server.common.data.Device;
 import org.thingsboard.server.common.util.ProtoUtils;
 import org.thingsboard.server.gen.transport.TransportProtos;
 
+import java.io.IOException;
+
 @ConditionalOnProperty(prefix = "cache", value = "type", havingValue = "redis")
 @Service("DeviceCache")
 public class DeviceRedisCache extends VersionedRedisTbCache<DeviceCacheKey, Device> {
 
     public DeviceRedisCache(TBRedisCacheConfiguration configuration, CacheSpecsMap cacheSpecsMap, RedisConnectionFactory connectionFactory) {
-        super(CacheConstants.DEVICE_CACHE, cacheSpecsMap, connectionFactory, configuration, new TbRedisSerializer<>() {
+        super(CacheConstants.DEVICE_CACHE, cacheSpecsMap, connectionFactory, configuration, new TbProtoRedisSerializer<DeviceCacheKey, Device>(1) {
+            @Override
+            protected MessageLite toProto(Device value) {
+                return ProtoUtils.toProto(value);
+            }
 
             @Override
-            public byte[] serialize(Device device) throws SerializationException {
-                return ProtoUtils.toProto(device).toByteArray();
+            protected Device fromProto(DeviceCacheKey key, int formatVersion, CodedInputStream input) throws IOException {
+                return ProtoUtils.fromProto(TransportProtos.DeviceProto.parseFrom(input));
             }
 
             @Override
-            public Device deserialize(DeviceCacheKey key, byte[] bytes) throws SerializationException {
-                try {
-                    return ProtoUtils.fromProto(TransportProtos.DeviceProto.parseFrom(bytes));
-                } catch (InvalidProtocolBufferException e) {
-                    throw new SerializationException(e.getMessage());
-                }
+            protected Device fromLegacy(DeviceCacheKey key, byte[] bytes) throws IOException {
+                return ProtoUtils.fromProto(TransportProtos.DeviceProto.parseFrom(bytes));
             }
         });
     }
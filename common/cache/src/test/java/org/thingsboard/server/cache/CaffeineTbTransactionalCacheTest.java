@@ -0,0 +1,90 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.thingsboard.server.common.data.id.DeviceCredentialsId;
+import org.thingsboard.server.common.data.security.DeviceCredentials;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CaffeineTbTransactionalCacheTest {
+
+    private SimpleCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(new CaffeineCache("plain", Caffeine.newBuilder().build()),
+                new CaffeineCache("versioned", Caffeine.newBuilder().build())));
+        cacheManager.initializeCaches();
+    }
+
+    @Test
+    void testGetAllReturnsPresentValues() {
+        var cache = new CaffeineTbTransactionalCache<String, String>(cacheManager, "plain") {};
+        cache.put("a", "A");
+        cache.put("b", null);
+
+        Map<String, TbCacheValueWrapper<String>> result = cache.getAll(List.of("a", "b", "c"));
+
+        assertThat(result).containsOnlyKeys("a", "b");
+        assertThat(result.get("a").get()).isEqualTo("A");
+        assertThat(result.get("b").get()).isNull();
+    }
+
+    @Test
+    void testGetAllOfVersionedCacheUnwrapsValues() {
+        var cache = new VersionedCaffeineTbCache<String, DeviceCredentials>(cacheManager, "versioned") {};
+        DeviceCredentials credentials = new DeviceCredentials(new DeviceCredentialsId(UUID.randomUUID()));
+        credentials.setVersion(1L);
+        cache.put("a", credentials);
+        cache.evict("b", 2L);
+
+        Map<String, TbCacheValueWrapper<DeviceCredentials>> result = cache.getAll(List.of("a", "b", "c"));
+
+        assertThat(result).containsOnlyKeys("a", "b");
+        assertThat(result.get("a").get()).isEqualTo(credentials);
+        assertThat(result.get("b").get()).isNull();
+    }
+
+    @Test
+    void testStatsCountHitsMissesAndLoads() {
+        var cache = new VersionedCaffeineTbCache<String, DeviceCredentials>(cacheManager, "versioned") {};
+        DeviceCredentials credentials = new DeviceCredentials(new DeviceCredentialsId(UUID.randomUUID()));
+        credentials.setVersion(1L);
+
+        assertThat(cache.get("a", () -> credentials)).isEqualTo(credentials);
+        assertThat(cache.get("a", () -> null)).isEqualTo(credentials);
+        cache.getAll(List.of("a", "b"));
+
+        TbCacheStatsInfo info = cache.stats.getInfo();
+        assertThat(info.getCacheName()).isEqualTo("versioned");
+        assertThat(info.getHits()).isEqualTo(2);
+        assertThat(info.getMisses()).isEqualTo(2);
+        assertThat(info.getHitRatio()).isEqualTo(0.5);
+        assertThat(info.getLoads()).isEqualTo(1);
+    }
+
+}
@@ -0,0 +1,247 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.FstStatsService;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.common.stats.StatsFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RedisNearCacheTest {
+
+    private static final String CACHE_NAME = "test";
+    private static final String CHANNEL = "tb_cache_invalidation";
+
+    // in-process stand-in of Redis shared by the nodes: the values and the subscribers of the invalidation channel
+    private final Map<String, byte[]> redis = new ConcurrentHashMap<>();
+    private final List<RedisNearCacheInvalidationService> subscribers = new ArrayList<>();
+    private final AtomicInteger redisReads = new AtomicInteger();
+
+    private JedisConnectionFactory connectionFactory;
+    private TBRedisCacheConfiguration configuration;
+    private StatsFactory statsFactory;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = mock(JedisConnectionFactory.class);
+        when(connectionFactory.getConnection()).thenAnswer(invocation -> newConnection());
+        configuration = mock(TBRedisCacheConfiguration.class);
+        when(configuration.getEvictTtlInMs()).thenReturn(60000);
+        when(configuration.isNearCacheEnabled()).thenReturn(true);
+        when(configuration.getNearCacheNames()).thenReturn(List.of(CACHE_NAME));
+        when(configuration.getNearCacheMaxSize()).thenReturn(100);
+        when(configuration.getNearCacheTtlInSec()).thenReturn(60L);
+        when(configuration.getNearCacheInvalidationChannel()).thenReturn(CHANNEL);
+        statsFactory = mock(StatsFactory.class);
+        when(statsFactory.createGauge(anyString(), any(), anyString(), anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+    }
+
+    @Test
+    void testValueIsReadFromRedisOnce() {
+        TestRedisCache node = newNode();
+        node.put("device", "v1");
+
+        assertThat(node.get("device").get()).isEqualTo("v1");
+        assertThat(node.get("device").get()).isEqualTo("v1");
+        assertThat(node.get("device").get()).isEqualTo("v1");
+
+        assertThat(redisReads.get()).isEqualTo(1);
+        assertThat(node.getNearCache().getHits()).isEqualTo(2);
+        assertThat(node.getNearCache().getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void testPutOnOtherNodeInvalidatesValue() {
+        TestRedisCache node1 = newNode();
+        TestRedisCache node2 = newNode();
+        node1.put("device", "v1");
+        assertThat(node2.get("device").get()).isEqualTo("v1");
+
+        node1.put("device", "v2");
+
+        assertThat(node2.get("device").get()).isEqualTo("v2");
+        assertThat(redisReads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testEvictOnOtherNodeInvalidatesValue() {
+        TestRedisCache node1 = newNode();
+        TestRedisCache node2 = newNode();
+        node1.put("device", "v1");
+        assertThat(node1.get("device").get()).isEqualTo("v1");
+        assertThat(node2.get("device").get()).isEqualTo("v1");
+
+        node2.evict(List.of("device"));
+
+        assertThat(node1.get("device")).isNull();
+        assertThat(node2.get("device")).isNull();
+    }
+
+    @Test
+    void testGetAllReadsOnlyMissingValuesFromRedis() {
+        TestRedisCache node = newNode();
+        node.put("device1", "v1");
+        node.put("device2", "v2");
+        assertThat(node.get("device1").get()).isEqualTo("v1");
+
+        Map<String, TbCacheValueWrapper<String>> values = node.getAll(List.of("device1", "device2", "device3"));
+
+        assertThat(values).containsOnlyKeys("device1", "device2");
+        assertThat(values.get("device1").get()).isEqualTo("v1");
+        assertThat(values.get("device2").get()).isEqualTo("v2");
+        assertThat(redisReads.get()).isEqualTo(3);
+
+        assertThat(node.getAll(List.of("device1", "device2"))).containsOnlyKeys("device1", "device2");
+        assertThat(redisReads.get()).isEqualTo(3);
+    }
+
+    @Test
+    void testValueReadDuringInvalidationIsNotCached() {
+        RedisNearCache<String> nearCache = new RedisNearCache<>(CACHE_NAME, 100, 60, statsFactory);
+        long stamp = nearCache.getStamp("device");
+        nearCache.invalidate("device", null);
+        nearCache.put("device", SimpleTbCacheValueWrapper.wrap("stale"), stamp);
+
+        assertThat(nearCache.get("device")).isNull();
+
+        nearCache.put("device", SimpleTbCacheValueWrapper.wrap("v1"), nearCache.getStamp("device"));
+        assertThat(nearCache.get("device").get()).isEqualTo("v1");
+    }
+
+    @Test
+    void testInvalidationOfOtherKeyDoesNotBlockCaching() {
+        RedisNearCache<String> nearCache = new RedisNearCache<>(CACHE_NAME, 100, 60, statsFactory);
+        long stamp;
+        int i = 0;
+        // skips the keys that share the stripe with the device key
+        do {
+            stamp = nearCache.getStamp("device");
+            nearCache.invalidate("other" + i++, null);
+        } while (nearCache.getStamp("device") != stamp);
+
+        nearCache.put("device", SimpleTbCacheValueWrapper.wrap("v1"), stamp);
+
+        assertThat(nearCache.get("device").get()).isEqualTo("v1");
+    }
+
+    @Test
+    void testVersionedInvalidationKeepsUpToDateValue() {
+        RedisNearCache<TsKvEntry> nearCache = new RedisNearCache<>(CACHE_NAME, 100, 60, statsFactory);
+        nearCache.put("temperature", SimpleTbCacheValueWrapper.wrap(new BasicTsKvEntry(1000, new LongDataEntry("temperature", 25L), 5L)), nearCache.getStamp("temperature"));
+
+        nearCache.invalidate("temperature", 5L);
+        assertThat(nearCache.get("temperature")).isNotNull();
+
+        nearCache.invalidate("temperature", 6L);
+        assertThat(nearCache.get("temperature")).isNull();
+    }
+
+    private TestRedisCache newNode() {
+        CacheSpecs specs = new CacheSpecs();
+        specs.setMaxSize(100);
+        specs.setTimeToLiveInMinutes(60);
+        CacheSpecsMap cacheSpecsMap = new CacheSpecsMap();
+        cacheSpecsMap.setSpecs(Map.of(CACHE_NAME, specs));
+
+        RedisNearCacheInvalidationService invalidationService = new RedisNearCacheInvalidationService(connectionFactory, configuration);
+        subscribers.add(invalidationService);
+        TestRedisCache cache = new TestRedisCache(cacheSpecsMap, connectionFactory, configuration);
+        ReflectionTestUtils.setField(cache, RedisTbTransactionalCache.class, "fstStatsService", mock(FstStatsService.class), FstStatsService.class);
+        ReflectionTestUtils.setField(cache, RedisTbTransactionalCache.class, "nearCacheInvalidationService", invalidationService, RedisNearCacheInvalidationService.class);
+        ReflectionTestUtils.setField(cache, RedisTbTransactionalCache.class, "statsFactory", statsFactory, StatsFactory.class);
+        cache.initNearCache();
+        return cache;
+    }
+
+    private RedisConnection newConnection() {
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisStringCommands stringCommands = mock(RedisStringCommands.class);
+        RedisKeyCommands keyCommands = mock(RedisKeyCommands.class);
+        when(connection.stringCommands()).thenReturn(stringCommands);
+        when(connection.keyCommands()).thenReturn(keyCommands);
+        when(stringCommands.get(any())).thenAnswer(invocation -> {
+            redisReads.incrementAndGet();
+            return redis.get(toString(invocation.getArgument(0)));
+        });
+        doAnswer(invocation -> {
+            List<byte[]> values = new ArrayList<>();
+            for (byte[] key : (byte[][]) invocation.getRawArguments()[0]) {
+                redisReads.incrementAndGet();
+                values.add(redis.get(toString(key)));
+            }
+            return values;
+        }).when(stringCommands).mGet(any(byte[][].class));
+        when(stringCommands.set(any(), any(), any(Expiration.class), any())).thenAnswer(invocation -> {
+            redis.put(toString(invocation.getArgument(0)), invocation.getArgument(1));
+            return true;
+        });
+        doAnswer(invocation -> {
+            long removed = 0;
+            for (byte[] key : (byte[][]) invocation.getRawArguments()[0]) {
+                removed += redis.remove(toString(key)) != null ? 1 : 0;
+            }
+            return removed;
+        }).when(keyCommands).del(any(byte[][].class));
+        when(connection.publish(any(), any())).thenAnswer(invocation -> {
+            DefaultMessage message = new DefaultMessage(invocation.getArgument(0), invocation.getArgument(1));
+            subscribers.forEach(subscriber -> subscriber.onMessage(message, null));
+            return (long) subscribers.size();
+        });
+        return connection;
+    }
+
+    private static String toString(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static class TestRedisCache extends RedisTbTransactionalCache<String, String> {
+
+        TestRedisCache(CacheSpecsMap cacheSpecsMap, JedisConnectionFactory connectionFactory, TBRedisCacheConfiguration configuration) {
+            super(CACHE_NAME, cacheSpecsMap, connectionFactory, configuration, new TbJavaRedisSerializer<>());
+        }
+
+        RedisNearCache<String> getNearCache() {
+            return (RedisNearCache<String>) ReflectionTestUtils.getField(this, RedisTbTransactionalCache.class, "nearCache");
+        }
+
+    }
+
+}
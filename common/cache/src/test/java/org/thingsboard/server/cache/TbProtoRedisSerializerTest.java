@@ -0,0 +1,113 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.MessageLite;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.id.DeviceCredentialsId;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.security.DeviceCredentials;
+import org.thingsboard.server.common.data.security.DeviceCredentialsType;
+import org.thingsboard.server.common.util.ProtoUtils;
+import org.thingsboard.server.gen.transport.TransportProtos;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TbProtoRedisSerializerTest {
+
+    private final TbProtoRedisSerializer<String, DeviceCredentials> serializer = new CredentialsSerializer(1);
+
+    @Test
+    void testSerializedValueHasHeader() {
+        DeviceCredentials credentials = createCredentials();
+
+        byte[] bytes = serializer.serialize(credentials);
+
+        assertThat(bytes[0]).isEqualTo(TbProtoRedisSerializer.MARKER);
+        assertThat(bytes[1]).isEqualTo((byte) 1);
+        assertThat(bytes).hasSize(TbProtoRedisSerializer.HEADER_LENGTH + ProtoUtils.toProto(credentials).getSerializedSize());
+        assertThat(serializer.deserialize(credentials.getCredentialsId(), bytes)).isEqualTo(credentials);
+    }
+
+    @Test
+    void testLegacyValueIsReadable() {
+        DeviceCredentials credentials = createCredentials();
+
+        byte[] legacyBytes = JacksonUtil.writeValueAsBytes(credentials);
+
+        assertThat(serializer.deserialize(credentials.getCredentialsId(), legacyBytes)).isEqualTo(credentials);
+    }
+
+    @Test
+    void testValueOfOlderFormatVersionIsReadable() {
+        DeviceCredentials credentials = createCredentials();
+
+        byte[] bytes = serializer.serialize(credentials);
+
+        assertThat(new CredentialsSerializer(2).deserialize(credentials.getCredentialsId(), bytes)).isEqualTo(credentials);
+    }
+
+    @Test
+    void testValueOfNewerFormatVersionIsRejected() {
+        DeviceCredentials credentials = createCredentials();
+
+        byte[] bytes = new CredentialsSerializer(2).serialize(credentials);
+
+        assertThatThrownBy(() -> serializer.deserialize(credentials.getCredentialsId(), bytes))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    private static DeviceCredentials createCredentials() {
+        DeviceCredentials credentials = new DeviceCredentials(new DeviceCredentialsId(UUID.randomUUID()));
+        credentials.setCreatedTime(System.currentTimeMillis());
+        credentials.setDeviceId(new DeviceId(UUID.randomUUID()));
+        credentials.setCredentialsType(DeviceCredentialsType.ACCESS_TOKEN);
+        credentials.setCredentialsId("token");
+        credentials.setVersion(3L);
+        return credentials;
+    }
+
+    private static class CredentialsSerializer extends TbProtoRedisSerializer<String, DeviceCredentials> {
+
+        CredentialsSerializer(int formatVersion) {
+            super(formatVersion);
+        }
+
+        @Override
+        protected MessageLite toProto(DeviceCredentials value) {
+            return ProtoUtils.toProto(value);
+        }
+
+        @Override
+        protected DeviceCredentials fromProto(String key, int formatVersion, CodedInputStream input) throws IOException {
+            return ProtoUtils.fromProto(TransportProtos.DeviceCredentialsProto.parseFrom(input));
+        }
+
+        @Override
+        protected DeviceCredentials fromLegacy(String key, byte[] bytes) {
+            return JacksonUtil.fromBytes(bytes, DeviceCredentials.class);
+        }
+
+    }
+
+}
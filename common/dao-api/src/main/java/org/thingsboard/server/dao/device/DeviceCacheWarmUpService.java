@@ -0,0 +1,34 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.device;
+
+import org.thingsboard.server.common.data.DeviceIdInfo;
+
+import java.util.function.Predicate;
+
+public interface DeviceCacheWarmUpService {
+
+    /**
+     * Puts the devices accepted by the filter into the device cache together with their profiles, credentials and attributes.
+     * Devices are scanned in the order of their ids, batch by batch, until all of them are processed or the deadline is reached.
+     *
+     * @param filter the filter of the devices to warm up, e.g. the devices of the partitions assigned to this node
+     * @param deadlineTs the time in milliseconds after which no new batches are loaded
+     * @return the number of devices put into the cache
+     */
+    int warmUp(Predicate<DeviceIdInfo> filter, long deadlineTs);
+
+}
@@ -38,5 +38,7 @@ public class DeviceProfileData implements Serializable {
     @Valid
     @Schema(description = "JSON array of alarm rules configuration per device profile")
     private List<DeviceProfileAlarm> alarms;
+    @Schema(description = "JSON object of telemetry write filter that reduces the number of stored time series records")
+    private TelemetryWriteFilter telemetryWriteFilter;
 
 }
@@ -0,0 +1,48 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.data.device.profile;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Set;
+
+@Schema
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TelemetryWriteFilter implements Serializable {
+
+    private static final long serialVersionUID = 3915248616373410294L;
+
+    @Schema(description = "DUPLICATE skips values equal to the last stored one, DEADBAND skips numeric values within the deviation " +
+            "from the last stored one, SWINGING_DOOR skips numeric values that lie within the deviation from a straight line between the stored ones")
+    private TelemetryWriteFilterType type;
+    @Schema(description = "Allowed absolute deviation of a numeric value")
+    private double absoluteDeviation;
+    @Schema(description = "Allowed deviation of a numeric value in percent of the last stored value. The larger of the absolute and percent deviations is used")
+    private double percentDeviation;
+    @Schema(description = "Maximum time in milliseconds between two stored values of a key, 0 means unlimited")
+    private long maxInterval;
+    @Schema(description = "Time series keys to filter, all keys are filtered if empty")
+    private Set<String> keys;
+
+    public boolean isApplicable(String key) {
+        return keys == null || keys.isEmpty() || keys.contains(key);
+    }
+
+}
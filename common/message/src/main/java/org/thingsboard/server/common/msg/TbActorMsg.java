@@ -30,4 +30,11 @@ public interface TbActorMsg {
     default void onTbActorStopped(TbActorStopReason reason) {
     }
 
+    /**
+     * Executed when the message is rejected or evicted because the mailbox of the target TbActor is full.
+     * Implementation should cleanup the resources.
+     */
+    default void onTbActorMailboxOverflow() {
+    }
+
 }
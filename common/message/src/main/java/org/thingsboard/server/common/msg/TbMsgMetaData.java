@@ -15,7 +15,8 @@
  */
 package org.thingsboard.server.common.msg;
 
-import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.io.Serializable;
 import java.util.Collections;
@@ -25,28 +26,52 @@ import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created by ashvayka on 13.01.18.
+ * <p>
+ * The metadata is copied on write: {@link #copy()} shares the immutable snapshot of the data with the copy,
+ * and the snapshot is replaced only when a value is put. Up to {@link TbMsgMetaDataArrayMap#MAX_SIZE} values
+ * are kept in a compact array that is copied on every put. The bigger metadata is moved to the map
+ * owned by the instance on the first put and frozen again on the next copy.
  */
-@Data
+@EqualsAndHashCode
+@ToString
 public final class TbMsgMetaData implements Serializable {
 
-    public static final TbMsgMetaData EMPTY = new TbMsgMetaData(0);
+    public static final TbMsgMetaData EMPTY = new TbMsgMetaData(TbMsgMetaDataArrayMap.EMPTY, true);
 
-    private final Map<String, String> data;
+    private volatile Map<String, String> data;
+
+    // true when the data is the concurrent map that is not shared with the other instances, guarded by this
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean owned;
+
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final boolean immutable;
 
     public TbMsgMetaData() {
-        this.data = new ConcurrentHashMap<>();
+        this.data = TbMsgMetaDataArrayMap.EMPTY;
+        this.immutable = false;
     }
 
     public TbMsgMetaData(Map<String, String> data) {
-        this.data = new ConcurrentHashMap<>();
-        data.forEach(this::putValue);
+        this.data = freeze(data);
+        this.immutable = false;
     }
 
     /**
-     * Internal constructor to create immutable TbMsgMetaData.EMPTY
+     * Internal constructor to create immutable TbMsgMetaData.EMPTY and the copies that share the snapshot of the data
      * */
-    private TbMsgMetaData(int ignored) {
-        this.data = Collections.emptyMap();
+    private TbMsgMetaData(Map<String, String> snapshot, boolean immutable) {
+        this.data = snapshot;
+        this.immutable = immutable;
+    }
+
+    /**
+     * @return the current data. The returned map must not be modified and does not reflect the values put after the next {@link #copy()}.
+     */
+    public Map<String, String> getData() {
+        return data;
     }
 
     public String getValue(String key) {
@@ -54,8 +79,29 @@ public final class TbMsgMetaData implements Serializable {
     }
 
     public void putValue(String key, String value) {
-        if (key != null && value != null) {
-            this.data.put(key, value);
+        if (key == null || value == null) {
+            return;
+        }
+        if (immutable) {
+            throw new UnsupportedOperationException("Metadata is immutable");
+        }
+        synchronized (this) {
+            Map<String, String> current = this.data;
+            if (owned) {
+                current.put(key, value);
+                return;
+            }
+            if (current instanceof TbMsgMetaDataArrayMap arrayMap) {
+                TbMsgMetaDataArrayMap updated = arrayMap.with(key, value);
+                if (updated != null) {
+                    this.data = updated;
+                    return;
+                }
+            }
+            Map<String, String> map = new ConcurrentHashMap<>(current);
+            map.put(key, value);
+            this.data = map;
+            this.owned = true;
         }
     }
 
@@ -64,6 +110,34 @@ public final class TbMsgMetaData implements Serializable {
     }
 
     public TbMsgMetaData copy() {
-        return new TbMsgMetaData(this.data);
+        return new TbMsgMetaData(snapshot(), false);
     }
+
+    private Map<String, String> snapshot() {
+        if (immutable) {
+            return this.data;
+        }
+        synchronized (this) {
+            if (owned) {
+                this.data = freeze(this.data);
+                this.owned = false;
+            }
+            return this.data;
+        }
+    }
+
+    private static Map<String, String> freeze(Map<String, String> map) {
+        TbMsgMetaDataArrayMap arrayMap = TbMsgMetaDataArrayMap.copyOf(map);
+        if (arrayMap != null) {
+            return arrayMap;
+        }
+        Map<String, String> copy = new HashMap<>(map.size() * 4 / 3 + 1);
+        map.forEach((key, value) -> {
+            if (key != null && value != null) {
+                copy.put(key, value);
+            }
+        });
+        return copy.size() > TbMsgMetaDataArrayMap.MAX_SIZE ? Collections.unmodifiableMap(copy) : TbMsgMetaDataArrayMap.copyOf(copy);
+    }
+
 }
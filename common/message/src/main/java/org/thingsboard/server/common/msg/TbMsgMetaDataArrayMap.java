@@ -0,0 +1,189 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.msg;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable map of the {@link TbMsgMetaData} with up to {@link #MAX_SIZE} entries.
+ * The keys and values are stored in one array, so the lookup is a linear scan that is faster than hashing for a few keys,
+ * and a copy with one more value costs a single array allocation.
+ */
+final class TbMsgMetaDataArrayMap extends AbstractMap<String, String> implements Serializable {
+
+    private static final long serialVersionUID = -1432089478527816364L;
+
+    static final int MAX_SIZE = 16;
+
+    static final TbMsgMetaDataArrayMap EMPTY = new TbMsgMetaDataArrayMap(new String[0]);
+
+    // key0, value0, key1, value1, ...
+    private final String[] entries;
+
+    private TbMsgMetaDataArrayMap(String[] entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * @return the map with the entries of the given map that have non-null keys and values, or null if there are more than {@link #MAX_SIZE} of them.
+     * The entries are kept sorted by key, so the iteration order does not depend on the iteration order of the given map.
+     */
+    static TbMsgMetaDataArrayMap copyOf(Map<String, String> map) {
+        if (map instanceof TbMsgMetaDataArrayMap arrayMap) {
+            return arrayMap;
+        }
+        if (map.size() > MAX_SIZE) {
+            return null;
+        }
+        String[] entries = new String[map.size() * 2];
+        int length = 0;
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                entries[length++] = entry.getKey();
+                entries[length++] = entry.getValue();
+            }
+        }
+        if (length == 0) {
+            return EMPTY;
+        }
+        sortByKey(entries, length);
+        return new TbMsgMetaDataArrayMap(length == entries.length ? entries : Arrays.copyOf(entries, length));
+    }
+
+    // insertion sort of the key-value pairs, there are at most MAX_SIZE of them
+    private static void sortByKey(String[] entries, int length) {
+        for (int i = 2; i < length; i += 2) {
+            String key = entries[i];
+            String value = entries[i + 1];
+            int j = i - 2;
+            while (j >= 0 && entries[j].compareTo(key) > 0) {
+                entries[j + 2] = entries[j];
+                entries[j + 3] = entries[j + 1];
+                j -= 2;
+            }
+            entries[j + 2] = key;
+            entries[j + 3] = value;
+        }
+    }
+
+    /**
+     * @return the copy of this map with the given value, or null if the copy does not fit into {@link #MAX_SIZE} entries.
+     * A new key is inserted at its sorted position, so the map stays sorted by key.
+     */
+    TbMsgMetaDataArrayMap with(String key, String value) {
+        int idx = indexOf(key);
+        if (idx >= 0) {
+            if (entries[idx + 1].equals(value)) {
+                return this;
+            }
+            String[] copy = entries.clone();
+            copy[idx + 1] = value;
+            return new TbMsgMetaDataArrayMap(copy);
+        }
+        if (entries.length == MAX_SIZE * 2) {
+            return null;
+        }
+        int pos = 0;
+        while (pos < entries.length && entries[pos].compareTo(key) < 0) {
+            pos += 2;
+        }
+        String[] copy = new String[entries.length + 2];
+        System.arraycopy(entries, 0, copy, 0, pos);
+        copy[pos] = key;
+        copy[pos + 1] = value;
+        System.arraycopy(entries, pos, copy, pos + 2, entries.length - pos);
+        return new TbMsgMetaDataArrayMap(copy);
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < entries.length; i += 2) {
+            String k = entries[i];
+            if (k == key || k.equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String get(Object key) {
+        int idx = indexOf(key);
+        return idx >= 0 ? entries[idx + 1] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return entries.length / 2;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return entries.length == 0;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super String> action) {
+        for (int i = 0; i < entries.length; i += 2) {
+            action.accept(entries[i], entries[i + 1]);
+        }
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new Iterator<>() {
+                    private int idx;
+
+                    @Override
+                    public boolean hasNext() {
+                        return idx < entries.length;
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        if (idx >= entries.length) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<String, String> entry = new SimpleImmutableEntry<>(entries[idx], entries[idx + 1]);
+                        idx += 2;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return entries.length / 2;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.msg;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.protobuf.ByteString;
+import org.thingsboard.common.util.JacksonUtil;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Lazily materialized data of the {@link TbMsg}.
+ * Holds the UTF-8 bytes received from the queue and/or the string representation, converting one to another only on demand,
+ * and caches the parsed representations of the data, so the nodes of a rule chain share one parse per message.
+ * The payload is immutable, so it is shared by all the messages transformed from the same message with the same data.
+ */
+public final class TbMsgPayload implements Serializable {
+
+    private static final long serialVersionUID = 6203215638312926561L;
+
+    static final TbMsgPayload NULL = new TbMsgPayload(null, null);
+
+    private volatile String text;
+    private volatile ByteString bytes;
+    private transient volatile JsonNode json;
+    private transient volatile Object parsed;
+
+    private TbMsgPayload(String text, ByteString bytes) {
+        this.text = text;
+        this.bytes = bytes;
+    }
+
+    public static TbMsgPayload of(String text) {
+        return text != null ? new TbMsgPayload(text, null) : NULL;
+    }
+
+    public static TbMsgPayload of(ByteString utf8Bytes) {
+        return utf8Bytes != null ? new TbMsgPayload(null, utf8Bytes) : NULL;
+    }
+
+    /**
+     * @return this payload if the given string is the same instance as the already materialized text, otherwise the new payload.
+     */
+    TbMsgPayload withText(String text) {
+        return this.text == text ? this : of(text);
+    }
+
+    public String getText() {
+        String text = this.text;
+        if (text == null && bytes != null) {
+            text = bytes.toStringUtf8();
+            this.text = text;
+        }
+        return text;
+    }
+
+    public ByteString getBytes() {
+        ByteString bytes = this.bytes;
+        if (bytes == null && text != null) {
+            bytes = ByteString.copyFromUtf8(text);
+            this.bytes = bytes;
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the data parsed to the Jackson tree, or null if the data is null or empty.
+     * The tree is cached and shared, so it must not be modified. Use {@link JsonNode#deepCopy()} to get the mutable copy.
+     * @throws IllegalArgumentException if the data is not a valid JSON.
+     */
+    public JsonNode getJson() {
+        JsonNode json = this.json;
+        if (json == null) {
+            json = parseJson();
+            this.json = json;
+        }
+        return json;
+    }
+
+    /**
+     * Returns the data parsed with the given parser, e.g. to the Gson tree. The last parsed representation is cached,
+     * so the nodes that use the same representation share one parse. The result is shared and must not be modified.
+     */
+    public <T> T getParsed(Class<T> type, Function<String, T> parser) {
+        Object parsed = this.parsed;
+        if (type.isInstance(parsed)) {
+            return type.cast(parsed);
+        }
+        T result = parser.apply(getText());
+        this.parsed = result;
+        return result;
+    }
+
+    private JsonNode parseJson() {
+        String text = this.text;
+        if (text != null) {
+            return JacksonUtil.toJsonNode(text);
+        }
+        ByteString bytes = this.bytes;
+        if (bytes == null || bytes.isEmpty()) {
+            return null;
+        }
+        try {
+            return JacksonUtil.OBJECT_MAPPER.readTree(bytes.newInput());
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return Objects.equals(getText(), ((TbMsgPayload) o).getText());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getText());
+    }
+
+    @Override
+    public String toString() {
+        return getText();
+    }
+
+}
@@ -65,6 +65,13 @@ public final class QueueToRuleEngineMsg extends TbRuleEngineActorMsg {
         msg.getCallback().onFailure(new RuleEngineException(message));
     }
 
+    @Override
+    public void onTbActorMailboxOverflow() {
+        String message = msg.getRuleChainId() != null ?
+                String.format("Rule chain [%s] mailbox is full", msg.getRuleChainId().getId()) : "Rule chain mailbox is full";
+        msg.getCallback().onFailure(new RuleEngineException(message));
+    }
+
     public boolean isTellNext() {
         return relationTypes != null && !relationTypes.isEmpty();
     }
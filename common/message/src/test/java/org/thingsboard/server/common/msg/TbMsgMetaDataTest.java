@@ -21,8 +21,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.HashMap;
 import java.util.Map;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class TbMsgMetaDataTest {
@@ -53,4 +56,80 @@ public class TbMsgMetaDataTest {
         Map<String, String> dataActual = tbMsgMetaData.copy().getData();
         assertEquals(metadataExpected.size() - 1, dataActual.size());
     }
+
+    @Test
+    public void testCopyIsNotAffectedByPutValue() {
+        TbMsgMetaData original = new TbMsgMetaData(metadataExpected);
+        TbMsgMetaData copy = original.copy();
+        assertThat(copy.getData()).isSameAs(original.getData());
+
+        copy.putValue("deviceName", "Other Device");
+        original.putValue("newKey", "newValue");
+
+        assertThat(original.getValue("deviceName")).isEqualTo("Test Device");
+        assertThat(copy.getValue("deviceName")).isEqualTo("Other Device");
+        assertThat(copy.getValue("newKey")).isNull();
+        assertThat(original.getValue("newKey")).isEqualTo("newValue");
+    }
+
+    @Test
+    public void testCopyOnWriteOfLargeMetadata() {
+        TbMsgMetaData original = new TbMsgMetaData();
+        for (int i = 0; i < 40; i++) {
+            original.putValue("key" + i, "value" + i);
+        }
+        TbMsgMetaData copy = original.copy();
+        original.putValue("key0", "changed");
+        copy.putValue("key40", "value40");
+        TbMsgMetaData copyOfCopy = copy.copy();
+        copy.putValue("key41", "value41");
+
+        assertThat(original.getData()).hasSize(40).containsEntry("key0", "changed");
+        assertThat(copy.getData()).hasSize(42).containsEntry("key0", "value0");
+        assertThat(copyOfCopy.getData()).hasSize(41).doesNotContainKey("key41");
+    }
+
+    @Test
+    public void testEqualsAndHashCodeDoNotDependOnRepresentation() {
+        Map<String, String> values = new HashMap<>();
+        TbMsgMetaData metaData = new TbMsgMetaData();
+        for (int i = 0; i < 20; i++) {
+            values.put("key" + i, "value" + i);
+            metaData.putValue("key" + i, "value" + i);
+            TbMsgMetaData expected = new TbMsgMetaData(values);
+            assertThat(metaData).isEqualTo(expected).hasSameHashCodeAs(expected);
+            assertThat(metaData.values()).isEqualTo(values);
+        }
+        assertThat(new TbMsgMetaData().toString()).isEqualTo("TbMsgMetaData(data={})");
+    }
+
+    @Test
+    public void testMetadataCreatedFromMapIsOrderedByKey() {
+        TbMsgMetaData metaData = new TbMsgMetaData(Map.of("c", "3", "a", "1", "b", "2"));
+        assertThat(metaData.getData().keySet()).containsExactly("a", "b", "c");
+        metaData.putValue("0", "0");
+        metaData.putValue("bb", "22");
+        assertThat(metaData.getData().keySet()).containsExactly("0", "a", "b", "bb", "c");
+        assertThat(metaData).isEqualTo(new TbMsgMetaData(Map.of("0", "0", "a", "1", "b", "2", "bb", "22", "c", "3")));
+    }
+
+    @Test
+    public void testMetadataBuiltByPutsIsOrderedByKey() {
+        TbMsgMetaData metaData = new TbMsgMetaData();
+        metaData.putValue("c", "3");
+        metaData.putValue("a", "1");
+        metaData.putValue("b", "2");
+        assertThat(metaData.getData().keySet()).containsExactly("a", "b", "c");
+        assertThat(metaData.getData().keySet()).containsExactlyElementsOf(new TbMsgMetaData(Map.of("b", "2", "c", "3", "a", "1")).getData().keySet());
+    }
+
+    @Test
+    public void testEmptyIsImmutable() {
+        assertThatThrownBy(() -> TbMsgMetaData.EMPTY.putValue("key", "value")).isInstanceOf(UnsupportedOperationException.class);
+        TbMsgMetaData copy = TbMsgMetaData.EMPTY.copy();
+        copy.putValue("key", "value");
+        assertThat(copy.getValue("key")).isEqualTo("value");
+        assertThat(TbMsgMetaData.EMPTY.getData()).isEmpty();
+    }
+
 }
@@ -0,0 +1,96 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.msg;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.msg.TbMsgType;
+import org.thingsboard.server.common.msg.queue.TbMsgCallback;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TbMsgPayloadTest {
+
+    private static final String DATA = "{\"temperature\":42,\"humidity\":\"high\"}";
+
+    @Test
+    public void testDataAsJsonIsParsedOnceAndSharedByTransformedMsgs() {
+        TbMsg msg = newMsg(DATA);
+        JsonNode json = msg.getDataAsJson();
+        assertThat(json.get("temperature").asInt()).isEqualTo(42);
+
+        TbMsg sameData = TbMsg.transformMsgMetadata(msg, new TbMsgMetaData());
+        assertThat(sameData.getDataAsJson()).isSameAs(json);
+        TbMsg sameDataInstance = TbMsg.transformMsgData(msg, msg.getData());
+        assertThat(sameDataInstance.getDataAsJson()).isSameAs(json);
+
+        TbMsg newData = TbMsg.transformMsgData(msg, "{\"temperature\":43}");
+        assertThat(newData.getDataAsJson()).isNotSameAs(json);
+        assertThat(newData.getDataAsJson().get("temperature").asInt()).isEqualTo(43);
+    }
+
+    @Test
+    public void testDeserializedMsgKeepsBytesUntilDataIsRequested() {
+        TbMsg msg = TbMsg.fromBytes("main", TbMsg.toByteArray(newMsg(DATA)), TbMsgCallback.EMPTY);
+
+        assertThat(msg.getDataAsJson()).isEqualTo(JacksonUtil.toJsonNode(DATA));
+        assertThat(msg.getData()).isEqualTo(DATA);
+        TbMsg reserialized = TbMsg.fromBytes("main", TbMsg.toByteArray(msg), TbMsgCallback.EMPTY);
+        assertThat(reserialized.getData()).isEqualTo(DATA);
+        assertThat(reserialized.getId()).isEqualTo(msg.getId());
+    }
+
+    @Test
+    public void testParsedDataIsCachedPerType() {
+        TbMsg msg = newMsg(DATA);
+        AtomicInteger parseCount = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            String parsed = msg.getParsedData(String.class, data -> {
+                parseCount.incrementAndGet();
+                return data.toUpperCase();
+            });
+            assertThat(parsed).isEqualTo(DATA.toUpperCase());
+        }
+        assertThat(parseCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testEmptyAndInvalidData() {
+        assertThat(newMsg("").getDataAsJson()).isNull();
+        assertThat(TbMsg.fromBytes("main", TbMsg.toByteArray(newMsg("")), TbMsgCallback.EMPTY).getDataAsJson()).isNull();
+        assertThatThrownBy(() -> newMsg("not a json").getDataAsJson()).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testBuilderData() {
+        TbMsg msg = TbMsg.builder().internalType(TbMsgType.POST_TELEMETRY_REQUEST).data(DATA).build();
+        assertThat(msg.getData()).isEqualTo(DATA);
+        assertThat(msg.toBuilder().build().getDataAsJson()).isSameAs(msg.getDataAsJson());
+        assertThat(TbMsg.builder().build().getData()).isNull();
+    }
+
+    private static TbMsg newMsg(String data) {
+        return TbMsg.newMsg(TbMsgType.POST_TELEMETRY_REQUEST, new DeviceId(UUID.randomUUID()), new TbMsgMetaData(), data);
+    }
+
+}
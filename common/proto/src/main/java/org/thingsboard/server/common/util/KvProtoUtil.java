@@ -102,9 +102,32 @@ public class KvProtoUtil {
         return new BasicTsKvEntry(proto.getTs(), fromTsKvProto(proto.getKv()), proto.hasVersion() ? proto.getVersion() : null);
     }
 
+    /**
+     * Converts the entry without its key, for the storages that already keep the key of the entry (e.g. in the cache key).
+     * Use {@link #fromTsKvProto(String, TransportProtos.TsKvProto)} to restore the entry.
+     */
+    public static TransportProtos.TsKvProto toKeylessTsKvProto(long ts, KvEntry kvEntry, Long version) {
+        var builder = TransportProtos.TsKvProto.newBuilder()
+                .setTs(ts)
+                .setKv(toKeyValueTypeProtoBuilder(kvEntry));
+
+        if (version != null) {
+            builder.setVersion(version);
+        }
+
+        return builder.build();
+    }
+
+    public static TsKvEntry fromTsKvProto(String key, TransportProtos.TsKvProto proto) {
+        return new BasicTsKvEntry(proto.getTs(), fromTsKvProto(key, proto.getKv()), proto.hasVersion() ? proto.getVersion() : null);
+    }
+
     public static TransportProtos.KeyValueProto toKeyValueTypeProto(KvEntry kvEntry) {
+        return toKeyValueTypeProtoBuilder(kvEntry).setKey(kvEntry.getKey()).build();
+    }
+
+    private static TransportProtos.KeyValueProto.Builder toKeyValueTypeProtoBuilder(KvEntry kvEntry) {
         TransportProtos.KeyValueProto.Builder builder = TransportProtos.KeyValueProto.newBuilder();
-        builder.setKey(kvEntry.getKey());
         builder.setType(toKeyValueTypeProto(kvEntry.getDataType()));
         switch (kvEntry.getDataType()) {
             case BOOLEAN -> kvEntry.getBooleanValue().ifPresent(builder::setBoolV);
@@ -113,16 +136,20 @@ public class KvProtoUtil {
             case JSON -> kvEntry.getJsonValue().ifPresent(builder::setJsonV);
             case STRING -> kvEntry.getStrValue().ifPresent(builder::setStringV);
         }
-        return builder.build();
+        return builder;
     }
 
     public static KvEntry fromTsKvProto(TransportProtos.KeyValueProto proto) {
+        return fromTsKvProto(proto.getKey(), proto);
+    }
+
+    public static KvEntry fromTsKvProto(String key, TransportProtos.KeyValueProto proto) {
         return switch (fromKeyValueTypeProto(proto.getType())) {
-            case BOOLEAN -> new BooleanDataEntry(proto.getKey(), proto.getBoolV());
-            case LONG -> new LongDataEntry(proto.getKey(), proto.getLongV());
-            case DOUBLE -> new DoubleDataEntry(proto.getKey(), proto.getDoubleV());
-            case STRING -> new StringDataEntry(proto.getKey(), proto.getStringV());
-            case JSON -> new JsonDataEntry(proto.getKey(), proto.getJsonV());
+            case BOOLEAN -> new BooleanDataEntry(key, proto.getBoolV());
+            case LONG -> new LongDataEntry(key, proto.getLongV());
+            case DOUBLE -> new DoubleDataEntry(key, proto.getDoubleV());
+            case STRING -> new StringDataEntry(key, proto.getStringV());
+            case JSON -> new JsonDataEntry(key, proto.getJsonV());
         };
     }
 
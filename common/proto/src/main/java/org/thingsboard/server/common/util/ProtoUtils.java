@@ -266,9 +266,20 @@ public class ProtoUtils {
     }
 
     public static TransportProtos.AttributeValueProto toProto(AttributeKvEntry attributeKvEntry) {
+        return toAttributeValueProtoBuilder(attributeKvEntry).setKey(attributeKvEntry.getKey()).build();
+    }
+
+    /**
+     * Converts the attribute without its key, for the storages that already keep the key of the attribute (e.g. in the cache key).
+     * Use {@link #fromProto(String, TransportProtos.AttributeValueProto)} to restore the attribute.
+     */
+    public static TransportProtos.AttributeValueProto toKeylessProto(AttributeKvEntry attributeKvEntry) {
+        return toAttributeValueProtoBuilder(attributeKvEntry).build();
+    }
+
+    private static TransportProtos.AttributeValueProto.Builder toAttributeValueProtoBuilder(AttributeKvEntry attributeKvEntry) {
         TransportProtos.AttributeValueProto.Builder builder = TransportProtos.AttributeValueProto.newBuilder()
-                .setLastUpdateTs(attributeKvEntry.getLastUpdateTs())
-                .setKey(attributeKvEntry.getKey());
+                .setLastUpdateTs(attributeKvEntry.getLastUpdateTs());
         switch (attributeKvEntry.getDataType()) {
             case BOOLEAN:
                 attributeKvEntry.getBooleanValue().ifPresent(builder::setBoolV);
@@ -301,7 +312,7 @@ public class ProtoUtils {
             builder.setVersion(attributeKvEntry.getVersion());
         }
 
-        return builder.build();
+        return builder;
     }
 
     private static ToDeviceActorNotificationMsg fromProto(TransportProtos.DeviceAttributesEventMsgProto proto) {
@@ -518,8 +529,11 @@ public class ProtoUtils {
     }
 
     public static AttributeKvEntry fromProto(TransportProtos.AttributeValueProto proto) {
+        return fromProto(proto.getKey(), proto);
+    }
+
+    public static AttributeKvEntry fromProto(String key, TransportProtos.AttributeValueProto proto) {
         boolean hasValue = proto.getHasV();
-        String key = proto.getKey();
         KvEntry entry = switch (proto.getType()) {
             case BOOLEAN_V -> new BooleanDataEntry(key, hasValue ? proto.getBoolV() : null);
             case LONG_V -> new LongDataEntry(key, hasValue ? proto.getLongV() : null);
@@ -31,6 +31,7 @@ import org.thingsboard.server.common.data.kv.KvEntry;
 import org.thingsboard.server.common.data.kv.LongDataEntry;
 import org.thingsboard.server.common.data.kv.StringDataEntry;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.gen.transport.TransportProtos;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -92,6 +93,15 @@ class KvProtoUtilTest {
                 .as("deserialized").isEqualTo(kvEntry);
     }
 
+    @ParameterizedTest
+    @MethodSource("kvEntryData")
+    void protoKeylessTsKvEntrySerialization(KvEntry kvEntry) {
+        TransportProtos.TsKvProto proto = KvProtoUtil.toKeylessTsKvProto(TS, kvEntry, 7L);
+        assertThat(proto.getKv().getKey()).isEmpty();
+        assertThat(KvProtoUtil.fromTsKvProto(kvEntry.getKey(), proto))
+                .as("deserialized").isEqualTo(new BasicTsKvEntry(TS, kvEntry, 7L));
+    }
+
     @ParameterizedTest
     @MethodSource("kvEntryData")
     void protoTsValueSerialization(KvEntry kvEntry) {
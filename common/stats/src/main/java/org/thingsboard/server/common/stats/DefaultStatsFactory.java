@@ -27,6 +27,7 @@ import org.springframework.stereotype.Service;
 import org.thingsboard.server.common.data.StringUtils;
 
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
 
 @Service
 public class DefaultStatsFactory implements StatsFactory {
@@ -86,6 +87,11 @@ public class DefaultStatsFactory implements StatsFactory {
         return meterRegistry.gauge(key, Tags.of(tags), number);
     }
 
+    @Override
+    public <T> T createGauge(String key, T stateObject, ToDoubleFunction<T> valueFunction, String... tags) {
+        return meterRegistry.gauge(key, Tags.of(tags), stateObject, valueFunction);
+    }
+
     @Override
     public MessagesStats createMessagesStats(String key) {
         StatsCounter totalCounter = createStatsCounter(key, TOTAL_MSGS);
@@ -17,6 +17,8 @@ package org.thingsboard.server.common.stats;
 
 import io.micrometer.core.instrument.Timer;
 
+import java.util.function.ToDoubleFunction;
+
 public interface StatsFactory {
 
     StatsCounter createStatsCounter(String key, String statsName, String... otherTags);
@@ -25,6 +27,8 @@ public interface StatsFactory {
 
     <T extends Number> T createGauge(String key, T number, String... tags);
 
+    <T> T createGauge(String key, T stateObject, ToDoubleFunction<T> valueFunction, String... tags);
+
     MessagesStats createMessagesStats(String key);
 
     Timer createTimer(String key, String... tags);
@@ -32,7 +32,8 @@ public abstract class AbstractListeningExecutor implements ListeningExecutor {
 
     @PostConstruct
     public void init() {
-        this.service = MoreExecutors.listeningDecorator(ThingsBoardExecutors.newWorkStealingPool(getThreadPollSize(), getClass()));
+        this.service = MoreExecutors.listeningDecorator(ThingsBoardExecutors.newVirtualThreadPerTaskOrWorkStealingPool(
+                isVirtualThreadsEnabled(), getThreadPollSize(), getClass().getSimpleName()));
     }
 
     @PreDestroy
@@ -62,4 +63,12 @@ public abstract class AbstractListeningExecutor implements ListeningExecutor {
 
     protected abstract int getThreadPollSize();
 
+    /**
+     * Whether to start a virtual thread per task instead of using the pool of {@link #getThreadPollSize()} threads.
+     * Useful for the executors that mostly block on I/O. Ignored if the runtime does not support virtual threads.
+     */
+    protected boolean isVirtualThreadsEnabled() {
+        return false;
+    }
+
 }
@@ -15,11 +15,55 @@
  */
 package org.thingsboard.common.util;
 
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
 
+@Slf4j
 public class ThingsBoardExecutors {
 
+    /**
+     * Handles of Thread.ofVirtual(), Thread.Builder.name(String, long), Thread.Builder.factory()
+     * and Executors.newThreadPerTaskExecutor(ThreadFactory). The platform is compiled for Java 17,
+     * so virtual threads are resolved at runtime and are available only when running on Java 21+.
+     */
+    private static final MethodHandle OF_VIRTUAL;
+    private static final MethodHandle BUILDER_NAME;
+    private static final MethodHandle BUILDER_FACTORY;
+    private static final MethodHandle NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        MethodHandle ofVirtual = null;
+        MethodHandle builderName = null;
+        MethodHandle builderFactory = null;
+        MethodHandle newThreadPerTaskExecutor = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Class<?> ofVirtualClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(ofVirtualClass));
+            builderName = lookup.findVirtual(builderClass, "name", MethodType.methodType(builderClass, String.class, long.class));
+            builderFactory = lookup.findVirtual(builderClass, "factory", MethodType.methodType(ThreadFactory.class));
+            newThreadPerTaskExecutor = lookup.findStatic(Executors.class, "newThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class, ThreadFactory.class));
+            // Java 19 and 20 expose the API as a preview feature and fail unless --enable-preview is set
+            ofVirtual.invoke();
+        } catch (Throwable e) {
+            log.debug("Virtual threads are not supported by the current runtime: {}", e.toString());
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+
     /**
      * Method forked from ExecutorService to provide thread poll name
      *
@@ -48,4 +92,49 @@ public class ThingsBoardExecutors {
         return newWorkStealingPool(parallelism, clazz.getSimpleName());
     }
 
+    public static boolean isVirtualThreadsSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task.
+     * The threads are named using the given prefix and an incrementing counter, e.g. "rule-dispatcher-0".
+     *
+     * @param namePrefix used to define thread name
+     * @return the newly created executor
+     * @throws UnsupportedOperationException if virtual threads are not supported by the current runtime
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+        if (!isVirtualThreadsSupported()) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or later, current runtime is Java " + Runtime.version());
+        }
+        try {
+            Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(), namePrefix + "-", 0L);
+            ThreadFactory threadFactory = (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(threadFactory);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to create virtual thread executor " + namePrefix, e);
+        }
+    }
+
+    /**
+     * Creates a virtual thread per task executor if requested and supported by the current runtime,
+     * otherwise falls back to the work stealing pool with the given parallelism.
+     *
+     * @param virtualThreads whether to use virtual threads
+     * @param parallelism the targeted parallelism level of the fallback pool
+     * @param namePrefix used to define thread name
+     * @return the newly created executor
+     */
+    public static ExecutorService newVirtualThreadPerTaskOrWorkStealingPool(boolean virtualThreads, int parallelism, String namePrefix) {
+        if (virtualThreads) {
+            if (isVirtualThreadsSupported()) {
+                return newVirtualThreadPerTaskExecutor(namePrefix);
+            }
+            log.warn("[{}] Virtual threads are not supported by Java {}, using work stealing pool with parallelism {} instead",
+                    namePrefix, Runtime.version().feature(), parallelism);
+        }
+        return newWorkStealingPool(parallelism, namePrefix);
+    }
+
 }
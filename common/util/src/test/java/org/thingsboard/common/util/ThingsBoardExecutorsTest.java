@@ -0,0 +1,62 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ThingsBoardExecutorsTest {
+
+    @Test
+    public void givenVirtualThreadsDisabled_whenCreateExecutor_thenWorkStealingPool() {
+        ExecutorService executor = ThingsBoardExecutors.newVirtualThreadPerTaskOrWorkStealingPool(false, 2, "test-pool");
+        try {
+            assertThat(executor).isInstanceOf(ForkJoinPool.class);
+            assertThat(((ForkJoinPool) executor).getParallelism()).isEqualTo(2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void givenVirtualThreadsEnabled_whenCreateExecutor_thenVirtualThreadsUsedIfSupported() throws Exception {
+        ExecutorService executor = ThingsBoardExecutors.newVirtualThreadPerTaskOrWorkStealingPool(true, 2, "test-virtual");
+        try {
+            String threadName = executor.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+            assertThat(threadName).startsWith("test-virtual");
+            assertThat(executor instanceof ForkJoinPool).isEqualTo(!ThingsBoardExecutors.isVirtualThreadsSupported());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void givenRuntimeWithoutVirtualThreads_whenCreateVirtualThreadExecutor_thenException() {
+        if (ThingsBoardExecutors.isVirtualThreadsSupported()) {
+            ThingsBoardExecutors.newVirtualThreadPerTaskExecutor("test-virtual").shutdownNow();
+        } else {
+            assertThatThrownBy(() -> ThingsBoardExecutors.newVirtualThreadPerTaskExecutor("test-virtual"))
+                    .isInstanceOf(UnsupportedOperationException.class);
+        }
+    }
+
+}
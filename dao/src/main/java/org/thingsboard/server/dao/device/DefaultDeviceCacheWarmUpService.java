@@ -0,0 +1,111 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.device;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.thingsboard.server.cache.TbTransactionalCache;
+import org.thingsboard.server.cache.VersionedTbCache;
+import org.thingsboard.server.cache.device.DeviceCacheKey;
+import org.thingsboard.server.common.data.Device;
+import org.thingsboard.server.common.data.DeviceIdInfo;
+import org.thingsboard.server.common.data.id.DeviceProfileId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.AttributeKvEntry;
+import org.thingsboard.server.common.data.security.DeviceCredentials;
+import org.thingsboard.server.dao.attributes.AttributeCacheKey;
+import org.thingsboard.server.dao.attributes.AttributesDao;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class DefaultDeviceCacheWarmUpService implements DeviceCacheWarmUpService {
+
+    private final DeviceDao deviceDao;
+    private final DeviceCredentialsDao deviceCredentialsDao;
+    private final AttributesDao attributesDao;
+    private final DeviceProfileService deviceProfileService;
+    private final VersionedTbCache<DeviceCacheKey, Device> deviceCache;
+    private final TbTransactionalCache<String, DeviceCredentials> deviceCredentialsCache;
+    private final VersionedTbCache<AttributeCacheKey, AttributeKvEntry> attributesCache;
+
+    @Value("${cache.warm_up.batch_size:1000}")
+    private int batchSize;
+
+    @Value("${cache.attributes.enabled:true}")
+    private boolean attributesCacheEnabled;
+
+    @Override
+    public int warmUp(Predicate<DeviceIdInfo> filter, long deadlineTs) {
+        Set<DeviceProfileId> profileIds = new HashSet<>();
+        UUID idOffset = null;
+        int count = 0;
+        while (System.currentTimeMillis() < deadlineTs) {
+            List<DeviceIdInfo> idInfos = deviceDao.findDeviceIdInfosByIdOffset(idOffset, batchSize);
+            if (idInfos.isEmpty()) {
+                break;
+            }
+            idOffset = idInfos.get(idInfos.size() - 1).getDeviceId().getId();
+            List<UUID> deviceIds = new ArrayList<>();
+            for (DeviceIdInfo idInfo : idInfos) {
+                if (filter.test(idInfo)) {
+                    deviceIds.add(idInfo.getDeviceId().getId());
+                }
+            }
+            if (!deviceIds.isEmpty()) {
+                count += warmUp(deviceIds, profileIds);
+            }
+            if (idInfos.size() < batchSize) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    private int warmUp(List<UUID> deviceIds, Set<DeviceProfileId> profileIds) {
+        List<Device> devices = deviceDao.findDevicesByIds(deviceIds);
+        List<EntityId> entityIds = new ArrayList<>(devices.size());
+        for (Device device : devices) {
+            deviceCache.put(new DeviceCacheKey(device.getTenantId(), device.getId()), device);
+            if (device.getDeviceProfileId() != null && profileIds.add(device.getDeviceProfileId())) {
+                deviceProfileService.findDeviceProfileById(device.getTenantId(), device.getDeviceProfileId());
+            }
+            entityIds.add(device.getId());
+        }
+        for (DeviceCredentials credentials : deviceCredentialsDao.findByDeviceIds(TenantId.SYS_TENANT_ID, deviceIds)) {
+            // the batch snapshot may already be outdated, so the value is re-read within the cache transaction the same way as on the regular lookup
+            String credentialsId = credentials.getCredentialsId();
+            deviceCredentialsCache.getAndPutInTransaction(credentialsId,
+                    () -> deviceCredentialsDao.findByCredentialsId(TenantId.SYS_TENANT_ID, credentialsId), true);
+        }
+        if (attributesCacheEnabled && !entityIds.isEmpty()) {
+            attributesDao.findAllByEntityIds(TenantId.SYS_TENANT_ID, entityIds).forEach(attributesCache::put);
+        }
+        log.trace("Warmed up cache for {} devices", devices.size());
+        return devices.size();
+    }
+
+}
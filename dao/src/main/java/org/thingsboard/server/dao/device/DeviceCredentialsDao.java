@@ -20,6 +20,7 @@ import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.security.DeviceCredentials;
 import org.thingsboard.server.dao.Dao;
 
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -46,6 +47,14 @@ public interface DeviceCredentialsDao extends Dao<DeviceCredentials> {
      */
     DeviceCredentials findByDeviceId(TenantId tenantId, UUID deviceId);
 
+    /**
+     * Find device credentials of several devices with a single query.
+     *
+     * @param deviceIds the device ids
+     * @return the list of device credentials objects
+     */
+    List<DeviceCredentials> findByDeviceIds(TenantId tenantId, List<UUID> deviceIds);
+
     /**
      * Find device credentials by credentials id.
      *
@@ -15,21 +15,43 @@
  */
 package org.thingsboard.server.dao.device;
 
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.MessageLite;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.stereotype.Service;
+import org.thingsboard.common.util.JacksonUtil;
 import org.thingsboard.server.cache.CacheSpecsMap;
 import org.thingsboard.server.cache.RedisTbTransactionalCache;
 import org.thingsboard.server.cache.TBRedisCacheConfiguration;
-import org.thingsboard.server.cache.TbJsonRedisSerializer;
+import org.thingsboard.server.cache.TbProtoRedisSerializer;
 import org.thingsboard.server.common.data.CacheConstants;
 import org.thingsboard.server.common.data.security.DeviceCredentials;
+import org.thingsboard.server.common.util.ProtoUtils;
+import org.thingsboard.server.gen.transport.TransportProtos;
+
+import java.io.IOException;
 
 @ConditionalOnProperty(prefix = "cache", value = "type", havingValue = "redis")
 @Service("DeviceCredentialsCache")
 public class DeviceCredentialsRedisCache extends RedisTbTransactionalCache<String, DeviceCredentials> {
 
     public DeviceCredentialsRedisCache(TBRedisCacheConfiguration configuration, CacheSpecsMap cacheSpecsMap, RedisConnectionFactory connectionFactory) {
-        super(CacheConstants.DEVICE_CREDENTIALS_CACHE, cacheSpecsMap, connectionFactory, configuration, new TbJsonRedisSerializer<>(DeviceCredentials.class));
+        super(CacheConstants.DEVICE_CREDENTIALS_CACHE, cacheSpecsMap, connectionFactory, configuration, new TbProtoRedisSerializer<String, DeviceCredentials>(1) {
+            @Override
+            protected MessageLite toProto(DeviceCredentials value) {
+                return ProtoUtils.toProto(value);
+            }
+
+            @Override
+            protected DeviceCredentials fromProto(String key, int formatVersion, CodedInputStream input) throws IOException {
+                return ProtoUtils.fromProto(TransportProtos.DeviceCredentialsProto.parseFrom(input));
+            }
+
+            @Override
+            protected DeviceCredentials fromLegacy(String key, byte[] bytes) throws IOException {
+                return JacksonUtil.fromBytes(bytes, DeviceCredentials.class);
+            }
+        });
     }
 }
@@ -218,5 +218,14 @@ public interface DeviceDao extends Dao<Device>, TenantEntityDao, ExportableEntit
 
     PageData<DeviceIdInfo> findDeviceIdInfos(PageLink pageLink);
 
+    /**
+     * Find device id infos of all tenants ordered by device id, starting after the given id.
+     *
+     * @param idOffset the id of the last device from the previous batch, or null to start from the beginning
+     * @param limit the maximum number of device id infos to return
+     * @return the list of device id infos
+     */
+    List<DeviceIdInfo> findDeviceIdInfosByIdOffset(UUID idOffset, int limit);
+
     PageData<DeviceInfo> findDeviceInfosByFilter(DeviceInfoFilter filter, PageLink pageLink);
 }
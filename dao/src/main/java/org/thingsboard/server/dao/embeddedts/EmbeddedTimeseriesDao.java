@@ -0,0 +1,212 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.embeddedts;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.common.data.kv.AggregationParams;
+import org.thingsboard.server.common.data.kv.DeleteTsKvQuery;
+import org.thingsboard.server.common.data.kv.IntervalType;
+import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
+import org.thingsboard.server.common.data.kv.ReadTsKvQueryResult;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.dao.DaoUtil;
+import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
+import org.thingsboard.server.dao.sqlts.AggregationTimeseriesDao;
+import org.thingsboard.server.dao.sqlts.TsKvPartialAggregate;
+import org.thingsboard.server.dao.timeseries.TimeseriesDao;
+import org.thingsboard.server.dao.util.EmbeddedTsDao;
+import org.thingsboard.server.dao.util.TimeUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time-series DAO over the embedded storage that needs no external database. Writes go to the mapped segments
+ * on the calling thread, reads and aggregation run over the mapped segments in the {@link EmbeddedTsExecutorService}.
+ * <p>
+ * The storage expires the data by the system TTL only, the TTL of the individual writes is not applied.
+ */
+@Slf4j
+@Component
+@EmbeddedTsDao
+@RequiredArgsConstructor
+public class EmbeddedTimeseriesDao implements TimeseriesDao, AggregationTimeseriesDao {
+
+    private static final long SECONDS_IN_DAY = TimeUnit.DAYS.toSeconds(1);
+    private static final String DESC_ORDER = "DESC";
+
+    private final EmbeddedTsStore store;
+    private final EmbeddedTsExecutorService executor;
+
+    @Value("${sql.ttl.ts.ts_key_value_ttl:0}")
+    private long systemTtl;
+
+    @Override
+    public ListenableFuture<List<ReadTsKvQueryResult>> findAllAsync(TenantId tenantId, EntityId entityId, List<ReadTsKvQuery> queries) {
+        List<ListenableFuture<ReadTsKvQueryResult>> futures = new ArrayList<>(queries.size());
+        for (ReadTsKvQuery query : queries) {
+            futures.add(findAllAsync(tenantId, entityId, query));
+        }
+        return Futures.allAsList(futures);
+    }
+
+    @Override
+    public ListenableFuture<ReadTsKvQueryResult> findAllAsync(TenantId tenantId, EntityId entityId, ReadTsKvQuery query) {
+        if (Aggregation.NONE.equals(query.getAggregation())) {
+            return executor.executeAsync(() -> findAllWithLimit(entityId, query));
+        } else {
+            return executor.executeAsync(() -> findAllAggregated(entityId, query));
+        }
+    }
+
+    @Override
+    public ListenableFuture<Integer> save(TenantId tenantId, EntityId entityId, TsKvEntry tsKvEntry, long ttl) {
+        try {
+            store.save(entityId.getId(), tsKvEntry);
+        } catch (RuntimeException e) {
+            return Futures.immediateFailedFuture(e);
+        }
+        return Futures.immediateFuture(tsKvEntry.getDataPoints() * Math.max(1, (int) (computeTtl(ttl) / SECONDS_IN_DAY)));
+    }
+
+    @Override
+    public ListenableFuture<Integer> savePartition(TenantId tenantId, EntityId entityId, long tsKvEntryTs, String key) {
+        // the windows of the storage are created on the first write
+        return Futures.immediateFuture(0);
+    }
+
+    @Override
+    public ListenableFuture<Void> remove(TenantId tenantId, EntityId entityId, DeleteTsKvQuery query) {
+        return executor.executeAsync(() -> {
+            store.remove(entityId.getId(), query.getKey(), query.getStartTs(), query.getEndTs());
+            return null;
+        });
+    }
+
+    @Override
+    public void cleanup(long systemTtl) {
+        if (systemTtl > 0) {
+            store.cleanup(System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(systemTtl));
+        }
+    }
+
+    private ReadTsKvQueryResult findAllWithLimit(EntityId entityId, ReadTsKvQuery query) {
+        String key = query.getKey();
+        List<TsKvEntry> data = new ArrayList<>();
+        if (query.getLimit() > 0) {
+            store.scan(entityId.getId(), key, query.getStartTs(), query.getEndTs(), !DESC_ORDER.equalsIgnoreCase(query.getOrder()), point -> {
+                data.add(EmbeddedTsStore.toTsKvEntry(key, point));
+                return data.size() < query.getLimit();
+            });
+        }
+        long lastTs = data.stream().mapToLong(TsKvEntry::getTs).max().orElse(query.getStartTs());
+        return new ReadTsKvQueryResult(query.getId(), data, lastTs);
+    }
+
+    /**
+     * Aggregates all the intervals of the query in a single pass over the points of the range.
+     */
+    private ReadTsKvQueryResult findAllAggregated(EntityId entityId, ReadTsKvQuery query) {
+        AggregationParams aggParams = query.getAggParameters();
+        long startTs = query.getStartTs();
+        long endTs = Math.max(startTs + 1, query.getEndTs());
+        boolean fixedInterval = IntervalType.MILLISECONDS.equals(aggParams.getIntervalType());
+        long interval = aggParams.getInterval();
+        long[] starts = fixedInterval ? null : TimeUtils.calculateIntervalStarts(startTs, endTs, aggParams.getIntervalType(), aggParams.getTzId());
+        int intervals = fixedInterval ? (int) ((endTs - startTs + interval - 1) / interval) : starts.length;
+        TsKvPartialAggregate[] aggregates = new TsKvPartialAggregate[intervals];
+        store.scan(entityId.getId(), query.getKey(), startTs, endTs, true, point -> {
+            int index = fixedInterval ? (int) ((point.ts() - startTs) / interval) : findInterval(starts, point.ts());
+            TsKvPartialAggregate aggregate = aggregates[index];
+            if (aggregate == null) {
+                aggregate = new TsKvPartialAggregate();
+                aggregates[index] = aggregate;
+            }
+            add(aggregate, point);
+            return true;
+        });
+        List<TsKvEntity> entities = new ArrayList<>();
+        for (int i = 0; i < intervals; i++) {
+            if (aggregates[i] == null) {
+                continue;
+            }
+            TsKvEntity entity = aggregates[i].toEntity(query.getAggregation());
+            if (entity != null && entity.isNotEmpty()) {
+                long intervalStart = fixedInterval ? startTs + i * interval : starts[i];
+                long intervalEnd = Math.min(fixedInterval ? intervalStart + interval : (i + 1 < starts.length ? starts[i + 1] : endTs), endTs);
+                entity.setEntityId(entityId.getId());
+                entity.setStrKey(query.getKey());
+                entity.setTs(intervalStart + (intervalEnd - intervalStart) / 2);
+                entities.add(entity);
+            }
+        }
+        var lastTs = entities.stream().map(TsKvEntity::getAggValuesLastTs).filter(Objects::nonNull).max(Long::compare);
+        if (lastTs.isEmpty()) {
+            lastTs = entities.stream().map(TsKvEntity::getTs).filter(Objects::nonNull).max(Long::compare);
+        }
+        return new ReadTsKvQueryResult(query.getId(), DaoUtil.convertDataList(entities), lastTs.orElse(query.getStartTs()));
+    }
+
+    private static void add(TsKvPartialAggregate aggregate, TsPointView point) {
+        switch (point.type()) {
+            case TsSegmentEncoder.TYPE_BOOLEAN:
+                aggregate.addBoolean(point.ts());
+                break;
+            case TsSegmentEncoder.TYPE_LONG:
+                aggregate.addLong(point.ts(), point.word());
+                break;
+            case TsSegmentEncoder.TYPE_DOUBLE:
+                aggregate.addDouble(point.ts(), Double.longBitsToDouble(point.word()));
+                break;
+            case TsSegmentEncoder.TYPE_STRING:
+                aggregate.addString(point.ts(), point.text());
+                break;
+            case TsSegmentEncoder.TYPE_JSON:
+                aggregate.addJson(point.ts());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static int findInterval(long[] starts, long ts) {
+        int index = Arrays.binarySearch(starts, ts);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private long computeTtl(long ttl) {
+        if (systemTtl > 0) {
+            if (ttl == 0) {
+                ttl = systemTtl;
+            } else {
+                ttl = Math.min(systemTtl, ttl);
+            }
+        }
+        return ttl;
+    }
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.embeddedts;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.thingsboard.server.common.data.id.DeviceProfileId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.common.data.kv.BaseReadTsKvQuery;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.DeleteTsKvQuery;
+import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
+import org.thingsboard.server.common.data.kv.StringDataEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.common.data.kv.TsKvLatestRemovingResult;
+import org.thingsboard.server.dao.sqlts.AggregationTimeseriesDao;
+import org.thingsboard.server.dao.timeseries.TimeseriesLatestDao;
+import org.thingsboard.server.dao.util.EmbeddedTsLatestDao;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Latest time-series DAO over the embedded storage. The latest values are cached in memory once read,
+ * so the lookups are served on the calling thread.
+ */
+@Slf4j
+@Component
+@EmbeddedTsLatestDao
+@RequiredArgsConstructor
+public class EmbeddedTimeseriesLatestDao implements TimeseriesLatestDao {
+
+    private static final String DESC_ORDER = "DESC";
+
+    private final EmbeddedTsStore store;
+    private final EmbeddedTsExecutorService executor;
+
+    @Autowired
+    protected AggregationTimeseriesDao aggregationTimeseriesDao;
+
+    @Override
+    public ListenableFuture<Optional<TsKvEntry>> findLatestOpt(TenantId tenantId, EntityId entityId, String key) {
+        return Futures.immediateFuture(store.findLatest(entityId.getId(), key));
+    }
+
+    @Override
+    public ListenableFuture<TsKvEntry> findLatest(TenantId tenantId, EntityId entityId, String key) {
+        return Futures.immediateFuture(store.findLatest(entityId.getId(), key)
+                .orElseGet(() -> new BasicTsKvEntry(System.currentTimeMillis(), new StringDataEntry(key, null))));
+    }
+
+    @Override
+    public ListenableFuture<List<TsKvEntry>> findAllLatest(TenantId tenantId, EntityId entityId) {
+        return executor.executeAsync(() -> store.findAllLatest(entityId.getId()));
+    }
+
+    @Override
+    public ListenableFuture<Long> saveLatest(TenantId tenantId, EntityId entityId, TsKvEntry tsKvEntry) {
+        try {
+            store.saveLatest(entityId.getId(), tsKvEntry);
+        } catch (RuntimeException e) {
+            return Futures.immediateFailedFuture(e);
+        }
+        return Futures.immediateFuture(null);
+    }
+
+    @Override
+    public ListenableFuture<TsKvLatestRemovingResult> removeLatest(TenantId tenantId, EntityId entityId, DeleteTsKvQuery query) {
+        Optional<TsKvEntry> latest = store.findLatest(entityId.getId(), query.getKey());
+        if (latest.isEmpty() || latest.get().getTs() <= query.getStartTs() || latest.get().getTs() > query.getEndTs()) {
+            log.trace("Won't be deleted latest value for [{}], key - {}", entityId, query.getKey());
+            return Futures.immediateFuture(new TsKvLatestRemovingResult(query.getKey(), false));
+        }
+        store.removeLatest(entityId.getId(), query.getKey());
+        if (!query.getRewriteLatestIfDeleted()) {
+            return Futures.immediateFuture(new TsKvLatestRemovingResult(query.getKey(), true));
+        }
+        long endTs = query.getStartTs() - 1;
+        ReadTsKvQuery findNewLatestQuery = new BaseReadTsKvQuery(query.getKey(), 0, endTs, endTs, 1, Aggregation.NONE, DESC_ORDER);
+        return Futures.transformAsync(aggregationTimeseriesDao.findAllAsync(tenantId, entityId, findNewLatestQuery), result -> {
+            var entryList = result.getData();
+            if (entryList.size() == 1) {
+                TsKvEntry entry = entryList.get(0);
+                return Futures.transform(saveLatest(tenantId, entityId, entry), v -> new TsKvLatestRemovingResult(entry, v), MoreExecutors.directExecutor());
+            } else {
+                log.trace("Could not find new latest value for [{}], key - {}", entityId, query.getKey());
+            }
+            return Futures.immediateFuture(new TsKvLatestRemovingResult(query.getKey(), true));
+        }, MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public List<String> findAllKeysByDeviceProfileId(TenantId tenantId, DeviceProfileId deviceProfileId) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public List<String> findAllKeysByEntityIds(TenantId tenantId, List<EntityId> entityIds) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (EntityId entityId : entityIds) {
+            keys.addAll(store.findLatestKeys(entityId.getId()));
+        }
+        return List.copyOf(keys);
+    }
+
+}
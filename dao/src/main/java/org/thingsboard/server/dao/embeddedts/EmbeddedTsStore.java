@@ -0,0 +1,477 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.embeddedts;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.BooleanDataEntry;
+import org.thingsboard.server.common.data.kv.DoubleDataEntry;
+import org.thingsboard.server.common.data.kv.JsonDataEntry;
+import org.thingsboard.server.common.data.kv.KvEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.StringDataEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.dao.exception.IncorrectParameterException;
+import org.thingsboard.server.dao.timeseries.NoSqlTsPartitionDate;
+import org.thingsboard.server.dao.util.EmbeddedTsOrTsLatestAnyDao;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Storage of the embedded time-series engine. The points of every key of every entity are kept in the memory-mapped
+ * segments of {@link TsSeries}, one directory per key under the directory of the entity:
+ * <pre>
+ *     data_dir/ts/entity_id/key/window_sequence.seg
+ *     data_dir/latest/entity_id/key/0_sequence.seg
+ * </pre>
+ * The latest values use the same segments with a single window, only the last point of the last segment matters.
+ * At most {@code max_open_series} series of each kind are kept mapped, the least recently used ones are closed
+ * and reopened from the disk on the next access.
+ */
+@Slf4j
+@Component
+@EmbeddedTsOrTsLatestAnyDao
+public class EmbeddedTsStore {
+
+    private static final int MAX_KEY_DIR_NAME_LENGTH = 240;
+    private static final long LATEST_WINDOW = 0L;
+
+    @Value("${embedded.ts.data_dir}")
+    private String dataDir;
+
+    @Value("${embedded.ts.partitioning:DAYS}")
+    private String partitioning;
+
+    @Value("${embedded.ts.segment_size:1048576}")
+    private int segmentSize;
+
+    @Value("${embedded.ts.latest_segment_size:4096}")
+    private int latestSegmentSize;
+
+    @Value("${embedded.ts.max_open_series:10000}")
+    private int maxOpenSeries;
+
+    private NoSqlTsPartitionDate tsFormat;
+    private Path tsDir;
+    private Path latestDir;
+
+    private Cache<SeriesKey, TsSeries> series;
+    private Cache<SeriesKey, TsSeries> latestSeries;
+    private Cache<SeriesKey, TsPoint> latestPoints;
+
+    @PostConstruct
+    public void init() throws IOException {
+        Optional<NoSqlTsPartitionDate> partition = NoSqlTsPartitionDate.parse(partitioning);
+        if (partition.isEmpty()) {
+            throw new RuntimeException("Failed to parse partitioning property: " + partitioning + "!");
+        }
+        tsFormat = partition.get();
+        tsDir = Paths.get(dataDir, "ts");
+        latestDir = Paths.get(dataDir, "latest");
+        Files.createDirectories(tsDir);
+        Files.createDirectories(latestDir);
+        series = newSeriesCache();
+        latestSeries = newSeriesCache();
+        latestPoints = Caffeine.newBuilder().maximumSize(maxOpenSeries).build();
+        log.info("Embedded time-series storage is located in {}", Paths.get(dataDir).toAbsolutePath());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        closeAll(series);
+        closeAll(latestSeries);
+    }
+
+    public long toWindow(long ts) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(ts), ZoneOffset.UTC);
+        return tsFormat.truncatedTo(time).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    public void save(UUID entityId, TsKvEntry tsKvEntry) {
+        int type = TsSegmentEncoder.toType(tsKvEntry.getDataType());
+        SeriesKey seriesKey = new SeriesKey(entityId, tsKvEntry.getKey());
+        try {
+            update(series, tsDir, seriesKey, segmentSize, true, tsSeries ->
+                    tsSeries.append(toWindow(tsKvEntry.getTs()), tsKvEntry.getTs(), type, toWord(tsKvEntry), toText(tsKvEntry)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save time-series of " + seriesKey, e);
+        }
+    }
+
+    /**
+     * Passes the points of the [startTs, endTs) range to the consumer in ascending or descending order of the timestamp
+     * until the consumer returns false. The strictly increasing windows are read directly from the mapped buffers,
+     * the rest are sorted and deduplicated first.
+     */
+    public void scan(UUID entityId, String key, long startTs, long endTs, boolean ascending, Predicate<TsPointView> consumer) {
+        if (endTs <= startTs) {
+            return;
+        }
+        TsSeries tsSeries = acquireSeries(series, tsDir, new SeriesKey(entityId, key), segmentSize, false);
+        if (tsSeries == null) {
+            return;
+        }
+        try {
+            List<List<TsSegment>> windows = tsSeries.getSegments(toWindow(startTs), toWindow(endTs - 1));
+            if (ascending) {
+                for (List<TsSegment> segments : windows) {
+                    if (!(TsSeries.isOrdered(segments) ? scanOrdered(segments, startTs, endTs, consumer) : scanPoints(TsSeries.readWindow(segments), startTs, endTs, consumer))) {
+                        return;
+                    }
+                }
+            } else {
+                for (int i = windows.size() - 1; i >= 0; i--) {
+                    List<TsPoint> points = new ArrayList<>(TsSeries.readWindow(windows.get(i)));
+                    Collections.reverse(points);
+                    if (!scanPoints(points, startTs, endTs, consumer)) {
+                        return;
+                    }
+                }
+            }
+        } finally {
+            tsSeries.release();
+        }
+    }
+
+    public void remove(UUID entityId, String key, long startTs, long endTs) {
+        if (endTs <= startTs) {
+            return;
+        }
+        SeriesKey seriesKey = new SeriesKey(entityId, key);
+        try {
+            update(series, tsDir, seriesKey, segmentSize, false, tsSeries -> {
+                for (List<TsSegment> segments : tsSeries.getSegments(toWindow(startTs), toWindow(endTs - 1))) {
+                    if (!segments.isEmpty() && !tsSeries.remove(TsSeries.toWindow(segments.get(0).getFile()), startTs, endTs)) {
+                        return false;
+                    }
+                }
+                return true;
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to remove time-series of " + seriesKey, e);
+        }
+    }
+
+    /**
+     * Deletes the windows that end before the expiration time.
+     */
+    public void cleanup(long expirationTs) {
+        long window = toWindow(expirationTs);
+        try (Stream<Path> entityDirs = Files.list(tsDir)) {
+            for (Path entityDir : entityDirs.toList()) {
+                UUID entityId = UUID.fromString(entityDir.getFileName().toString());
+                try (Stream<Path> keyDirs = Files.list(entityDir)) {
+                    for (Path keyDir : keyDirs.toList()) {
+                        SeriesKey seriesKey = new SeriesKey(entityId, fromDirName(keyDir.getFileName().toString()));
+                        // the series is not opened or evicted concurrently while the entry is computed
+                        series.asMap().compute(seriesKey, (k, tsSeries) -> {
+                            try {
+                                if (tsSeries != null && tsSeries.acquire()) {
+                                    try {
+                                        tsSeries.removeWindowsBefore(window);
+                                    } finally {
+                                        tsSeries.release();
+                                    }
+                                    return tsSeries;
+                                }
+                                removeFilesBefore(keyDir, window);
+                            } catch (IOException e) {
+                                log.warn("[{}] Failed to clean up expired time-series", seriesKey, e);
+                            }
+                            return null;
+                        });
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to clean up expired time-series", e);
+        }
+    }
+
+    public Optional<TsKvEntry> findLatest(UUID entityId, String key) {
+        SeriesKey seriesKey = new SeriesKey(entityId, key);
+        TsPoint point = latestPoints.get(seriesKey, k -> {
+            TsSeries tsSeries = acquireSeries(latestSeries, latestDir, k, latestSegmentSize, false);
+            TsPoint last = null;
+            if (tsSeries != null) {
+                try {
+                    TsSegment segment = tsSeries.getLastSegment();
+                    if (segment != null) {
+                        TsSegmentDecoder decoder = segment.decoder();
+                        while (decoder.next()) {
+                            last = TsPoint.of(decoder);
+                        }
+                    }
+                } finally {
+                    tsSeries.release();
+                }
+            }
+            return last != null ? last : new TsPoint(0L, TsSegmentEncoder.TYPE_TOMBSTONE, 0L, null);
+        });
+        return point.type() == TsSegmentEncoder.TYPE_TOMBSTONE ? Optional.empty() : Optional.of(toTsKvEntry(key, point));
+    }
+
+    public List<TsKvEntry> findAllLatest(UUID entityId) {
+        List<TsKvEntry> result = new ArrayList<>();
+        for (String key : findLatestKeys(entityId)) {
+            findLatest(entityId, key).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    public List<String> findLatestKeys(UUID entityId) {
+        Path entityDir = latestDir.resolve(entityId.toString());
+        if (!Files.isDirectory(entityDir)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> keyDirs = Files.list(entityDir)) {
+            return keyDirs.map(dir -> fromDirName(dir.getFileName().toString()))
+                    .filter(key -> findLatest(entityId, key).isPresent())
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list latest keys of " + entityId, e);
+        }
+    }
+
+    public void saveLatest(UUID entityId, TsKvEntry tsKvEntry) {
+        int type = TsSegmentEncoder.toType(tsKvEntry.getDataType());
+        appendLatest(new SeriesKey(entityId, tsKvEntry.getKey()),
+                new TsPoint(tsKvEntry.getTs(), type, toWord(tsKvEntry), TsSegmentEncoder.isText(type) ? tsKvEntry.getValueAsString() : null));
+    }
+
+    public void removeLatest(UUID entityId, String key) {
+        appendLatest(new SeriesKey(entityId, key), new TsPoint(System.currentTimeMillis(), TsSegmentEncoder.TYPE_TOMBSTONE, 0L, null));
+    }
+
+    private void appendLatest(SeriesKey seriesKey, TsPoint point) {
+        try {
+            update(latestSeries, latestDir, seriesKey, latestSegmentSize, true, tsSeries -> {
+                synchronized (tsSeries) {
+                    if (!tsSeries.append(LATEST_WINDOW, point.ts(), point.type(), point.word(), point.text() != null ? TsSegmentEncoder.toBytes(point.text()) : null)) {
+                        return false;
+                    }
+                    tsSeries.removeSegmentsBeforeLast();
+                    latestPoints.put(seriesKey, point);
+                    return true;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save latest time-series of " + seriesKey, e);
+        }
+    }
+
+    static TsKvEntry toTsKvEntry(String key, TsPointView point) {
+        return new BasicTsKvEntry(point.ts(), toKvEntry(key, point));
+    }
+
+    static KvEntry toKvEntry(String key, TsPointView point) {
+        switch (point.type()) {
+            case TsSegmentEncoder.TYPE_BOOLEAN:
+                return new BooleanDataEntry(key, point.word() != 0);
+            case TsSegmentEncoder.TYPE_LONG:
+                return new LongDataEntry(key, point.word());
+            case TsSegmentEncoder.TYPE_DOUBLE:
+                return new DoubleDataEntry(key, Double.longBitsToDouble(point.word()));
+            case TsSegmentEncoder.TYPE_STRING:
+                return new StringDataEntry(key, point.text());
+            case TsSegmentEncoder.TYPE_JSON:
+                return new JsonDataEntry(key, point.text());
+            default:
+                throw new IllegalStateException("Unexpected point type: " + point.type());
+        }
+    }
+
+    private static long toWord(KvEntry kvEntry) {
+        switch (kvEntry.getDataType()) {
+            case BOOLEAN:
+                return kvEntry.getBooleanValue().orElse(false) ? 1L : 0L;
+            case LONG:
+                return kvEntry.getLongValue().orElse(0L);
+            case DOUBLE:
+                return Double.doubleToRawLongBits(kvEntry.getDoubleValue().orElse(0.0));
+            default:
+                return 0L;
+        }
+    }
+
+    private static byte[] toText(KvEntry kvEntry) {
+        switch (kvEntry.getDataType()) {
+            case STRING:
+                return TsSegmentEncoder.toBytes(kvEntry.getStrValue().orElse(""));
+            case JSON:
+                return TsSegmentEncoder.toBytes(kvEntry.getJsonValue().orElse(""));
+            default:
+                return null;
+        }
+    }
+
+    private static boolean scanOrdered(List<TsSegment> segments, long startTs, long endTs, Predicate<TsPointView> consumer) {
+        for (TsSegment segment : segments) {
+            if (!segment.overlaps(startTs, endTs)) {
+                continue;
+            }
+            TsSegmentDecoder decoder = segment.decoder();
+            while (decoder.next()) {
+                long ts = decoder.ts();
+                if (ts >= endTs) {
+                    return true;
+                }
+                if (ts >= startTs && !consumer.test(decoder)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean scanPoints(List<TsPoint> points, long startTs, long endTs, Predicate<TsPointView> consumer) {
+        for (TsPoint point : points) {
+            if (point.ts() >= startTs && point.ts() < endTs && !consumer.test(point)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long getOpenSeriesCount() {
+        series.cleanUp();
+        latestSeries.cleanUp();
+        return series.estimatedSize() + latestSeries.estimatedSize();
+    }
+
+    private Cache<SeriesKey, TsSeries> newSeriesCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(maxOpenSeries)
+                .evictionListener((SeriesKey seriesKey, TsSeries tsSeries, RemovalCause cause) -> {
+                    if (tsSeries != null) {
+                        tsSeries.close();
+                    }
+                })
+                .build();
+    }
+
+    private static void closeAll(Cache<SeriesKey, TsSeries> cache) {
+        for (TsSeries tsSeries : cache.asMap().values()) {
+            tsSeries.force();
+            tsSeries.close();
+        }
+        cache.invalidateAll();
+    }
+
+    /**
+     * Applies the update to the series, retries with the reopened series if the update was rejected because the series got closed.
+     */
+    private void update(Cache<SeriesKey, TsSeries> cache, Path root, SeriesKey seriesKey, int size, boolean create, SeriesUpdate update) throws IOException {
+        while (true) {
+            TsSeries tsSeries = acquireSeries(cache, root, seriesKey, size, create);
+            if (tsSeries == null) {
+                return;
+            }
+            try {
+                if (update.apply(tsSeries)) {
+                    return;
+                }
+            } finally {
+                tsSeries.release();
+            }
+        }
+    }
+
+    /**
+     * Returns the acquired series, opening it if needed. Without creation returns null if the series has no files.
+     */
+    private TsSeries acquireSeries(Cache<SeriesKey, TsSeries> cache, Path root, SeriesKey seriesKey, int size, boolean create) {
+        while (true) {
+            TsSeries tsSeries = cache.getIfPresent(seriesKey);
+            if (tsSeries == null) {
+                if (!create && !Files.isDirectory(toDir(root, seriesKey))) {
+                    return null;
+                }
+                tsSeries = cache.get(seriesKey, k -> {
+                    try {
+                        return TsSeries.open(toDir(root, k), size);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Failed to open time-series of " + k, e);
+                    }
+                });
+            }
+            if (tsSeries.acquire()) {
+                return tsSeries;
+            }
+            cache.asMap().remove(seriesKey, tsSeries);
+        }
+    }
+
+    private static void removeFilesBefore(Path keyDir, long window) throws IOException {
+        try (Stream<Path> files = Files.list(keyDir)) {
+            for (Path file : files.toList()) {
+                if (TsSeries.toWindow(file) < window) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private static Path toDir(Path root, SeriesKey seriesKey) {
+        String keyDirName = Base64.getUrlEncoder().withoutPadding().encodeToString(seriesKey.key().getBytes(StandardCharsets.UTF_8));
+        if (keyDirName.length() > MAX_KEY_DIR_NAME_LENGTH) {
+            throw new IncorrectParameterException("Time-series key is too long for the embedded storage: " + seriesKey.key());
+        }
+        return root.resolve(seriesKey.entityId().toString()).resolve(keyDirName);
+    }
+
+    private static String fromDirName(String dirName) {
+        return new String(Base64.getUrlDecoder().decode(dirName), StandardCharsets.UTF_8);
+    }
+
+    private record SeriesKey(UUID entityId, String key) {
+    }
+
+    @FunctionalInterface
+    private interface SeriesUpdate {
+
+        /**
+         * @return false if the series is closed and has to be reopened
+         */
+        boolean apply(TsSeries tsSeries) throws IOException;
+
+    }
+
+}
@@ -0,0 +1,186 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.embeddedts;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only memory-mapped file with the points of one key of one entity within a time window.
+ * <p>
+ * The header holds the number of committed points, the length of the bit stream, the min and max timestamps
+ * and whether the timestamps are strictly increasing. The point count is updated after the point is written,
+ * so the points of an interrupted append are ignored on reopen. The encoder state is restored by decoding the committed points.
+ * The mapping is released by {@link #close()}, the segment must not be used after that.
+ */
+@Slf4j
+final class TsSegment {
+
+    static final int HEADER_SIZE = 64;
+
+    private static final int MAGIC = 0x54425453;
+    private static final int VERSION = 1;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int COUNT_OFFSET = 8;
+    private static final int ORDERED_OFFSET = 12;
+    private static final int BIT_POS_OFFSET = 16;
+    private static final int MIN_TS_OFFSET = 24;
+    private static final int MAX_TS_OFFSET = 32;
+
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (Exception e) {
+            log.warn("Explicit unmapping of the segments is not available, the mappings are released by the garbage collector", e);
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    @Getter
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final TsSegmentEncoder encoder;
+
+    private volatile int count;
+    @Getter
+    private volatile long minTs;
+    @Getter
+    private volatile long maxTs;
+    @Getter
+    private volatile boolean ordered;
+
+    private TsSegment(Path file, MappedByteBuffer buffer, TsSegmentEncoder encoder, int count, long minTs, long maxTs, boolean ordered) {
+        this.file = file;
+        this.buffer = buffer;
+        this.encoder = encoder;
+        this.count = count;
+        this.minTs = minTs;
+        this.maxTs = maxTs;
+        this.ordered = ordered;
+    }
+
+    static TsSegment create(Path file, int size) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+        buffer.putInt(VERSION_OFFSET, VERSION);
+        buffer.putInt(ORDERED_OFFSET, 1);
+        buffer.putLong(MIN_TS_OFFSET, Long.MAX_VALUE);
+        buffer.putLong(MAX_TS_OFFSET, Long.MIN_VALUE);
+        return new TsSegment(file, buffer, new TsSegmentEncoder(buffer, HEADER_SIZE), 0, Long.MAX_VALUE, Long.MIN_VALUE, true);
+    }
+
+    static TsSegment open(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Segment " + file + " is truncated");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        if (buffer.getInt(MAGIC_OFFSET) != MAGIC || buffer.getInt(VERSION_OFFSET) != VERSION) {
+            throw new IOException("Segment " + file + " has unsupported format");
+        }
+        int count = buffer.getInt(COUNT_OFFSET);
+        TsSegmentDecoder decoder = new TsSegmentDecoder(buffer, HEADER_SIZE, count);
+        while (decoder.next()) {
+            // restores the encoder state
+        }
+        return new TsSegment(file, buffer, new TsSegmentEncoder(buffer, HEADER_SIZE, decoder), count,
+                buffer.getLong(MIN_TS_OFFSET), buffer.getLong(MAX_TS_OFFSET), buffer.getInt(ORDERED_OFFSET) == 1);
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    boolean overlaps(long startTs, long endTs) {
+        return count > 0 && minTs < endTs && maxTs >= startTs;
+    }
+
+    /**
+     * @return false if the segment is full
+     */
+    synchronized boolean append(long ts, int type, long word, byte[] text) {
+        if (!encoder.append(ts, type, word, text)) {
+            return false;
+        }
+        if (count > 0 && ts <= maxTs && ordered) {
+            ordered = false;
+            buffer.putInt(ORDERED_OFFSET, 0);
+        }
+        if (ts < minTs) {
+            minTs = ts;
+            buffer.putLong(MIN_TS_OFFSET, ts);
+        }
+        if (ts > maxTs) {
+            maxTs = ts;
+            buffer.putLong(MAX_TS_OFFSET, ts);
+        }
+        buffer.putLong(BIT_POS_OFFSET, encoder.bitPos());
+        buffer.putInt(COUNT_OFFSET, count + 1);
+        count = count + 1;
+        return true;
+    }
+
+    /**
+     * Returns a cursor over the points committed so far. The points appended later are not visible to it.
+     */
+    TsSegmentDecoder decoder() {
+        return new TsSegmentDecoder(buffer, HEADER_SIZE, count);
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Unmaps the file. The caller guarantees that nobody reads or writes the segment anymore.
+     */
+    void close() {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (Exception e) {
+            log.warn("Failed to unmap segment {}", file, e);
+        }
+    }
+
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.embeddedts;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.thingsboard.server.dao.embeddedts.TsSegmentEncoder.TYPE_TOMBSTONE;
+import static org.thingsboard.server.dao.embeddedts.TsSegmentEncoder.isText;
+
+/**
+ * Reads the points written by {@link TsSegmentEncoder} directly from the buffer. The decoder is a cursor: the accessors
+ * return the values of the current point and the text is only materialized on request.
+ */
+final class TsSegmentDecoder implements TsPointView {
+
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final int count;
+
+    private int read;
+    private long bitPos;
+    private long textBitPos;
+    private int textLength;
+
+    long prevTs;
+    long prevDelta;
+    long prevWord;
+    int prevLeading = -1;
+    int prevTrailing;
+    int prevType = -1;
+
+    TsSegmentDecoder(ByteBuffer buffer, int offset, int count) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.count = count;
+    }
+
+    long bitPos() {
+        return bitPos;
+    }
+
+    boolean next() {
+        if (read == count) {
+            return false;
+        }
+        readTs();
+        if (readBits(1) == 1) {
+            prevType = (int) readBits(3);
+        }
+        if (isText(prevType)) {
+            textLength = readLength();
+            textBitPos = bitPos;
+            bitPos += (long) textLength * 8;
+        } else if (prevType != TYPE_TOMBSTONE) {
+            readWord();
+        }
+        read++;
+        return true;
+    }
+
+    @Override
+    public long ts() {
+        return prevTs;
+    }
+
+    @Override
+    public int type() {
+        return prevType;
+    }
+
+    @Override
+    public long word() {
+        return isText(prevType) || prevType == TYPE_TOMBSTONE ? 0L : prevWord;
+    }
+
+    @Override
+    public String text() {
+        if (!isText(prevType)) {
+            return null;
+        }
+        byte[] bytes = new byte[textLength];
+        long pos = bitPos;
+        bitPos = textBitPos;
+        for (int i = 0; i < textLength; i++) {
+            bytes[i] = (byte) readBits(8);
+        }
+        bitPos = pos;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void readTs() {
+        long dod;
+        if (readBits(1) == 0) {
+            dod = 0;
+        } else if (readBits(1) == 0) {
+            dod = readBits(7) - 63;
+        } else if (readBits(1) == 0) {
+            dod = readBits(9) - 255;
+        } else if (readBits(1) == 0) {
+            dod = readBits(12) - 2047;
+        } else {
+            dod = readBits(64);
+        }
+        prevDelta += dod;
+        prevTs += prevDelta;
+    }
+
+    private void readWord() {
+        if (readBits(1) == 0) {
+            return;
+        }
+        if (readBits(1) == 0) {
+            prevWord ^= readBits(64 - prevLeading - prevTrailing) << prevTrailing;
+        } else {
+            prevLeading = (int) readBits(6);
+            int significant = (int) readBits(6) + 1;
+            prevTrailing = 64 - prevLeading - significant;
+            prevWord ^= readBits(significant) << prevTrailing;
+        }
+    }
+
+    private int readLength() {
+        int length = 0;
+        int shift = 0;
+        while (true) {
+            int b = (int) readBits(8);
+            length |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return length;
+            }
+            shift += 7;
+        }
+    }
+
+    private long readBits(int bits) {
+        long value = 0;
+        while (bits > 0) {
+            int index = offset + (int) (bitPos >>> 3);
+            int used = (int) (bitPos & 7);
+            int available = 8 - used;
+            int take = Math.min(available, bits);
+            int chunk = ((buffer.get(index) & 0xFF) >>> (available - take)) & ((1 << take) - 1);
+            value = (value << take) | chunk;
+            bits -= take;
+            bitPos += take;
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,202 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.embeddedts;
+
+import org.thingsboard.server.common.data.kv.DataType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Appends points to the bit stream of a segment. Timestamps are delta-of-delta encoded and numeric values
+ * (booleans, longs and the raw bits of doubles) are XOR encoded against the previous value as in Gorilla.
+ * Strings and JSON are stored as a varint length followed by the UTF-8 bytes.
+ * <p>
+ * Not thread safe, the segment serializes the appends.
+ */
+final class TsSegmentEncoder {
+
+    static final int TYPE_BOOLEAN = 0;
+    static final int TYPE_LONG = 1;
+    static final int TYPE_DOUBLE = 2;
+    static final int TYPE_STRING = 3;
+    static final int TYPE_JSON = 4;
+    static final int TYPE_TOMBSTONE = 7;
+
+    // Upper bound of the timestamp, type and numeric value bits and of the varint length of a text value
+    private static final int MAX_POINT_BITS = 68 + 4 + 78 + 40;
+
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final long capacityBits;
+
+    private long bitPos;
+    private long prevTs;
+    private long prevDelta;
+    private long prevWord;
+    private int prevLeading = -1;
+    private int prevTrailing;
+    private int prevType = -1;
+
+    TsSegmentEncoder(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.capacityBits = (long) (buffer.capacity() - offset) * 8;
+    }
+
+    /**
+     * Continues the stream after the points read by the decoder.
+     */
+    TsSegmentEncoder(ByteBuffer buffer, int offset, TsSegmentDecoder decoder) {
+        this(buffer, offset);
+        this.bitPos = decoder.bitPos();
+        this.prevTs = decoder.prevTs;
+        this.prevDelta = decoder.prevDelta;
+        this.prevWord = decoder.prevWord;
+        this.prevLeading = decoder.prevLeading;
+        this.prevTrailing = decoder.prevTrailing;
+        this.prevType = decoder.prevType;
+    }
+
+    static int toType(DataType dataType) {
+        switch (dataType) {
+            case BOOLEAN:
+                return TYPE_BOOLEAN;
+            case LONG:
+                return TYPE_LONG;
+            case DOUBLE:
+                return TYPE_DOUBLE;
+            case STRING:
+                return TYPE_STRING;
+            case JSON:
+                return TYPE_JSON;
+            default:
+                throw new IllegalArgumentException("Unsupported data type: " + dataType);
+        }
+    }
+
+    static boolean isText(int type) {
+        return type == TYPE_STRING || type == TYPE_JSON;
+    }
+
+    static int maxBytes(byte[] text) {
+        return (MAX_POINT_BITS + 7) / 8 + (text != null ? text.length : 0);
+    }
+
+    long bitPos() {
+        return bitPos;
+    }
+
+    /**
+     * @return false if the point may not fit into the rest of the buffer, nothing is written in this case
+     */
+    boolean append(long ts, int type, long word, byte[] text) {
+        if (bitPos + (long) maxBytes(text) * 8 > capacityBits) {
+            return false;
+        }
+        writeTs(ts);
+        if (type == prevType) {
+            writeBits(0, 1);
+        } else {
+            writeBits(1, 1);
+            writeBits(type, 3);
+            prevType = type;
+        }
+        if (isText(type)) {
+            writeText(text);
+        } else if (type != TYPE_TOMBSTONE) {
+            writeWord(word);
+        }
+        return true;
+    }
+
+    private void writeTs(long ts) {
+        long delta = ts - prevTs;
+        long dod = delta - prevDelta;
+        if (dod == 0) {
+            writeBits(0, 1);
+        } else if (dod >= -63 && dod <= 64) {
+            writeBits(0b10, 2);
+            writeBits(dod + 63, 7);
+        } else if (dod >= -255 && dod <= 256) {
+            writeBits(0b110, 3);
+            writeBits(dod + 255, 9);
+        } else if (dod >= -2047 && dod <= 2048) {
+            writeBits(0b1110, 4);
+            writeBits(dod + 2047, 12);
+        } else {
+            writeBits(0b1111, 4);
+            writeBits(dod, 64);
+        }
+        prevDelta = delta;
+        prevTs = ts;
+    }
+
+    private void writeWord(long word) {
+        long xor = word ^ prevWord;
+        if (xor == 0) {
+            writeBits(0, 1);
+        } else {
+            int leading = Long.numberOfLeadingZeros(xor);
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (prevLeading >= 0 && leading >= prevLeading && trailing >= prevTrailing) {
+                writeBits(0b10, 2);
+                writeBits(xor >>> prevTrailing, 64 - prevLeading - prevTrailing);
+            } else {
+                int significant = 64 - leading - trailing;
+                writeBits(0b11, 2);
+                writeBits(leading, 6);
+                writeBits(significant - 1, 6);
+                writeBits(xor >>> trailing, significant);
+                prevLeading = leading;
+                prevTrailing = trailing;
+            }
+        }
+        prevWord = word;
+    }
+
+    private void writeText(byte[] text) {
+        int length = text.length;
+        while ((length & ~0x7F) != 0) {
+            writeBits((length & 0x7F) | 0x80, 8);
+            length >>>= 7;
+        }
+        writeBits(length, 8);
+        for (byte b : text) {
+            writeBits(b & 0xFF, 8);
+        }
+    }
+
+    private void writeBits(long value, int bits) {
+        while (bits > 0) {
+            int index = offset + (int) (bitPos >>> 3);
+            int used = (int) (bitPos & 7);
+            int free = 8 - used;
+            int take = Math.min(free, bits);
+            int chunk = (int) ((value >>> (bits - take)) & ((1 << take) - 1));
+            // the bits after the committed position may hold the leftovers of an interrupted append
+            int current = used == 0 ? 0 : buffer.get(index) & (0xFF << free);
+            buffer.put(index, (byte) (current | (chunk << (free - take))));
+            bits -= take;
+            bitPos += take;
+        }
+    }
+
+    static byte[] toBytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
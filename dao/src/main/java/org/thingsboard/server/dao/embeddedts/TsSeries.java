@@ -0,0 +1,338 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.embeddedts;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Segments of one key of one entity grouped by the time window. The files are named "window_sequence.seg",
+ * a new segment of the window is created when the last one is full.
+ * <p>
+ * The segments are used between {@link #acquire()} and {@link #release()}. Once {@link #close() closed}, the series rejects
+ * the changes and unmaps the segments when the last user releases it, so the series has to be reopened from the disk.
+ * The deleted segments are unmapped the same way.
+ */
+@Slf4j
+final class TsSeries {
+
+    static final String SEGMENT_SUFFIX = ".seg";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private final Path dir;
+    private final int segmentSize;
+    private final NavigableMap<Long, List<TsSegment>> windows = new TreeMap<>();
+    private final List<TsSegment> retired = new ArrayList<>();
+    private int users;
+    private boolean closed;
+
+    private TsSeries(Path dir, int segmentSize) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+    }
+
+    static TsSeries open(Path dir, int segmentSize) throws IOException {
+        TsSeries series = new TsSeries(dir, segmentSize);
+        if (Files.isDirectory(dir)) {
+            List<Path> files;
+            try (Stream<Path> list = Files.list(dir)) {
+                files = list.sorted(Comparator.comparingLong(TsSeries::toWindow).thenComparingInt(TsSeries::toSequence)).toList();
+            }
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TMP_SUFFIX)) {
+                    // leftover of the interrupted rewrite, the original segments are still in place
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(SEGMENT_SUFFIX)) {
+                    series.windows.computeIfAbsent(toWindow(file), w -> new ArrayList<>()).add(TsSegment.open(file));
+                }
+            }
+        }
+        return series;
+    }
+
+    /**
+     * @return false if the series is closed
+     */
+    synchronized boolean acquire() {
+        if (closed) {
+            return false;
+        }
+        users++;
+        return true;
+    }
+
+    synchronized void release() {
+        users--;
+        if (users == 0) {
+            unmapRetired();
+            if (closed) {
+                unmapAll();
+            }
+        }
+    }
+
+    synchronized void close() {
+        closed = true;
+        if (users == 0) {
+            unmapRetired();
+            unmapAll();
+        }
+    }
+
+    /**
+     * @return false if the series is closed
+     */
+    synchronized boolean append(long window, long ts, int type, long word, byte[] text) throws IOException {
+        if (closed) {
+            return false;
+        }
+        List<TsSegment> segments = windows.computeIfAbsent(window, w -> new ArrayList<>());
+        TsSegment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (last == null || !last.append(ts, type, word, text)) {
+            Files.createDirectories(dir);
+            int size = Math.max(segmentSize, TsSegment.HEADER_SIZE + TsSegmentEncoder.maxBytes(text));
+            TsSegment segment = TsSegment.create(dir.resolve(toFileName(window, nextSequence(segments), SEGMENT_SUFFIX)), size);
+            segment.append(ts, type, word, text);
+            segments.add(segment);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the segments of the windows from the first to the last one inclusive, grouped by the window in ascending order.
+     */
+    synchronized List<List<TsSegment>> getSegments(long firstWindow, long lastWindow) {
+        if (firstWindow > lastWindow) {
+            return List.of();
+        }
+        List<List<TsSegment>> result = new ArrayList<>();
+        for (List<TsSegment> segments : windows.subMap(firstWindow, true, lastWindow, true).values()) {
+            result.add(List.copyOf(segments));
+        }
+        return result;
+    }
+
+    synchronized TsSegment getLastSegment() {
+        Map.Entry<Long, List<TsSegment>> last = windows.lastEntry();
+        return last != null ? last.getValue().get(last.getValue().size() - 1) : null;
+    }
+
+    /**
+     * Rewrites the window without the points of the [startTs, endTs) range. The new segments are written to temporary files,
+     * renamed to follow the old ones when complete and only then the old ones are deleted. If interrupted, the window keeps
+     * the removed points but loses nothing else.
+     *
+     * @return false if the series is closed
+     */
+    synchronized boolean remove(long window, long startTs, long endTs) throws IOException {
+        if (closed) {
+            return false;
+        }
+        List<TsSegment> segments = windows.get(window);
+        if (segments == null || segments.stream().noneMatch(segment -> segment.overlaps(startTs, endTs))) {
+            return true;
+        }
+        List<TsPoint> points = new ArrayList<>();
+        for (TsPoint point : readWindow(segments)) {
+            if (point.ts() < startTs || point.ts() >= endTs) {
+                points.add(point);
+            }
+        }
+        List<TsSegment> rewritten = new ArrayList<>();
+        List<Path> tmpFiles = new ArrayList<>();
+        for (TsPoint point : points) {
+            byte[] text = point.text() != null ? TsSegmentEncoder.toBytes(point.text()) : null;
+            TsSegment last = rewritten.isEmpty() ? null : rewritten.get(rewritten.size() - 1);
+            if (last == null || !last.append(point.ts(), point.type(), point.word(), text)) {
+                Path tmpFile = dir.resolve(toFileName(window, rewritten.size(), SEGMENT_SUFFIX + TMP_SUFFIX));
+                Files.deleteIfExists(tmpFile);
+                TsSegment segment = TsSegment.create(tmpFile, Math.max(segmentSize, TsSegment.HEADER_SIZE + TsSegmentEncoder.maxBytes(text)));
+                segment.append(point.ts(), point.type(), point.word(), text);
+                rewritten.add(segment);
+                tmpFiles.add(tmpFile);
+            }
+        }
+        for (TsSegment segment : rewritten) {
+            segment.force();
+        }
+        int sequence = nextSequence(segments);
+        List<TsSegment> replaced = new ArrayList<>(tmpFiles.size());
+        for (Path tmpFile : tmpFiles) {
+            Path file = dir.resolve(toFileName(window, sequence++, SEGMENT_SUFFIX));
+            Files.move(tmpFile, file, StandardCopyOption.ATOMIC_MOVE);
+            replaced.add(TsSegment.open(file));
+        }
+        for (TsSegment segment : rewritten) {
+            segment.close();
+        }
+        for (TsSegment segment : segments) {
+            retire(segment);
+        }
+        if (replaced.isEmpty()) {
+            windows.remove(window);
+        } else {
+            windows.put(window, replaced);
+        }
+        return true;
+    }
+
+    /**
+     * Deletes the windows that start before the given one.
+     *
+     * @return false if the series is closed
+     */
+    synchronized boolean removeWindowsBefore(long window) throws IOException {
+        if (closed) {
+            return false;
+        }
+        NavigableMap<Long, List<TsSegment>> expired = windows.headMap(window, false);
+        for (List<TsSegment> segments : expired.values()) {
+            for (TsSegment segment : segments) {
+                retire(segment);
+            }
+        }
+        expired.clear();
+        return true;
+    }
+
+    /**
+     * Deletes all the segments except the last one, used for the latest values where only the last point matters.
+     *
+     * @return false if the series is closed
+     */
+    synchronized boolean removeSegmentsBeforeLast() throws IOException {
+        if (closed) {
+            return false;
+        }
+        TsSegment last = getLastSegment();
+        for (List<TsSegment> segments : windows.values()) {
+            for (TsSegment segment : segments) {
+                if (segment != last) {
+                    retire(segment);
+                }
+            }
+        }
+        if (last != null) {
+            long window = windows.lastKey();
+            windows.clear();
+            windows.put(window, new ArrayList<>(List.of(last)));
+        }
+        return true;
+    }
+
+    synchronized void force() {
+        if (!closed) {
+            windows.values().forEach(segments -> segments.forEach(TsSegment::force));
+        }
+    }
+
+    /**
+     * Unmaps the segment before deleting the file unless it may still be read by the other users of the series,
+     * in which case it is unmapped on release. The caller is expected to hold the series acquired.
+     */
+    private void retire(TsSegment segment) throws IOException {
+        if (users <= 1) {
+            segment.close();
+        } else {
+            retired.add(segment);
+        }
+        Files.deleteIfExists(segment.getFile());
+    }
+
+    private void unmapRetired() {
+        retired.forEach(TsSegment::close);
+        retired.clear();
+    }
+
+    private void unmapAll() {
+        windows.values().forEach(segments -> segments.forEach(TsSegment::close));
+        windows.clear();
+    }
+
+    /**
+     * Returns whether the points of the window segments are strictly increasing, i.e. may be streamed without sorting.
+     */
+    static boolean isOrdered(List<TsSegment> segments) {
+        long prevMaxTs = Long.MIN_VALUE;
+        for (TsSegment segment : segments) {
+            if (!segment.isOrdered() || (segment.getCount() > 0 && segment.getMinTs() <= prevMaxTs)) {
+                return false;
+            }
+            if (segment.getCount() > 0) {
+                prevMaxTs = segment.getMaxTs();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the points of the window sorted by the timestamp. Of the points with the same timestamp the last written one wins.
+     */
+    static List<TsPoint> readWindow(List<TsSegment> segments) {
+        List<TsPoint> points = new ArrayList<>();
+        for (TsSegment segment : segments) {
+            TsSegmentDecoder decoder = segment.decoder();
+            while (decoder.next()) {
+                points.add(TsPoint.of(decoder));
+            }
+        }
+        if (isOrdered(segments)) {
+            return points;
+        }
+        points.sort(Comparator.comparingLong(TsPoint::ts));
+        List<TsPoint> unique = new ArrayList<>(points.size());
+        for (TsPoint point : points) {
+            if (!unique.isEmpty() && unique.get(unique.size() - 1).ts() == point.ts()) {
+                unique.set(unique.size() - 1, point);
+            } else {
+                unique.add(point);
+            }
+        }
+        return unique;
+    }
+
+    private static int nextSequence(List<TsSegment> segments) {
+        return segments.isEmpty() ? 0 : toSequence(segments.get(segments.size() - 1).getFile()) + 1;
+    }
+
+    static String toFileName(long window, int sequence, String suffix) {
+        return window + "_" + sequence + suffix;
+    }
+
+    static long toWindow(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.indexOf('_')));
+    }
+
+    private static int toSequence(Path file) {
+        String name = file.getFileName().toString();
+        int start = name.indexOf('_') + 1;
+        return Integer.parseInt(name.substring(start, name.indexOf('.', start)));
+    }
+
+}
@@ -38,6 +38,7 @@ import org.thingsboard.server.common.data.device.profile.DeviceProfileTransportC
 import org.thingsboard.server.common.data.device.profile.Lwm2mDeviceProfileTransportConfiguration;
 import org.thingsboard.server.common.data.device.profile.MqttDeviceProfileTransportConfiguration;
 import org.thingsboard.server.common.data.device.profile.ProtoTransportPayloadConfiguration;
+import org.thingsboard.server.common.data.device.profile.TelemetryWriteFilter;
 import org.thingsboard.server.common.data.device.profile.TransportPayloadTypeConfiguration;
 import org.thingsboard.server.common.data.device.profile.lwm2m.bootstrap.AbstractLwM2MBootstrapServerCredential;
 import org.thingsboard.server.common.data.device.profile.lwm2m.bootstrap.LwM2MBootstrapServerCredential;
@@ -187,6 +188,19 @@ public class DeviceProfileDataValidator extends AbstractHasOtaPackageValidator<D
             }
         }
 
+        TelemetryWriteFilter telemetryWriteFilter = deviceProfile.getProfileData().getTelemetryWriteFilter();
+        if (telemetryWriteFilter != null) {
+            if (telemetryWriteFilter.getType() == null) {
+                throw new DataValidationException("Telemetry write filter type should be specified!");
+            }
+            if (telemetryWriteFilter.getAbsoluteDeviation() < 0 || telemetryWriteFilter.getPercentDeviation() < 0) {
+                throw new DataValidationException("Telemetry write filter deviation can't be negative!");
+            }
+            if (telemetryWriteFilter.getMaxInterval() < 0) {
+                throw new DataValidationException("Telemetry write filter max interval can't be negative!");
+            }
+        }
+
         if (deviceProfile.getDefaultRuleChainId() != null) {
             RuleChain ruleChain = ruleChainService.findRuleChainById(tenantId, deviceProfile.getDefaultRuleChainId());
             if (ruleChain == null) {
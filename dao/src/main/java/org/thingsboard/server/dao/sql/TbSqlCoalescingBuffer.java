@@ -0,0 +1,150 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Keeps only the newest element per key during the coalescing window and passes it to the sink when the window ends.
+ * The future of the element that is written completes with the result of the sink,
+ * the futures of the superseded elements complete with null at the same time.
+ */
+@Slf4j
+public class TbSqlCoalescingBuffer<K, E, R> {
+
+    private final ConcurrentMap<K, Pending<E, R>> pending = new ConcurrentHashMap<>();
+    private final String logName;
+    private final long windowMs;
+    private final int maxSize;
+    private final Function<E, K> keyFunction;
+    private final BiPredicate<E, E> isNewer;
+    private final Function<E, ListenableFuture<R>> sink;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param isNewer returns true if the first element should replace the second one
+     */
+    public TbSqlCoalescingBuffer(String logName, long windowMs, int maxSize, Function<E, K> keyFunction,
+                                 BiPredicate<E, E> isNewer, Function<E, ListenableFuture<R>> sink) {
+        this.logName = logName;
+        this.windowMs = windowMs;
+        this.maxSize = maxSize;
+        this.keyFunction = keyFunction;
+        this.isNewer = isNewer;
+        this.sink = sink;
+    }
+
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(ThingsBoardThreadFactory.forName("sql-coalescing-" + logName.toLowerCase().replace(' ', '-')));
+        scheduler.scheduleWithFixedDelay(this::flush, windowMs, windowMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        flush();
+    }
+
+    public ListenableFuture<R> add(E element) {
+        K key = keyFunction.apply(element);
+        if (pending.size() >= maxSize && !pending.containsKey(key)) {
+            return sink.apply(element);
+        }
+        SettableFuture<R> future = SettableFuture.create();
+        pending.compute(key, (k, current) -> {
+            if (current == null) {
+                return new Pending<>(element, future);
+            }
+            if (isNewer.test(element, current.element)) {
+                current.superseded.add(current.future);
+                current.element = element;
+                current.future = future;
+            } else {
+                current.superseded.add(future);
+            }
+            return current;
+        });
+        return future;
+    }
+
+    int size() {
+        return pending.size();
+    }
+
+    void flush() {
+        for (K key : pending.keySet()) {
+            Pending<E, R> flushed = pending.remove(key);
+            if (flushed != null) {
+                write(flushed);
+            }
+        }
+    }
+
+    private void write(Pending<E, R> flushed) {
+        ListenableFuture<R> result;
+        try {
+            result = sink.apply(flushed.element);
+        } catch (Throwable t) {
+            result = Futures.immediateFailedFuture(t);
+        }
+        Futures.addCallback(result, new FutureCallback<>() {
+            @Override
+            public void onSuccess(R value) {
+                flushed.future.set(value);
+                flushed.superseded.forEach(future -> future.set(null));
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                log.debug("[{}] Failed to write coalesced element {}", logName, flushed.element, t);
+                flushed.future.setException(t);
+                flushed.superseded.forEach(future -> future.setException(t));
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    private static class Pending<E, R> {
+
+        private final List<SettableFuture<R>> superseded = new ArrayList<>(1);
+        private E element;
+        private SettableFuture<R> future;
+
+        private Pending(E element, SettableFuture<R> future) {
+            this.element = element;
+            this.future = future;
+        }
+
+    }
+
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.common.stats.MessagesStats;
+import org.thingsboard.server.dao.sqlts.insert.TsKvColumnarBatch;
+
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Alternative to {@link TbSqlBlockingQueue} for the ts_kv records. The records are appended to the current
+ * {@link TsKvColumnarBatch} instead of being wrapped into a queue element with its own future.
+ * The batch is saved once it is full or when no full batch appeared during the max delay.
+ */
+@Slf4j
+public class TbSqlTsKvQueue {
+
+    private final BlockingQueue<TsKvColumnarBatch> fullBatches = new LinkedBlockingQueue<>();
+    private final Queue<TsKvColumnarBatch> freeBatches = new ConcurrentLinkedQueue<>();
+    private final TbSqlBlockingQueueParams params;
+    private final MessagesStats stats;
+
+    private TsKvColumnarBatch currentBatch;
+    private ExecutorService executor;
+
+    public TbSqlTsKvQueue(TbSqlBlockingQueueParams params, MessagesStats stats) {
+        this.params = params;
+        this.stats = stats;
+    }
+
+    public void init(ScheduledLogExecutorComponent logExecutor, Consumer<TsKvColumnarBatch> saveFunction, int index) {
+        executor = Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName("sql-queue-" + index + "-" + params.getLogName().toLowerCase()));
+        executor.submit(() -> {
+            String logName = params.getLogName();
+            long maxDelay = params.getMaxDelay();
+            while (!Thread.interrupted()) {
+                TsKvColumnarBatch batch = null;
+                try {
+                    batch = fullBatches.poll(maxDelay, TimeUnit.MILLISECONDS);
+                    if (batch == null) {
+                        batch = pollCurrentBatch();
+                        if (batch == null) {
+                            continue;
+                        }
+                    }
+                    if (log.isDebugEnabled()) {
+                        log.debug("[{}] Going to save {} entities", logName, batch.size());
+                    }
+                    if (params.isBatchSortEnabled()) {
+                        batch.sort();
+                    }
+                    saveFunction.accept(batch);
+                    batch.complete();
+                    stats.incrementSuccessful(batch.size());
+                } catch (Throwable t) {
+                    if (t instanceof InterruptedException) {
+                        log.info("[{}] Queue polling was interrupted", logName);
+                        break;
+                    } else if (batch != null) {
+                        log.error("[{}] Failed to save {} entities", logName, batch.size(), t);
+                        try {
+                            stats.incrementFailed(batch.size());
+                            batch.fail(t);
+                        } catch (Throwable th) {
+                            log.error("[{}] Failed to set future exception", logName, th);
+                        }
+                    }
+                } finally {
+                    if (batch != null) {
+                        batch.clear();
+                        freeBatches.add(batch);
+                    }
+                }
+            }
+            log.info("[{}] Queue polling completed", logName);
+        });
+
+        logExecutor.scheduleAtFixedRate(() -> {
+            if (!fullBatches.isEmpty() || stats.getTotal() > 0 || stats.getSuccessful() > 0 || stats.getFailed() > 0) {
+                log.info("Queue-{} [{}] queueSize [{}] totalAdded [{}] totalSaved [{}] totalFailed [{}]", index,
+                        params.getLogName(), fullBatches.size() * params.getBatchSize(), stats.getTotal(), stats.getSuccessful(), stats.getFailed());
+                stats.reset();
+            }
+        }, params.getStatsPrintIntervalMs(), params.getStatsPrintIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public synchronized ListenableFuture<Integer> add(UUID entityId, int keyId, TsKvEntry tsKvEntry, int dataPointDays) {
+        if (currentBatch == null) {
+            currentBatch = freeBatches.poll();
+            if (currentBatch == null) {
+                currentBatch = new TsKvColumnarBatch(params.getBatchSize());
+            }
+        }
+        ListenableFuture<Integer> future = currentBatch.add(entityId, keyId, tsKvEntry, dataPointDays);
+        stats.incrementTotal();
+        if (currentBatch.isFull()) {
+            fullBatches.add(currentBatch);
+            currentBatch = null;
+        }
+        return future;
+    }
+
+    private synchronized TsKvColumnarBatch pollCurrentBatch() {
+        TsKvColumnarBatch batch = currentBatch;
+        if (batch == null || batch.isEmpty()) {
+            return null;
+        }
+        currentBatch = null;
+        return batch;
+    }
+
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import lombok.Data;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.common.stats.MessagesStats;
+import org.thingsboard.server.common.stats.StatsFactory;
+import org.thingsboard.server.dao.sqlts.insert.TsKvColumnarBatch;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+@Data
+public class TbSqlTsKvQueueWrapper {
+    private final List<TbSqlTsKvQueue> queues = new CopyOnWriteArrayList<>();
+    private final TbSqlBlockingQueueParams params;
+    private final int maxThreads;
+    private final StatsFactory statsFactory;
+
+    /**
+     * Starts TbSqlTsKvQueues.
+     *
+     * @param  logExecutor  executor that will be printing logs and statistics
+     * @param  saveFunction function to save the batch of the records in database
+     */
+    public void init(ScheduledLogExecutorComponent logExecutor, Consumer<TsKvColumnarBatch> saveFunction) {
+        for (int i = 0; i < maxThreads; i++) {
+            MessagesStats stats = statsFactory.createMessagesStats(params.getStatsNamePrefix() + ".queue." + i);
+            TbSqlTsKvQueue queue = new TbSqlTsKvQueue(params, stats);
+            queues.add(queue);
+            queue.init(logExecutor, saveFunction, i);
+        }
+    }
+
+    public ListenableFuture<Integer> add(UUID entityId, int keyId, TsKvEntry tsKvEntry, int dataPointDays) {
+        int queueIndex = (entityId.hashCode() & 0x7FFFFFFF) % maxThreads;
+        return queues.get(queueIndex).add(entityId, keyId, tsKvEntry, dataPointDays);
+    }
+
+    public void destroy() {
+        queues.forEach(TbSqlTsKvQueue::destroy);
+    }
+}
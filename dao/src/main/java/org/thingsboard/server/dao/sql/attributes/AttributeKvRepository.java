@@ -33,6 +33,9 @@ public interface AttributeKvRepository extends JpaRepository<AttributeKvEntity,
     List<AttributeKvEntity> findAllByEntityIdAndAttributeType(@Param("entityId") UUID entityId,
                                                               @Param("attributeType") int attributeType);
 
+    @Query("SELECT a FROM AttributeKvEntity a WHERE a.id.entityId IN :entityIds")
+    List<AttributeKvEntity> findAllByEntityIds(@Param("entityIds") List<UUID> entityIds);
+
     @Transactional
     @Modifying
     @Query("DELETE FROM AttributeKvEntity a WHERE a.id.entityId = :entityId " +
@@ -33,6 +33,7 @@ import org.thingsboard.server.common.data.kv.AttributeKvEntry;
 import org.thingsboard.server.common.data.util.TbPair;
 import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.dao.DaoUtil;
+import org.thingsboard.server.dao.attributes.AttributeCacheKey;
 import org.thingsboard.server.dao.attributes.AttributesDao;
 import org.thingsboard.server.dao.dictionary.KeyDictionaryDao;
 import org.thingsboard.server.dao.model.ModelConstants;
@@ -47,8 +48,11 @@ import org.thingsboard.server.dao.util.SqlDao;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -152,6 +156,21 @@ public class JpaAttributeDao extends JpaAbstractDaoListeningExecutorService impl
         return DaoUtil.convertDataList(Lists.newArrayList(attributes));
     }
 
+    @Override
+    public Map<AttributeCacheKey, AttributeKvEntry> findAllByEntityIds(TenantId tenantId, List<EntityId> entityIds) {
+        Map<UUID, EntityId> entityIdsMap = entityIds.stream().collect(Collectors.toMap(EntityId::getId, Function.identity(), (a, b) -> a));
+        List<AttributeKvEntity> attributes = attributeKvRepository.findAllByEntityIds(new ArrayList<>(entityIdsMap.keySet()));
+        Map<AttributeCacheKey, AttributeKvEntry> result = new HashMap<>(attributes.size());
+        for (AttributeKvEntity attributeKvEntity : attributes) {
+            String key = keyDictionaryDao.getKey(attributeKvEntity.getId().getAttributeKey());
+            attributeKvEntity.setStrKey(key);
+            EntityId entityId = entityIdsMap.get(attributeKvEntity.getId().getEntityId());
+            AttributeScope scope = AttributeScope.valueOf(attributeKvEntity.getId().getAttributeType());
+            result.put(new AttributeCacheKey(scope, entityId, key), attributeKvEntity.toData());
+        }
+        return result;
+    }
+
     @Override
     public List<String> findAllKeysByDeviceProfileId(TenantId tenantId, DeviceProfileId deviceProfileId) {
         if (deviceProfileId != null) {
@@ -26,6 +26,7 @@ import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.page.PageData;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -38,6 +39,7 @@ public class DefaultNativeDeviceRepository implements NativeDeviceRepository {
 
     private final String COUNT_QUERY = "SELECT count(id) FROM device;";
     private final String QUERY = "SELECT tenant_id as tenantId, customer_id as customerId, id as id FROM device ORDER BY created_time ASC LIMIT %s OFFSET %s";
+    private final String ID_OFFSET_QUERY = "SELECT tenant_id as tenantId, customer_id as customerId, id as id FROM device %s ORDER BY id ASC LIMIT :limit";
     private final NamedParameterJdbcTemplate jdbcTemplate;
     private final TransactionTemplate transactionTemplate;
 
@@ -52,13 +54,30 @@ public class DefaultNativeDeviceRepository implements NativeDeviceRepository {
             log.debug("Main query took {} ms", System.currentTimeMillis() - startTs);
             int totalPages = pageable.getPageSize() > 0 ? (int) Math.ceil((float) totalElements / pageable.getPageSize()) : 1;
             boolean hasNext = pageable.getPageSize() > 0 && totalElements > pageable.getOffset() + rows.size();
-            var data = rows.stream().map(row -> {
-                UUID id = (UUID) row.get("id");
-                var tenantIdObj = row.get("tenantId");
-                var customerIdObj = row.get("customerId");
-                return new DeviceIdInfo(tenantIdObj != null ? (UUID) tenantIdObj : TenantId.SYS_TENANT_ID.getId(), customerIdObj != null ? (UUID) customerIdObj : null, id);
-            }).collect(Collectors.toList());
+            var data = rows.stream().map(this::toDeviceIdInfo).collect(Collectors.toList());
             return new PageData<>(data, totalPages, totalElements, hasNext);
         });
     }
+
+    @Override
+    public List<DeviceIdInfo> findDeviceIdInfosByIdOffset(UUID idOffset, int limit) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("limit", limit);
+        String whereClause = "";
+        if (idOffset != null) {
+            params.put("idOffset", idOffset);
+            whereClause = "WHERE id > :idOffset";
+        }
+        long startTs = System.currentTimeMillis();
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(String.format(ID_OFFSET_QUERY, whereClause), params);
+        log.debug("Id offset query took {} ms", System.currentTimeMillis() - startTs);
+        return rows.stream().map(this::toDeviceIdInfo).collect(Collectors.toList());
+    }
+
+    private DeviceIdInfo toDeviceIdInfo(Map<String, Object> row) {
+        UUID id = (UUID) row.get("id");
+        var tenantIdObj = row.get("tenantId");
+        var customerIdObj = row.get("customerId");
+        return new DeviceIdInfo(tenantIdObj != null ? (UUID) tenantIdObj : TenantId.SYS_TENANT_ID.getId(), customerIdObj != null ? (UUID) customerIdObj : null, id);
+    }
 }
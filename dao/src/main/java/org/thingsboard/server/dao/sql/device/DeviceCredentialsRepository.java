@@ -21,6 +21,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 import org.thingsboard.server.dao.model.sql.DeviceCredentialsEntity;
 
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -32,6 +33,8 @@ public interface DeviceCredentialsRepository extends JpaRepository<DeviceCredent
 
     DeviceCredentialsEntity findByCredentialsId(String credentialsId);
 
+    List<DeviceCredentialsEntity> findByDeviceIdIn(List<UUID> deviceIds);
+
     @Transactional
     @Query(value = "DELETE FROM device_credentials WHERE device_id = :deviceId RETURNING *", nativeQuery = true)
     DeviceCredentialsEntity deleteByDeviceId(@Param("deviceId") UUID deviceId);
@@ -28,6 +28,7 @@ import org.thingsboard.server.dao.model.sql.DeviceCredentialsEntity;
 import org.thingsboard.server.dao.sql.JpaAbstractDao;
 import org.thingsboard.server.dao.util.SqlDao;
 
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -56,6 +57,11 @@ public class JpaDeviceCredentialsDao extends JpaAbstractDao<DeviceCredentialsEnt
         return DaoUtil.getData(deviceCredentialsRepository.findByDeviceId(deviceId));
     }
 
+    @Override
+    public List<DeviceCredentials> findByDeviceIds(TenantId tenantId, List<UUID> deviceIds) {
+        return DaoUtil.convertDataList(deviceCredentialsRepository.findByDeviceIdIn(deviceIds));
+    }
+
     @Override
     public DeviceCredentials findByCredentialsId(TenantId tenantId, String credentialsId) {
         log.trace("[{}] findByCredentialsId [{}]", tenantId, credentialsId);
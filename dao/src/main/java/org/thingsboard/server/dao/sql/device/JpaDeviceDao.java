@@ -261,6 +261,12 @@ public class JpaDeviceDao extends JpaAbstractDao<DeviceEntity, Device> implement
         return nativeDeviceRepository.findDeviceIdInfos(DaoUtil.toPageable(pageLink));
     }
 
+    @Override
+    public List<DeviceIdInfo> findDeviceIdInfosByIdOffset(UUID idOffset, int limit) {
+        log.debug("Try to find device id infos by idOffset [{}] and limit [{}]", idOffset, limit);
+        return nativeDeviceRepository.findDeviceIdInfosByIdOffset(idOffset, limit);
+    }
+
     @Override
     public Device findByTenantIdAndExternalId(UUID tenantId, UUID externalId) {
         return DaoUtil.getData(deviceRepository.findByTenantIdAndExternalId(tenantId, externalId));
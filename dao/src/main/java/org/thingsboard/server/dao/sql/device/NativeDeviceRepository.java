@@ -19,8 +19,13 @@ import org.springframework.data.domain.Pageable;
 import org.thingsboard.server.common.data.DeviceIdInfo;
 import org.thingsboard.server.common.data.page.PageData;
 
+import java.util.List;
+import java.util.UUID;
+
 public interface NativeDeviceRepository {
 
     PageData<DeviceIdInfo> findDeviceIdInfos(Pageable pageable);
 
+    List<DeviceIdInfo> findDeviceIdInfosByIdOffset(UUID idOffset, int limit);
+
 }
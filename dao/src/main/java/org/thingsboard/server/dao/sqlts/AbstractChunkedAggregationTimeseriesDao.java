@@ -26,6 +26,7 @@ import org.springframework.data.domain.Sort.Direction;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.common.data.kv.AggregationParams;
 import org.thingsboard.server.common.data.kv.DeleteTsKvQuery;
 import org.thingsboard.server.common.data.kv.IntervalType;
 import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
@@ -38,7 +39,10 @@ import org.thingsboard.server.dao.model.sql.AbstractTsKvEntity;
 import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueParams;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueWrapper;
+import org.thingsboard.server.dao.sql.TbSqlTsKvQueueWrapper;
 import org.thingsboard.server.dao.sqlts.insert.InsertTsRepository;
+import org.thingsboard.server.dao.sqlts.rollup.TsRollupRange;
+import org.thingsboard.server.dao.sqlts.rollup.TsRollupService;
 import org.thingsboard.server.dao.sqlts.ts.TsKvRepository;
 import org.thingsboard.server.dao.timeseries.TimeseriesDao;
 import org.thingsboard.server.dao.util.TimeUtils;
@@ -61,12 +65,16 @@ public abstract class AbstractChunkedAggregationTimeseriesDao extends AbstractSq
     protected InsertTsRepository<TsKvEntity> insertRepository;
 
     protected TbSqlBlockingQueueWrapper<TsKvEntity, Void> tsQueue;
+    protected TbSqlTsKvQueueWrapper tsKvQueue;
     @Autowired
     private StatsFactory statsFactory;
 
     @Autowired
     private KeyDictionaryDao keyDictionaryDao;
 
+    @Autowired(required = false)
+    protected TsRollupService rollupService;
+
     @PostConstruct
     protected void init() {
         TbSqlBlockingQueueParams tsParams = TbSqlBlockingQueueParams.builder()
@@ -78,9 +86,26 @@ public abstract class AbstractChunkedAggregationTimeseriesDao extends AbstractSq
                 .batchSortEnabled(batchSortEnabled)
                 .build();
 
+        if (tsColumnarBatchEnabled) {
+            tsKvQueue = new TbSqlTsKvQueueWrapper(tsParams, tsBatchThreads, statsFactory);
+            tsKvQueue.init(logExecutor, batch -> {
+                if (rollupService != null) {
+                    rollupService.save(batch, insertRepository::saveOrUpdate);
+                } else {
+                    insertRepository.saveOrUpdate(batch);
+                }
+            });
+            return;
+        }
         Function<TsKvEntity, Integer> hashcodeFunction = entity -> entity.getEntityId().hashCode();
         tsQueue = new TbSqlBlockingQueueWrapper<>(tsParams, hashcodeFunction, tsBatchThreads, statsFactory);
-        tsQueue.init(logExecutor, v -> insertRepository.saveOrUpdate(v),
+        tsQueue.init(logExecutor, v -> {
+                    if (rollupService != null) {
+                        rollupService.save(v, insertRepository::saveOrUpdate);
+                    } else {
+                        insertRepository.saveOrUpdate(v);
+                    }
+                },
                 Comparator.comparing((Function<TsKvEntity, UUID>) AbstractTsKvEntity::getEntityId)
                         .thenComparing(AbstractTsKvEntity::getKey)
                         .thenComparing(AbstractTsKvEntity::getTs)
@@ -92,16 +117,23 @@ public abstract class AbstractChunkedAggregationTimeseriesDao extends AbstractSq
         if (tsQueue != null) {
             tsQueue.destroy();
         }
+        if (tsKvQueue != null) {
+            tsKvQueue.destroy();
+        }
     }
 
     @Override
     public ListenableFuture<Void> remove(TenantId tenantId, EntityId entityId, DeleteTsKvQuery query) {
         return service.submit(() -> {
+            Integer keyId = keyDictionaryDao.getOrSaveKeyId(query.getKey());
             tsKvRepository.delete(
                     entityId.getId(),
-                    keyDictionaryDao.getOrSaveKeyId(query.getKey()),
+                    keyId,
                     query.getStartTs(),
                     query.getEndTs());
+            if (rollupService != null) {
+                rollupService.onRemoved(entityId.getId(), keyId, query.getStartTs(), query.getEndTs());
+            }
             return null;
         });
     }
@@ -121,6 +153,8 @@ public abstract class AbstractChunkedAggregationTimeseriesDao extends AbstractSq
         var aggParams = query.getAggParameters();
         if (Aggregation.NONE.equals(aggParams.getAggregation())) {
             return Futures.immediateFuture(findAllAsyncWithLimit(entityId, query));
+        } else if (groupedAggregationEnabled && (rollupService == null || isShorterThanRollup(aggParams))) {
+            return findAllGroupedAsync(entityId, keyDictionaryDao.getOrSaveKeyId(query.getKey()), query);
         } else {
             List<ListenableFuture<Optional<TsKvEntity>>> futures = new ArrayList<>();
             var intervalType = aggParams.getIntervalType();
@@ -144,6 +178,13 @@ public abstract class AbstractChunkedAggregationTimeseriesDao extends AbstractSq
         }
     }
 
+    /**
+     * Intervals that are long enough to be read from the rollups are aggregated one by one, the rest are aggregated by a grouped query.
+     */
+    private static boolean isShorterThanRollup(AggregationParams aggParams) {
+        return IntervalType.MILLISECONDS.equals(aggParams.getIntervalType()) && aggParams.getInterval() < TsRollupRange.HOUR;
+    }
+
     private ReadTsKvQueryResult findAllAsyncWithLimit(EntityId entityId, ReadTsKvQuery query) {
         Integer keyId = keyDictionaryDao.getOrSaveKeyId(query.getKey());
         List<TsKvEntity> tsKvEntities = tsKvRepository.findAllWithLimit(
@@ -174,6 +215,12 @@ public abstract class AbstractChunkedAggregationTimeseriesDao extends AbstractSq
 
     protected TsKvEntity switchAggregation(EntityId entityId, String key, long startTs, long endTs, Aggregation aggregation) {
         var keyId = keyDictionaryDao.getOrSaveKeyId(key);
+        if (rollupService != null) {
+            TsKvEntity rollup = rollupService.findAggregate(entityId.getId(), keyId, startTs, endTs, aggregation);
+            if (rollup != null) {
+                return rollup;
+            }
+        }
         switch (aggregation) {
             case AVG:
                 return tsKvRepository.findAvg(entityId.getId(), keyId, startTs, endTs);
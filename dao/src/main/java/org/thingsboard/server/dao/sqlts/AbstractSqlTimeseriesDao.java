@@ -16,27 +16,38 @@
 package org.thingsboard.server.dao.sqlts;
 
 import com.google.common.base.Function;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import jakarta.annotation.Nullable;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
 import org.thingsboard.server.common.data.kv.ReadTsKvQueryResult;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.dao.dictionary.KeyDictionaryDao;
 import org.thingsboard.server.dao.model.ModelConstants;
+import org.thingsboard.server.dao.model.sql.AbstractTsKvEntity;
+import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
 import org.thingsboard.server.dao.sql.ScheduledLogExecutorComponent;
+import org.thingsboard.server.dao.timeseries.TsKvPageIterator;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @SuppressWarnings("UnstableApiUsage")
@@ -45,6 +56,9 @@ public abstract class AbstractSqlTimeseriesDao extends BaseAbstractSqlTimeseries
 
     protected static final long SECONDS_IN_DAY = TimeUnit.DAYS.toSeconds(1);
 
+    private static final String EXPORT_QUERY = "SELECT ts, bool_v, str_v, long_v, dbl_v, json_v FROM ts_kv " +
+            "WHERE entity_id = ? AND key = ? AND ts >= ? AND ts < ? ORDER BY ts";
+
     @Autowired
     protected ScheduledLogExecutorComponent logExecutor;
 
@@ -57,6 +71,12 @@ public abstract class AbstractSqlTimeseriesDao extends BaseAbstractSqlTimeseries
     @Value("${sql.ts.stats_print_interval_ms:1000}")
     protected long tsStatsPrintIntervalMs;
 
+    @Value("${sql.ts.columnar_batch_enabled:false}")
+    protected boolean tsColumnarBatchEnabled;
+
+    @Value("${sql.ts.grouped_aggregation_enabled:false}")
+    protected boolean groupedAggregationEnabled;
+
     @Value("${sql.ts.batch_threads:4}")
     protected int tsBatchThreads;
 
@@ -69,6 +89,12 @@ public abstract class AbstractSqlTimeseriesDao extends BaseAbstractSqlTimeseries
     @Value("${sql.ttl.ts.ts_key_value_ttl:0}")
     private long systemTtl;
 
+    @Autowired
+    private TsKvGroupedAggregationRepository groupedAggregationRepository;
+
+    @Autowired
+    private KeyDictionaryDao keyDictionaryDao;
+
     public void cleanup(long systemTtl) {
         log.info("Going to cleanup old timeseries data using ttl: {}s", systemTtl);
         try (Connection connection = dataSource.getConnection();
@@ -88,6 +114,38 @@ public abstract class AbstractSqlTimeseriesDao extends BaseAbstractSqlTimeseries
         }
     }
 
+    /**
+     * Opens a cursor per key within a single transaction, so that the driver fetches the rows in chunks
+     * of the fetch size, and merges the cursors by ts. Every cursor is an index range scan, no sorting is done by the DB.
+     */
+    public void export(TenantId tenantId, EntityId entityId, List<String> keys, long startTs, long endTs, int fetchSize, Consumer<TsKvEntry> consumer) {
+        List<Integer> keyIds = keys.stream().map(keyDictionaryDao::getOrSaveKeyId).collect(Collectors.toList());
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                List<PreparedStatement> statements = new ArrayList<>(keys.size());
+                try {
+                    List<Iterator<TsKvEntry>> iterators = new ArrayList<>(keys.size());
+                    for (int i = 0; i < keys.size(); i++) {
+                        PreparedStatement stmt = connection.prepareStatement(EXPORT_QUERY);
+                        statements.add(stmt);
+                        stmt.setFetchSize(fetchSize);
+                        stmt.setObject(1, entityId.getId());
+                        stmt.setInt(2, keyIds.get(i));
+                        stmt.setLong(3, startTs);
+                        stmt.setLong(4, endTs);
+                        iterators.add(new ResultSetIterator(keys.get(i), stmt.executeQuery()));
+                    }
+                    TsKvPageIterator.mergeByTs(iterators).forEachRemaining(consumer);
+                } finally {
+                    for (PreparedStatement stmt : statements) {
+                        stmt.close();
+                    }
+                }
+                return null;
+            });
+        });
+    }
+
     protected ListenableFuture<List<ReadTsKvQueryResult>> processFindAllAsync(TenantId tenantId, EntityId entityId, List<ReadTsKvQuery> queries) {
         List<ListenableFuture<ReadTsKvQueryResult>> futures = queries
                 .stream()
@@ -105,6 +163,26 @@ public abstract class AbstractSqlTimeseriesDao extends BaseAbstractSqlTimeseries
         }, service);
     }
 
+    /**
+     * Aggregates all the intervals of the query with a single statement instead of a statement per interval.
+     */
+    protected ListenableFuture<ReadTsKvQueryResult> findAllGroupedAsync(EntityId entityId, int keyId, ReadTsKvQuery query) {
+        long endTs = Math.max(query.getStartTs() + 1, query.getEndTs());
+        ListenableFuture<List<Optional<? extends AbstractTsKvEntity>>> future = service.submit(() -> {
+            List<TsKvEntity> entities = groupedAggregationRepository.findAllAggregated(entityId.getId(), keyId, query.getStartTs(), endTs, query.getAggParameters());
+            if (entities.isEmpty()) {
+                return Collections.singletonList(Optional.empty());
+            }
+            List<Optional<? extends AbstractTsKvEntity>> result = new ArrayList<>(entities.size());
+            for (TsKvEntity entity : entities) {
+                entity.setStrKey(query.getKey());
+                result.add(Optional.of(entity));
+            }
+            return result;
+        });
+        return getReadTsKvQueryResultFuture(query, future);
+    }
+
     protected long computeTtl(long ttl) {
         if (systemTtl > 0) {
             if (ttl == 0) {
@@ -119,4 +197,37 @@ public abstract class AbstractSqlTimeseriesDao extends BaseAbstractSqlTimeseries
     protected int getDataPointDays(TsKvEntry tsKvEntry, long ttl) {
         return tsKvEntry.getDataPoints() * Math.max(1, (int) (ttl / SECONDS_IN_DAY));
     }
+
+    private class ResultSetIterator extends AbstractIterator<TsKvEntry> {
+
+        private final String key;
+        private final ResultSet resultSet;
+
+        private ResultSetIterator(String key, ResultSet resultSet) {
+            this.key = key;
+            this.resultSet = resultSet;
+        }
+
+        @Override
+        protected TsKvEntry computeNext() {
+            try {
+                if (!resultSet.next()) {
+                    return endOfData();
+                }
+                TsKvEntity entity = new TsKvEntity();
+                entity.setStrKey(key);
+                entity.setTs(resultSet.getLong(1));
+                entity.setBooleanValue(resultSet.getObject(2, Boolean.class));
+                entity.setStrValue(resultSet.getString(3));
+                entity.setLongValue(resultSet.getObject(4, Long.class));
+                entity.setDoubleValue(resultSet.getObject(5, Double.class));
+                entity.setJsonValue(resultSet.getString(6));
+                return entity.toData();
+            } catch (SQLException e) {
+                throw jdbcTemplate.getExceptionTranslator().translate("export", EXPORT_QUERY, e);
+            }
+        }
+
+    }
+
 }
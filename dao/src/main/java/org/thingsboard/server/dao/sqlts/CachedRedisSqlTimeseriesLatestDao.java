@@ -40,8 +40,15 @@ import org.thingsboard.server.dao.timeseries.TimeseriesLatestDao;
 import org.thingsboard.server.dao.timeseries.TsLatestCacheKey;
 import org.thingsboard.server.dao.util.SqlTsLatestAnyDaoCachedRedis;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Slf4j
 @Component
@@ -132,6 +139,19 @@ public class CachedRedisSqlTimeseriesLatestDao extends BaseAbstractSqlTimeseries
         return Futures.transform(doFindLatest(tenantId, entityId, key), x -> sqlDao.wrapNullTsKvEntry(key, x.orElse(null)), MoreExecutors.directExecutor());
     }
 
+    @Override
+    public ListenableFuture<List<TsKvEntry>> findLatest(TenantId tenantId, EntityId entityId, Collection<String> keys) {
+        return Futures.transform(findLatestByEntityIds(tenantId, Collections.singletonList(entityId), keys), latest -> {
+            Map<String, TsKvEntry> entries = new HashMap<>();
+            latest.getOrDefault(entityId, Collections.emptyList()).forEach(entry -> entries.put(entry.getKey(), entry));
+            List<TsKvEntry> result = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                result.add(sqlDao.wrapNullTsKvEntry(key, entries.get(key)));
+            }
+            return result;
+        }, MoreExecutors.directExecutor());
+    }
+
     public ListenableFuture<Optional<TsKvEntry>> doFindLatest(TenantId tenantId, EntityId entityId, String key) {
         final TsLatestCacheKey cacheKey = new TsLatestCacheKey(entityId, key);
         ListenableFuture<TbCacheValueWrapper<TsKvEntry>> cacheFuture = cacheExecutorService.submit(() -> cache.get(cacheKey));
@@ -152,6 +172,55 @@ public class CachedRedisSqlTimeseriesLatestDao extends BaseAbstractSqlTimeseries
         }, MoreExecutors.directExecutor());
     }
 
+    @Override
+    public ListenableFuture<Map<EntityId, List<TsKvEntry>>> findLatestByEntityIds(TenantId tenantId, Collection<EntityId> entityIds, Collection<String> keys) {
+        List<TsLatestCacheKey> cacheKeys = new ArrayList<>(entityIds.size() * keys.size());
+        for (EntityId entityId : entityIds) {
+            for (String key : keys) {
+                cacheKeys.add(new TsLatestCacheKey(entityId, key));
+            }
+        }
+        ListenableFuture<Map<TsLatestCacheKey, TbCacheValueWrapper<TsKvEntry>>> cacheFuture = cacheExecutorService.submit(() -> cache.getAll(cacheKeys));
+
+        return Futures.transformAsync(cacheFuture, cached -> {
+            Map<EntityId, List<TsKvEntry>> result = new HashMap<>();
+            Set<TsLatestCacheKey> missingKeys = new HashSet<>();
+            for (TsLatestCacheKey cacheKey : cacheKeys) {
+                TbCacheValueWrapper<TsKvEntry> cacheValueWrap = cached.get(cacheKey);
+                if (cacheValueWrap == null) {
+                    missingKeys.add(cacheKey);
+                } else if (cacheValueWrap.get() != null) {
+                    result.computeIfAbsent(cacheKey.getEntityId(), id -> new ArrayList<>()).add(cacheValueWrap.get());
+                }
+            }
+            hitCounter.add(cacheKeys.size() - missingKeys.size());
+            if (missingKeys.isEmpty()) {
+                return Futures.immediateFuture(result);
+            }
+            missCounter.add(missingKeys.size());
+            log.debug("findLatestByEntityIds cache miss {}", missingKeys);
+            Set<EntityId> missingEntityIds = new HashSet<>();
+            Set<String> missingTsKeys = new HashSet<>();
+            missingKeys.forEach(cacheKey -> {
+                missingEntityIds.add(cacheKey.getEntityId());
+                missingTsKeys.add(cacheKey.getKey());
+            });
+            ListenableFuture<Map<EntityId, List<TsKvEntry>>> daoFuture = sqlDao.findLatestByEntityIds(tenantId, missingEntityIds, missingTsKeys);
+
+            return Futures.transform(daoFuture, daoValues -> {
+                daoValues.forEach((entityId, entries) -> entries.forEach(entry -> {
+                    TsLatestCacheKey cacheKey = new TsLatestCacheKey(entityId, entry.getKey());
+                    if (missingKeys.remove(cacheKey)) {
+                        cache.put(cacheKey, entry);
+                        result.computeIfAbsent(entityId, id -> new ArrayList<>()).add(entry);
+                    }
+                }));
+                missingKeys.forEach(cacheKey -> cache.put(cacheKey, null));
+                return result;
+            }, cacheExecutorService);
+        }, MoreExecutors.directExecutor());
+    }
+
     @Override
     public ListenableFuture<List<TsKvEntry>> findAllLatest(TenantId tenantId, EntityId entityId) {
         return sqlDao.findAllLatest(tenantId, entityId);
@@ -46,6 +46,7 @@ import org.thingsboard.server.dao.model.sqlts.latest.TsKvLatestEntity;
 import org.thingsboard.server.dao.sql.ScheduledLogExecutorComponent;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueParams;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueWrapper;
+import org.thingsboard.server.dao.sql.TbSqlCoalescingBuffer;
 import org.thingsboard.server.dao.sql.TbSqlQueueElement;
 import org.thingsboard.server.dao.sqlts.insert.latest.InsertLatestTsRepository;
 import org.thingsboard.server.dao.sqlts.latest.SearchTsKvLatestRepository;
@@ -54,12 +55,14 @@ import org.thingsboard.server.dao.timeseries.TimeseriesLatestDao;
 import org.thingsboard.server.dao.util.SqlTsLatestAnyDao;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.BiPredicate;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -84,6 +87,8 @@ public class SqlTimeseriesLatestDao extends BaseAbstractSqlTimeseriesDao impleme
 
     private TbSqlBlockingQueueWrapper<TsKvLatestEntity, Long> tsLatestQueue;
 
+    private TbSqlCoalescingBuffer<TsKey, TsKvLatestEntity, Long> tsLatestBuffer;
+
     @Value("${sql.ts_latest.batch_size:1000}")
     private int tsLatestBatchSize;
 
@@ -96,6 +101,15 @@ public class SqlTimeseriesLatestDao extends BaseAbstractSqlTimeseriesDao impleme
     @Value("${sql.ts_latest.batch_threads:4}")
     private int tsLatestBatchThreads;
 
+    @Value("${sql.ts_latest.coalesce_window_ms:0}")
+    private long tsLatestCoalesceWindowMs;
+
+    @Value("${sql.ts_latest.coalesce_max_size:100000}")
+    private int tsLatestCoalesceMaxSize;
+
+    @Value("${sql.ts_latest.update_by_latest_ts:true}")
+    private boolean updateByLatestTs;
+
     @Value("${sql.batch_sort:true}")
     protected boolean batchSortEnabled;
 
@@ -136,10 +150,25 @@ public class SqlTimeseriesLatestDao extends BaseAbstractSqlTimeseriesDao impleme
                     });
                     return new ArrayList<>(trueLatest.values());
                 });
+
+        if (tsLatestCoalesceWindowMs > 0) {
+            // without update_by_latest_ts the last written value is persisted, so the coalescing keeps the last one too
+            BiPredicate<TsKvLatestEntity, TsKvLatestEntity> isNewer = updateByLatestTs ?
+                    (newEntity, oldEntity) -> newEntity.getTs() >= oldEntity.getTs() :
+                    (newEntity, oldEntity) -> true;
+            tsLatestBuffer = new TbSqlCoalescingBuffer<>("TS Latest", tsLatestCoalesceWindowMs, tsLatestCoalesceMaxSize,
+                    entity -> new TsKey(entity.getEntityId(), entity.getKey()),
+                    isNewer,
+                    tsLatestQueue::add);
+            tsLatestBuffer.init();
+        }
     }
 
     @PreDestroy
     protected void destroy() {
+        if (tsLatestBuffer != null) {
+            tsLatestBuffer.destroy();
+        }
         if (tsLatestQueue != null) {
             tsLatestQueue.destroy();
         }
@@ -171,6 +200,12 @@ public class SqlTimeseriesLatestDao extends BaseAbstractSqlTimeseriesDao impleme
         return getFindAllLatestFuture(entityId);
     }
 
+    @Override
+    public ListenableFuture<Map<EntityId, List<TsKvEntry>>> findLatestByEntityIds(TenantId tenantId, Collection<EntityId> entityIds, Collection<String> keys) {
+        log.trace("findLatestByEntityIds [{}][{}][{}]", tenantId, entityIds, keys);
+        return service.submit(() -> doFindLatestSync(entityIds, keys));
+    }
+
     @Override
     public List<String> findAllKeysByDeviceProfileId(TenantId tenantId, DeviceProfileId deviceProfileId) {
         if (deviceProfileId != null) {
@@ -222,6 +257,19 @@ public class SqlTimeseriesLatestDao extends BaseAbstractSqlTimeseriesDao impleme
         }
     }
 
+    protected Map<EntityId, List<TsKvEntry>> doFindLatestSync(Collection<EntityId> entityIds, Collection<String> keys) {
+        Map<UUID, EntityId> entityIdsByUuid = new HashMap<>();
+        entityIds.forEach(entityId -> entityIdsByUuid.put(entityId.getId(), entityId));
+        Map<Integer, String> keysById = new HashMap<>();
+        keys.forEach(key -> keysById.put(keyDictionaryDao.getOrSaveKeyId(key), key));
+        Map<EntityId, List<TsKvEntry>> result = new HashMap<>();
+        for (TsKvLatestEntity entity : searchTsKvLatestRepository.findAllByEntityIdsAndKeys(entityIdsByUuid.keySet(), keysById.keySet())) {
+            entity.setStrKey(keysById.get(entity.getKey()));
+            result.computeIfAbsent(entityIdsByUuid.get(entity.getEntityId()), id -> new ArrayList<>()).add(DaoUtil.getData(entity));
+        }
+        return result;
+    }
+
     protected ListenableFuture<TsKvLatestRemovingResult> getRemoveLatestFuture(TenantId tenantId, EntityId entityId, DeleteTsKvQuery query) {
         ListenableFuture<TsKvEntry> latestFuture = service.submit(() -> doFindLatestSync(entityId, query.getKey()));
         return Futures.transformAsync(latestFuture, latest -> {
@@ -261,7 +309,7 @@ public class SqlTimeseriesLatestDao extends BaseAbstractSqlTimeseriesDao impleme
         latestEntity.setBooleanValue(tsKvEntry.getBooleanValue().orElse(null));
         latestEntity.setJsonValue(tsKvEntry.getJsonValue().orElse(null));
 
-        return tsLatestQueue.add(latestEntity);
+        return tsLatestBuffer != null ? tsLatestBuffer.add(latestEntity) : tsLatestQueue.add(latestEntity);
     }
 
     protected TsKvEntry wrapNullTsKvEntry(final String key, final TsKvEntry latest) {
@@ -0,0 +1,111 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.common.data.kv.AggregationParams;
+import org.thingsboard.server.common.data.kv.IntervalType;
+import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
+import org.thingsboard.server.dao.util.SqlTsOrTsLatestAnyDao;
+import org.thingsboard.server.dao.util.TimeUtils;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Aggregates all the intervals of the time-series query with a single statement grouped by the interval of every record.
+ * Intervals of the fixed length are calculated from the ts, calendar intervals are looked up in the array of the interval starts
+ * that are calculated in the time zone of the query.
+ */
+@Repository
+@SqlTsOrTsLatestAnyDao
+public class TsKvGroupedAggregationRepository {
+
+    private static final String AGGREGATES = "MIN(long_v), MAX(long_v), SUM(long_v), COUNT(long_v), " +
+            "MIN(dbl_v), MAX(dbl_v), SUM(dbl_v), COUNT(dbl_v), COUNT(bool_v), COUNT(str_v), COUNT(json_v), MAX(ts)";
+    private static final String STR_AGGREGATES = ", MIN(str_v), MAX(str_v)";
+    private static final String FROM_WHERE_GROUP_BY = " FROM ts_kv WHERE entity_id = ? AND key = ? AND ts >= ? AND ts < ? GROUP BY bucket ORDER BY bucket";
+
+    private static final String FIXED_INTERVAL_BUCKET = "SELECT (ts - ?) / ? AS bucket, ";
+    private static final String CALENDAR_INTERVAL_BUCKET = "SELECT width_bucket(ts, ?::bigint[]) AS bucket, ";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return the aggregated entities of the non-empty intervals ordered by ts
+     */
+    public List<TsKvEntity> findAllAggregated(UUID entityId, int key, long startTs, long endTs, AggregationParams params) {
+        Aggregation aggregation = params.getAggregation();
+        boolean withStrings = aggregation == Aggregation.MIN || aggregation == Aggregation.MAX;
+        String aggregates = withStrings ? AGGREGATES + STR_AGGREGATES : AGGREGATES;
+        List<TsKvEntity> result = new ArrayList<>();
+        if (IntervalType.MILLISECONDS.equals(params.getIntervalType())) {
+            long interval = params.getInterval();
+            jdbcTemplate.query(FIXED_INTERVAL_BUCKET + aggregates + FROM_WHERE_GROUP_BY, rs -> {
+                long bucketStart = startTs + rs.getLong(1) * interval;
+                long bucketEnd = Math.min(bucketStart + interval, endTs);
+                addEntity(result, toPartialAggregate(rs, withStrings), aggregation, entityId, bucketStart, bucketEnd);
+            }, startTs, interval, entityId, key, startTs, endTs);
+        } else {
+            long[] starts = TimeUtils.calculateIntervalStarts(startTs, endTs, params.getIntervalType(), params.getTzId());
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(CALENDAR_INTERVAL_BUCKET + aggregates + FROM_WHERE_GROUP_BY);
+                Long[] array = new Long[starts.length];
+                for (int i = 0; i < starts.length; i++) {
+                    array[i] = starts[i];
+                }
+                ps.setArray(1, con.createArrayOf("int8", array));
+                ps.setObject(2, entityId);
+                ps.setInt(3, key);
+                ps.setLong(4, startTs);
+                ps.setLong(5, endTs);
+                return ps;
+            }, rs -> {
+                int index = rs.getInt(1) - 1;
+                long bucketEnd = index + 1 < starts.length ? starts[index + 1] : endTs;
+                addEntity(result, toPartialAggregate(rs, withStrings), aggregation, entityId, starts[index], bucketEnd);
+            });
+        }
+        return result;
+    }
+
+    private static TsKvPartialAggregate toPartialAggregate(ResultSet rs, boolean withStrings) throws SQLException {
+        TsKvPartialAggregate aggregate = TsKvPartialAggregate.of(rs, 2);
+        if (withStrings) {
+            aggregate.setStrMin(rs.getString(14));
+            aggregate.setStrMax(rs.getString(15));
+        }
+        return aggregate;
+    }
+
+    private static void addEntity(List<TsKvEntity> result, TsKvPartialAggregate aggregate, Aggregation aggregation, UUID entityId, long bucketStart, long bucketEnd) {
+        TsKvEntity entity = aggregate.toEntity(aggregation);
+        if (entity != null && entity.isNotEmpty()) {
+            entity.setEntityId(entityId);
+            entity.setTs(bucketStart + (bucketEnd - bucketStart) / 2);
+            result.add(entity);
+        }
+    }
+
+}
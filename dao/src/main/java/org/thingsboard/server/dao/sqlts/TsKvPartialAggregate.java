@@ -0,0 +1,137 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts;
+
+import lombok.Data;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Partial aggregates of the time-series key, e.g. of the rollup buckets or of the raw data of the aggregation interval.
+ */
+@Data
+public class TsKvPartialAggregate {
+
+    private Long longMin;
+    private Long longMax;
+    private long longSum;
+    private long longCount;
+    private Double doubleMin;
+    private Double doubleMax;
+    private double doubleSum;
+    private long doubleCount;
+    private long booleanCount;
+    private long strCount;
+    private long jsonCount;
+    private String strMin;
+    private String strMax;
+    private Long lastTs;
+
+    /**
+     * Reads the long min, max, sum, count, double min, max, sum, count, boolean, string and json counts and the last ts
+     * from the twelve columns of the result set starting with the given column.
+     */
+    public static TsKvPartialAggregate of(ResultSet rs, int column) throws SQLException {
+        TsKvPartialAggregate aggregate = new TsKvPartialAggregate();
+        aggregate.setLongMin(rs.getObject(column, Long.class));
+        aggregate.setLongMax(rs.getObject(column + 1, Long.class));
+        BigDecimal longSum = rs.getBigDecimal(column + 2);
+        aggregate.setLongSum(longSum != null ? longSum.longValue() : 0L);
+        aggregate.setLongCount(rs.getLong(column + 3));
+        aggregate.setDoubleMin(rs.getObject(column + 4, Double.class));
+        aggregate.setDoubleMax(rs.getObject(column + 5, Double.class));
+        aggregate.setDoubleSum(rs.getDouble(column + 6));
+        aggregate.setDoubleCount(rs.getLong(column + 7));
+        aggregate.setBooleanCount(rs.getLong(column + 8));
+        aggregate.setStrCount(rs.getLong(column + 9));
+        aggregate.setJsonCount(rs.getLong(column + 10));
+        aggregate.setLastTs(rs.getObject(column + 11, Long.class));
+        return aggregate;
+    }
+
+    public void addLong(long ts, long value) {
+        longMin = longMin != null ? Math.min(longMin, value) : value;
+        longMax = longMax != null ? Math.max(longMax, value) : value;
+        longSum += value;
+        longCount++;
+        updateLastTs(ts);
+    }
+
+    public void addDouble(long ts, double value) {
+        doubleMin = doubleMin != null ? Math.min(doubleMin, value) : value;
+        doubleMax = doubleMax != null ? Math.max(doubleMax, value) : value;
+        doubleSum += value;
+        doubleCount++;
+        updateLastTs(ts);
+    }
+
+    public void addBoolean(long ts) {
+        booleanCount++;
+        updateLastTs(ts);
+    }
+
+    public void addString(long ts, String value) {
+        strMin = strMin == null || value.compareTo(strMin) < 0 ? value : strMin;
+        strMax = strMax == null || value.compareTo(strMax) > 0 ? value : strMax;
+        strCount++;
+        updateLastTs(ts);
+    }
+
+    public void addJson(long ts) {
+        jsonCount++;
+        updateLastTs(ts);
+    }
+
+    private void updateLastTs(long ts) {
+        lastTs = lastTs != null ? Math.max(lastTs, ts) : ts;
+    }
+
+    /**
+     * Converts the partial aggregates to the entity in the same way as the aggregation queries of the raw data do.
+     *
+     * @return the aggregated entity or null if the aggregation can't be calculated from the partial aggregates,
+     * e.g. MIN and MAX of the string values when the string min and max are not known
+     */
+    public TsKvEntity toEntity(Aggregation aggregation) {
+        if (longCount + doubleCount + booleanCount + strCount + jsonCount == 0) {
+            return new TsKvEntity();
+        }
+        switch (aggregation) {
+            case AVG:
+            case SUM:
+                return new TsKvEntity(longSum, doubleSum, longCount, doubleCount, aggregation.name(), lastTs);
+            case MIN:
+                if (longCount + doubleCount > 0) {
+                    return new TsKvEntity(longMin, doubleMin, longCount, doubleCount, aggregation.name(), lastTs);
+                }
+                return strMin != null ? new TsKvEntity(strMin, lastTs) : null;
+            case MAX:
+                if (longCount + doubleCount > 0) {
+                    return new TsKvEntity(longMax, doubleMax, longCount, doubleCount, aggregation.name(), lastTs);
+                }
+                return strMax != null ? new TsKvEntity(strMax, lastTs) : null;
+            case COUNT:
+                return new TsKvEntity(booleanCount, strCount, longCount, doubleCount, jsonCount, lastTs);
+            default:
+                return null;
+        }
+    }
+
+}
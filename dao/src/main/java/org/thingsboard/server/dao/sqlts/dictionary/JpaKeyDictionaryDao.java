@@ -15,81 +15,151 @@
  */
 package org.thingsboard.server.dao.sqlts.dictionary;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.hibernate.exception.ConstraintViolationException;
-import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.dao.dictionary.KeyDictionaryDao;
 import org.thingsboard.server.dao.model.sqlts.dictionary.KeyDictionaryCompositeKey;
 import org.thingsboard.server.dao.model.sqlts.dictionary.KeyDictionaryEntry;
 import org.thingsboard.server.dao.sql.JpaAbstractDaoListeningExecutorService;
 import org.thingsboard.server.dao.util.SqlDao;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
 
+import static org.thingsboard.server.dao.sqlts.dictionary.KeyDictionaryMap.NOT_FOUND;
+
+/**
+ * Resolves the keys from the in-memory dictionary that is loaded from the key_dictionary table on first use.
+ * Only the keys that are not in memory yet take the creation lock and go to the DB.
+ * The ids of the new keys are reserved from the sequence in batches.
+ */
 @Component
 @Slf4j
 @SqlDao
 @RequiredArgsConstructor
 public class JpaKeyDictionaryDao extends JpaAbstractDaoListeningExecutorService implements KeyDictionaryDao {
 
+    public static final String STATS_NAME = "key_dictionary";
+
+    private static final String RESERVE_KEY_IDS_QUERY = "SELECT nextval(pg_get_serial_sequence('key_dictionary', 'key_id')) FROM generate_series(1, ?)";
+    private static final String INSERT_KEY_QUERY = "INSERT INTO key_dictionary (key, key_id) VALUES (?, ?) ON CONFLICT (key) DO NOTHING";
+
     private final KeyDictionaryRepository keyDictionaryRepository;
+    private final StatsFactory statsFactory;
+
+    @Value("${sql.key_dictionary.id_allocation_batch_size:10}")
+    private int idAllocationBatchSize;
+
+    private final KeyDictionaryMap keyDictionaryMap = new KeyDictionaryMap();
+    private final Deque<Integer> reservedKeyIds = new ArrayDeque<>();
+    private final ReentrantLock creationLock = new ReentrantLock();
+    private volatile boolean loaded;
 
-    private final ConcurrentMap<String, Integer> keyDictionaryMap = new ConcurrentHashMap<>();
-    private static final ReentrantLock creationLock = new ReentrantLock();
+    private LongAdder hits;
+    private LongAdder misses;
+    private AtomicInteger size;
+
+    @PostConstruct
+    public void init() {
+        hits = statsFactory.createGauge(STATS_NAME, new LongAdder(), "result", "hit");
+        misses = statsFactory.createGauge(STATS_NAME, new LongAdder(), "result", "miss");
+        size = statsFactory.createGauge(STATS_NAME + ".size", new AtomicInteger());
+    }
 
     @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @Override
     public Integer getOrSaveKeyId(String strKey) {
-        Integer keyId = keyDictionaryMap.get(strKey);
-        if (keyId == null) {
-            Optional<KeyDictionaryEntry> tsKvDictionaryOptional;
-            tsKvDictionaryOptional = keyDictionaryRepository.findById(new KeyDictionaryCompositeKey(strKey));
-            if (tsKvDictionaryOptional.isEmpty()) {
-                creationLock.lock();
-                try {
-                    keyId = keyDictionaryMap.get(strKey);
-                    if (keyId != null) {
-                        return keyId;
-                    }
-                    tsKvDictionaryOptional = keyDictionaryRepository.findById(new KeyDictionaryCompositeKey(strKey));
-                    if (tsKvDictionaryOptional.isEmpty()) {
-                        KeyDictionaryEntry keyDictionaryEntry = new KeyDictionaryEntry();
-                        keyDictionaryEntry.setKey(strKey);
-                        try {
-                            KeyDictionaryEntry saved = keyDictionaryRepository.save(keyDictionaryEntry);
-                            keyDictionaryMap.put(saved.getKey(), saved.getKeyId());
-                            keyId = saved.getKeyId();
-                        } catch (DataIntegrityViolationException | ConstraintViolationException e) {
-                            tsKvDictionaryOptional = keyDictionaryRepository.findById(new KeyDictionaryCompositeKey(strKey));
-                            KeyDictionaryEntry dictionary = tsKvDictionaryOptional.orElseThrow(() -> new RuntimeException("Failed to get KeyDictionaryEntry entity from DB!"));
-                            keyDictionaryMap.put(dictionary.getKey(), dictionary.getKeyId());
-                            keyId = dictionary.getKeyId();
-                        }
-                    } else {
-                        keyId = tsKvDictionaryOptional.get().getKeyId();
-                    }
-                } finally {
-                    creationLock.unlock();
-                }
-            } else {
+        int keyId = findKeyId(strKey);
+        if (keyId != NOT_FOUND) {
+            hits.increment();
+            return keyId;
+        }
+        misses.increment();
+        creationLock.lock();
+        try {
+            keyId = keyDictionaryMap.getKeyId(strKey);
+            if (keyId != NOT_FOUND) {
+                return keyId;
+            }
+            Optional<KeyDictionaryEntry> tsKvDictionaryOptional = keyDictionaryRepository.findById(new KeyDictionaryCompositeKey(strKey));
+            if (tsKvDictionaryOptional.isPresent()) {
                 keyId = tsKvDictionaryOptional.get().getKeyId();
-                keyDictionaryMap.put(strKey, keyId);
+            } else {
+                keyId = insertKey(strKey);
             }
+            keyDictionaryMap.put(strKey, keyId);
+            size.set(keyDictionaryMap.size());
+            return keyId;
+        } finally {
+            creationLock.unlock();
         }
-        return keyId;
     }
 
     @Override
     public String getKey(Integer keyId) {
+        ensureLoaded();
+        String key = keyDictionaryMap.getKey(keyId);
+        if (key != null) {
+            hits.increment();
+            return key;
+        }
+        misses.increment();
         Optional<KeyDictionaryEntry> byKeyId = keyDictionaryRepository.findByKeyId(keyId);
+        byKeyId.ifPresent(entry -> {
+            keyDictionaryMap.put(entry.getKey(), entry.getKeyId());
+            size.set(keyDictionaryMap.size());
+        });
         return byKeyId.map(KeyDictionaryEntry::getKey).orElse(null);
     }
 
+    private int findKeyId(String strKey) {
+        ensureLoaded();
+        return keyDictionaryMap.getKeyId(strKey);
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            creationLock.lock();
+            try {
+                if (!loaded) {
+                    Map<String, Integer> entries = new HashMap<>();
+                    keyDictionaryRepository.findAll().forEach(entry -> entries.put(entry.getKey(), entry.getKeyId()));
+                    keyDictionaryMap.putAll(entries);
+                    size.set(keyDictionaryMap.size());
+                    loaded = true;
+                    log.info("Loaded {} keys to the key dictionary", entries.size());
+                }
+            } finally {
+                creationLock.unlock();
+            }
+        }
+    }
+
+    private int insertKey(String strKey) {
+        if (reservedKeyIds.isEmpty()) {
+            reservedKeyIds.addAll(jdbcTemplate.queryForList(RESERVE_KEY_IDS_QUERY, Integer.class, Math.max(1, idAllocationBatchSize)));
+        }
+        int keyId = reservedKeyIds.poll();
+        if (jdbcTemplate.update(INSERT_KEY_QUERY, strKey, keyId) > 0) {
+            return keyId;
+        }
+        // the key is created concurrently by another node, the reserved id stays unused
+        reservedKeyIds.addFirst(keyId);
+        return keyDictionaryRepository.findById(new KeyDictionaryCompositeKey(strKey))
+                .map(KeyDictionaryEntry::getKeyId)
+                .orElseThrow(() -> new RuntimeException("Failed to get KeyDictionaryEntry entity from DB!"));
+    }
+
 }
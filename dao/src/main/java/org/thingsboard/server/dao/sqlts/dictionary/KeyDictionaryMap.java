@@ -0,0 +1,107 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.dictionary;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Key to id map with lock-free reads. The keys are stored in an open addressing table of parallel arrays and the ids
+ * are resolved back to the keys through an array indexed by id. Every update publishes a new copy of the arrays,
+ * which is cheap because the dictionary is small and new keys are rare.
+ */
+final class KeyDictionaryMap {
+
+    static final int NOT_FOUND = -1;
+
+    private static final Snapshot EMPTY = new Snapshot(new String[16], new int[16], new String[0], 0);
+
+    private volatile Snapshot snapshot = EMPTY;
+
+    int getKeyId(String key) {
+        Snapshot s = snapshot;
+        int mask = s.keys.length - 1;
+        int slot = spread(key.hashCode()) & mask;
+        String k;
+        while ((k = s.keys[slot]) != null) {
+            if (k.equals(key)) {
+                return s.ids[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    String getKey(int keyId) {
+        String[] keysById = snapshot.keysById;
+        return keyId >= 0 && keyId < keysById.length ? keysById[keyId] : null;
+    }
+
+    int size() {
+        return snapshot.size;
+    }
+
+    synchronized void put(String key, int keyId) {
+        putAll(Map.of(key, keyId));
+    }
+
+    synchronized void putAll(Map<String, Integer> entries) {
+        Snapshot s = snapshot;
+        int size = s.size + entries.size();
+        int capacity = s.keys.length;
+        while (size > capacity / 2) {
+            capacity *= 2;
+        }
+        int maxKeyId = s.keysById.length - 1;
+        for (int keyId : entries.values()) {
+            maxKeyId = Math.max(maxKeyId, keyId);
+        }
+        String[] keys = new String[capacity];
+        int[] ids = new int[capacity];
+        String[] keysById = Arrays.copyOf(s.keysById, maxKeyId + 1);
+        int count = 0;
+        for (int i = 0; i < s.keys.length; i++) {
+            if (s.keys[i] != null && !entries.containsKey(s.keys[i])) {
+                insert(keys, ids, s.keys[i], s.ids[i]);
+                count++;
+            }
+        }
+        for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+            insert(keys, ids, entry.getKey(), entry.getValue());
+            keysById[entry.getValue()] = entry.getKey();
+            count++;
+        }
+        snapshot = new Snapshot(keys, ids, keysById, count);
+    }
+
+    private static void insert(String[] keys, int[] ids, String key, int keyId) {
+        int mask = keys.length - 1;
+        int slot = spread(key.hashCode()) & mask;
+        while (keys[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        ids[slot] = keyId;
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private record Snapshot(String[] keys, int[] ids, String[] keysById, int size) {
+    }
+
+}
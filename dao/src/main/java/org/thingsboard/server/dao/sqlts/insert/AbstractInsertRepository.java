@@ -17,10 +17,21 @@ package org.thingsboard.server.dao.sqlts.insert;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.support.TransactionTemplate;
+import org.thingsboard.server.common.data.kv.DataType;
+import org.thingsboard.server.dao.model.sql.AbstractTsKvEntity;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+
+import java.util.List;
 import java.util.regex.Pattern;
 
 @Repository
@@ -29,6 +40,18 @@ public abstract class AbstractInsertRepository {
     private static final ThreadLocal<Pattern> PATTERN_THREAD_LOCAL = ThreadLocal.withInitial(() -> Pattern.compile(String.valueOf(Character.MIN_VALUE)));
     private static final String EMPTY_STR = "";
 
+    // the staging table of the previous batch of the same transaction is dropped first, pg_temp makes sure that it is never a regular table
+    private static final String CREATE_STAGING_TABLE = "DROP TABLE IF EXISTS pg_temp.%1$s; CREATE TEMP TABLE %1$s (idx int, entity_id uuid, key int, ts bigint, " +
+            "bool_v boolean, str_v varchar(10000000), long_v bigint, dbl_v double precision, json_v varchar) ON COMMIT DROP";
+    private static final String COPY_TO_STAGING_TABLE = "COPY %s (idx, entity_id, key, ts, bool_v, str_v, long_v, dbl_v, json_v) FROM STDIN (FORMAT BINARY)";
+    private static final int STAGING_TABLE_COLUMNS = 9;
+
+    protected static final String TS_KV_STAGING_TABLE = "ts_kv_staging";
+    protected static final String MERGE_TS_KV_FROM_STAGING = "INSERT INTO ts_kv (entity_id, key, ts, bool_v, str_v, long_v, dbl_v, json_v) " +
+            "SELECT DISTINCT ON (entity_id, key, ts) entity_id, key, ts, bool_v, str_v, long_v, dbl_v, cast(json_v AS json) FROM " + TS_KV_STAGING_TABLE +
+            " ORDER BY entity_id, key, ts, idx DESC " +
+            "ON CONFLICT (entity_id, key, ts) DO UPDATE SET bool_v = excluded.bool_v, str_v = excluded.str_v, long_v = excluded.long_v, dbl_v = excluded.dbl_v, json_v = excluded.json_v";
+
     @Value("${sql.remove_null_chars:true}")
     private boolean removeNullChars;
 
@@ -44,4 +67,149 @@ public abstract class AbstractInsertRepository {
         }
         return strValue;
     }
+
+    /**
+     * Executes the insert of the batch using the statement with the (entity_id, key, ts, bool_v, str_v, long_v, dbl_v, json_v)
+     * parameters followed by the (bool_v, str_v, long_v, dbl_v, json_v) parameters of the update on conflict.
+     */
+    protected void saveOrUpdate(String insertOrUpdateSql, TsKvColumnarBatch batch) {
+        jdbcTemplate.batchUpdate(insertOrUpdateSql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setObject(1, batch.getEntityId(i));
+                ps.setInt(2, batch.getKey(i));
+                ps.setLong(3, batch.getTs(i));
+                DataType dataType = batch.getDataType(i);
+
+                if (dataType == DataType.BOOLEAN) {
+                    ps.setBoolean(4, batch.getBooleanValue(i));
+                    ps.setBoolean(9, batch.getBooleanValue(i));
+                } else {
+                    ps.setNull(4, Types.BOOLEAN);
+                    ps.setNull(9, Types.BOOLEAN);
+                }
+
+                String strValue = dataType == DataType.STRING ? replaceNullChars(batch.getStrValue(i)) : null;
+                ps.setString(5, strValue);
+                ps.setString(10, strValue);
+
+                if (dataType == DataType.LONG) {
+                    ps.setLong(6, batch.getLongValue(i));
+                    ps.setLong(11, batch.getLongValue(i));
+                } else {
+                    ps.setNull(6, Types.BIGINT);
+                    ps.setNull(11, Types.BIGINT);
+                }
+
+                if (dataType == DataType.DOUBLE) {
+                    ps.setDouble(7, batch.getDoubleValue(i));
+                    ps.setDouble(12, batch.getDoubleValue(i));
+                } else {
+                    ps.setNull(7, Types.DOUBLE);
+                    ps.setNull(12, Types.DOUBLE);
+                }
+
+                String jsonValue = dataType == DataType.JSON ? replaceNullChars(batch.getStrValue(i)) : null;
+                ps.setString(8, jsonValue);
+                ps.setString(13, jsonValue);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        });
+    }
+
+    /**
+     * Streams the entities to the temporary staging table with the binary COPY and executes the merge statement in the same transaction.
+     * Temporary tables are private to the database session and are not written to WAL.
+     * The staging table is created inside the transaction and dropped on commit, so no state is left in the session between the transactions
+     * and the connection pooler may hand the next transaction to another server connection, e.g. PgBouncer in the transaction pooling mode.
+     * The staging table has the (idx, entity_id, key, ts, bool_v, str_v, long_v, dbl_v, json_v) columns, where idx is the position in the list.
+     */
+    protected <T> T copyAndMerge(String stagingTable, List<? extends AbstractTsKvEntity> entities, ConnectionCallback<T> merge) {
+        return copyAndMerge(stagingTable, writer -> {
+            for (int i = 0; i < entities.size(); i++) {
+                AbstractTsKvEntity entity = entities.get(i);
+                writer.startRow(STAGING_TABLE_COLUMNS);
+                writer.writeInt(i);
+                writer.writeUuid(entity.getEntityId().getMostSignificantBits(), entity.getEntityId().getLeastSignificantBits());
+                writer.writeInt(entity.getKey());
+                writer.writeLong(entity.getTs());
+                if (entity.getBooleanValue() != null) {
+                    writer.writeBoolean(entity.getBooleanValue());
+                } else {
+                    writer.writeNull();
+                }
+                writer.writeText(replaceNullChars(entity.getStrValue()));
+                if (entity.getLongValue() != null) {
+                    writer.writeLong(entity.getLongValue());
+                } else {
+                    writer.writeNull();
+                }
+                if (entity.getDoubleValue() != null) {
+                    writer.writeDouble(entity.getDoubleValue());
+                } else {
+                    writer.writeNull();
+                }
+                writer.writeText(replaceNullChars(entity.getJsonValue()));
+            }
+        }, merge);
+    }
+
+    protected <T> T copyAndMerge(String stagingTable, TsKvColumnarBatch batch, ConnectionCallback<T> merge) {
+        return copyAndMerge(stagingTable, writer -> {
+            for (int i = 0; i < batch.size(); i++) {
+                DataType dataType = batch.getDataType(i);
+                writer.startRow(STAGING_TABLE_COLUMNS);
+                writer.writeInt(i);
+                writer.writeUuid(batch.getEntityIdMsb(i), batch.getEntityIdLsb(i));
+                writer.writeInt(batch.getKey(i));
+                writer.writeLong(batch.getTs(i));
+                if (dataType == DataType.BOOLEAN) {
+                    writer.writeBoolean(batch.getBooleanValue(i));
+                } else {
+                    writer.writeNull();
+                }
+                writer.writeText(dataType == DataType.STRING ? replaceNullChars(batch.getStrValue(i)) : null);
+                if (dataType == DataType.LONG) {
+                    writer.writeLong(batch.getLongValue(i));
+                } else {
+                    writer.writeNull();
+                }
+                if (dataType == DataType.DOUBLE) {
+                    writer.writeDouble(batch.getDoubleValue(i));
+                } else {
+                    writer.writeNull();
+                }
+                writer.writeText(dataType == DataType.JSON ? replaceNullChars(batch.getStrValue(i)) : null);
+            }
+        }, merge);
+    }
+
+    protected void copyAndMergeTsKv(List<? extends AbstractTsKvEntity> entities) {
+        copyAndMerge(TS_KV_STAGING_TABLE, entities, AbstractInsertRepository::mergeTsKv);
+    }
+
+    protected void copyAndMergeTsKv(TsKvColumnarBatch batch) {
+        copyAndMerge(TS_KV_STAGING_TABLE, batch, AbstractInsertRepository::mergeTsKv);
+    }
+
+    private static Integer mergeTsKv(Connection con) throws SQLException {
+        try (Statement statement = con.createStatement()) {
+            return statement.executeUpdate(MERGE_TS_KV_FROM_STAGING);
+        }
+    }
+
+    private <T> T copyAndMerge(String stagingTable, PgBinaryCopyWriter.CopyRows rows, ConnectionCallback<T> merge) {
+        return transactionTemplate.execute(status -> jdbcTemplate.execute((Connection con) -> {
+            try (Statement statement = con.createStatement()) {
+                statement.execute(String.format(CREATE_STAGING_TABLE, stagingTable));
+            }
+            PgBinaryCopyWriter.copyIn(con, String.format(COPY_TO_STAGING_TABLE, stagingTable), rows);
+            return merge.doInConnection(con);
+        }));
+    }
+
 }
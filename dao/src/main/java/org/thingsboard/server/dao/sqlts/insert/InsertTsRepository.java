@@ -23,4 +23,6 @@ public interface InsertTsRepository<T extends AbstractTsKvEntity> {
 
     void saveOrUpdate(List<T> entities);
 
+    void saveOrUpdate(TsKvColumnarBatch batch);
+
 }
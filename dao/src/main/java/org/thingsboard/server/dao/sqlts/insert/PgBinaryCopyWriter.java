@@ -0,0 +1,167 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.insert;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Writes the rows in the binary format of PostgreSQL {@code COPY ... FROM STDIN (FORMAT BINARY)}.
+ * The output is buffered and sent to the server in large chunks.
+ */
+public class PgBinaryCopyWriter {
+
+    private static final byte[] HEADER = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0, 0, 0, 0, 0, 0, 0, 0, 0};
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int NULL_LENGTH = -1;
+
+    private final CopyIn copyIn;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+
+    public PgBinaryCopyWriter(CopyIn copyIn) {
+        this.copyIn = copyIn;
+        System.arraycopy(HEADER, 0, buffer, 0, HEADER.length);
+        position = HEADER.length;
+    }
+
+    /**
+     * Executes the COPY statement on the connection and passes the writer to the rows function.
+     *
+     * @return number of the copied rows
+     */
+    public static long copyIn(Connection connection, String copySql, CopyRows rows) throws SQLException {
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql);
+        PgBinaryCopyWriter writer = new PgBinaryCopyWriter(copyIn);
+        try {
+            rows.write(writer);
+            return writer.finish();
+        } catch (SQLException | RuntimeException e) {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+            throw e;
+        }
+    }
+
+    public void startRow(int fieldCount) throws SQLException {
+        ensureCapacity(2);
+        putShort(fieldCount);
+    }
+
+    public void writeNull() throws SQLException {
+        ensureCapacity(4);
+        putInt(NULL_LENGTH);
+    }
+
+    public void writeUuid(long mostSigBits, long leastSigBits) throws SQLException {
+        ensureCapacity(20);
+        putInt(16);
+        putLong(mostSigBits);
+        putLong(leastSigBits);
+    }
+
+    public void writeInt(int value) throws SQLException {
+        ensureCapacity(8);
+        putInt(4);
+        putInt(value);
+    }
+
+    public void writeLong(long value) throws SQLException {
+        ensureCapacity(12);
+        putInt(8);
+        putLong(value);
+    }
+
+    public void writeDouble(double value) throws SQLException {
+        writeLong(Double.doubleToRawLongBits(value));
+    }
+
+    public void writeBoolean(boolean value) throws SQLException {
+        ensureCapacity(5);
+        putInt(1);
+        buffer[position++] = (byte) (value ? 1 : 0);
+    }
+
+    /**
+     * Writes the value of the text, varchar or json column, the binary format of these types is the UTF-8 text.
+     */
+    public void writeText(String value) throws SQLException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(4);
+        putInt(bytes.length);
+        if (bytes.length > buffer.length - position) {
+            flush();
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+        } else {
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+    }
+
+    long finish() throws SQLException {
+        ensureCapacity(2);
+        putShort(-1);
+        flush();
+        return copyIn.endCopy();
+    }
+
+    private void ensureCapacity(int length) throws SQLException {
+        if (buffer.length - position < length) {
+            flush();
+        }
+    }
+
+    private void flush() throws SQLException {
+        if (position > 0) {
+            copyIn.writeToCopy(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    private void putShort(int value) {
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    private void putInt(int value) {
+        buffer[position++] = (byte) (value >>> 24);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    private void putLong(long value) {
+        putInt((int) (value >>> 32));
+        putInt((int) value);
+    }
+
+    @FunctionalInterface
+    public interface CopyRows {
+
+        void write(PgBinaryCopyWriter writer) throws SQLException;
+
+    }
+
+}
@@ -0,0 +1,247 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.insert;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import org.thingsboard.server.common.data.kv.DataType;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Batch of the time-series records for the ts_kv table stored column by column in primitive arrays,
+ * so the records waiting for the insert do not create any objects per data point.
+ * The batch has a single future that is completed when the whole batch is saved.
+ * The batch is reused after it is saved, see {@link #clear()}.
+ */
+public class TsKvColumnarBatch {
+
+    private final int capacity;
+    private final long[] entityIdMsb;
+    private final long[] entityIdLsb;
+    private final int[] keys;
+    private final long[] ts;
+    private final DataType[] dataTypes;
+    private final long[] longValues;
+    private final double[] doubleValues;
+    private final String[] strValues;
+    private int[] rows;
+    private int[] sortBuffer;
+    private boolean sorted;
+    private int size;
+
+    private SettableFuture<Void> future;
+    private int lastDataPointDays = -1;
+    private ListenableFuture<Integer> lastDataPointDaysFuture;
+
+    public TsKvColumnarBatch(int capacity) {
+        this.capacity = capacity;
+        this.entityIdMsb = new long[capacity];
+        this.entityIdLsb = new long[capacity];
+        this.keys = new int[capacity];
+        this.ts = new long[capacity];
+        this.dataTypes = new DataType[capacity];
+        this.longValues = new long[capacity];
+        this.doubleValues = new double[capacity];
+        this.strValues = new String[capacity];
+    }
+
+    /**
+     * Appends the record to the batch.
+     *
+     * @return future that is completed with the data point days once the batch is saved.
+     * The future is shared by all the records of the batch with the same data point days.
+     */
+    public ListenableFuture<Integer> add(UUID entityId, int keyId, TsKvEntry tsKvEntry, int dataPointDays) {
+        if (size == capacity) {
+            throw new IllegalStateException("Batch is full");
+        }
+        int i = size++;
+        entityIdMsb[i] = entityId.getMostSignificantBits();
+        entityIdLsb[i] = entityId.getLeastSignificantBits();
+        keys[i] = keyId;
+        ts[i] = tsKvEntry.getTs();
+        Object value = tsKvEntry.getValue();
+        DataType dataType = value != null ? tsKvEntry.getDataType() : null;
+        dataTypes[i] = dataType;
+        if (dataType != null) {
+            switch (dataType) {
+                case BOOLEAN -> longValues[i] = (Boolean) value ? 1 : 0;
+                case LONG -> longValues[i] = (Long) value;
+                case DOUBLE -> doubleValues[i] = (Double) value;
+                case STRING, JSON -> strValues[i] = (String) value;
+            }
+        }
+        return getFuture(dataPointDays);
+    }
+
+    private ListenableFuture<Integer> getFuture(int dataPointDays) {
+        if (future == null) {
+            future = SettableFuture.create();
+            lastDataPointDaysFuture = null;
+        }
+        if (lastDataPointDaysFuture == null || lastDataPointDays != dataPointDays) {
+            lastDataPointDays = dataPointDays;
+            lastDataPointDaysFuture = Futures.transform(future, v -> dataPointDays, MoreExecutors.directExecutor());
+        }
+        return lastDataPointDaysFuture;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * Sorts the records by entity id, key and ts to avoid deadlocks in cluster mode.
+     * The arrays are not moved, all the getters take the position of the record in the sorted order.
+     */
+    public void sort() {
+        if (rows == null) {
+            rows = new int[capacity];
+            sortBuffer = new int[capacity];
+        }
+        for (int i = 0; i < size; i++) {
+            rows[i] = i;
+        }
+        mergeSort(rows, sortBuffer, 0, size);
+        sorted = true;
+    }
+
+    private void mergeSort(int[] a, int[] tmp, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(a, tmp, from, mid);
+        mergeSort(a, tmp, mid, to);
+        if (compare(a[mid - 1], a[mid]) <= 0) {
+            return;
+        }
+        System.arraycopy(a, from, tmp, from, to - from);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && compare(tmp[i], tmp[j]) <= 0)) {
+                a[k] = tmp[i++];
+            } else {
+                a[k] = tmp[j++];
+            }
+        }
+    }
+
+    private int compare(int r1, int r2) {
+        // same order as UUID.compareTo used for the sort of the entities
+        int result = Long.compare(entityIdMsb[r1], entityIdMsb[r2]);
+        if (result == 0) {
+            result = Long.compare(entityIdLsb[r1], entityIdLsb[r2]);
+        }
+        if (result == 0) {
+            result = Integer.compare(keys[r1], keys[r2]);
+        }
+        if (result == 0) {
+            result = Long.compare(ts[r1], ts[r2]);
+        }
+        return result;
+    }
+
+    private int row(int i) {
+        return sorted ? rows[i] : i;
+    }
+
+    public long getEntityIdMsb(int i) {
+        return entityIdMsb[row(i)];
+    }
+
+    public long getEntityIdLsb(int i) {
+        return entityIdLsb[row(i)];
+    }
+
+    public UUID getEntityId(int i) {
+        int row = row(i);
+        return new UUID(entityIdMsb[row], entityIdLsb[row]);
+    }
+
+    public int getKey(int i) {
+        return keys[row(i)];
+    }
+
+    public long getTs(int i) {
+        return ts[row(i)];
+    }
+
+    /**
+     * @return data type of the value or null if the record has no value.
+     */
+    public DataType getDataType(int i) {
+        return dataTypes[row(i)];
+    }
+
+    public boolean getBooleanValue(int i) {
+        return longValues[row(i)] != 0;
+    }
+
+    public long getLongValue(int i) {
+        return longValues[row(i)];
+    }
+
+    public double getDoubleValue(int i) {
+        return doubleValues[row(i)];
+    }
+
+    /**
+     * @return value of the string or json record.
+     */
+    public String getStrValue(int i) {
+        return strValues[row(i)];
+    }
+
+    public void complete() {
+        if (future != null) {
+            future.set(null);
+        }
+    }
+
+    public void fail(Throwable t) {
+        if (future != null) {
+            future.setException(t);
+        }
+    }
+
+    /**
+     * Prepares the completed batch to be filled again.
+     */
+    public void clear() {
+        Arrays.fill(strValues, 0, size, null);
+        Arrays.fill(dataTypes, 0, size, null);
+        sorted = false;
+        size = 0;
+        future = null;
+        lastDataPointDaysFuture = null;
+    }
+
+}
@@ -21,14 +21,22 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import org.thingsboard.server.dao.AbstractVersionedInsertRepository;
 import org.thingsboard.server.dao.model.sqlts.latest.TsKvLatestEntity;
+import org.thingsboard.server.dao.sqlts.TsKey;
 import org.thingsboard.server.dao.sqlts.insert.latest.InsertLatestTsRepository;
 import org.thingsboard.server.dao.util.SqlDao;
 import org.thingsboard.server.dao.util.SqlTsLatestAnyDao;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 @SqlTsLatestAnyDao
 @Repository
@@ -39,6 +47,9 @@ public class SqlLatestInsertTsRepository extends AbstractVersionedInsertReposito
     @Value("${sql.ts_latest.update_by_latest_ts:true}")
     private Boolean updateByLatestTs;
 
+    @Value("${sql.ts_latest.copy_insert_enabled:false}")
+    private boolean copyInsertEnabled;
+
     private static final String BATCH_UPDATE =
             "UPDATE ts_kv_latest SET ts = ?, bool_v = ?, str_v = ?, long_v = ?, dbl_v = ?, json_v = cast(? AS json), version = nextval('ts_kv_latest_version_seq') WHERE entity_id = ? AND key = ?";
 
@@ -52,13 +63,62 @@ public class SqlLatestInsertTsRepository extends AbstractVersionedInsertReposito
 
     private static final String RETURNING = " RETURNING version";
 
+    private static final String STAGING_TABLE = "ts_kv_latest_staging";
+
+    private static final String MERGE_FROM_STAGING =
+            "INSERT INTO ts_kv_latest (entity_id, key, ts, bool_v, str_v, long_v, dbl_v, json_v, version) " +
+                    "SELECT DISTINCT ON (entity_id, key) entity_id, key, ts, bool_v, str_v, long_v, dbl_v, cast(json_v AS json), nextval('ts_kv_latest_version_seq') " +
+                    "FROM " + STAGING_TABLE + " ORDER BY entity_id, key, %s " +
+                    "ON CONFLICT (entity_id, key) DO UPDATE SET ts = excluded.ts, bool_v = excluded.bool_v, str_v = excluded.str_v, long_v = excluded.long_v, " +
+                    "dbl_v = excluded.dbl_v, json_v = excluded.json_v, version = nextval('ts_kv_latest_version_seq')";
+
+    private static final String MERGE_FROM_STAGING_BY_LATEST_TS = String.format(MERGE_FROM_STAGING, "ts DESC, idx DESC") + " WHERE ts_kv_latest.ts <= excluded.ts";
+
+    private static final String RETURNING_KEY_AND_VERSION = " RETURNING entity_id, key, version";
+
     private String batchUpdateQuery;
     private String insertOrUpdateQuery;
+    private String mergeFromStagingQuery;
 
     @PostConstruct
     private void init() {
         this.batchUpdateQuery = (updateByLatestTs ? BATCH_UPDATE_BY_LATEST_TS : BATCH_UPDATE) + RETURNING;
         this.insertOrUpdateQuery = (updateByLatestTs ? INSERT_OR_UPDATE_BY_LATEST_TS : INSERT_OR_UPDATE) + RETURNING;
+        this.mergeFromStagingQuery = (updateByLatestTs ? MERGE_FROM_STAGING_BY_LATEST_TS : String.format(MERGE_FROM_STAGING, "idx DESC")) + RETURNING_KEY_AND_VERSION;
+    }
+
+    @Override
+    public List<Long> saveOrUpdate(List<TsKvLatestEntity> entities) {
+        if (!copyInsertEnabled) {
+            return super.saveOrUpdate(entities);
+        }
+        return copyAndMerge(STAGING_TABLE, entities, con -> {
+            Map<TsKey, Integer> indexes = getMergedIndexes(entities);
+            List<Long> versions = new ArrayList<>(Collections.nCopies(entities.size(), null));
+            try (Statement statement = con.createStatement(); ResultSet rs = statement.executeQuery(mergeFromStagingQuery)) {
+                while (rs.next()) {
+                    Integer index = indexes.get(new TsKey(rs.getObject(1, UUID.class), rs.getInt(2)));
+                    if (index != null) {
+                        versions.set(index, rs.getLong(3));
+                    }
+                }
+            }
+            return versions;
+        });
+    }
+
+    /**
+     * Returns the positions of the entities that are merged for every entity id and key, in the same order as the merge query picks them.
+     */
+    private Map<TsKey, Integer> getMergedIndexes(List<TsKvLatestEntity> entities) {
+        Map<TsKey, Integer> indexes = new HashMap<>(entities.size());
+        for (int i = 0; i < entities.size(); i++) {
+            TsKvLatestEntity entity = entities.get(i);
+            int index = i;
+            indexes.merge(new TsKey(entity.getEntityId(), entity.getKey()), i,
+                    (oldIndex, newIndex) -> !updateByLatestTs || entities.get(oldIndex).getTs() <= entity.getTs() ? index : oldIndex);
+        }
+        return indexes;
     }
 
     @Override
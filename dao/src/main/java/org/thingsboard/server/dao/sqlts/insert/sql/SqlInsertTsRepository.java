@@ -15,12 +15,14 @@
  */
 package org.thingsboard.server.dao.sqlts.insert.sql;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
 import org.thingsboard.server.dao.sqlts.insert.AbstractInsertRepository;
 import org.thingsboard.server.dao.sqlts.insert.InsertTsRepository;
+import org.thingsboard.server.dao.sqlts.insert.TsKvColumnarBatch;
 import org.thingsboard.server.dao.util.SqlTsDao;
 
 import java.sql.PreparedStatement;
@@ -36,8 +38,15 @@ public class SqlInsertTsRepository extends AbstractInsertRepository implements I
     private static final String INSERT_ON_CONFLICT_DO_UPDATE = "INSERT INTO ts_kv (entity_id, key, ts, bool_v, str_v, long_v, dbl_v, json_v) VALUES (?, ?, ?, ?, ?, ?, ?, cast(? AS json)) " +
             "ON CONFLICT (entity_id, key, ts) DO UPDATE SET bool_v = ?, str_v = ?, long_v = ?, dbl_v = ?, json_v = cast(? AS json);";
 
+    @Value("${sql.ts.copy_insert_enabled:false}")
+    private boolean copyInsertEnabled;
+
     @Override
     public void saveOrUpdate(List<TsKvEntity> entities) {
+        if (copyInsertEnabled) {
+            copyAndMergeTsKv(entities);
+            return;
+        }
         jdbcTemplate.batchUpdate(INSERT_ON_CONFLICT_DO_UPDATE, new BatchPreparedStatementSetter() {
             @Override
             public void setValues(PreparedStatement ps, int i) throws SQLException {
@@ -85,4 +94,13 @@ public class SqlInsertTsRepository extends AbstractInsertRepository implements I
         });
     }
 
+    @Override
+    public void saveOrUpdate(TsKvColumnarBatch batch) {
+        if (copyInsertEnabled) {
+            copyAndMergeTsKv(batch);
+            return;
+        }
+        saveOrUpdate(INSERT_ON_CONFLICT_DO_UPDATE, batch);
+    }
+
 }
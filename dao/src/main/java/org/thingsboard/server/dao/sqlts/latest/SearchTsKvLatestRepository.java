@@ -17,10 +17,14 @@ package org.thingsboard.server.dao.sqlts.latest;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import org.thingsboard.server.dao.model.sqlts.latest.TsKvLatestEntity;
 import org.thingsboard.server.dao.util.SqlTsLatestAnyDao;
 
+import java.sql.PreparedStatement;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -34,13 +38,33 @@ public class SearchTsKvLatestRepository {
             " ts_kv_latest.bool_v AS boolValue, ts_kv_latest.long_v AS longValue, ts_kv_latest.dbl_v AS doubleValue, ts_kv_latest.json_v AS jsonValue, ts_kv_latest.ts AS ts, ts_kv_latest.version AS version FROM ts_kv_latest " +
             "INNER JOIN key_dictionary ON ts_kv_latest.key = key_dictionary.key_id WHERE ts_kv_latest.entity_id = cast(:id AS uuid)";
 
+    private static final String FIND_ALL_BY_ENTITY_IDS_AND_KEYS_QUERY = "SELECT entity_id, key, str_v, bool_v, long_v, dbl_v, json_v, ts, version " +
+            "FROM ts_kv_latest WHERE entity_id = ANY(?) AND key = ANY(?)";
+
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     public List<TsKvLatestEntity> findAllByEntityId(UUID entityId) {
         return entityManager.createNamedQuery(FIND_ALL_BY_ENTITY_ID, TsKvLatestEntity.class)
                 .setParameter("id", entityId)
                 .getResultList();
     }
 
+    /**
+     * Returns the latest values of the keys of all the entities with a single query, the string key of the result is not set.
+     */
+    public List<TsKvLatestEntity> findAllByEntityIdsAndKeys(Collection<UUID> entityIds, Collection<Integer> keys) {
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(FIND_ALL_BY_ENTITY_IDS_AND_KEYS_QUERY);
+            ps.setArray(1, con.createArrayOf("uuid", entityIds.toArray()));
+            ps.setArray(2, con.createArrayOf("int4", keys.toArray()));
+            return ps;
+        }, (rs, rowNum) -> new TsKvLatestEntity(rs.getObject(1, UUID.class), rs.getInt(2), null, rs.getString(3),
+                rs.getObject(4, Boolean.class), rs.getObject(5, Long.class), rs.getObject(6, Double.class), rs.getString(7),
+                rs.getLong(8), rs.getObject(9, Long.class)));
+    }
+
 }
@@ -0,0 +1,41 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.rollup;
+
+import java.util.UUID;
+
+/**
+ * Progress of marking the existing time-series dirty after the rollups were enabled. The entities are processed
+ * in the order of the id, the rollups of the entity may be read once its id is not greater than the processed one.
+ */
+public record TsRollupBackfill(UUID entityId, boolean completed) {
+
+    public static final UUID START_ENTITY_ID = new UUID(0L, 0L);
+    public static final TsRollupBackfill NOT_STARTED = new TsRollupBackfill(START_ENTITY_ID, false);
+
+    public boolean covers(UUID entityId) {
+        return completed || compare(entityId, this.entityId) <= 0;
+    }
+
+    /**
+     * Compares the ids the same way as PostgreSQL compares uuid values, i.e. as unsigned bytes.
+     */
+    static int compare(UUID a, UUID b) {
+        int result = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return result != 0 ? result : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+}
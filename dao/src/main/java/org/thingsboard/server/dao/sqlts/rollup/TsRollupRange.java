@@ -0,0 +1,50 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.rollup;
+
+/**
+ * Split of the [startTs, endTs) aggregation interval: [hourStart, dayStart) and [dayEnd, hourEnd) are read from the hourly rollups,
+ * [dayStart, dayEnd) from the daily rollups, and the edges [startTs, hourStart) and [hourEnd, endTs) from the raw data.
+ * The hours that are marked dirty, and the days that contain them, are read from the raw data as well.
+ */
+public record TsRollupRange(long startTs, long hourStart, long dayStart, long dayEnd, long hourEnd, long endTs) {
+
+    public static final long HOUR = 60 * 60 * 1000L;
+    public static final long DAY = 24 * HOUR;
+
+    /**
+     * @return the split of the interval or null if the interval doesn't contain any complete hourly bucket
+     */
+    public static TsRollupRange split(long startTs, long endTs) {
+        long hourStart = ceil(startTs, HOUR);
+        long hourEnd = Math.floorDiv(endTs, HOUR) * HOUR;
+        if (hourEnd - hourStart < HOUR) {
+            return null;
+        }
+        long dayStart = ceil(hourStart, DAY);
+        long dayEnd = Math.floorDiv(hourEnd, DAY) * DAY;
+        if (dayEnd <= dayStart) {
+            dayStart = hourEnd;
+            dayEnd = hourEnd;
+        }
+        return new TsRollupRange(startTs, hourStart, dayStart, dayEnd, hourEnd, endTs);
+    }
+
+    private static long ceil(long ts, long bucket) {
+        return -Math.floorDiv(-ts, bucket) * bucket;
+    }
+
+}
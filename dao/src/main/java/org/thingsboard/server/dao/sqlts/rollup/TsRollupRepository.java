@@ -0,0 +1,314 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.rollup;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.thingsboard.server.dao.sqlts.TsKvPartialAggregate;
+import org.thingsboard.server.dao.util.SqlTsDao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.thingsboard.server.dao.sqlts.rollup.TsRollupRange.DAY;
+import static org.thingsboard.server.dao.sqlts.rollup.TsRollupRange.HOUR;
+
+@SqlTsDao
+@Repository
+public class TsRollupRepository {
+
+    private static final String ROLLUP_COLUMNS = "entity_id, key, bucket_ms, ts, long_min, long_max, long_sum, long_count, " +
+            "dbl_min, dbl_max, dbl_sum, dbl_count, bool_count, str_count, json_count, last_ts";
+
+    private static final String ON_CONFLICT_UPDATE = " ON CONFLICT (entity_id, key, bucket_ms, ts) DO UPDATE SET " +
+            "long_min = excluded.long_min, long_max = excluded.long_max, long_sum = excluded.long_sum, long_count = excluded.long_count, " +
+            "dbl_min = excluded.dbl_min, dbl_max = excluded.dbl_max, dbl_sum = excluded.dbl_sum, dbl_count = excluded.dbl_count, " +
+            "bool_count = excluded.bool_count, str_count = excluded.str_count, json_count = excluded.json_count, last_ts = excluded.last_ts";
+
+    private static final String RAW_AGGREGATES = "MIN(t.long_v) AS long_min, MAX(t.long_v) AS long_max, SUM(t.long_v) AS long_sum, COUNT(t.long_v) AS long_count, " +
+            "MIN(t.dbl_v) AS dbl_min, MAX(t.dbl_v) AS dbl_max, SUM(t.dbl_v) AS dbl_sum, COUNT(t.dbl_v) AS dbl_count, " +
+            "COUNT(t.bool_v) AS bool_count, COUNT(t.str_v) AS str_count, COUNT(t.json_v) AS json_count, MAX(t.ts) AS last_ts";
+
+    private static final String ROLLUP_AGGREGATES = "MIN(r.long_min), MAX(r.long_max), SUM(r.long_sum), SUM(r.long_count), " +
+            "MIN(r.dbl_min), MAX(r.dbl_max), SUM(r.dbl_sum), SUM(r.dbl_count), SUM(r.bool_count), SUM(r.str_count), SUM(r.json_count), MAX(r.last_ts)";
+
+    private static final String BUCKETS = "unnest(?::uuid[], ?::int[], ?::bigint[]) AS b(entity_id, key, ts)";
+
+    // a mark claimed by the flush keeps its claim, so the bucket is never refreshed by two nodes at once
+    private static final String MARK_DIRTY = "INSERT INTO ts_rollup_dirty (entity_id, key, ts) SELECT b.entity_id, b.key, b.ts FROM " + BUCKETS +
+            " ORDER BY b.entity_id, b.key, b.ts ON CONFLICT (entity_id, key, ts) DO UPDATE SET version = excluded.version";
+
+    /**
+     * Claims the marks that are not claimed by the other nodes in a statement of its own, so the ingest that marks the same buckets
+     * waits for the claim only and not for the whole refresh.
+     */
+    private static final String CLAIM_DIRTY = "UPDATE ts_rollup_dirty d SET claimed_until = ? FROM (" +
+            "SELECT entity_id, key, ts FROM ts_rollup_dirty WHERE claimed_until < ? LIMIT ? FOR UPDATE SKIP LOCKED) c " +
+            "WHERE d.entity_id = c.entity_id AND d.key = c.key AND d.ts = c.ts RETURNING d.entity_id, d.key, d.ts, d.version";
+
+    private static final String DELETE_DIRTY = "DELETE FROM ts_rollup_dirty d USING unnest(?::uuid[], ?::int[], ?::bigint[], ?::bigint[]) AS b(entity_id, key, ts, version) " +
+            "WHERE d.entity_id = b.entity_id AND d.key = b.key AND d.ts = b.ts AND d.version = b.version";
+
+    private static final String RELEASE_DIRTY = "UPDATE ts_rollup_dirty d SET claimed_until = 0 FROM " + BUCKETS +
+            " WHERE d.entity_id = b.entity_id AND d.key = b.key AND d.ts = b.ts";
+
+    /**
+     * Serializes the refresh of the same day by different nodes: the day is aggregated from its hours only after
+     * the hours refreshed by the other node are committed.
+     */
+    private static final String LOCK_DAYS = "SELECT pg_advisory_xact_lock(l.id) FROM (" +
+            "SELECT DISTINCT hashtextextended(b.entity_id::text || ':' || b.key || ':' || b.ts, 0) AS id FROM " + BUCKETS + " ORDER BY id) l";
+
+    private static final String REFRESH_HOURS = "INSERT INTO ts_rollup (" + ROLLUP_COLUMNS + ") " +
+            "SELECT b.entity_id, b.key, " + HOUR + ", b.ts, " + RAW_AGGREGATES + " FROM " + BUCKETS +
+            " JOIN ts_kv t ON t.entity_id = b.entity_id AND t.key = b.key AND t.ts >= b.ts AND t.ts < b.ts + " + HOUR +
+            " GROUP BY b.entity_id, b.key, b.ts" + ON_CONFLICT_UPDATE;
+
+    private static final String REFRESH_DAYS = "INSERT INTO ts_rollup (" + ROLLUP_COLUMNS + ") " +
+            "SELECT b.entity_id, b.key, " + DAY + ", b.ts, " + ROLLUP_AGGREGATES + " FROM " + BUCKETS +
+            " JOIN ts_rollup r ON r.entity_id = b.entity_id AND r.key = b.key AND r.bucket_ms = " + HOUR +
+            " AND r.ts >= b.ts AND r.ts < b.ts + " + DAY +
+            " GROUP BY b.entity_id, b.key, b.ts" + ON_CONFLICT_UPDATE;
+
+    private static final String DELETE_RANGE = "DELETE FROM ts_rollup WHERE entity_id = ? AND key = ? AND ts >= ? AND ts < ?";
+
+    private static final String REBUILD_HOURS = "INSERT INTO ts_rollup (" + ROLLUP_COLUMNS + ") " +
+            "SELECT t.entity_id, t.key, " + HOUR + ", t.ts - mod(t.ts, " + HOUR + "), " + RAW_AGGREGATES + " FROM ts_kv t " +
+            "WHERE t.entity_id = ? AND t.key = ? AND t.ts >= ? AND t.ts < ? " +
+            "GROUP BY t.entity_id, t.key, t.ts - mod(t.ts, " + HOUR + ")" + ON_CONFLICT_UPDATE;
+
+    private static final String REBUILD_DAYS = "INSERT INTO ts_rollup (" + ROLLUP_COLUMNS + ") " +
+            "SELECT r.entity_id, r.key, " + DAY + ", r.ts - mod(r.ts, " + DAY + "), " + ROLLUP_AGGREGATES + " FROM ts_rollup r " +
+            "WHERE r.entity_id = ? AND r.key = ? AND r.bucket_ms = " + HOUR + " AND r.ts >= ? AND r.ts < ? " +
+            "GROUP BY r.entity_id, r.key, r.ts - mod(r.ts, " + DAY + ")" + ON_CONFLICT_UPDATE;
+
+    private static final String ROLLUP_VALUES = "r.long_min, r.long_max, r.long_sum, r.long_count, r.dbl_min, r.dbl_max, r.dbl_sum, r.dbl_count, " +
+            "r.bool_count, r.str_count, r.json_count, r.last_ts";
+
+    private static final String DIRTY_HOUR = "SELECT 1 FROM ts_rollup_dirty d WHERE d.entity_id = r.entity_id AND d.key = r.key AND d.ts = r.ts";
+
+    private static final String DIRTY_DAY = "SELECT 1 FROM ts_rollup_dirty d WHERE d.entity_id = r.entity_id AND d.key = r.key " +
+            "AND d.ts >= r.ts - mod(r.ts, " + DAY + ") AND d.ts < r.ts - mod(r.ts, " + DAY + ") + " + DAY;
+
+    /**
+     * Aggregates the raw edges, the raw data of the dirty hours, the clean hours outside of the complete days or within the dirty days,
+     * and the clean days.
+     */
+    private static final String FIND_AGGREGATE = "SELECT MIN(p.long_min), MAX(p.long_max), SUM(p.long_sum), SUM(p.long_count), " +
+            "MIN(p.dbl_min), MAX(p.dbl_max), SUM(p.dbl_sum), SUM(p.dbl_count), SUM(p.bool_count), SUM(p.str_count), SUM(p.json_count), MAX(p.last_ts) FROM (" +
+            "SELECT " + RAW_AGGREGATES +
+            " FROM ts_kv t WHERE t.entity_id = ? AND t.key = ? AND ((t.ts >= ? AND t.ts < ?) OR (t.ts >= ? AND t.ts < ?)) " +
+            "UNION ALL " +
+            "SELECT " + RAW_AGGREGATES + " FROM ts_rollup_dirty d " +
+            "JOIN ts_kv t ON t.entity_id = d.entity_id AND t.key = d.key AND t.ts >= d.ts AND t.ts < d.ts + " + HOUR +
+            " WHERE d.entity_id = ? AND d.key = ? AND d.ts >= ? AND d.ts < ? " +
+            "UNION ALL " +
+            "SELECT " + ROLLUP_VALUES + " FROM ts_rollup r WHERE r.entity_id = ? AND r.key = ? AND r.bucket_ms = " + HOUR +
+            " AND r.ts >= ? AND r.ts < ? AND (r.ts < ? OR r.ts >= ? OR EXISTS (" + DIRTY_DAY + ")) AND NOT EXISTS (" + DIRTY_HOUR + ") " +
+            "UNION ALL " +
+            "SELECT " + ROLLUP_VALUES + " FROM ts_rollup r WHERE r.entity_id = ? AND r.key = ? AND r.bucket_ms = " + DAY +
+            " AND r.ts >= ? AND r.ts < ? AND NOT EXISTS (" + DIRTY_DAY + ")) p";
+
+    private static final String INIT_BACKFILL = "INSERT INTO ts_rollup_backfill (id, entity_id, completed, heartbeat_ts) VALUES (0, ?, false, ?) ON CONFLICT (id) DO NOTHING";
+
+    private static final String CLEAR_ROLLUPS = "DELETE FROM ts_rollup";
+
+    private static final String LOCK_BACKFILL = "SELECT entity_id, completed, heartbeat_ts FROM ts_rollup_backfill WHERE id = 0 FOR UPDATE SKIP LOCKED";
+
+    private static final String HEARTBEAT = "UPDATE ts_rollup_backfill SET heartbeat_ts = GREATEST(heartbeat_ts, ?) " +
+            "WHERE id = (SELECT id FROM ts_rollup_backfill WHERE id = 0 FOR UPDATE SKIP LOCKED) RETURNING entity_id, completed";
+
+    /**
+     * Skips through the primary key index of ts_kv to find the next entities without reading all their rows.
+     */
+    private static final String FIND_NEXT_ENTITIES = "WITH RECURSIVE e AS (" +
+            "(SELECT t.entity_id FROM ts_kv t WHERE t.entity_id > ? ORDER BY t.entity_id LIMIT 1) " +
+            "UNION ALL " +
+            "SELECT (SELECT t.entity_id FROM ts_kv t WHERE t.entity_id > e.entity_id ORDER BY t.entity_id LIMIT 1) FROM e WHERE e.entity_id IS NOT NULL" +
+            ") SELECT entity_id FROM e WHERE entity_id IS NOT NULL LIMIT ?";
+
+    private static final String MARK_ENTITIES_DIRTY = "INSERT INTO ts_rollup_dirty (entity_id, key, ts) " +
+            "SELECT DISTINCT t.entity_id, t.key, t.ts - mod(t.ts, " + HOUR + ") FROM ts_kv t WHERE t.entity_id = ANY (?::uuid[]) " +
+            "ON CONFLICT (entity_id, key, ts) DO NOTHING";
+
+    private static final String UPDATE_BACKFILL = "UPDATE ts_rollup_backfill SET entity_id = ?, completed = ?, heartbeat_ts = ? WHERE id = 0";
+
+    private static final String CLEANUP = "DELETE FROM ts_rollup WHERE ts < ?";
+
+    private static final String CLEANUP_DIRTY = "DELETE FROM ts_rollup_dirty WHERE ts < ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Saves the raw data and marks the hourly buckets dirty in the same transaction, so that the marks survive a restart
+     * and every committed mark refers to the committed data.
+     */
+    public void saveAndMarkDirty(Runnable save, Collection<TsRollupBucket> hours) {
+        transactionTemplate.executeWithoutResult(status -> {
+            save.run();
+            jdbcTemplate.update(con -> prepareBuckets(con, MARK_DIRTY, hours));
+        });
+    }
+
+    /**
+     * Claims the dirty hourly buckets that are not claimed by the other nodes until the given time.
+     * The claims of a node that stopped before the refresh are taken over once they expire.
+     *
+     * @return the claimed buckets with the versions of the marks
+     */
+    public Map<TsRollupBucket, Long> claimDirty(int limit, long ts, long claimedUntil) {
+        Map<TsRollupBucket, Long> result = new LinkedHashMap<>();
+        jdbcTemplate.query(CLAIM_DIRTY, rs -> {
+            result.put(new TsRollupBucket(rs.getObject(1, UUID.class), rs.getInt(2), rs.getLong(3)), rs.getLong(4));
+        }, claimedUntil, ts, limit);
+        return result;
+    }
+
+    /**
+     * Recalculates the claimed hourly buckets from the raw data and the daily buckets that contain them from the hourly buckets.
+     * The marks are removed unless the bucket was marked again in the meantime, such marks are released for the next flush.
+     */
+    public void refresh(Map<TsRollupBucket, Long> hours) {
+        Set<TsRollupBucket> days = new LinkedHashSet<>();
+        for (TsRollupBucket hour : hours.keySet()) {
+            days.add(new TsRollupBucket(hour.entityId(), hour.key(), Math.floorDiv(hour.ts(), DAY) * DAY));
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.query(con -> prepareBuckets(con, LOCK_DAYS, days), rs -> {});
+            jdbcTemplate.update(con -> prepareBuckets(con, REFRESH_HOURS, hours.keySet()));
+            jdbcTemplate.update(con -> prepareBuckets(con, REFRESH_DAYS, days));
+            jdbcTemplate.update(con -> {
+                PreparedStatement ps = prepareBuckets(con, DELETE_DIRTY, hours.keySet());
+                ps.setArray(4, con.createArrayOf("int8", hours.values().toArray()));
+                return ps;
+            });
+            jdbcTemplate.update(con -> prepareBuckets(con, RELEASE_DIRTY, hours.keySet()));
+        });
+    }
+
+    /**
+     * Records that the rollups are maintained at the given time.
+     *
+     * @return the backfill progress, or null if the backfill is not started yet or is being processed by the other node right now
+     */
+    public TsRollupBackfill heartbeat(long ts) {
+        List<TsRollupBackfill> result = jdbcTemplate.query(HEARTBEAT,
+                (rs, rowNum) -> new TsRollupBackfill(rs.getObject(1, UUID.class), rs.getBoolean(2)), ts);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    /**
+     * Marks all the hours of the next entities dirty. When called for the first time, or when nothing maintained the rollups
+     * for longer than the idle timeout, e.g. because they were disabled, removes the rollups and starts over,
+     * as the rollups miss the data saved since then.
+     *
+     * @return the backfill progress, or null if the backfill is being processed by the other node right now
+     */
+    public TsRollupBackfill backfill(int batchSize, long ts, long idleTimeoutMs) {
+        return transactionTemplate.execute(status -> {
+            if (jdbcTemplate.update(INIT_BACKFILL, TsRollupBackfill.START_ENTITY_ID, ts) > 0) {
+                jdbcTemplate.update(CLEAR_ROLLUPS);
+            }
+            List<Map.Entry<TsRollupBackfill, Long>> rows = jdbcTemplate.query(LOCK_BACKFILL, (rs, rowNum) ->
+                    Map.entry(new TsRollupBackfill(rs.getObject(1, UUID.class), rs.getBoolean(2)), rs.getLong(3)));
+            if (rows.isEmpty()) {
+                return null;
+            }
+            TsRollupBackfill backfill = rows.get(0).getKey();
+            if (rows.get(0).getValue() < ts - idleTimeoutMs) {
+                jdbcTemplate.update(CLEAR_ROLLUPS);
+                backfill = TsRollupBackfill.NOT_STARTED;
+            } else if (backfill.completed()) {
+                jdbcTemplate.update(UPDATE_BACKFILL, backfill.entityId(), true, ts);
+                return backfill;
+            }
+            List<UUID> entityIds = jdbcTemplate.queryForList(FIND_NEXT_ENTITIES, UUID.class, backfill.entityId(), batchSize);
+            if (entityIds.isEmpty()) {
+                backfill = new TsRollupBackfill(backfill.entityId(), true);
+            } else {
+                jdbcTemplate.update(con -> {
+                    PreparedStatement ps = con.prepareStatement(MARK_ENTITIES_DIRTY);
+                    ps.setArray(1, con.createArrayOf("uuid", entityIds.toArray()));
+                    return ps;
+                });
+                backfill = new TsRollupBackfill(entityIds.get(entityIds.size() - 1), false);
+            }
+            jdbcTemplate.update(UPDATE_BACKFILL, backfill.entityId(), backfill.completed(), ts);
+            return backfill;
+        });
+    }
+
+    /**
+     * Recalculates all the buckets of the key that intersect with the [startTs, endTs) range, e.g. after the raw data was removed.
+     */
+    public void rebuild(UUID entityId, int key, long startTs, long endTs) {
+        long from = Math.floorDiv(startTs, DAY) * DAY;
+        long to = endTs > Long.MAX_VALUE - DAY ? Long.MAX_VALUE : -Math.floorDiv(-endTs, DAY) * DAY;
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(DELETE_RANGE, entityId, key, from, to);
+            jdbcTemplate.update(REBUILD_HOURS, entityId, key, from, to);
+            jdbcTemplate.update(REBUILD_DAYS, entityId, key, from, to);
+        });
+    }
+
+    public TsKvPartialAggregate findAggregate(UUID entityId, int key, TsRollupRange range) {
+        return jdbcTemplate.queryForObject(FIND_AGGREGATE, (rs, rowNum) -> TsKvPartialAggregate.of(rs, 1),
+                entityId, key, range.startTs(), range.hourStart(), range.hourEnd(), range.endTs(),
+                entityId, key, range.hourStart(), range.hourEnd(),
+                entityId, key, range.hourStart(), range.hourEnd(), range.dayStart(), range.dayEnd(),
+                entityId, key, range.dayStart(), range.dayEnd());
+    }
+
+    public int cleanup(long expirationTs) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.update(CLEANUP_DIRTY, expirationTs);
+            return jdbcTemplate.update(CLEANUP, expirationTs);
+        });
+    }
+
+    private static PreparedStatement prepareBuckets(Connection con, String sql, Collection<TsRollupBucket> buckets) throws SQLException {
+        UUID[] entityIds = new UUID[buckets.size()];
+        Integer[] keys = new Integer[buckets.size()];
+        Long[] ts = new Long[buckets.size()];
+        int i = 0;
+        for (TsRollupBucket bucket : buckets) {
+            entityIds[i] = bucket.entityId();
+            keys[i] = bucket.key();
+            ts[i] = bucket.ts();
+            i++;
+        }
+        PreparedStatement ps = con.prepareStatement(sql);
+        ps.setArray(1, con.createArrayOf("uuid", entityIds));
+        ps.setArray(2, con.createArrayOf("int4", keys));
+        ps.setArray(3, con.createArrayOf("int8", ts));
+        return ps;
+    }
+
+}
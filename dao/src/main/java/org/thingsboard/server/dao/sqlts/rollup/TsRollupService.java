@@ -0,0 +1,214 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.rollup;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Service;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
+import org.thingsboard.server.dao.sqlts.insert.TsKvColumnarBatch;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.thingsboard.server.dao.sqlts.rollup.TsRollupRange.DAY;
+import static org.thingsboard.server.dao.sqlts.rollup.TsRollupRange.HOUR;
+
+/**
+ * Maintains the hourly and daily min/max/sum/count rollups of the SQL time-series.
+ * The hourly buckets touched by the saved data are marked dirty in the same transaction as the data and recalculated
+ * from the raw data every flush interval. The dirty hours and the days that contain them are aggregated from the raw data,
+ * so the rollups never hide the recently saved points, including the late ones.
+ * <p>
+ * When enabled on the existing database, the hours of the existing data are marked dirty entity by entity in the background,
+ * the aggregates of the entities that are not processed yet are calculated from the raw data.
+ * <p>
+ * Every node flushes the dirty buckets it has claimed, so the buckets are refreshed by one node at a time.
+ * The nodes record a heartbeat on every flush. If nothing maintained the rollups for longer than the idle timeout,
+ * e.g. because they were disabled, the next node that starts with the rollups enabled rebuilds them from scratch.
+ */
+@Service
+@Slf4j
+@ConditionalOnExpression("'${database.ts.type:null}'=='sql' && ${sql.ts.rollup.enabled:false}")
+public class TsRollupService {
+
+    // the claims of a node that stopped in the middle of the flush are taken over by the other nodes after this time
+    static final long CLAIM_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(5);
+
+    private final TsRollupRepository rollupRepository;
+
+    @Value("${sql.ts.rollup.flush_interval_ms:10000}")
+    private long flushIntervalMs;
+
+    @Value("${sql.ts.rollup.flush_batch_size:1000}")
+    private int flushBatchSize;
+
+    @Value("${sql.ts.rollup.backfill_batch_size:100}")
+    private int backfillBatchSize;
+
+    @Value("${sql.ts.rollup.rebuild_after_idle_ms:3600000}")
+    private long rebuildAfterIdleMs;
+
+    private ScheduledExecutorService scheduler;
+    private volatile TsRollupBackfill backfill = TsRollupBackfill.NOT_STARTED;
+    // the heartbeat is not recorded until this node has checked whether the rollups have to be rebuilt
+    private volatile boolean backfillChecked;
+    private final AtomicBoolean backfillRunning = new AtomicBoolean();
+
+    public TsRollupService(TsRollupRepository rollupRepository) {
+        this.rollupRepository = rollupRepository;
+    }
+
+    @PostConstruct
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(ThingsBoardThreadFactory.forName("sql-ts-rollup"));
+        scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        startBackfill();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public void save(List<TsKvEntity> entities, Consumer<List<TsKvEntity>> save) {
+        Set<TsRollupBucket> hours = new LinkedHashSet<>();
+        for (TsKvEntity entity : entities) {
+            hours.add(new TsRollupBucket(entity.getEntityId(), entity.getKey(), Math.floorDiv(entity.getTs(), HOUR) * HOUR));
+        }
+        rollupRepository.saveAndMarkDirty(() -> save.accept(entities), hours);
+    }
+
+    public void save(TsKvColumnarBatch batch, Consumer<TsKvColumnarBatch> save) {
+        Set<TsRollupBucket> hours = new LinkedHashSet<>();
+        for (int i = 0; i < batch.size(); i++) {
+            long hour = Math.floorDiv(batch.getTs(i), HOUR) * HOUR;
+            if (i > 0 && batch.getEntityIdMsb(i) == batch.getEntityIdMsb(i - 1) && batch.getEntityIdLsb(i) == batch.getEntityIdLsb(i - 1)
+                    && batch.getKey(i) == batch.getKey(i - 1) && hour == Math.floorDiv(batch.getTs(i - 1), HOUR) * HOUR) {
+                continue;
+            }
+            hours.add(new TsRollupBucket(batch.getEntityId(i), batch.getKey(i), hour));
+        }
+        rollupRepository.saveAndMarkDirty(() -> save.accept(batch), hours);
+    }
+
+    public void onRemoved(UUID entityId, int key, long startTs, long endTs) {
+        rollupRepository.rebuild(entityId, key, startTs, endTs);
+    }
+
+    /**
+     * Aggregates the interval using the rollups for the complete hours and days and the raw data at the edges.
+     *
+     * @return the aggregated entity, or null if the interval has to be aggregated from the raw data
+     */
+    public TsKvEntity findAggregate(UUID entityId, int key, long startTs, long endTs, Aggregation aggregation) {
+        if (!backfill.covers(entityId)) {
+            return null;
+        }
+        TsRollupRange range = TsRollupRange.split(startTs, endTs);
+        if (range == null) {
+            return null;
+        }
+        return rollupRepository.findAggregate(entityId, key, range).toEntity(aggregation);
+    }
+
+    public void cleanup(long systemTtl) {
+        long expirationTs = Math.floorDiv(System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(systemTtl), DAY) * DAY;
+        int removed = rollupRepository.cleanup(expirationTs);
+        log.info("Total timeseries rollups removed by TTL: [{}]", removed);
+    }
+
+    /**
+     * Records the heartbeat and refreshes the dirty buckets batch by batch until there are no more unclaimed ones or the flush interval is over.
+     * Joins the backfill if it was restarted by the other node.
+     */
+    void flush() {
+        long deadline = System.currentTimeMillis() + flushIntervalMs;
+        try {
+            if (backfillChecked) {
+                TsRollupBackfill current = rollupRepository.heartbeat(System.currentTimeMillis());
+                if (current != null) {
+                    backfill = current;
+                    if (!current.completed()) {
+                        startBackfill();
+                    }
+                }
+            }
+            Map<TsRollupBucket, Long> buckets;
+            do {
+                long ts = System.currentTimeMillis();
+                buckets = rollupRepository.claimDirty(flushBatchSize, ts, ts + CLAIM_TIMEOUT_MS);
+                if (!buckets.isEmpty()) {
+                    rollupRepository.refresh(buckets);
+                    log.debug("Refreshed {} timeseries rollup buckets", buckets.size());
+                }
+            } while (buckets.size() >= flushBatchSize && System.currentTimeMillis() < deadline);
+        } catch (Exception e) {
+            log.warn("Failed to refresh timeseries rollup buckets", e);
+        }
+    }
+
+    private void startBackfill() {
+        if (backfillRunning.compareAndSet(false, true)) {
+            scheduler.execute(this::backfill);
+        }
+    }
+
+    /**
+     * Processes the next batch of entities and schedules itself until all the entities are processed.
+     * While the other node processes its batch, checks again after the flush interval.
+     */
+    void backfill() {
+        TsRollupBackfill result;
+        try {
+            result = rollupRepository.backfill(backfillBatchSize, System.currentTimeMillis(), rebuildAfterIdleMs);
+        } catch (Exception e) {
+            log.warn("Failed to backfill timeseries rollups", e);
+            scheduler.schedule(this::backfill, flushIntervalMs, TimeUnit.MILLISECONDS);
+            return;
+        }
+        // either this node has checked the heartbeat, or the other node holding the backfill is maintaining the rollups
+        backfillChecked = true;
+        if (result == null) {
+            scheduler.schedule(this::backfill, flushIntervalMs, TimeUnit.MILLISECONDS);
+            return;
+        }
+        backfill = result;
+        if (result.completed()) {
+            log.info("Timeseries rollups backfill is completed");
+            backfillRunning.set(false);
+        } else {
+            log.debug("Timeseries rollups are backfilled up to entity [{}]", result.entityId());
+            scheduler.execute(this::backfill);
+        }
+    }
+
+}
@@ -87,6 +87,9 @@ public class JpaSqlTimeseriesDao extends AbstractChunkedAggregationTimeseriesDao
         savePartitionIfNotExist(tsKvEntry.getTs());
         String strKey = tsKvEntry.getKey();
         Integer keyId = keyDictionaryDao.getOrSaveKeyId(strKey);
+        if (tsKvQueue != null) {
+            return tsKvQueue.add(entityId.getId(), keyId, tsKvEntry, dataPointDays);
+        }
         TsKvEntity entity = new TsKvEntity();
         entity.setEntityId(entityId.getId());
         entity.setTs(tsKvEntry.getTs());
@@ -104,6 +107,9 @@ public class JpaSqlTimeseriesDao extends AbstractChunkedAggregationTimeseriesDao
     public void cleanup(long systemTtl) {
         if (systemTtl > 0) {
             cleanupPartitions(systemTtl);
+            if (rollupService != null) {
+                rollupService.cleanup(systemTtl);
+            }
         }
         super.cleanup(systemTtl);
     }
@@ -41,6 +41,7 @@ import org.thingsboard.server.dao.model.sql.AbstractTsKvEntity;
 import org.thingsboard.server.dao.model.sqlts.timescale.ts.TimescaleTsKvEntity;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueParams;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueWrapper;
+import org.thingsboard.server.dao.sql.TbSqlTsKvQueueWrapper;
 import org.thingsboard.server.dao.sqlts.AbstractSqlTimeseriesDao;
 import org.thingsboard.server.dao.sqlts.insert.InsertTsRepository;
 import org.thingsboard.server.dao.timeseries.TimeseriesDao;
@@ -76,6 +77,7 @@ public class TimescaleTimeseriesDao extends AbstractSqlTimeseriesDao implements
     protected KeyDictionaryDao keyDictionaryDao;
 
     protected TbSqlBlockingQueueWrapper<TimescaleTsKvEntity, Void> tsQueue;
+    protected TbSqlTsKvQueueWrapper tsKvQueue;
 
     @PostConstruct
     protected void init() {
@@ -88,6 +90,11 @@ public class TimescaleTimeseriesDao extends AbstractSqlTimeseriesDao implements
                 .batchSortEnabled(batchSortEnabled)
                 .build();
 
+        if (tsColumnarBatchEnabled) {
+            tsKvQueue = new TbSqlTsKvQueueWrapper(tsParams, timescaleBatchThreads, statsFactory);
+            tsKvQueue.init(logExecutor, batch -> insertRepository.saveOrUpdate(batch));
+            return;
+        }
         Function<TimescaleTsKvEntity, Integer> hashcodeFunction = entity -> entity.getEntityId().hashCode();
         tsQueue = new TbSqlBlockingQueueWrapper<>(tsParams, hashcodeFunction, timescaleBatchThreads, statsFactory);
 
@@ -103,6 +110,9 @@ public class TimescaleTimeseriesDao extends AbstractSqlTimeseriesDao implements
         if (tsQueue != null) {
             tsQueue.destroy();
         }
+        if (tsKvQueue != null) {
+            tsKvQueue.destroy();
+        }
     }
 
     @Override
@@ -115,6 +125,9 @@ public class TimescaleTimeseriesDao extends AbstractSqlTimeseriesDao implements
         int dataPointDays = getDataPointDays(tsKvEntry, computeTtl(ttl));
         String strKey = tsKvEntry.getKey();
         Integer keyId = keyDictionaryDao.getOrSaveKeyId(strKey);
+        if (tsKvQueue != null) {
+            return tsKvQueue.add(entityId.getId(), keyId, tsKvEntry, dataPointDays);
+        }
         TimescaleTsKvEntity entity = new TimescaleTsKvEntity();
         entity.setEntityId(entityId.getId());
         entity.setTs(tsKvEntry.getTs());
@@ -159,6 +172,8 @@ public class TimescaleTimeseriesDao extends AbstractSqlTimeseriesDao implements
             long timeBucket = query.getInterval();
             List<Optional<? extends AbstractTsKvEntity>> data = findAllAndAggregateAsync(entityId, query.getKey(), startTs, endTs, timeBucket, query.getAggregation());
             return getReadTsKvQueryResultFuture(query, Futures.immediateFuture(data));
+        } else if (groupedAggregationEnabled) {
+            return findAllGroupedAsync(entityId, keyDictionaryDao.getOrSaveKeyId(query.getKey()), query);
         } else {
             //TODO: @dshvaika improve according to native capabilities of Timescale.
             long startPeriod = query.getStartTs();
@@ -15,21 +15,43 @@
  */
 package org.thingsboard.server.dao.tenant;
 
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.MessageLite;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.stereotype.Service;
+import org.thingsboard.common.util.JacksonUtil;
 import org.thingsboard.server.cache.CacheSpecsMap;
 import org.thingsboard.server.cache.RedisTbTransactionalCache;
 import org.thingsboard.server.cache.TBRedisCacheConfiguration;
-import org.thingsboard.server.cache.TbJsonRedisSerializer;
+import org.thingsboard.server.cache.TbProtoRedisSerializer;
 import org.thingsboard.server.common.data.CacheConstants;
 import org.thingsboard.server.common.data.TenantProfile;
+import org.thingsboard.server.common.util.ProtoUtils;
+import org.thingsboard.server.gen.transport.TransportProtos;
+
+import java.io.IOException;
 
 @ConditionalOnProperty(prefix = "cache", value = "type", havingValue = "redis")
 @Service("TenantProfileCache")
 public class TenantProfileRedisCache extends RedisTbTransactionalCache<TenantProfileCacheKey, TenantProfile> {
 
     public TenantProfileRedisCache(TBRedisCacheConfiguration configuration, CacheSpecsMap cacheSpecsMap, RedisConnectionFactory connectionFactory) {
-        super(CacheConstants.TENANT_PROFILE_CACHE, cacheSpecsMap, connectionFactory, configuration, new TbJsonRedisSerializer<>(TenantProfile.class));
+        super(CacheConstants.TENANT_PROFILE_CACHE, cacheSpecsMap, connectionFactory, configuration, new TbProtoRedisSerializer<TenantProfileCacheKey, TenantProfile>(1) {
+            @Override
+            protected MessageLite toProto(TenantProfile value) {
+                return ProtoUtils.toProto(value);
+            }
+
+            @Override
+            protected TenantProfile fromProto(TenantProfileCacheKey key, int formatVersion, CodedInputStream input) throws IOException {
+                return ProtoUtils.fromProto(TransportProtos.TenantProfileProto.parseFrom(input));
+            }
+
+            @Override
+            protected TenantProfile fromLegacy(TenantProfileCacheKey key, byte[] bytes) throws IOException {
+                return JacksonUtil.fromBytes(bytes, TenantProfile.class);
+            }
+        });
     }
 }
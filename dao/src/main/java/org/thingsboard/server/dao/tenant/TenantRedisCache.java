@@ -15,22 +15,44 @@
  */
 package org.thingsboard.server.dao.tenant;
 
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.MessageLite;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.stereotype.Service;
+import org.thingsboard.common.util.JacksonUtil;
 import org.thingsboard.server.cache.CacheSpecsMap;
 import org.thingsboard.server.cache.RedisTbTransactionalCache;
 import org.thingsboard.server.cache.TBRedisCacheConfiguration;
-import org.thingsboard.server.cache.TbJsonRedisSerializer;
+import org.thingsboard.server.cache.TbProtoRedisSerializer;
 import org.thingsboard.server.common.data.CacheConstants;
 import org.thingsboard.server.common.data.Tenant;
 import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.util.ProtoUtils;
+import org.thingsboard.server.gen.transport.TransportProtos;
+
+import java.io.IOException;
 
 @ConditionalOnProperty(prefix = "cache", value = "type", havingValue = "redis")
 @Service("TenantCache")
 public class TenantRedisCache extends RedisTbTransactionalCache<TenantId, Tenant> {
 
     public TenantRedisCache(TBRedisCacheConfiguration configuration, CacheSpecsMap cacheSpecsMap, RedisConnectionFactory connectionFactory) {
-        super(CacheConstants.TENANTS_CACHE, cacheSpecsMap, connectionFactory, configuration, new TbJsonRedisSerializer<>(Tenant.class));
+        super(CacheConstants.TENANTS_CACHE, cacheSpecsMap, connectionFactory, configuration, new TbProtoRedisSerializer<TenantId, Tenant>(1) {
+            @Override
+            protected MessageLite toProto(Tenant value) {
+                return ProtoUtils.toProto(value);
+            }
+
+            @Override
+            protected Tenant fromProto(TenantId key, int formatVersion, CodedInputStream input) throws IOException {
+                return ProtoUtils.fromProto(TransportProtos.TenantProto.parseFrom(input));
+            }
+
+            @Override
+            protected Tenant fromLegacy(TenantId key, byte[] bytes) throws IOException {
+                return JacksonUtil.fromBytes(bytes, Tenant.class);
+            }
+        });
     }
 }
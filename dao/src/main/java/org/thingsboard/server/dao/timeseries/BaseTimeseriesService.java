@@ -46,7 +46,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static org.thingsboard.server.common.data.StringUtils.isBlank;
@@ -60,7 +62,6 @@ import static org.thingsboard.server.common.data.StringUtils.isBlank;
 public class BaseTimeseriesService implements TimeseriesService {
 
     private static final int INSERTS_PER_ENTRY = 3;
-    private static final int INSERTS_PER_ENTRY_WITHOUT_LATEST = 2;
     private static final int DELETES_PER_ENTRY = INSERTS_PER_ENTRY;
     public static final Function<List<Integer>, Integer> SUM_ALL_INTEGERS = new Function<>() {
         @Override
@@ -80,6 +81,9 @@ public class BaseTimeseriesService implements TimeseriesService {
     @Value("${database.ts_max_intervals}")
     private long maxTsIntervals;
 
+    @Value("${database.ts.export_fetch_size:1000}")
+    private int exportFetchSize;
+
     @Autowired
     private TimeseriesDao timeseriesDao;
 
@@ -89,6 +93,9 @@ public class BaseTimeseriesService implements TimeseriesService {
     @Autowired
     private EntityViewService entityViewService;
 
+    @Autowired
+    private TsWriteFilter tsWriteFilter;
+
     @Override
     public ListenableFuture<List<ReadTsKvQueryResult>> findAllByQueries(TenantId tenantId, EntityId entityId, List<ReadTsKvQuery> queries) {
         validate(entityId);
@@ -117,6 +124,30 @@ public class BaseTimeseriesService implements TimeseriesService {
                 }, MoreExecutors.directExecutor());
     }
 
+    @Override
+    public void export(TenantId tenantId, EntityId entityId, List<String> keys, long startTs, long endTs, Consumer<TsKvEntry> consumer) {
+        validate(entityId);
+        keys.forEach(key -> Validator.validateString(key, k -> "Incorrect key " + k));
+        if (startTs > endTs) {
+            throw new IncorrectParameterException("Incorrect time range: start ts is greater than end ts");
+        }
+        if (entityId.getEntityType().equals(EntityType.ENTITY_VIEW)) {
+            EntityView entityView = entityViewService.findEntityViewById(tenantId, (EntityViewId) entityId);
+            List<String> viewKeys = entityView.getKeys() != null && entityView.getKeys().getTimeseries() != null ?
+                    entityView.getKeys().getTimeseries() : Collections.emptyList();
+            List<String> filteredKeys = keys.stream().filter(key -> viewKeys.isEmpty() || viewKeys.contains(key)).collect(Collectors.toList());
+            long viewStartTs = entityView.getStartTimeMs() != 0 ? Math.max(startTs, entityView.getStartTimeMs()) : startTs;
+            long viewEndTs = entityView.getEndTimeMs() != 0 ? Math.min(endTs, entityView.getEndTimeMs()) : endTs;
+            if (!filteredKeys.isEmpty() && viewStartTs < viewEndTs) {
+                timeseriesDao.export(tenantId, entityView.getEntityId(), filteredKeys, viewStartTs, viewEndTs, exportFetchSize, consumer);
+            }
+            return;
+        }
+        if (!keys.isEmpty()) {
+            timeseriesDao.export(tenantId, entityId, keys, startTs, endTs, exportFetchSize, consumer);
+        }
+    }
+
     @Override
     public ListenableFuture<Optional<TsKvEntry>> findLatest(TenantId tenantId, EntityId entityId, String key) {
         validate(entityId);
@@ -126,12 +157,20 @@ public class BaseTimeseriesService implements TimeseriesService {
     @Override
     public ListenableFuture<List<TsKvEntry>> findLatest(TenantId tenantId, EntityId entityId, Collection<String> keys) {
         validate(entityId);
-        List<ListenableFuture<TsKvEntry>> futures = new ArrayList<>(keys.size());
         keys.forEach(key -> Validator.validateString(key, k -> "Incorrect key " + k));
-        for (String key : keys) {
-            futures.add(timeseriesLatestDao.findLatest(tenantId, entityId, key));
+        return timeseriesLatestDao.findLatest(tenantId, entityId, keys);
+    }
+
+    @Override
+    public ListenableFuture<Map<EntityId, List<TsKvEntry>>> findLatestByEntityIds(TenantId tenantId, Collection<EntityId> entityIds, Collection<String> keys) {
+        for (EntityId entityId : entityIds) {
+            validate(entityId);
         }
-        return Futures.allAsList(futures);
+        keys.forEach(key -> Validator.validateString(key, k -> "Incorrect key " + k));
+        if (entityIds.isEmpty() || keys.isEmpty()) {
+            return Futures.immediateFuture(Collections.emptyMap());
+        }
+        return timeseriesLatestDao.findLatestByEntityIds(tenantId, entityIds, keys);
     }
 
     @Override
@@ -159,7 +198,10 @@ public class BaseTimeseriesService implements TimeseriesService {
     public ListenableFuture<Integer> save(TenantId tenantId, EntityId entityId, TsKvEntry tsKvEntry) {
         validate(entityId);
         List<ListenableFuture<Integer>> futures = new ArrayList<>(INSERTS_PER_ENTRY);
-        saveAndRegisterFutures(tenantId, futures, entityId, tsKvEntry, 0L);
+        for (TsKvEntry filtered : tsWriteFilter.filter(tenantId, entityId, Collections.singletonList(tsKvEntry))) {
+            doSaveAndRegisterFuturesFor(tenantId, futures, entityId, filtered, 0L);
+        }
+        futures.add(Futures.transform(timeseriesLatestDao.saveLatest(tenantId, entityId, tsKvEntry), v -> 0, MoreExecutors.directExecutor()));
         return Futures.transform(Futures.allAsList(futures), SUM_ALL_INTEGERS, MoreExecutors.directExecutor());
     }
 
@@ -174,13 +216,15 @@ public class BaseTimeseriesService implements TimeseriesService {
     }
 
     private ListenableFuture<Integer> doSave(TenantId tenantId, EntityId entityId, List<TsKvEntry> tsKvEntries, long ttl, boolean saveLatest) {
-        int inserts = saveLatest ? INSERTS_PER_ENTRY : INSERTS_PER_ENTRY_WITHOUT_LATEST;
-        List<ListenableFuture<Integer>> futures = new ArrayList<>(tsKvEntries.size() * inserts);
-        for (TsKvEntry tsKvEntry : tsKvEntries) {
-            if (saveLatest) {
-                saveAndRegisterFutures(tenantId, futures, entityId, tsKvEntry, ttl);
-            } else {
-                saveWithoutLatestAndRegisterFutures(tenantId, futures, entityId, tsKvEntry, ttl);
+        checkNotEntityView(entityId);
+        List<ListenableFuture<Integer>> futures = new ArrayList<>(saveLatest ? tsKvEntries.size() + 1 : 1);
+        List<TsKvEntry> filtered = tsWriteFilter.filter(tenantId, entityId, tsKvEntries);
+        if (!filtered.isEmpty()) {
+            futures.add(timeseriesDao.saveAll(tenantId, entityId, filtered, ttl));
+        }
+        if (saveLatest) {
+            for (TsKvEntry tsKvEntry : tsKvEntries) {
+                futures.add(Futures.transform(timeseriesLatestDao.saveLatest(tenantId, entityId, tsKvEntry), v -> 0, MoreExecutors.directExecutor()));
             }
         }
         return Futures.transform(Futures.allAsList(futures), SUM_ALL_INTEGERS, MoreExecutors.directExecutor());
@@ -195,21 +239,16 @@ public class BaseTimeseriesService implements TimeseriesService {
         return Futures.allAsList(futures);
     }
 
-    private void saveAndRegisterFutures(TenantId tenantId, List<ListenableFuture<Integer>> futures, EntityId entityId, TsKvEntry tsKvEntry, long ttl) {
-        doSaveAndRegisterFuturesFor(tenantId, futures, entityId, tsKvEntry, ttl);
-        futures.add(Futures.transform(timeseriesLatestDao.saveLatest(tenantId, entityId, tsKvEntry), v -> 0, MoreExecutors.directExecutor()));
-    }
-
-    private void saveWithoutLatestAndRegisterFutures(TenantId tenantId, List<ListenableFuture<Integer>> futures, EntityId entityId, TsKvEntry tsKvEntry, long ttl) {
-        doSaveAndRegisterFuturesFor(tenantId, futures, entityId, tsKvEntry, ttl);
+    private void doSaveAndRegisterFuturesFor(TenantId tenantId, List<ListenableFuture<Integer>> futures, EntityId entityId, TsKvEntry tsKvEntry, long ttl) {
+        checkNotEntityView(entityId);
+        futures.add(timeseriesDao.savePartition(tenantId, entityId, tsKvEntry.getTs(), tsKvEntry.getKey()));
+        futures.add(timeseriesDao.save(tenantId, entityId, tsKvEntry, ttl));
     }
 
-    private void doSaveAndRegisterFuturesFor(TenantId tenantId, List<ListenableFuture<Integer>> futures, EntityId entityId, TsKvEntry tsKvEntry, long ttl) {
+    private static void checkNotEntityView(EntityId entityId) {
         if (entityId.getEntityType().equals(EntityType.ENTITY_VIEW)) {
             throw new IncorrectParameterException("Telemetry data can't be stored for entity view. Read only");
         }
-        futures.add(timeseriesDao.savePartition(tenantId, entityId, tsKvEntry.getTs(), tsKvEntry.getKey()));
-        futures.add(timeseriesDao.save(tenantId, entityId, tsKvEntry, ttl));
     }
 
     private List<ReadTsKvQuery> updateQueriesForEntityView(EntityView entityView, List<ReadTsKvQuery> queries) {
@@ -16,13 +16,18 @@
 package org.thingsboard.server.dao.timeseries;
 
 import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
 import com.datastax.oss.driver.api.core.cql.BoundStatement;
 import com.datastax.oss.driver.api.core.cql.BoundStatementBuilder;
 import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
 import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.Statement;
 import com.datastax.oss.driver.api.querybuilder.QueryBuilder;
 import com.datastax.oss.driver.api.querybuilder.select.Select;
 import com.google.common.base.Function;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.util.concurrent.AsyncFunction;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
@@ -64,12 +69,16 @@ import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongUnaryOperator;
 import java.util.stream.Collectors;
 
 import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.literal;
@@ -122,6 +131,12 @@ public class CassandraBaseTimeseriesDao extends AbstractCassandraBaseTimeseriesD
     @Value("${cassandra.query.set_null_values_enabled}")
     private boolean setNullValuesEnabled;
 
+    @Value("${cassandra.query.ts_batch_write_enabled:false}")
+    private boolean batchWriteEnabled;
+
+    @Value("${cassandra.query.ts_batch_write_max_size:100}")
+    private int batchWriteMaxSize;
+
     private NoSqlTsPartitionDate tsFormat;
 
     private PreparedStatement partitionInsertStmt;
@@ -171,9 +186,70 @@ public class CassandraBaseTimeseriesDao extends AbstractCassandraBaseTimeseriesD
 
     @Override
     public ListenableFuture<Integer> save(TenantId tenantId, EntityId entityId, TsKvEntry tsKvEntry, long ttl) {
-        List<ListenableFuture<Void>> futures = new ArrayList<>();
         ttl = computeTtl(ttl);
-        int dataPointDays = tsKvEntry.getDataPoints() * Math.max(1, (int) (ttl / SECONDS_IN_DAY));
+        int dataPointDays = toDataPointDays(tsKvEntry, ttl);
+        BoundStatement stmt = bindSave(entityId, tsKvEntry, ttl);
+        return getFuture(executeAsyncWrite(tenantId, stmt), rs -> dataPointDays);
+    }
+
+    /**
+     * Writes all values of the same (key, partition) as one unlogged batch. Such a batch targets a single
+     * Cassandra partition, so it is routed by the token of its first statement and takes one rate limiter permit.
+     * The partition record is saved once per (key, partition) instead of once per entry.
+     */
+    @Override
+    public ListenableFuture<Integer> saveAll(TenantId tenantId, EntityId entityId, List<TsKvEntry> tsKvEntries, long ttl) {
+        if (!batchWriteEnabled || tsKvEntries.size() < 2) {
+            return TimeseriesDao.super.saveAll(tenantId, entityId, tsKvEntries, ttl);
+        }
+        long computedTtl = computeTtl(ttl);
+        List<List<TsKvEntry>> batches = groupByPartition(tsKvEntries, this::toPartitionTs, batchWriteMaxSize);
+        List<ListenableFuture<Integer>> futures = new ArrayList<>(batches.size() * 2);
+        TsKvEntry prev = null;
+        for (List<TsKvEntry> batch : batches) {
+            TsKvEntry first = batch.get(0);
+            if (prev == null || !prev.getKey().equals(first.getKey()) || toPartitionTs(prev.getTs()) != toPartitionTs(first.getTs())) {
+                futures.add(savePartition(tenantId, entityId, first.getTs(), first.getKey()));
+            }
+            prev = first;
+            int dataPointDays = 0;
+            List<BatchableStatement<?>> stmts = new ArrayList<>(batch.size());
+            for (TsKvEntry tsKvEntry : batch) {
+                dataPointDays += toDataPointDays(tsKvEntry, computedTtl);
+                stmts.add(bindSave(entityId, tsKvEntry, computedTtl));
+            }
+            Statement<?> stmt = stmts.size() == 1 ? stmts.get(0) : BatchStatement.newInstance(DefaultBatchType.UNLOGGED, stmts);
+            int batchDataPointDays = dataPointDays;
+            futures.add(getFuture(executeAsyncWrite(tenantId, stmt), rs -> batchDataPointDays));
+        }
+        return Futures.transform(Futures.allAsList(futures), BaseTimeseriesService.SUM_ALL_INTEGERS, MoreExecutors.directExecutor());
+    }
+
+    static List<List<TsKvEntry>> groupByPartition(List<TsKvEntry> tsKvEntries, LongUnaryOperator toPartitionTs, int maxBatchSize) {
+        List<TsKvEntry> sorted = new ArrayList<>(tsKvEntries);
+        sorted.sort(Comparator.comparing(TsKvEntry::getKey).thenComparingLong(TsKvEntry::getTs));
+        List<List<TsKvEntry>> batches = new ArrayList<>();
+        List<TsKvEntry> batch = null;
+        String batchKey = null;
+        long batchPartition = 0;
+        for (TsKvEntry tsKvEntry : sorted) {
+            long partition = toPartitionTs.applyAsLong(tsKvEntry.getTs());
+            if (batch == null || batch.size() >= maxBatchSize || partition != batchPartition || !tsKvEntry.getKey().equals(batchKey)) {
+                batch = new ArrayList<>();
+                batches.add(batch);
+                batchKey = tsKvEntry.getKey();
+                batchPartition = partition;
+            }
+            batch.add(tsKvEntry);
+        }
+        return batches;
+    }
+
+    private static int toDataPointDays(TsKvEntry tsKvEntry, long ttl) {
+        return tsKvEntry.getDataPoints() * Math.max(1, (int) (ttl / SECONDS_IN_DAY));
+    }
+
+    private BoundStatement bindSave(EntityId entityId, TsKvEntry tsKvEntry, long ttl) {
         long partition = toPartitionTs(tsKvEntry.getTs());
         String entityType = entityId.getEntityType().name();
         UUID entityIdId = entityId.getId();
@@ -206,9 +282,7 @@ public class CassandraBaseTimeseriesDao extends AbstractCassandraBaseTimeseriesD
                 stmtBuilder.setInt(6, (int) ttl);
             }
         }
-        BoundStatement stmt = stmtBuilder.build();
-        futures.add(getFuture(executeAsyncWrite(tenantId, stmt), rs -> null));
-        return Futures.transform(Futures.allAsList(futures), result -> dataPointDays, MoreExecutors.directExecutor());
+        return stmtBuilder.build();
     }
 
     @Override
@@ -339,6 +413,22 @@ public class CassandraBaseTimeseriesDao extends AbstractCassandraBaseTimeseriesD
         }, MoreExecutors.directExecutor());
     }
 
+    /**
+     * Reads the partitions of every key one by one in pages of the fetch size, requesting the next page
+     * with the paging state of the previous one, and merges the keys by ts.
+     */
+    @Override
+    public void export(TenantId tenantId, EntityId entityId, List<String> keys, long startTs, long endTs, int fetchSize, Consumer<TsKvEntry> consumer) {
+        List<Iterator<TsKvEntry>> iterators = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            ReadTsKvQuery query = new BaseReadTsKvQuery(key, startTs, endTs, fetchSize, ASC_ORDER);
+            List<Long> partitions = new ArrayList<>(Futures.getUnchecked(getPartitionsFuture(tenantId, query, entityId, toPartitionTs(startTs), toPartitionTs(endTs))));
+            Collections.sort(partitions);
+            iterators.add(new PartitionPagesIterator(tenantId, entityId, key, startTs, endTs, fetchSize, partitions.iterator()));
+        }
+        TsKvPageIterator.mergeByTs(iterators).forEachRemaining(consumer);
+    }
+
     long toPartitionTs(long ts) {
         LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(ts), ZoneOffset.UTC);
         return tsFormat.truncatedTo(time).toInstant(ZoneOffset.UTC).toEpochMilli();
@@ -798,4 +888,56 @@ public class CassandraBaseTimeseriesDao extends AbstractCassandraBaseTimeseriesD
         }
         return fetchStmts;
     }
+
+    private class PartitionPagesIterator extends AbstractIterator<TsKvEntry> {
+
+        private final TenantId tenantId;
+        private final EntityId entityId;
+        private final String key;
+        private final long startTs;
+        private final long endTs;
+        private final int fetchSize;
+        private final Iterator<Long> partitions;
+
+        private Statement<?> stmt;
+        private TbResultSet resultSet;
+        private Iterator<Row> rows = Collections.emptyIterator();
+
+        private PartitionPagesIterator(TenantId tenantId, EntityId entityId, String key, long startTs, long endTs, int fetchSize, Iterator<Long> partitions) {
+            this.tenantId = tenantId;
+            this.entityId = entityId;
+            this.key = key;
+            this.startTs = startTs;
+            this.endTs = endTs;
+            this.fetchSize = fetchSize;
+            this.partitions = partitions;
+        }
+
+        @Override
+        protected TsKvEntry computeNext() {
+            while (!rows.hasNext()) {
+                if (resultSet != null && resultSet.hasMorePages()) {
+                    stmt = stmt.setPagingState(resultSet.getExecutionInfo().getPagingState());
+                } else if (partitions.hasNext()) {
+                    stmt = new BoundStatementBuilder(getFetchStmt(Aggregation.NONE, ASC_ORDER).bind())
+                            .setString(0, entityId.getEntityType().name())
+                            .setUuid(1, entityId.getId())
+                            .setString(2, key)
+                            .setLong(3, partitions.next())
+                            .setLong(4, startTs)
+                            .setLong(5, endTs)
+                            .setInt(6, Integer.MAX_VALUE)
+                            .setPageSize(fetchSize)
+                            .build();
+                } else {
+                    return endOfData();
+                }
+                resultSet = Futures.getUnchecked(executeAsyncRead(tenantId, stmt));
+                rows = resultSet.currentPage().iterator();
+            }
+            return convertResultToTsKvEntry(key, rows.next());
+        }
+
+    }
+
 }
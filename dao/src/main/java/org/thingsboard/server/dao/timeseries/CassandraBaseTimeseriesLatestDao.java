@@ -41,8 +41,12 @@ import org.thingsboard.server.dao.nosql.TbResultSet;
 import org.thingsboard.server.dao.sqlts.AggregationTimeseriesDao;
 import org.thingsboard.server.dao.util.NoSqlTsLatestDao;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.literal;
@@ -58,6 +62,7 @@ public class CassandraBaseTimeseriesLatestDao extends AbstractCassandraBaseTimes
     private PreparedStatement latestInsertStmt;
     private PreparedStatement findLatestStmt;
     private PreparedStatement findAllLatestStmt;
+    private PreparedStatement findLatestByKeysStmt;
 
     @Override
     public ListenableFuture<Optional<TsKvEntry>> findLatestOpt(TenantId tenantId, EntityId entityId, String key) {
@@ -89,6 +94,31 @@ public class CassandraBaseTimeseriesLatestDao extends AbstractCassandraBaseTimes
         return getFutureAsync(executeAsyncRead(tenantId, stmt), rs -> convertAsyncResultSetToTsKvEntryList(rs));
     }
 
+    @Override
+    public ListenableFuture<Map<EntityId, List<TsKvEntry>>> findLatestByEntityIds(TenantId tenantId, Collection<EntityId> entityIds, Collection<String> keys) {
+        List<String> keyList = new ArrayList<>(keys);
+        List<EntityId> entityIdList = new ArrayList<>(entityIds);
+        List<ListenableFuture<List<TsKvEntry>>> futures = new ArrayList<>(entityIdList.size());
+        for (EntityId entityId : entityIdList) {
+            BoundStatementBuilder stmtBuilder = new BoundStatementBuilder(getFindLatestByKeysStmt().bind());
+            stmtBuilder.setString(0, entityId.getEntityType().name());
+            stmtBuilder.setUuid(1, entityId.getId());
+            stmtBuilder.setList(2, keyList, String.class);
+            BoundStatement stmt = stmtBuilder.build();
+            log.debug(GENERATED_QUERY_FOR_ENTITY_TYPE_AND_ENTITY_ID, stmt, entityId.getEntityType(), entityId.getId());
+            futures.add(getFutureAsync(executeAsyncRead(tenantId, stmt), this::convertAsyncResultSetToTsKvEntryList));
+        }
+        return Futures.transform(Futures.allAsList(futures), results -> {
+            Map<EntityId, List<TsKvEntry>> result = new HashMap<>();
+            for (int i = 0; i < results.size(); i++) {
+                if (!results.get(i).isEmpty()) {
+                    result.put(entityIdList.get(i), results.get(i));
+                }
+            }
+            return result;
+        }, MoreExecutors.directExecutor());
+    }
+
     @Override
     public List<String> findAllKeysByDeviceProfileId(TenantId tenantId, DeviceProfileId deviceProfileId) {
         return Collections.emptyList();
@@ -218,6 +248,24 @@ public class CassandraBaseTimeseriesLatestDao extends AbstractCassandraBaseTimes
         return findLatestStmt;
     }
 
+    private PreparedStatement getFindLatestByKeysStmt() {
+        if (findLatestByKeysStmt == null) {
+            findLatestByKeysStmt = prepare(SELECT_PREFIX +
+                    ModelConstants.KEY_COLUMN + "," +
+                    ModelConstants.TS_COLUMN + "," +
+                    ModelConstants.STRING_VALUE_COLUMN + "," +
+                    ModelConstants.BOOLEAN_VALUE_COLUMN + "," +
+                    ModelConstants.LONG_VALUE_COLUMN + "," +
+                    ModelConstants.DOUBLE_VALUE_COLUMN + "," +
+                    ModelConstants.JSON_VALUE_COLUMN + " " +
+                    "FROM " + ModelConstants.TS_KV_LATEST_CF + " " +
+                    "WHERE " + ModelConstants.ENTITY_TYPE_COLUMN + EQUALS_PARAM +
+                    "AND " + ModelConstants.ENTITY_ID_COLUMN + EQUALS_PARAM +
+                    "AND " + ModelConstants.KEY_COLUMN + " IN ?");
+        }
+        return findLatestByKeysStmt;
+    }
+
     private PreparedStatement getFindAllLatestStmt() {
         if (findAllLatestStmt == null) {
             findAllLatestStmt = prepare(SELECT_PREFIX +
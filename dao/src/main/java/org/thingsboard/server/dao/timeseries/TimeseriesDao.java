@@ -15,7 +15,10 @@
  */
 package org.thingsboard.server.dao.timeseries;
 
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.thingsboard.server.common.data.kv.BaseReadTsKvQuery;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.kv.DeleteTsKvQuery;
@@ -23,7 +26,11 @@ import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
 import org.thingsboard.server.common.data.kv.ReadTsKvQueryResult;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * @author Andrew Shvayka
@@ -36,6 +43,36 @@ public interface TimeseriesDao {
 
     ListenableFuture<Integer> savePartition(TenantId tenantId, EntityId entityId, long tsKvEntryTs, String key);
 
+    /**
+     * Saves the entries together with their partitions. Implementations may combine the writes of
+     * the same entity into fewer requests; the default issues the partition and the value insert per entry.
+     */
+    default ListenableFuture<Integer> saveAll(TenantId tenantId, EntityId entityId, List<TsKvEntry> tsKvEntries, long ttl) {
+        List<ListenableFuture<Integer>> futures = new ArrayList<>(tsKvEntries.size() * 2);
+        for (TsKvEntry tsKvEntry : tsKvEntries) {
+            futures.add(savePartition(tenantId, entityId, tsKvEntry.getTs(), tsKvEntry.getKey()));
+            futures.add(save(tenantId, entityId, tsKvEntry, ttl));
+        }
+        return Futures.transform(Futures.allAsList(futures), BaseTimeseriesService.SUM_ALL_INTEGERS, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Passes the raw records of the keys in the time range to the consumer ordered by ts, blocking until all the records are read.
+     * Implementations read the records in chunks of the fetch size, so the memory use does not depend on the length of the range;
+     * the default pages through {@link #findAllAsync} for every key.
+     */
+    default void export(TenantId tenantId, EntityId entityId, List<String> keys, long startTs, long endTs, int fetchSize, Consumer<TsKvEntry> consumer) {
+        List<Iterator<TsKvEntry>> iterators = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            iterators.add(new TsKvPageIterator(from -> {
+                List<ReadTsKvQueryResult> results = Futures.getUnchecked(findAllAsync(tenantId, entityId,
+                        List.of(new BaseReadTsKvQuery(key, from, endTs, fetchSize, "ASC"))));
+                return results == null || results.isEmpty() ? Collections.emptyList() : results.get(0).getData();
+            }, fetchSize, startTs, endTs));
+        }
+        TsKvPageIterator.mergeByTs(iterators).forEachRemaining(consumer);
+    }
+
     ListenableFuture<Void> remove(TenantId tenantId, EntityId entityId, DeleteTsKvQuery query);
 
     void cleanup(long systemTtl);
@@ -0,0 +1,78 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.timeseries;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * Iterates over the records of a single key in the ascending order of ts, loading the next page of the records
+ * starting after the last ts of the previous page.
+ */
+public class TsKvPageIterator extends AbstractIterator<TsKvEntry> {
+
+    public static final Comparator<TsKvEntry> TS_ORDER = Comparator.comparingLong(TsKvEntry::getTs).thenComparing(TsKvEntry::getKey);
+
+    private final LongFunction<List<TsKvEntry>> pageLoader;
+    private final int pageSize;
+    private final long endTs;
+
+    private long nextStartTs;
+    private Iterator<TsKvEntry> page = Collections.emptyIterator();
+    private boolean lastPage;
+
+    /**
+     * @param pageLoader returns up to pageSize records with ts from the argument inclusive up to endTs ordered by ts
+     */
+    public TsKvPageIterator(LongFunction<List<TsKvEntry>> pageLoader, int pageSize, long startTs, long endTs) {
+        this.pageLoader = pageLoader;
+        this.pageSize = pageSize;
+        this.nextStartTs = startTs;
+        this.endTs = endTs;
+    }
+
+    @Override
+    protected TsKvEntry computeNext() {
+        if (!page.hasNext()) {
+            if (lastPage || nextStartTs >= endTs) {
+                return endOfData();
+            }
+            List<TsKvEntry> entries = pageLoader.apply(nextStartTs);
+            if (entries == null || entries.isEmpty()) {
+                return endOfData();
+            }
+            lastPage = entries.size() < pageSize;
+            nextStartTs = entries.get(entries.size() - 1).getTs() + 1;
+            page = entries.iterator();
+        }
+        return page.next();
+    }
+
+    /**
+     * Merges the iterators of the different keys into a single iterator ordered by ts, keeping only the current record of every key.
+     */
+    public static Iterator<TsKvEntry> mergeByTs(List<? extends Iterator<TsKvEntry>> iterators) {
+        return Iterators.mergeSorted(iterators, TS_ORDER);
+    }
+
+}
@@ -15,40 +15,43 @@
  */
 package org.thingsboard.server.dao.timeseries;
 
-import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.MessageLite;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.serializer.SerializationException;
 import org.springframework.stereotype.Service;
 import org.thingsboard.server.cache.CacheSpecsMap;
 import org.thingsboard.server.cache.TBRedisCacheConfiguration;
-import org.thingsboard.server.cache.TbRedisSerializer;
+import org.thingsboard.server.cache.TbProtoRedisSerializer;
 import org.thingsboard.server.cache.VersionedRedisTbCache;
 import org.thingsboard.server.common.data.CacheConstants;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
 import org.thingsboard.server.common.util.KvProtoUtil;
 import org.thingsboard.server.gen.transport.TransportProtos;
 
+import java.io.IOException;
+
 @ConditionalOnProperty(prefix = "cache", value = "type", havingValue = "redis")
 @Service("TsLatestCache")
 @Slf4j
 public class TsLatestRedisCache extends VersionedRedisTbCache<TsLatestCacheKey, TsKvEntry> {
 
     public TsLatestRedisCache(TBRedisCacheConfiguration configuration, CacheSpecsMap cacheSpecsMap, RedisConnectionFactory connectionFactory) {
-        super(CacheConstants.TS_LATEST_CACHE, cacheSpecsMap, connectionFactory, configuration, new TbRedisSerializer<>() {
+        super(CacheConstants.TS_LATEST_CACHE, cacheSpecsMap, connectionFactory, configuration, new TbProtoRedisSerializer<TsLatestCacheKey, TsKvEntry>(1) {
+            @Override
+            protected MessageLite toProto(TsKvEntry value) {
+                return KvProtoUtil.toKeylessTsKvProto(value.getTs(), value, value.getVersion());
+            }
+
             @Override
-            public byte[] serialize(TsKvEntry tsKvEntry) throws SerializationException {
-                return KvProtoUtil.toTsKvProto(tsKvEntry.getTs(), tsKvEntry, tsKvEntry.getVersion()).toByteArray();
+            protected TsKvEntry fromProto(TsLatestCacheKey key, int formatVersion, CodedInputStream input) throws IOException {
+                return KvProtoUtil.fromTsKvProto(key.getKey(), TransportProtos.TsKvProto.parseFrom(input));
             }
 
             @Override
-            public TsKvEntry deserialize(TsLatestCacheKey key, byte[] bytes) throws SerializationException {
-                try {
-                    return KvProtoUtil.fromTsKvProto(TransportProtos.TsKvProto.parseFrom(bytes));
-                } catch (InvalidProtocolBufferException e) {
-                    throw new SerializationException(e.getMessage());
-                }
+            protected TsKvEntry fromLegacy(TsLatestCacheKey key, byte[] bytes) throws IOException {
+                return KvProtoUtil.fromTsKvProto(TransportProtos.TsKvProto.parseFrom(bytes));
             }
         });
     }
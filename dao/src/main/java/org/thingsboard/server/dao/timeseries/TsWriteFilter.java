@@ -0,0 +1,107 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.timeseries;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.thingsboard.server.common.data.Device;
+import org.thingsboard.server.common.data.DeviceProfile;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.device.profile.DeviceProfileData;
+import org.thingsboard.server.common.data.device.profile.TelemetryWriteFilter;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.dao.device.DeviceProfileService;
+import org.thingsboard.server.dao.device.DeviceService;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drops the time series records of devices that do not carry new information according to the telemetry write filter
+ * of the device profile. The latest values are not filtered.
+ * <p>
+ * A point held back by the swinging door compression is stored when the next point of the key is received,
+ * so the last held point of a key is not stored if the device stops sending it or its state is evicted.
+ * Use the max interval of the filter to bound the gap.
+ */
+@Component
+@Slf4j
+public class TsWriteFilter {
+
+    @Value("${database.ts.write_filter.enabled:false}")
+    private boolean enabled;
+
+    @Value("${database.ts.write_filter.max_entities:100000}")
+    private long maxEntities;
+
+    @Value("${database.ts.write_filter.state_ttl:86400}")
+    private long stateTtlSec;
+
+    @Lazy
+    @Autowired
+    private DeviceService deviceService;
+
+    @Lazy
+    @Autowired
+    private DeviceProfileService deviceProfileService;
+
+    private Cache<UUID, TsWriteFilterState> states;
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            states = Caffeine.newBuilder()
+                    .maximumSize(maxEntities)
+                    .expireAfterAccess(stateTtlSec, TimeUnit.SECONDS)
+                    .build();
+        }
+    }
+
+    public List<TsKvEntry> filter(TenantId tenantId, EntityId entityId, List<TsKvEntry> tsKvEntries) {
+        if (!enabled || !EntityType.DEVICE.equals(entityId.getEntityType()) || tsKvEntries.isEmpty()) {
+            return tsKvEntries;
+        }
+        TelemetryWriteFilter filter = findFilter(tenantId, (DeviceId) entityId);
+        if (filter == null || filter.getType() == null) {
+            return tsKvEntries;
+        }
+        TsWriteFilterState state = states.get(entityId.getId(), id -> new TsWriteFilterState());
+        synchronized (state) {
+            return state.filter(filter, tsKvEntries);
+        }
+    }
+
+    private TelemetryWriteFilter findFilter(TenantId tenantId, DeviceId deviceId) {
+        Device device = deviceService.findDeviceById(tenantId, deviceId);
+        if (device == null || device.getDeviceProfileId() == null) {
+            return null;
+        }
+        DeviceProfile deviceProfile = deviceProfileService.findDeviceProfileById(tenantId, device.getDeviceProfileId());
+        DeviceProfileData profileData = deviceProfile != null ? deviceProfile.getProfileData() : null;
+        return profileData != null ? profileData.getTelemetryWriteFilter() : null;
+    }
+
+}
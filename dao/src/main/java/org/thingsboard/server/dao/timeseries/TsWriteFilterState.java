@@ -0,0 +1,227 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.timeseries;
+
+import org.thingsboard.server.common.data.device.profile.TelemetryWriteFilter;
+import org.thingsboard.server.common.data.device.profile.TelemetryWriteFilterType;
+import org.thingsboard.server.common.data.kv.DataType;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Filter state of the time series keys of one entity.
+ * Keeps the last stored point of every key in an open addressing table of primitive arrays.
+ * Not thread safe, the caller synchronizes on the state.
+ */
+class TsWriteFilterState {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private DataType[] types = new DataType[INITIAL_CAPACITY];
+    private long[] storedTs = new long[INITIAL_CAPACITY];
+    private long[] storedWords = new long[INITIAL_CAPACITY];
+    private String[] storedTexts = new String[INITIAL_CAPACITY];
+    private double[] upperSlopes = new double[INITIAL_CAPACITY];
+    private double[] lowerSlopes = new double[INITIAL_CAPACITY];
+    private TsKvEntry[] held = new TsKvEntry[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Returns the entries that should be stored. With the swinging door compression a received point is held back until
+     * the next point shows whether it is needed, so the result may contain points received by the previous calls.
+     */
+    List<TsKvEntry> filter(TelemetryWriteFilter filter, List<TsKvEntry> entries) {
+        List<TsKvEntry> result = new ArrayList<>(entries.size());
+        for (TsKvEntry entry : entries) {
+            if (!filter.isApplicable(entry.getKey())) {
+                result.add(entry);
+                continue;
+            }
+            int slot = findSlot(entry.getKey());
+            if (keys[slot] == null) {
+                if (size + 1 > keys.length * 3 / 4) {
+                    resize();
+                    slot = findSlot(entry.getKey());
+                }
+                keys[slot] = entry.getKey();
+                size++;
+                store(slot, entry, result);
+            } else {
+                accept(slot, filter, entry, result);
+            }
+        }
+        return result;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void accept(int slot, TelemetryWriteFilter filter, TsKvEntry entry, List<TsKvEntry> result) {
+        long ts = entry.getTs();
+        TsKvEntry heldEntry = held[slot];
+        long lastTs = heldEntry != null ? heldEntry.getTs() : storedTs[slot];
+        if (ts <= lastTs) {
+            // late or repeated point, it is stored as is and does not affect the state
+            result.add(entry);
+            return;
+        }
+        DataType type = entry.getDataType();
+        if (!isCompatible(types[slot], type) || (filter.getMaxInterval() > 0 && ts - storedTs[slot] >= filter.getMaxInterval())) {
+            if (heldEntry != null) {
+                result.add(heldEntry);
+            }
+            store(slot, entry, result);
+            return;
+        }
+        TelemetryWriteFilterType filterType = filter.getType();
+        if (!isNumeric(type) || filterType == TelemetryWriteFilterType.DUPLICATE) {
+            if (type != types[slot] || toWord(entry) != storedWords[slot] || !Objects.equals(toText(entry), storedTexts[slot])) {
+                store(slot, entry, result);
+            }
+            return;
+        }
+        double value = toDouble(type, toWord(entry));
+        double storedValue = toDouble(types[slot], storedWords[slot]);
+        double deviation = deviation(filter, storedValue);
+        if (filterType == TelemetryWriteFilterType.DEADBAND) {
+            if (Math.abs(value - storedValue) > deviation) {
+                store(slot, entry, result);
+            }
+            return;
+        }
+        double dt = ts - storedTs[slot];
+        double upper = Math.min(upperSlopes[slot], (value + deviation - storedValue) / dt);
+        double lower = Math.max(lowerSlopes[slot], (value - deviation - storedValue) / dt);
+        if (lower <= upper) {
+            // the point is still within the door opened at the last stored point
+            upperSlopes[slot] = upper;
+            lowerSlopes[slot] = lower;
+            held[slot] = entry;
+            return;
+        }
+        if (heldEntry == null) {
+            store(slot, entry, result);
+            return;
+        }
+        // the door is closed, the held point ends the segment and opens the next door
+        store(slot, heldEntry, result);
+        double heldValue = toDouble(types[slot], storedWords[slot]);
+        double heldDeviation = deviation(filter, heldValue);
+        double heldDt = ts - heldEntry.getTs();
+        upperSlopes[slot] = (value + heldDeviation - heldValue) / heldDt;
+        lowerSlopes[slot] = (value - heldDeviation - heldValue) / heldDt;
+        held[slot] = entry;
+    }
+
+    private void store(int slot, TsKvEntry entry, List<TsKvEntry> result) {
+        result.add(entry);
+        types[slot] = entry.getDataType();
+        storedTs[slot] = entry.getTs();
+        storedWords[slot] = toWord(entry);
+        storedTexts[slot] = toText(entry);
+        upperSlopes[slot] = Double.POSITIVE_INFINITY;
+        lowerSlopes[slot] = Double.NEGATIVE_INFINITY;
+        held[slot] = null;
+    }
+
+    private int findSlot(String key) {
+        int mask = keys.length - 1;
+        int slot = key.hashCode() & mask;
+        while (keys[slot] != null && !keys[slot].equals(key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        String[] oldKeys = keys;
+        DataType[] oldTypes = types;
+        long[] oldStoredTs = storedTs;
+        long[] oldStoredWords = storedWords;
+        String[] oldStoredTexts = storedTexts;
+        double[] oldUpperSlopes = upperSlopes;
+        double[] oldLowerSlopes = lowerSlopes;
+        TsKvEntry[] oldHeld = held;
+        int capacity = oldKeys.length * 2;
+        keys = new String[capacity];
+        types = new DataType[capacity];
+        storedTs = new long[capacity];
+        storedWords = new long[capacity];
+        storedTexts = new String[capacity];
+        upperSlopes = new double[capacity];
+        lowerSlopes = new double[capacity];
+        held = new TsKvEntry[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                types[slot] = oldTypes[i];
+                storedTs[slot] = oldStoredTs[i];
+                storedWords[slot] = oldStoredWords[i];
+                storedTexts[slot] = oldStoredTexts[i];
+                upperSlopes[slot] = oldUpperSlopes[i];
+                lowerSlopes[slot] = oldLowerSlopes[i];
+                held[slot] = oldHeld[i];
+            }
+        }
+    }
+
+    static double deviation(TelemetryWriteFilter filter, double base) {
+        return Math.max(filter.getAbsoluteDeviation(), Math.abs(base) * filter.getPercentDeviation() / 100);
+    }
+
+    private static boolean isCompatible(DataType stored, DataType received) {
+        return stored == received || (isNumeric(stored) && isNumeric(received));
+    }
+
+    private static boolean isNumeric(DataType type) {
+        return type == DataType.LONG || type == DataType.DOUBLE;
+    }
+
+    private static long toWord(TsKvEntry entry) {
+        switch (entry.getDataType()) {
+            case LONG:
+                return entry.getLongValue().orElse(0L);
+            case DOUBLE:
+                return Double.doubleToLongBits(entry.getDoubleValue().orElse(0.0));
+            case BOOLEAN:
+                return entry.getBooleanValue().orElse(false) ? 1 : 0;
+            default:
+                return 0;
+        }
+    }
+
+    private static String toText(TsKvEntry entry) {
+        switch (entry.getDataType()) {
+            case STRING:
+                return entry.getStrValue().orElse(null);
+            case JSON:
+                return entry.getJsonValue().orElse(null);
+            default:
+                return null;
+        }
+    }
+
+    private static double toDouble(DataType type, long word) {
+        return type == DataType.LONG ? word : Double.longBitsToDouble(word);
+    }
+
+}
@@ -23,6 +23,7 @@ import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.IsoFields;
 import java.time.temporal.WeekFields;
+import java.util.Arrays;
 
 public class TimeUtils {
 
@@ -42,4 +43,21 @@ public class TimeUtils {
         }
     }
 
+    /**
+     * Returns the starts of the consecutive calendar intervals that cover the [startTs, endTs) range. The first interval starts with startTs.
+     */
+    public static long[] calculateIntervalStarts(long startTs, long endTs, IntervalType intervalType, ZoneId tzId) {
+        long[] starts = new long[16];
+        int count = 0;
+        long start = startTs;
+        while (start < endTs) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+            }
+            starts[count++] = start;
+            start = calculateIntervalEnd(start, intervalType, tzId);
+        }
+        return Arrays.copyOf(starts, count);
+    }
+
 }
@@ -34,6 +34,48 @@ CREATE TABLE IF NOT EXISTS key_dictionary
     CONSTRAINT key_dictionary_id_pkey PRIMARY KEY (key)
 );
 
+CREATE TABLE IF NOT EXISTS ts_rollup
+(
+    entity_id  uuid   NOT NULL,
+    key        int    NOT NULL,
+    bucket_ms  bigint NOT NULL,
+    ts         bigint NOT NULL,
+    long_min   bigint,
+    long_max   bigint,
+    long_sum   numeric,
+    long_count bigint NOT NULL,
+    dbl_min    double precision,
+    dbl_max    double precision,
+    dbl_sum    double precision,
+    dbl_count  bigint NOT NULL,
+    bool_count bigint NOT NULL,
+    str_count  bigint NOT NULL,
+    json_count bigint NOT NULL,
+    last_ts    bigint NOT NULL,
+    CONSTRAINT ts_rollup_pkey PRIMARY KEY (entity_id, key, bucket_ms, ts)
+);
+
+CREATE SEQUENCE IF NOT EXISTS ts_rollup_dirty_version_seq;
+
+CREATE TABLE IF NOT EXISTS ts_rollup_dirty
+(
+    entity_id     uuid   NOT NULL,
+    key           int    NOT NULL,
+    ts            bigint NOT NULL,
+    version       bigint NOT NULL DEFAULT nextval('ts_rollup_dirty_version_seq'),
+    claimed_until bigint NOT NULL DEFAULT 0,
+    CONSTRAINT ts_rollup_dirty_pkey PRIMARY KEY (entity_id, key, ts)
+);
+
+CREATE TABLE IF NOT EXISTS ts_rollup_backfill
+(
+    id           int     NOT NULL,
+    entity_id    uuid    NOT NULL,
+    completed    boolean NOT NULL,
+    heartbeat_ts bigint  NOT NULL,
+    CONSTRAINT ts_rollup_backfill_pkey PRIMARY KEY (id)
+);
+
 CREATE OR REPLACE PROCEDURE drop_partitions_by_system_ttl(IN partition_type varchar, IN system_ttl bigint, INOUT deleted bigint)
     LANGUAGE plpgsql AS
 $$
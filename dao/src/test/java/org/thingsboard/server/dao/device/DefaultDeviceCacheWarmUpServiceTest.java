@@ -0,0 +1,143 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.device;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.cache.TbTransactionalCache;
+import org.thingsboard.server.cache.VersionedTbCache;
+import org.thingsboard.server.cache.device.DeviceCacheKey;
+import org.thingsboard.server.common.data.AttributeScope;
+import org.thingsboard.server.common.data.Device;
+import org.thingsboard.server.common.data.DeviceIdInfo;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.DeviceProfileId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.AttributeKvEntry;
+import org.thingsboard.server.common.data.kv.BaseAttributeKvEntry;
+import org.thingsboard.server.common.data.kv.StringDataEntry;
+import org.thingsboard.server.common.data.security.DeviceCredentials;
+import org.thingsboard.server.dao.attributes.AttributeCacheKey;
+import org.thingsboard.server.dao.attributes.AttributesDao;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DefaultDeviceCacheWarmUpServiceTest {
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final DeviceProfileId deviceProfileId = new DeviceProfileId(UUID.randomUUID());
+
+    @Mock
+    private DeviceDao deviceDao;
+    @Mock
+    private DeviceCredentialsDao deviceCredentialsDao;
+    @Mock
+    private AttributesDao attributesDao;
+    @Mock
+    private DeviceProfileService deviceProfileService;
+    @Mock
+    private VersionedTbCache<DeviceCacheKey, Device> deviceCache;
+    @Mock
+    private TbTransactionalCache<String, DeviceCredentials> deviceCredentialsCache;
+    @Mock
+    private VersionedTbCache<AttributeCacheKey, AttributeKvEntry> attributesCache;
+
+    private DefaultDeviceCacheWarmUpService service;
+
+    @Before
+    public void setUp() {
+        service = new DefaultDeviceCacheWarmUpService(deviceDao, deviceCredentialsDao, attributesDao, deviceProfileService,
+                deviceCache, deviceCredentialsCache, attributesCache);
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        ReflectionTestUtils.setField(service, "attributesCacheEnabled", true);
+    }
+
+    @Test
+    public void testWarmUpLoadsOnlyFilteredDevicesPageByPage() {
+        DeviceIdInfo first = idInfo();
+        DeviceIdInfo second = idInfo();
+        DeviceIdInfo third = idInfo();
+        when(deviceDao.findDeviceIdInfosByIdOffset(isNull(), anyInt())).thenReturn(List.of(first, second));
+        when(deviceDao.findDeviceIdInfosByIdOffset(second.getDeviceId().getId(), 2)).thenReturn(List.of(third));
+
+        Device firstDevice = device(first);
+        Device thirdDevice = device(third);
+        when(deviceDao.findDevicesByIds(List.of(first.getDeviceId().getId()))).thenReturn(List.of(firstDevice));
+        when(deviceDao.findDevicesByIds(List.of(third.getDeviceId().getId()))).thenReturn(List.of(thirdDevice));
+
+        DeviceCredentials credentials = new DeviceCredentials();
+        credentials.setCredentialsId("token");
+        when(deviceCredentialsDao.findByDeviceIds(any(), any())).thenReturn(List.of(credentials), List.of());
+
+        AttributeCacheKey attributeKey = new AttributeCacheKey(AttributeScope.SERVER_SCOPE, firstDevice.getId(), "key");
+        AttributeKvEntry attribute = new BaseAttributeKvEntry(new StringDataEntry("key", "value"), 1L);
+        when(attributesDao.findAllByEntityIds(any(), any())).thenReturn(Map.of(attributeKey, attribute), Map.of());
+
+        int count = service.warmUp(idInfo -> !idInfo.equals(second), Long.MAX_VALUE);
+
+        assertThat(count).isEqualTo(2);
+        verify(deviceCache).put(new DeviceCacheKey(tenantId, firstDevice.getId()), firstDevice);
+        verify(deviceCache).put(new DeviceCacheKey(tenantId, thirdDevice.getId()), thirdDevice);
+        verify(deviceProfileService, times(1)).findDeviceProfileById(tenantId, deviceProfileId);
+        ArgumentCaptor<Supplier<DeviceCredentials>> credentialsLoader = ArgumentCaptor.forClass(Supplier.class);
+        verify(deviceCredentialsCache).getAndPutInTransaction(eq("token"), credentialsLoader.capture(), eq(true));
+        verify(deviceCredentialsCache, never()).putIfAbsent(any(), any());
+        when(deviceCredentialsDao.findByCredentialsId(TenantId.SYS_TENANT_ID, "token")).thenReturn(credentials);
+        assertThat(credentialsLoader.getValue().get()).isEqualTo(credentials);
+        verify(attributesCache).put(attributeKey, attribute);
+        verify(deviceDao, never()).findDevicesByIds(List.of(second.getDeviceId().getId()));
+    }
+
+    @Test
+    public void testWarmUpStopsAtDeadline() {
+        int count = service.warmUp(idInfo -> true, System.currentTimeMillis() - 1);
+
+        assertThat(count).isZero();
+        verifyNoInteractions(deviceDao, deviceCache, deviceCredentialsCache, attributesCache);
+    }
+
+    private DeviceIdInfo idInfo() {
+        return new DeviceIdInfo(tenantId.getId(), null, UUID.randomUUID());
+    }
+
+    private Device device(DeviceIdInfo idInfo) {
+        Device device = new Device(idInfo.getDeviceId());
+        device.setTenantId(tenantId);
+        device.setDeviceProfileId(deviceProfileId);
+        return device;
+    }
+
+}
@@ -0,0 +1,208 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.embeddedts;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.common.data.kv.BaseDeleteTsKvQuery;
+import org.thingsboard.server.common.data.kv.BaseReadTsKvQuery;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.DoubleDataEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.ReadTsKvQueryResult;
+import org.thingsboard.server.common.data.kv.StringDataEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EmbeddedTimeseriesDaoTest {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final TenantId TENANT_ID = TenantId.fromUUID(UUID.randomUUID());
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private EmbeddedTsStore store;
+    private EmbeddedTsExecutorService executor;
+    private EmbeddedTimeseriesDao dao;
+    private EmbeddedTimeseriesLatestDao latestDao;
+    private DeviceId deviceId;
+
+    @Before
+    public void setUp() throws Exception {
+        store = createStore();
+        executor = new EmbeddedTsExecutorService();
+        ReflectionTestUtils.setField(executor, "poolSize", 1);
+        executor.init();
+        dao = new EmbeddedTimeseriesDao(store, executor);
+        latestDao = new EmbeddedTimeseriesLatestDao(store, executor);
+        ReflectionTestUtils.setField(latestDao, "aggregationTimeseriesDao", dao);
+        deviceId = new DeviceId(UUID.randomUUID());
+    }
+
+    @After
+    public void tearDown() {
+        executor.destroy();
+    }
+
+    @Test
+    public void testFindWithLimitAcrossWindows() throws Exception {
+        save(new BasicTsKvEntry(DAY + 10, new LongDataEntry("temperature", 3L)));
+        save(new BasicTsKvEntry(10, new LongDataEntry("temperature", 1L)));
+        save(new BasicTsKvEntry(20, new DoubleDataEntry("temperature", 2.5)));
+        save(new BasicTsKvEntry(20, new StringDataEntry("temperature", "overwritten")));
+
+        List<TsKvEntry> asc = find(new BaseReadTsKvQuery("temperature", 0, 2 * DAY, 0, 10, Aggregation.NONE, "ASC")).getData();
+        assertThat(asc).extracting(TsKvEntry::getTs).containsExactly(10L, 20L, DAY + 10);
+        assertThat(asc.get(1).getValueAsString()).isEqualTo("overwritten");
+
+        ReadTsKvQueryResult desc = find(new BaseReadTsKvQuery("temperature", 0, 2 * DAY, 0, 2, Aggregation.NONE, "DESC"));
+        assertThat(desc.getData()).extracting(TsKvEntry::getTs).containsExactly(DAY + 10, 20L);
+        assertThat(desc.getLastEntryTs()).isEqualTo(DAY + 10);
+
+        assertThat(find(new BaseReadTsKvQuery("temperature", 11, 20, 0, 10, Aggregation.NONE, "ASC")).getData()).isEmpty();
+    }
+
+    @Test
+    public void testAggregateIntervals() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            save(new BasicTsKvEntry(i * 100L, new LongDataEntry("power", (long) i)));
+        }
+
+        List<TsKvEntry> avg = find(new BaseReadTsKvQuery("power", 0, 1000, 500, 0, Aggregation.AVG, "ASC")).getData();
+        assertThat(avg).extracting(TsKvEntry::getTs).containsExactly(250L, 750L);
+        assertThat(avg).extracting(entry -> entry.getDoubleValue().orElse(null)).containsExactly(2.0, 7.0);
+
+        List<TsKvEntry> max = find(new BaseReadTsKvQuery("power", 0, 1000, 300, 0, Aggregation.MAX, "ASC")).getData();
+        assertThat(max).extracting(entry -> entry.getLongValue().orElse(null)).containsExactly(2L, 5L, 8L, 9L);
+
+        List<TsKvEntry> count = find(new BaseReadTsKvQuery("power", 150, 1000, 1000, 0, Aggregation.COUNT, "ASC")).getData();
+        assertThat(count).hasSize(1);
+        assertThat(count.get(0).getLongValue()).contains(8L);
+    }
+
+    @Test
+    public void testRemoveAndCleanup() throws Exception {
+        long now = System.currentTimeMillis();
+        save(new BasicTsKvEntry(now - 10 * DAY, new LongDataEntry("voltage", 1L)));
+        save(new BasicTsKvEntry(now - 1, new LongDataEntry("voltage", 2L)));
+        save(new BasicTsKvEntry(now, new LongDataEntry("voltage", 3L)));
+
+        dao.remove(TENANT_ID, deviceId, new BaseDeleteTsKvQuery("voltage", now - 1, now)).get();
+        assertThat(find(new BaseReadTsKvQuery("voltage", 0, now + 1, 0, 10, Aggregation.NONE, "ASC")).getData())
+                .extracting(TsKvEntry::getTs).containsExactly(now - 10 * DAY, now);
+
+        dao.cleanup(TimeUnit.DAYS.toSeconds(5));
+        assertThat(find(new BaseReadTsKvQuery("voltage", 0, now + 1, 0, 10, Aggregation.NONE, "ASC")).getData())
+                .extracting(TsKvEntry::getTs).containsExactly(now);
+    }
+
+    @Test
+    public void testDataSurvivesReopen() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            save(new BasicTsKvEntry(i, new DoubleDataEntry("humidity", i / 10.0)));
+        }
+        latestDao.saveLatest(TENANT_ID, deviceId, new BasicTsKvEntry(99, new DoubleDataEntry("humidity", 9.9))).get();
+        store.destroy();
+
+        store = createStore();
+        dao = new EmbeddedTimeseriesDao(store, executor);
+        latestDao = new EmbeddedTimeseriesLatestDao(store, executor);
+        assertThat(find(new BaseReadTsKvQuery("humidity", 0, 100, 0, 1000, Aggregation.NONE, "ASC")).getData()).hasSize(100);
+        assertThat(latestDao.findLatest(TENANT_ID, deviceId, "humidity").get().getDoubleValue()).contains(9.9);
+    }
+
+    @Test
+    public void testLatest() throws Exception {
+        assertThat(latestDao.findLatestOpt(TENANT_ID, deviceId, "state").get()).isEmpty();
+        for (int i = 0; i < 200; i++) {
+            latestDao.saveLatest(TENANT_ID, deviceId, new BasicTsKvEntry(i, new StringDataEntry("state", "value " + i))).get();
+        }
+        latestDao.saveLatest(TENANT_ID, deviceId, new BasicTsKvEntry(5, new LongDataEntry("counter", 5L))).get();
+        save(new BasicTsKvEntry(100, new StringDataEntry("state", "value 100")));
+
+        assertThat(latestDao.findLatest(TENANT_ID, deviceId, "state").get().getValueAsString()).isEqualTo("value 199");
+        assertThat(latestDao.findAllLatest(TENANT_ID, deviceId).get()).extracting(TsKvEntry::getKey).containsExactly("counter", "state");
+        assertThat(latestDao.findAllKeysByEntityIds(TENANT_ID, List.of(deviceId))).containsExactly("counter", "state");
+
+        var removed = latestDao.removeLatest(TENANT_ID, deviceId, new BaseDeleteTsKvQuery("state", 150, 200, true)).get();
+        assertThat(removed.isRemoved()).isTrue();
+        assertThat(removed.getData().getTs()).isEqualTo(100L);
+        assertThat(latestDao.findLatest(TENANT_ID, deviceId, "state").get().getValueAsString()).isEqualTo("value 100");
+    }
+
+    @Test
+    public void testSeriesAreReopenedAfterEviction() throws Exception {
+        store = createStore(2);
+        dao = new EmbeddedTimeseriesDao(store, executor);
+        latestDao = new EmbeddedTimeseriesLatestDao(store, executor);
+        for (int i = 0; i < 10; i++) {
+            save(new BasicTsKvEntry(1, new LongDataEntry("key" + i, (long) i)));
+            latestDao.saveLatest(TENANT_ID, deviceId, new BasicTsKvEntry(1, new LongDataEntry("key" + i, (long) i))).get();
+        }
+        assertThat(store.getOpenSeriesCount()).isLessThanOrEqualTo(4);
+
+        for (int i = 0; i < 10; i++) {
+            save(new BasicTsKvEntry(2, new LongDataEntry("key" + i, i + 100L)));
+        }
+        for (int i = 0; i < 10; i++) {
+            assertThat(find(new BaseReadTsKvQuery("key" + i, 0, 10, 0, 10, Aggregation.NONE, "ASC")).getData())
+                    .extracting(TsKvEntry::getLongValue).containsExactly(Optional.of((long) i), Optional.of(i + 100L));
+        }
+        dao.remove(TENANT_ID, deviceId, new BaseDeleteTsKvQuery("key0", 0, 2)).get();
+        assertThat(find(new BaseReadTsKvQuery("key0", 0, 10, 0, 10, Aggregation.NONE, "ASC")).getData())
+                .extracting(TsKvEntry::getTs).containsExactly(2L);
+        assertThat(latestDao.findAllLatest(TENANT_ID, deviceId).get()).hasSize(10);
+        assertThat(store.getOpenSeriesCount()).isLessThanOrEqualTo(4);
+    }
+
+    private EmbeddedTsStore createStore() throws Exception {
+        return createStore(1000);
+    }
+
+    private EmbeddedTsStore createStore(int maxOpenSeries) throws Exception {
+        EmbeddedTsStore store = new EmbeddedTsStore();
+        ReflectionTestUtils.setField(store, "maxOpenSeries", maxOpenSeries);
+        ReflectionTestUtils.setField(store, "dataDir", folder.getRoot().getAbsolutePath());
+        ReflectionTestUtils.setField(store, "partitioning", "DAYS");
+        ReflectionTestUtils.setField(store, "segmentSize", 4096);
+        ReflectionTestUtils.setField(store, "latestSegmentSize", 256);
+        store.init();
+        return store;
+    }
+
+    private void save(TsKvEntry entry) throws Exception {
+        dao.save(TENANT_ID, deviceId, entry, 0).get();
+    }
+
+    private ReadTsKvQueryResult find(BaseReadTsKvQuery query) throws Exception {
+        return dao.findAllAsync(TENANT_ID, deviceId, query).get();
+    }
+
+}
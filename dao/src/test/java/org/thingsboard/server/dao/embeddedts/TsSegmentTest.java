@@ -0,0 +1,105 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.embeddedts;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TsSegmentTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAppendAndDecodeMixedTypes() throws Exception {
+        TsSegment segment = TsSegment.create(folder.getRoot().toPath().resolve("0_0.seg"), 4096);
+        List<TsPoint> expected = List.of(
+                new TsPoint(1000L, TsSegmentEncoder.TYPE_DOUBLE, Double.doubleToRawLongBits(21.5), null),
+                new TsPoint(2000L, TsSegmentEncoder.TYPE_DOUBLE, Double.doubleToRawLongBits(21.5), null),
+                new TsPoint(3000L, TsSegmentEncoder.TYPE_DOUBLE, Double.doubleToRawLongBits(-0.125), null),
+                new TsPoint(4001L, TsSegmentEncoder.TYPE_LONG, Long.MIN_VALUE, null),
+                new TsPoint(5000L, TsSegmentEncoder.TYPE_STRING, 0L, "строка"),
+                new TsPoint(5000L + Integer.MAX_VALUE, TsSegmentEncoder.TYPE_BOOLEAN, 1L, null),
+                new TsPoint(-5L, TsSegmentEncoder.TYPE_JSON, 0L, "{\"a\":1}"));
+        for (TsPoint point : expected) {
+            assertThat(append(segment, point)).isTrue();
+        }
+
+        assertThat(readAll(segment)).isEqualTo(expected);
+        assertThat(segment.getMinTs()).isEqualTo(-5L);
+        assertThat(segment.getMaxTs()).isEqualTo(5000L + Integer.MAX_VALUE);
+        assertThat(segment.isOrdered()).isFalse();
+    }
+
+    @Test
+    public void testRegularPointsAreCompressed() throws Exception {
+        TsSegment segment = TsSegment.create(folder.getRoot().toPath().resolve("0_0.seg"), 4096);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(append(segment, new TsPoint(1_700_000_000_000L + i * 1000L, TsSegmentEncoder.TYPE_LONG, 42L + i % 4, null))).isTrue();
+        }
+        // the regular timestamps take 1 bit and the small value changes a few bits per point
+        TsSegmentDecoder decoder = segment.decoder();
+        while (decoder.next()) {
+            // reads all the points
+        }
+        assertThat(decoder.bitPos() / 8).isLessThan(2000);
+        assertThat(segment.isOrdered()).isTrue();
+    }
+
+    @Test
+    public void testReopenContinuesStream() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("0_0.seg");
+        TsSegment segment = TsSegment.create(file, 4096);
+        append(segment, new TsPoint(10L, TsSegmentEncoder.TYPE_LONG, 1L, null));
+        append(segment, new TsPoint(20L, TsSegmentEncoder.TYPE_LONG, 2L, null));
+        segment.force();
+
+        TsSegment reopened = TsSegment.open(file);
+        append(reopened, new TsPoint(30L, TsSegmentEncoder.TYPE_LONG, 3L, null));
+
+        assertThat(readAll(reopened)).extracting(TsPoint::word).containsExactly(1L, 2L, 3L);
+        assertThat(readAll(TsSegment.open(file))).extracting(TsPoint::ts).containsExactly(10L, 20L, 30L);
+    }
+
+    @Test
+    public void testFullSegmentRejectsAppend() throws Exception {
+        TsSegment segment = TsSegment.create(folder.getRoot().toPath().resolve("0_0.seg"), TsSegment.HEADER_SIZE + 64);
+        assertThat(append(segment, new TsPoint(1L, TsSegmentEncoder.TYPE_STRING, 0L, "a".repeat(40)))).isTrue();
+        assertThat(append(segment, new TsPoint(2L, TsSegmentEncoder.TYPE_STRING, 0L, "b".repeat(40)))).isFalse();
+        assertThat(readAll(segment)).hasSize(1);
+    }
+
+    private static boolean append(TsSegment segment, TsPoint point) {
+        return segment.append(point.ts(), point.type(), point.word(), point.text() != null ? TsSegmentEncoder.toBytes(point.text()) : null);
+    }
+
+    private static List<TsPoint> readAll(TsSegment segment) {
+        List<TsPoint> points = new ArrayList<>();
+        TsSegmentDecoder decoder = segment.decoder();
+        while (decoder.next()) {
+            points.add(TsPoint.of(decoder));
+        }
+        return points;
+    }
+
+}
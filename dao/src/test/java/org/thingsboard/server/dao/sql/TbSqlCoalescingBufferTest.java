@@ -0,0 +1,110 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TbSqlCoalescingBufferTest {
+
+    private TbSqlCoalescingBuffer<String, long[], Long> buffer;
+
+    @After
+    public void tearDown() {
+        if (buffer != null) {
+            buffer.destroy();
+        }
+    }
+
+    @Test
+    public void givenSameKeyUpdates_whenFlushed_thenOnlyNewestIsWritten() throws Exception {
+        List<long[]> written = new CopyOnWriteArrayList<>();
+        buffer = createBuffer(written, false);
+
+        ListenableFuture<Long> first = buffer.add(element(1, 10));
+        ListenableFuture<Long> newest = buffer.add(element(1, 30));
+        ListenableFuture<Long> late = buffer.add(element(1, 20));
+        ListenableFuture<Long> other = buffer.add(element(2, 10));
+        assertThat(first.isDone()).isFalse();
+        assertThat(buffer.size()).isEqualTo(2);
+
+        buffer.flush();
+
+        assertThat(written).extracting(e -> e[1]).containsExactlyInAnyOrder(30L, 10L);
+        assertThat(newest.get(1, TimeUnit.SECONDS)).isEqualTo(30L);
+        assertThat(other.get(1, TimeUnit.SECONDS)).isEqualTo(10L);
+        assertThat(first.get(1, TimeUnit.SECONDS)).isNull();
+        assertThat(late.get(1, TimeUnit.SECONDS)).isNull();
+        assertThat(buffer.size()).isZero();
+    }
+
+    @Test
+    public void givenFullBuffer_whenNewKeyAdded_thenWrittenThrough() throws Exception {
+        List<long[]> written = new CopyOnWriteArrayList<>();
+        buffer = createBuffer(written, false);
+
+        buffer.add(element(1, 10));
+        buffer.add(element(2, 10));
+        ListenableFuture<Long> writtenThrough = buffer.add(element(3, 10));
+        ListenableFuture<Long> coalesced = buffer.add(element(1, 20));
+
+        assertThat(writtenThrough.get(1, TimeUnit.SECONDS)).isEqualTo(10L);
+        assertThat(coalesced.isDone()).isFalse();
+        assertThat(written).hasSize(1);
+    }
+
+    @Test
+    public void givenSinkFailure_whenFlushed_thenAllFuturesFail() {
+        buffer = createBuffer(new CopyOnWriteArrayList<>(), true);
+
+        ListenableFuture<Long> first = buffer.add(element(1, 10));
+        ListenableFuture<Long> second = buffer.add(element(1, 20));
+        buffer.flush();
+
+        assertThatThrownBy(() -> first.get(1, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        assertThatThrownBy(() -> second.get(1, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+    }
+
+    private TbSqlCoalescingBuffer<String, long[], Long> createBuffer(List<long[]> written, boolean fail) {
+        // the window is longer than the tests, the buffer is flushed explicitly
+        TbSqlCoalescingBuffer<String, long[], Long> buffer = new TbSqlCoalescingBuffer<>("Test", TimeUnit.HOURS.toMillis(1), 2,
+                e -> "key" + e[0], (newElement, oldElement) -> newElement[1] >= oldElement[1],
+                e -> {
+                    if (fail) {
+                        return Futures.immediateFailedFuture(new RuntimeException("Failed to save"));
+                    }
+                    written.add(e);
+                    return Futures.immediateFuture(e[1]);
+                });
+        buffer.init();
+        return buffer;
+    }
+
+    private static long[] element(long key, long ts) {
+        return new long[]{key, ts};
+    }
+
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.After;
+import org.junit.Test;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.stats.MessagesStats;
+import org.thingsboard.server.dao.sqlts.insert.TsKvColumnarBatch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+public class TbSqlTsKvQueueTest {
+
+    private final UUID entityId = UUID.randomUUID();
+    private TbSqlTsKvQueue queue;
+
+    @After
+    public void tearDown() {
+        if (queue != null) {
+            queue.destroy();
+        }
+    }
+
+    @Test
+    public void givenRecordsAdded_whenBatchIsFull_thenBatchIsSavedAndFuturesCompleted() throws Exception {
+        List<List<Long>> savedBatches = new CopyOnWriteArrayList<>();
+        queue = createQueue(3, 60000, batch -> savedBatches.add(values(batch)));
+
+        List<ListenableFuture<Integer>> futures = new ArrayList<>();
+        for (long i = 0; i < 6; i++) {
+            futures.add(queue.add(entityId, 1, new BasicTsKvEntry(i, new LongDataEntry("key", i)), 2));
+        }
+
+        for (ListenableFuture<Integer> future : futures) {
+            assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo(2);
+        }
+        assertThat(savedBatches).containsExactly(List.of(0L, 1L, 2L), List.of(3L, 4L, 5L));
+    }
+
+    @Test
+    public void givenPartialBatch_whenMaxDelayPassed_thenBatchIsSaved() throws Exception {
+        List<List<Long>> savedBatches = new CopyOnWriteArrayList<>();
+        queue = createQueue(100, 10, batch -> savedBatches.add(values(batch)));
+
+        ListenableFuture<Integer> first = queue.add(entityId, 1, new BasicTsKvEntry(2, new LongDataEntry("key", 2L)), 1);
+        ListenableFuture<Integer> second = queue.add(entityId, 1, new BasicTsKvEntry(1, new LongDataEntry("key", 1L)), 1);
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(savedBatches).flatMap(values -> values).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    public void givenSaveFailure_whenBatchIsSaved_thenFuturesFailAndQueueKeepsWorking() throws Exception {
+        List<List<Long>> savedBatches = new CopyOnWriteArrayList<>();
+        queue = createQueue(1, 10, batch -> {
+            if (batch.getLongValue(0) == 0) {
+                throw new RuntimeException("Failed to save");
+            }
+            savedBatches.add(values(batch));
+        });
+
+        ListenableFuture<Integer> failed = queue.add(entityId, 1, new BasicTsKvEntry(0, new LongDataEntry("key", 0L)), 1);
+        assertThatThrownBy(() -> failed.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class).hasRootCauseMessage("Failed to save");
+
+        ListenableFuture<Integer> saved = queue.add(entityId, 1, new BasicTsKvEntry(1, new LongDataEntry("key", 1L)), 1);
+        assertThat(saved.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(savedBatches).containsExactly(List.of(1L));
+    }
+
+    private TbSqlTsKvQueue createQueue(int batchSize, long maxDelay, Consumer<TsKvColumnarBatch> saveFunction) {
+        TbSqlBlockingQueueParams params = TbSqlBlockingQueueParams.builder()
+                .logName("TS Test")
+                .batchSize(batchSize)
+                .maxDelay(maxDelay)
+                .statsPrintIntervalMs(60000)
+                .statsNamePrefix("ts.test")
+                .batchSortEnabled(true)
+                .build();
+        TbSqlTsKvQueue queue = new TbSqlTsKvQueue(params, mock(MessagesStats.class));
+        queue.init(mock(ScheduledLogExecutorComponent.class), saveFunction, 0);
+        return queue;
+    }
+
+    private static List<Long> values(TsKvColumnarBatch batch) {
+        List<Long> values = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            values.add(batch.getLongValue(i));
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts;
+
+import com.google.common.util.concurrent.Futures;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.cache.SimpleTbCacheValueWrapper;
+import org.thingsboard.server.cache.VersionedTbCache;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.StringDataEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.common.stats.DefaultCounter;
+import org.thingsboard.server.common.stats.StatsFactory;
+import org.thingsboard.server.dao.cache.CacheExecutorService;
+import org.thingsboard.server.dao.timeseries.TsLatestCacheKey;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachedRedisSqlTimeseriesLatestDaoTest {
+
+    private static final TenantId TENANT_ID = TenantId.fromUUID(UUID.randomUUID());
+
+    private CacheExecutorService cacheExecutorService;
+    private SqlTimeseriesLatestDao sqlDao;
+    private VersionedTbCache<TsLatestCacheKey, TsKvEntry> cache;
+    private CachedRedisSqlTimeseriesLatestDao dao;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() {
+        cacheExecutorService = new CacheExecutorService();
+        ReflectionTestUtils.setField(cacheExecutorService, "poolSize", 1);
+        cacheExecutorService.init();
+        sqlDao = mock(SqlTimeseriesLatestDao.class);
+        cache = mock(VersionedTbCache.class);
+        StatsFactory statsFactory = mock(StatsFactory.class);
+        when(statsFactory.createDefaultCounter(anyString(), anyString(), anyString())).thenReturn(mock(DefaultCounter.class));
+        dao = new CachedRedisSqlTimeseriesLatestDao(cacheExecutorService, sqlDao, statsFactory, cache);
+        dao.init();
+    }
+
+    @After
+    public void after() {
+        cacheExecutorService.destroy();
+    }
+
+    @Test
+    public void testFindLatestByEntityIdsLoadsOnlyMisses() throws Exception {
+        EntityId cachedDevice = new DeviceId(UUID.randomUUID());
+        EntityId missingDevice = new DeviceId(UUID.randomUUID());
+        TsKvEntry cachedEntry = new BasicTsKvEntry(1, new LongDataEntry("temperature", 10L), 1L);
+        TsKvEntry loadedEntry = new BasicTsKvEntry(2, new LongDataEntry("temperature", 20L), 2L);
+        when(cache.getAll(anyCollection())).thenReturn(Map.of(
+                new TsLatestCacheKey(cachedDevice, "temperature"), SimpleTbCacheValueWrapper.wrap(cachedEntry),
+                new TsLatestCacheKey(cachedDevice, "humidity"), SimpleTbCacheValueWrapper.empty()));
+        when(sqlDao.findLatestByEntityIds(TENANT_ID, Set.of(missingDevice), Set.of("temperature", "humidity")))
+                .thenReturn(Futures.immediateFuture(Map.of(missingDevice, List.of(loadedEntry))));
+
+        Map<EntityId, List<TsKvEntry>> result = dao.findLatestByEntityIds(TENANT_ID, List.of(cachedDevice, missingDevice), List.of("temperature", "humidity")).get();
+
+        assertThat(result).containsOnlyKeys(cachedDevice, missingDevice);
+        assertThat(result.get(cachedDevice)).containsExactly(cachedEntry);
+        assertThat(result.get(missingDevice)).containsExactly(loadedEntry);
+        verify(cache).put(new TsLatestCacheKey(missingDevice, "temperature"), loadedEntry);
+        verify(cache).put(eq(new TsLatestCacheKey(missingDevice, "humidity")), isNull());
+    }
+
+    @Test
+    public void testFindLatestKeepsOrderOfKeys() throws Exception {
+        EntityId device = new DeviceId(UUID.randomUUID());
+        TsKvEntry temperature = new BasicTsKvEntry(1, new LongDataEntry("temperature", 10L), 1L);
+        TsKvEntry humidity = new BasicTsKvEntry(2, new LongDataEntry("humidity", 50L), 2L);
+        TsKvEntry emptyPressure = new BasicTsKvEntry(3, new StringDataEntry("pressure", null));
+        when(cache.getAll(anyCollection())).thenReturn(Map.of(
+                new TsLatestCacheKey(device, "humidity"), SimpleTbCacheValueWrapper.wrap(humidity),
+                new TsLatestCacheKey(device, "pressure"), SimpleTbCacheValueWrapper.empty()));
+        when(sqlDao.findLatestByEntityIds(TENANT_ID, Set.of(device), Set.of("temperature")))
+                .thenReturn(Futures.immediateFuture(Map.of(device, List.of(temperature))));
+        when(sqlDao.wrapNullTsKvEntry(anyString(), any())).thenAnswer(invocation -> invocation.getArgument(1));
+        when(sqlDao.wrapNullTsKvEntry(eq("pressure"), isNull())).thenReturn(emptyPressure);
+
+        List<TsKvEntry> result = dao.findLatest(TENANT_ID, device, List.of("temperature", "humidity", "pressure")).get();
+
+        assertThat(result).containsExactly(temperature, humidity, emptyPressure);
+        verify(cache).getAll(List.of(new TsLatestCacheKey(device, "temperature"), new TsLatestCacheKey(device, "humidity"),
+                new TsLatestCacheKey(device, "pressure")));
+    }
+
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.common.data.kv.AggregationParams;
+import org.thingsboard.server.common.data.kv.IntervalType;
+import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TsKvGroupedAggregationRepositoryTest {
+
+    private final UUID entityId = new UUID(1, 1);
+
+    private JdbcTemplate jdbcTemplate;
+    private TsKvGroupedAggregationRepository repository;
+
+    @Before
+    public void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        repository = new TsKvGroupedAggregationRepository();
+        ReflectionTestUtils.setField(repository, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @Test
+    public void givenFixedInterval_whenFindAllAggregated_thenBucketsAreMappedToIntervalMiddles() throws SQLException {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(longRow(0, 3L, 10L));
+            handler.processRow(longRow(2, 5L, 5L));
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(1000L), eq(100L), eq(entityId), eq(1), eq(1000L), eq(1250L));
+
+        List<TsKvEntity> entities = repository.findAllAggregated(entityId, 1, 1000, 1250, AggregationParams.milliseconds(Aggregation.SUM, 100));
+
+        assertThat(entities).hasSize(2);
+        assertThat(entities.get(0).getTs()).isEqualTo(1050L);
+        assertThat(entities.get(0).getLongValue()).isEqualTo(10L);
+        assertThat(entities.get(1).getTs()).isEqualTo(1225L);
+        assertThat(entities.get(1).getLongValue()).isEqualTo(5L);
+        assertThat(entities.get(1).getEntityId()).isEqualTo(entityId);
+    }
+
+    @Test
+    public void givenCalendarInterval_whenFindAllAggregated_thenBucketsAreMappedToCalendarIntervals() throws SQLException {
+        long startTs = 1704899727000L; // Wednesday, January 10 15:15:27 GMT
+        long february = 1706738400000L; // Thursday, February 1, 2024 0:00:00 GMT+02:00
+        long march = 1709244000000L; // Friday, March 1, 2024 0:00:00 GMT+02:00
+        long endTs = march + 1000;
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(longRow(2, 1L, 7L));
+            handler.processRow(longRow(3, 1L, 8L));
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        List<TsKvEntity> entities = repository.findAllAggregated(entityId, 1, startTs, endTs,
+                AggregationParams.calendar(Aggregation.MAX, IntervalType.MONTH, ZoneId.of("Europe/Kyiv")));
+
+        assertThat(entities).hasSize(2);
+        assertThat(entities.get(0).getTs()).isEqualTo(february + (march - february) / 2);
+        assertThat(entities.get(0).getLongValue()).isEqualTo(7L);
+        assertThat(entities.get(1).getTs()).isEqualTo(march + 500);
+        assertThat(entities.get(1).getLongValue()).isEqualTo(8L);
+    }
+
+    private static ResultSet longRow(int bucket, long count, long value) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn((long) bucket);
+        when(rs.getInt(1)).thenReturn(bucket);
+        when(rs.getObject(2, Long.class)).thenReturn(value);
+        when(rs.getObject(3, Long.class)).thenReturn(value);
+        when(rs.getBigDecimal(4)).thenReturn(BigDecimal.valueOf(value));
+        when(rs.getLong(5)).thenReturn(count);
+        when(rs.getObject(13, Long.class)).thenReturn(value);
+        return rs;
+    }
+
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts;
+
+import org.junit.Test;
+import org.thingsboard.server.common.data.kv.Aggregation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TsKvPartialAggregateTest {
+
+    @Test
+    public void givenNumericAggregate_whenConvertedToEntity_thenValuesMatchRawAggregation() {
+        TsKvPartialAggregate aggregate = new TsKvPartialAggregate();
+        aggregate.setLongMin(1L);
+        aggregate.setLongMax(10L);
+        aggregate.setLongSum(20L);
+        aggregate.setLongCount(4);
+        aggregate.setDoubleMin(0.5);
+        aggregate.setDoubleMax(2.5);
+        aggregate.setDoubleSum(4.0);
+        aggregate.setDoubleCount(2);
+        aggregate.setLastTs(100L);
+
+        assertThat(aggregate.toEntity(Aggregation.AVG).getDoubleValue()).isEqualTo(4.0);
+        assertThat(aggregate.toEntity(Aggregation.AVG).getAggValuesCount()).isEqualTo(6L);
+        assertThat(aggregate.toEntity(Aggregation.SUM).getDoubleValue()).isEqualTo(24.0);
+        assertThat(aggregate.toEntity(Aggregation.MIN).getDoubleValue()).isEqualTo(0.5);
+        assertThat(aggregate.toEntity(Aggregation.MAX).getDoubleValue()).isEqualTo(10.0);
+        assertThat(aggregate.toEntity(Aggregation.COUNT).getLongValue()).isEqualTo(6L);
+    }
+
+    @Test
+    public void givenStringOnlyAggregate_whenMinIsRequested_thenStringMinIsUsedIfKnown() {
+        TsKvPartialAggregate aggregate = new TsKvPartialAggregate();
+        aggregate.setStrCount(3);
+        aggregate.setLastTs(100L);
+
+        assertThat(aggregate.toEntity(Aggregation.MIN)).isNull();
+        assertThat(aggregate.toEntity(Aggregation.COUNT).getLongValue()).isEqualTo(3L);
+
+        aggregate.setStrMin("a");
+        aggregate.setStrMax("c");
+        assertThat(aggregate.toEntity(Aggregation.MIN).getStrValue()).isEqualTo("a");
+        assertThat(aggregate.toEntity(Aggregation.MAX).getStrValue()).isEqualTo("c");
+        assertThat(new TsKvPartialAggregate().toEntity(Aggregation.AVG).isNotEmpty()).isFalse();
+    }
+
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.dictionary;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.thingsboard.server.dao.sqlts.dictionary.KeyDictionaryMap.NOT_FOUND;
+
+public class KeyDictionaryMapTest {
+
+    @Test
+    public void testPutAndGet() {
+        KeyDictionaryMap map = new KeyDictionaryMap();
+        assertThat(map.getKeyId("temperature")).isEqualTo(NOT_FOUND);
+        assertThat(map.getKey(1)).isNull();
+
+        map.put("temperature", 1);
+        map.put("humidity", 5);
+
+        assertThat(map.getKeyId("temperature")).isEqualTo(1);
+        assertThat(map.getKeyId("humidity")).isEqualTo(5);
+        assertThat(map.getKeyId("pressure")).isEqualTo(NOT_FOUND);
+        assertThat(map.getKey(1)).isEqualTo("temperature");
+        assertThat(map.getKey(5)).isEqualTo("humidity");
+        assertThat(map.getKey(3)).isNull();
+        assertThat(map.getKey(100)).isNull();
+        assertThat(map.getKey(-1)).isNull();
+        assertThat(map.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void testPutAllGrowsTable() {
+        KeyDictionaryMap map = new KeyDictionaryMap();
+        Map<String, Integer> entries = new HashMap<>();
+        for (int i = 1; i <= 10_000; i++) {
+            entries.put("key" + i, i);
+        }
+        map.putAll(entries);
+        map.put("key10001", 10_001);
+
+        assertThat(map.size()).isEqualTo(10_001);
+        for (int i = 1; i <= 10_001; i++) {
+            assertThat(map.getKeyId("key" + i)).isEqualTo(i);
+            assertThat(map.getKey(i)).isEqualTo("key" + i);
+        }
+    }
+
+    @Test
+    public void testPutExistingKeyDoesNotDuplicate() {
+        KeyDictionaryMap map = new KeyDictionaryMap();
+        map.put("temperature", 1);
+        map.putAll(Map.of("temperature", 1, "humidity", 2));
+
+        assertThat(map.size()).isEqualTo(2);
+        assertThat(map.getKeyId("temperature")).isEqualTo(1);
+        assertThat(map.getKeyId("humidity")).isEqualTo(2);
+    }
+
+}
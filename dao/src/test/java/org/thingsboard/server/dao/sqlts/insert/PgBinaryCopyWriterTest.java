@@ -0,0 +1,141 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.insert;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PgBinaryCopyWriterTest {
+
+    private final ByteArrayOutputStream copied = new ByteArrayOutputStream();
+    private CopyIn copyIn;
+
+    @Before
+    public void setUp() throws SQLException {
+        copyIn = mock(CopyIn.class);
+        doAnswer(invocation -> {
+            byte[] buf = invocation.getArgument(0);
+            copied.write(buf, invocation.getArgument(1), invocation.getArgument(2));
+            return null;
+        }).when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+        when(copyIn.endCopy()).thenReturn(1L);
+    }
+
+    @Test
+    public void givenRowOfAllTypes_whenFinished_thenBinaryCopyFormatIsWritten() throws Exception {
+        PgBinaryCopyWriter writer = new PgBinaryCopyWriter(copyIn);
+        writer.startRow(7);
+        writer.writeUuid(1L, 2L);
+        writer.writeInt(3);
+        writer.writeLong(4L);
+        writer.writeDouble(5.5);
+        writer.writeBoolean(true);
+        writer.writeText("тест");
+        writer.writeText(null);
+
+        assertThat(writer.finish()).isEqualTo(1L);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(copied.toByteArray()));
+        byte[] signature = new byte[11];
+        in.readFully(signature);
+        assertThat(signature).isEqualTo(new byte[]{'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0});
+        assertThat(in.readInt()).isZero();
+        assertThat(in.readInt()).isZero();
+
+        assertThat(in.readShort()).isEqualTo((short) 7);
+        assertThat(in.readInt()).isEqualTo(16);
+        assertThat(in.readLong()).isEqualTo(1L);
+        assertThat(in.readLong()).isEqualTo(2L);
+        assertThat(in.readInt()).isEqualTo(4);
+        assertThat(in.readInt()).isEqualTo(3);
+        assertThat(in.readInt()).isEqualTo(8);
+        assertThat(in.readLong()).isEqualTo(4L);
+        assertThat(in.readInt()).isEqualTo(8);
+        assertThat(in.readDouble()).isEqualTo(5.5);
+        assertThat(in.readInt()).isEqualTo(1);
+        assertThat(in.readByte()).isEqualTo((byte) 1);
+        byte[] text = "тест".getBytes(StandardCharsets.UTF_8);
+        assertThat(in.readInt()).isEqualTo(text.length);
+        byte[] textBytes = new byte[text.length];
+        in.readFully(textBytes);
+        assertThat(textBytes).isEqualTo(text);
+        assertThat(in.readInt()).isEqualTo(-1);
+
+        assertThat(in.readShort()).isEqualTo((short) -1);
+        assertThat(in.available()).isZero();
+    }
+
+    @Test
+    public void givenTextLargerThanBuffer_whenWritten_thenTextIsCopiedEntirely() throws Exception {
+        char[] chars = new char[200_000];
+        Arrays.fill(chars, 'a');
+        String value = new String(chars);
+
+        PgBinaryCopyWriter writer = new PgBinaryCopyWriter(copyIn);
+        writer.startRow(1);
+        writer.writeText(value);
+        writer.finish();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(copied.toByteArray()));
+        in.skipNBytes(19);
+        assertThat(in.readShort()).isEqualTo((short) 1);
+        assertThat(in.readInt()).isEqualTo(value.length());
+        byte[] textBytes = new byte[value.length()];
+        in.readFully(textBytes);
+        assertThat(new String(textBytes, StandardCharsets.UTF_8)).isEqualTo(value);
+        assertThat(in.readShort()).isEqualTo((short) -1);
+    }
+
+    @Test
+    public void givenFailureWhileWritingRows_whenCopyIn_thenCopyIsCancelled() throws Exception {
+        Connection connection = mock(Connection.class);
+        PGConnection pgConnection = mock(PGConnection.class);
+        CopyManager copyManager = mock(CopyManager.class);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn("COPY")).thenReturn(copyIn);
+        when(copyIn.isActive()).thenReturn(true);
+
+        assertThatThrownBy(() -> PgBinaryCopyWriter.copyIn(connection, "COPY", writer -> {
+            throw new SQLException("failed");
+        })).isInstanceOf(SQLException.class);
+
+        verify(copyIn).cancelCopy();
+        verify(copyIn, never()).endCopy();
+    }
+
+}
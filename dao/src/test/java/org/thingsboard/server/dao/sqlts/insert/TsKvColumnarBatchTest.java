@@ -0,0 +1,116 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.insert;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.Test;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.BooleanDataEntry;
+import org.thingsboard.server.common.data.kv.DataType;
+import org.thingsboard.server.common.data.kv.DoubleDataEntry;
+import org.thingsboard.server.common.data.kv.JsonDataEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.StringDataEntry;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TsKvColumnarBatchTest {
+
+    private final UUID entityA = new UUID(1, 1);
+    private final UUID entityB = new UUID(1, 2);
+
+    @Test
+    public void givenRecordsOfAllTypes_whenAdded_thenValuesAreReadFromColumns() {
+        TsKvColumnarBatch batch = new TsKvColumnarBatch(8);
+        batch.add(entityA, 1, new BasicTsKvEntry(10, new BooleanDataEntry("b", true)), 1);
+        batch.add(entityA, 2, new BasicTsKvEntry(11, new LongDataEntry("l", 42L)), 1);
+        batch.add(entityA, 3, new BasicTsKvEntry(12, new DoubleDataEntry("d", 4.2)), 1);
+        batch.add(entityA, 4, new BasicTsKvEntry(13, new StringDataEntry("s", "str")), 1);
+        batch.add(entityA, 5, new BasicTsKvEntry(14, new JsonDataEntry("j", "{\"a\":1}")), 1);
+        batch.add(entityB, 6, new BasicTsKvEntry(15, new LongDataEntry("n", null)), 1);
+
+        assertThat(batch.size()).isEqualTo(6);
+        assertThat(batch.getEntityId(0)).isEqualTo(entityA);
+        assertThat(batch.getDataType(0)).isEqualTo(DataType.BOOLEAN);
+        assertThat(batch.getBooleanValue(0)).isTrue();
+        assertThat(batch.getLongValue(1)).isEqualTo(42L);
+        assertThat(batch.getDoubleValue(2)).isEqualTo(4.2);
+        assertThat(batch.getDataType(3)).isEqualTo(DataType.STRING);
+        assertThat(batch.getStrValue(3)).isEqualTo("str");
+        assertThat(batch.getDataType(4)).isEqualTo(DataType.JSON);
+        assertThat(batch.getStrValue(4)).isEqualTo("{\"a\":1}");
+        assertThat(batch.getEntityId(5)).isEqualTo(entityB);
+        assertThat(batch.getKey(5)).isEqualTo(6);
+        assertThat(batch.getTs(5)).isEqualTo(15L);
+        assertThat(batch.getDataType(5)).isNull();
+    }
+
+    @Test
+    public void givenUnorderedRecords_whenSorted_thenRecordsAreOrderedByEntityKeyAndTs() {
+        TsKvColumnarBatch batch = new TsKvColumnarBatch(8);
+        batch.add(entityB, 1, new BasicTsKvEntry(1, new LongDataEntry("k", 1L)), 1);
+        batch.add(entityA, 2, new BasicTsKvEntry(2, new LongDataEntry("k", 2L)), 1);
+        batch.add(entityA, 1, new BasicTsKvEntry(5, new LongDataEntry("k", 3L)), 1);
+        batch.add(entityA, 1, new BasicTsKvEntry(3, new LongDataEntry("k", 4L)), 1);
+
+        batch.sort();
+
+        assertThat(batch.getLongValue(0)).isEqualTo(4L);
+        assertThat(batch.getLongValue(1)).isEqualTo(3L);
+        assertThat(batch.getLongValue(2)).isEqualTo(2L);
+        assertThat(batch.getLongValue(3)).isEqualTo(1L);
+        assertThat(batch.getEntityId(3)).isEqualTo(entityB);
+    }
+
+    @Test
+    public void givenRecordsWithSameDataPointDays_whenAdded_thenFutureIsSharedAndCompletedWithBatch() throws Exception {
+        TsKvColumnarBatch batch = new TsKvColumnarBatch(4);
+        ListenableFuture<Integer> first = batch.add(entityA, 1, new BasicTsKvEntry(1, new LongDataEntry("k", 1L)), 7);
+        ListenableFuture<Integer> second = batch.add(entityA, 1, new BasicTsKvEntry(2, new LongDataEntry("k", 2L)), 7);
+        ListenableFuture<Integer> third = batch.add(entityA, 1, new BasicTsKvEntry(3, new LongDataEntry("k", 3L)), 14);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.isDone()).isFalse();
+
+        batch.complete();
+
+        assertThat(first.get()).isEqualTo(7);
+        assertThat(third.get()).isEqualTo(14);
+    }
+
+    @Test
+    public void givenFullBatch_whenCleared_thenBatchIsReusedWithNewFuture() {
+        TsKvColumnarBatch batch = new TsKvColumnarBatch(1);
+        ListenableFuture<Integer> future = batch.add(entityA, 1, new BasicTsKvEntry(1, new StringDataEntry("k", "v")), 1);
+        assertThat(batch.isFull()).isTrue();
+        assertThatThrownBy(() -> batch.add(entityA, 1, new BasicTsKvEntry(2, new StringDataEntry("k", "v")), 1))
+                .isInstanceOf(IllegalStateException.class);
+
+        batch.fail(new RuntimeException("failed"));
+        batch.clear();
+
+        assertThat(future.isDone()).isTrue();
+        assertThat(batch.isEmpty()).isTrue();
+        ListenableFuture<Integer> newFuture = batch.add(entityB, 2, new BasicTsKvEntry(3, new StringDataEntry("k", "new")), 1);
+        assertThat(newFuture).isNotSameAs(future);
+        assertThat(newFuture.isDone()).isFalse();
+        assertThat(batch.getStrValue(0)).isEqualTo("new");
+    }
+
+}
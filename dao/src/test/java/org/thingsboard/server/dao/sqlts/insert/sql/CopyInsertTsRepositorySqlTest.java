@@ -0,0 +1,162 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.insert.sql;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.thingsboard.server.dao.model.sql.AbstractTsKvEntity;
+import org.thingsboard.server.dao.model.sqlts.latest.TsKvLatestEntity;
+import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
+import org.thingsboard.server.dao.service.AbstractServiceTest;
+import org.thingsboard.server.dao.service.DaoSqlTest;
+import org.thingsboard.server.dao.sqlts.insert.InsertTsRepository;
+import org.thingsboard.server.dao.sqlts.insert.latest.InsertLatestTsRepository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DaoSqlTest
+@TestPropertySource(properties = {
+        "sql.ts.copy_insert_enabled=true",
+        "sql.ts_latest.copy_insert_enabled=true",
+        "sql.ts_latest.update_by_latest_ts=true"
+})
+public class CopyInsertTsRepositorySqlTest extends AbstractServiceTest {
+
+    @Autowired
+    private InsertTsRepository<TsKvEntity> insertTsRepository;
+    @Autowired
+    private InsertLatestTsRepository insertLatestTsRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    public void givenDuplicateKeysInBatch_whenCopyAndMergeTsKv_thenLastValueOfEveryTsIsSaved() {
+        UUID entityId = UUID.randomUUID();
+
+        insertTsRepository.saveOrUpdate(List.of(
+                tsKv(entityId, 1, 100, 1L, null),
+                tsKv(entityId, 1, 100, 2L, null),
+                tsKv(entityId, 1, 200, 3L, null),
+                tsKv(entityId, 2, 100, null, 4.0)));
+
+        assertThat(findTsKv(entityId)).containsExactly(
+                Map.of("key", 1, "ts", 100L, "long_v", 2L),
+                Map.of("key", 1, "ts", 200L, "long_v", 3L),
+                Map.of("key", 2, "ts", 100L, "dbl_v", 4.0));
+
+        insertTsRepository.saveOrUpdate(List.of(tsKv(entityId, 1, 100, null, 5.0)));
+
+        assertThat(findTsKv(entityId)).containsExactly(
+                Map.of("key", 1, "ts", 100L, "dbl_v", 5.0),
+                Map.of("key", 1, "ts", 200L, "long_v", 3L),
+                Map.of("key", 2, "ts", 100L, "dbl_v", 4.0));
+    }
+
+    @Test
+    public void givenSeveralBatchesInOneTransaction_whenCopyAndMergeTsKv_thenStagingTableIsRecreatedForEveryBatch() {
+        UUID entityId = UUID.randomUUID();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            insertTsRepository.saveOrUpdate(List.of(tsKv(entityId, 1, 100, 1L, null)));
+            insertTsRepository.saveOrUpdate(List.of(tsKv(entityId, 1, 200, 2L, null)));
+            insertTsRepository.saveOrUpdate(List.of(tsKv(entityId, 1, 100, 3L, null)));
+        });
+
+        assertThat(findTsKv(entityId)).containsExactly(
+                Map.of("key", 1, "ts", 100L, "long_v", 3L),
+                Map.of("key", 1, "ts", 200L, "long_v", 2L));
+    }
+
+    @Test
+    public void givenDuplicateKeysInBatch_whenCopyAndMergeTsKvLatest_thenLatestValueIsSavedAndItsVersionIsReturned() {
+        UUID entityId = UUID.randomUUID();
+
+        List<Long> versions = insertLatestTsRepository.saveOrUpdate(List.of(
+                tsKvLatest(entityId, 1, 200, 1L),
+                tsKvLatest(entityId, 1, 100, 2L),
+                tsKvLatest(entityId, 2, 100, 3L),
+                tsKvLatest(entityId, 2, 100, 4L)));
+
+        assertThat(versions).hasSize(4);
+        assertThat(versions.get(0)).isNotNull();
+        assertThat(versions.get(1)).isNull();
+        assertThat(versions.get(2)).isNull();
+        assertThat(versions.get(3)).isNotNull();
+        assertThat(findTsKvLatest(entityId)).containsExactly(
+                Map.of("key", 1, "ts", 200L, "long_v", 1L, "version", versions.get(0)),
+                Map.of("key", 2, "ts", 100L, "long_v", 4L, "version", versions.get(3)));
+
+        List<Long> nextVersions = insertLatestTsRepository.saveOrUpdate(List.of(
+                tsKvLatest(entityId, 1, 150, 5L),
+                tsKvLatest(entityId, 2, 300, 6L)));
+
+        assertThat(nextVersions.get(0)).isNull();
+        assertThat(nextVersions.get(1)).isGreaterThan(versions.get(3));
+        assertThat(findTsKvLatest(entityId)).containsExactly(
+                Map.of("key", 1, "ts", 200L, "long_v", 1L, "version", versions.get(0)),
+                Map.of("key", 2, "ts", 300L, "long_v", 6L, "version", nextVersions.get(1)));
+    }
+
+    private List<Map<String, Object>> findTsKv(UUID entityId) {
+        return jdbcTemplate.query("SELECT key, ts, long_v, dbl_v FROM ts_kv WHERE entity_id = ? ORDER BY key, ts",
+                (rs, rowNum) -> withoutNulls(Map.of("key", rs.getInt("key"), "ts", rs.getLong("ts")),
+                        "long_v", rs.getObject("long_v"), "dbl_v", rs.getObject("dbl_v")), entityId);
+    }
+
+    private List<Map<String, Object>> findTsKvLatest(UUID entityId) {
+        return jdbcTemplate.query("SELECT key, ts, long_v, version FROM ts_kv_latest WHERE entity_id = ? ORDER BY key",
+                (rs, rowNum) -> Map.of("key", rs.getInt("key"), "ts", rs.getLong("ts"), "long_v", rs.getLong("long_v"), "version", rs.getLong("version")), entityId);
+    }
+
+    private static Map<String, Object> withoutNulls(Map<String, Object> row, String longColumn, Object longValue, String doubleColumn, Object doubleValue) {
+        Map<String, Object> result = new HashMap<>(row);
+        if (longValue != null) {
+            result.put(longColumn, longValue);
+        }
+        if (doubleValue != null) {
+            result.put(doubleColumn, doubleValue);
+        }
+        return result;
+    }
+
+    private static TsKvEntity tsKv(UUID entityId, int key, long ts, Long longValue, Double doubleValue) {
+        return fill(new TsKvEntity(), entityId, key, ts, longValue, doubleValue);
+    }
+
+    private static TsKvLatestEntity tsKvLatest(UUID entityId, int key, long ts, Long longValue) {
+        return fill(new TsKvLatestEntity(), entityId, key, ts, longValue, null);
+    }
+
+    private static <T extends AbstractTsKvEntity> T fill(T entity, UUID entityId, int key, long ts, Long longValue, Double doubleValue) {
+        entity.setEntityId(entityId);
+        entity.setKey(key);
+        entity.setTs(ts);
+        entity.setLongValue(longValue);
+        entity.setDoubleValue(doubleValue);
+        return entity;
+    }
+
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.rollup;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.thingsboard.server.dao.sqlts.rollup.TsRollupRange.DAY;
+import static org.thingsboard.server.dao.sqlts.rollup.TsRollupRange.HOUR;
+
+public class TsRollupRangeTest {
+
+    @Test
+    public void givenIntervalShorterThanHour_whenSplit_thenRawDataIsUsed() {
+        assertThat(TsRollupRange.split(10 * DAY + 1000, 10 * DAY + HOUR + 1000)).isNull();
+    }
+
+    @Test
+    public void givenIntervalWithinDay_whenSplit_thenHoursAndRawEdgesAreUsed() {
+        TsRollupRange range = TsRollupRange.split(10 * DAY + 1000, 10 * DAY + 5 * HOUR + 1000);
+
+        assertThat(range.hourStart()).isEqualTo(10 * DAY + HOUR);
+        assertThat(range.hourEnd()).isEqualTo(10 * DAY + 5 * HOUR);
+        assertThat(range.dayStart()).isEqualTo(range.hourEnd());
+        assertThat(range.dayEnd()).isEqualTo(range.hourEnd());
+    }
+
+    @Test
+    public void givenIntervalOfSeveralDays_whenSplit_thenDaysAreUsedInTheMiddle() {
+        TsRollupRange range = TsRollupRange.split(10 * DAY - 90 * 60 * 1000, 20 * DAY + 2 * HOUR + 1);
+
+        assertThat(range.startTs()).isEqualTo(10 * DAY - 90 * 60 * 1000);
+        assertThat(range.hourStart()).isEqualTo(10 * DAY - HOUR);
+        assertThat(range.dayStart()).isEqualTo(10 * DAY);
+        assertThat(range.dayEnd()).isEqualTo(20 * DAY);
+        assertThat(range.hourEnd()).isEqualTo(20 * DAY + 2 * HOUR);
+        assertThat(range.endTs()).isEqualTo(20 * DAY + 2 * HOUR + 1);
+    }
+
+    @Test
+    public void givenIntervalEndingInFuture_whenSplit_thenRollupsAreUsedUpToTheEnd() {
+        long future = System.currentTimeMillis() + 10 * DAY;
+        TsRollupRange range = TsRollupRange.split(future - 5 * DAY, future);
+
+        assertThat(range.hourEnd()).isEqualTo(Math.floorDiv(future, HOUR) * HOUR);
+        assertThat(range.endTs()).isEqualTo(future);
+    }
+
+}
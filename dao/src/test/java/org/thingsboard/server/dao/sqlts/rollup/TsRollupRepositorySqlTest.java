@@ -0,0 +1,110 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.rollup;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.thingsboard.server.dao.service.AbstractServiceTest;
+import org.thingsboard.server.dao.service.DaoSqlTest;
+import org.thingsboard.server.dao.sqlts.TsKvPartialAggregate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.thingsboard.server.dao.sqlts.rollup.TsRollupRange.DAY;
+import static org.thingsboard.server.dao.sqlts.rollup.TsRollupRange.HOUR;
+
+@DaoSqlTest
+public class TsRollupRepositorySqlTest extends AbstractServiceTest {
+
+    private static final int KEY = 1;
+
+    @Autowired
+    private TsRollupRepository rollupRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void givenSavedData_whenMarkedDirty_thenEveryHourIsClaimedOnce() {
+        UUID entityId = UUID.randomUUID();
+        save(entityId, DAY + 10, 1L);
+        save(entityId, DAY + HOUR + 10, 2L);
+        save(entityId, DAY + 20, 3L);
+
+        long now = System.currentTimeMillis();
+        Map<TsRollupBucket, Long> claimed = claimDirty(entityId, now);
+
+        assertThat(claimed).containsOnlyKeys(new TsRollupBucket(entityId, KEY, DAY), new TsRollupBucket(entityId, KEY, DAY + HOUR));
+        assertThat(claimDirty(entityId, now)).isEmpty();
+        // the claims of the stopped node are taken over once expired
+        assertThat(claimDirty(entityId, now + TsRollupService.CLAIM_TIMEOUT_MS + 1)).isEqualTo(claimed);
+    }
+
+    @Test
+    public void givenBucketMarkedAgainDuringRefresh_whenRefreshed_thenMarkIsReleasedForNextFlush() {
+        UUID entityId = UUID.randomUUID();
+        save(entityId, DAY + 10, 1L);
+        save(entityId, DAY + HOUR + 10, 2L);
+        long now = System.currentTimeMillis();
+        Map<TsRollupBucket, Long> claimed = claimDirty(entityId, now);
+        save(entityId, DAY + HOUR + 20, 3L);
+
+        rollupRepository.refresh(claimed);
+
+        assertThat(claimDirty(entityId, now)).containsOnlyKeys(new TsRollupBucket(entityId, KEY, DAY + HOUR));
+        assertThat(jdbcTemplate.queryForList("SELECT bucket_ms, ts, long_sum::bigint AS long_sum, long_count FROM ts_rollup " +
+                "WHERE entity_id = ? ORDER BY bucket_ms, ts", entityId)).containsExactly(
+                Map.of("bucket_ms", HOUR, "ts", DAY, "long_sum", 1L, "long_count", 1L),
+                Map.of("bucket_ms", HOUR, "ts", DAY + HOUR, "long_sum", 5L, "long_count", 2L),
+                Map.of("bucket_ms", DAY, "ts", DAY, "long_sum", 6L, "long_count", 3L));
+    }
+
+    @Test
+    public void givenRefreshedAndDirtyBuckets_whenFindAggregate_thenRollupsAndRawDataAreCombined() {
+        UUID entityId = UUID.randomUUID();
+        save(entityId, DAY - 10, 1L);
+        save(entityId, DAY + 10, 2L);
+        save(entityId, 2 * DAY + HOUR + 10, 4L);
+        save(entityId, 3 * DAY + 10, 8L);
+        long now = System.currentTimeMillis();
+        rollupRepository.refresh(claimDirty(entityId, now));
+        // the late data of the refreshed day is read from the raw data until the next flush
+        save(entityId, DAY + 2 * HOUR, 16L);
+
+        TsKvPartialAggregate aggregate = rollupRepository.findAggregate(entityId, KEY, TsRollupRange.split(DAY - 20, 3 * DAY + 20));
+
+        assertThat(aggregate.getLongSum()).isEqualTo(31L);
+        assertThat(aggregate.getLongCount()).isEqualTo(5L);
+        assertThat(aggregate.getLongMax()).isEqualTo(16L);
+        assertThat(aggregate.getLastTs()).isEqualTo(3 * DAY + 10);
+    }
+
+    private void save(UUID entityId, long ts, long value) {
+        rollupRepository.saveAndMarkDirty(() -> jdbcTemplate.update("INSERT INTO ts_kv (entity_id, key, ts, long_v) VALUES (?, ?, ?, ?) " +
+                        "ON CONFLICT (entity_id, key, ts) DO UPDATE SET long_v = excluded.long_v", entityId, KEY, ts, value),
+                List.of(new TsRollupBucket(entityId, KEY, Math.floorDiv(ts, HOUR) * HOUR)));
+    }
+
+    private Map<TsRollupBucket, Long> claimDirty(UUID entityId, long ts) {
+        Map<TsRollupBucket, Long> claimed = rollupRepository.claimDirty(Integer.MAX_VALUE, ts, ts + TsRollupService.CLAIM_TIMEOUT_MS);
+        claimed.keySet().removeIf(bucket -> !bucket.entityId().equals(entityId));
+        return claimed;
+    }
+
+}
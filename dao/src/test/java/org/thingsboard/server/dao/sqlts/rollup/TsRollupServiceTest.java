@@ -0,0 +1,239 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.rollup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
+import org.thingsboard.server.dao.sqlts.TsKvPartialAggregate;
+import org.thingsboard.server.dao.sqlts.insert.TsKvColumnarBatch;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.thingsboard.server.dao.sqlts.rollup.TsRollupRange.DAY;
+import static org.thingsboard.server.dao.sqlts.rollup.TsRollupRange.HOUR;
+
+public class TsRollupServiceTest {
+
+    private final UUID entityId = new UUID(1, 1);
+
+    private TsRollupRepository rollupRepository;
+    private TsRollupService rollupService;
+    private final List<Collection<TsRollupBucket>> marked = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        rollupRepository = mock(TsRollupRepository.class);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            marked.add(new ArrayList<>(invocation.<Collection<TsRollupBucket>>getArgument(1)));
+            return null;
+        }).when(rollupRepository).saveAndMarkDirty(any(), anyCollection());
+        rollupService = new TsRollupService(rollupRepository);
+        ReflectionTestUtils.setField(rollupService, "flushIntervalMs", 10000L);
+        ReflectionTestUtils.setField(rollupService, "flushBatchSize", 2);
+        ReflectionTestUtils.setField(rollupService, "backfillBatchSize", 10);
+        ReflectionTestUtils.setField(rollupService, "rebuildAfterIdleMs", 3600000L);
+    }
+
+    @Test
+    public void givenSavedBatch_whenSaved_thenTouchedHoursAreMarkedOnceWithTheData() {
+        TsKvColumnarBatch batch = new TsKvColumnarBatch(8);
+        batch.add(entityId, 1, new BasicTsKvEntry(HOUR + 1, new LongDataEntry("k", 1L)), 1);
+        batch.add(entityId, 1, new BasicTsKvEntry(HOUR + 2, new LongDataEntry("k", 2L)), 1);
+        batch.add(entityId, 1, new BasicTsKvEntry(2 * HOUR, new LongDataEntry("k", 3L)), 1);
+        batch.add(entityId, 2, new BasicTsKvEntry(2 * HOUR + 5, new LongDataEntry("l", 4L)), 1);
+        batch.add(entityId, 1, new BasicTsKvEntry(HOUR + 3, new LongDataEntry("k", 5L)), 1);
+        List<TsKvColumnarBatch> saved = new ArrayList<>();
+
+        rollupService.save(batch, saved::add);
+
+        assertThat(saved).containsExactly(batch);
+        assertThat(marked).hasSize(1);
+        assertThat(marked.get(0)).containsExactly(
+                new TsRollupBucket(entityId, 1, HOUR),
+                new TsRollupBucket(entityId, 1, 2 * HOUR),
+                new TsRollupBucket(entityId, 2, 2 * HOUR));
+    }
+
+    @Test
+    public void givenSavedEntities_whenSaved_thenTouchedHoursAreMarkedOnceWithTheData() {
+        List<TsKvEntity> entities = List.of(entity(1, DAY + 10), entity(1, DAY + 20), entity(1, DAY + HOUR), entity(2, DAY + 10));
+        List<List<TsKvEntity>> saved = new ArrayList<>();
+
+        rollupService.save(entities, saved::add);
+
+        assertThat(saved).containsExactly(entities);
+        assertThat(marked).hasSize(1);
+        assertThat(marked.get(0)).containsExactly(
+                new TsRollupBucket(entityId, 1, DAY),
+                new TsRollupBucket(entityId, 1, DAY + HOUR),
+                new TsRollupBucket(entityId, 2, DAY));
+    }
+
+    @Test
+    public void givenDirtyBuckets_whenFlushed_thenBatchesAreRefreshedUntilNoneLeft() {
+        Map<TsRollupBucket, Long> first = Map.of(new TsRollupBucket(entityId, 1, HOUR), 1L, new TsRollupBucket(entityId, 1, 2 * HOUR), 2L);
+        Map<TsRollupBucket, Long> second = Map.of(new TsRollupBucket(entityId, 2, HOUR), 3L);
+        when(rollupRepository.claimDirty(eq(2), anyLong(), anyLong())).thenReturn(first, second);
+
+        rollupService.flush();
+
+        verify(rollupRepository).refresh(first);
+        verify(rollupRepository).refresh(second);
+        verify(rollupRepository, times(2)).claimDirty(eq(2), anyLong(), longThat(claimedUntil -> claimedUntil > System.currentTimeMillis()));
+    }
+
+    @Test
+    public void givenRefreshFailure_whenFlushed_thenBucketsStayDirtyForNextFlush() {
+        Map<TsRollupBucket, Long> dirty = Map.of(new TsRollupBucket(entityId, 1, DAY), 1L);
+        when(rollupRepository.claimDirty(eq(2), anyLong(), anyLong())).thenReturn(dirty, dirty, Map.of());
+        doThrow(new RuntimeException("failed")).doNothing().when(rollupRepository).refresh(anyMap());
+
+        rollupService.flush();
+        rollupService.flush();
+
+        verify(rollupRepository, times(2)).refresh(dirty);
+    }
+
+    @Test
+    public void givenNotBackfilledEntity_whenFindAggregate_thenRawDataIsUsed() {
+        assertThat(rollupService.findAggregate(entityId, 1, 0, 10 * DAY, Aggregation.AVG)).isNull();
+
+        ReflectionTestUtils.setField(rollupService, "backfill", new TsRollupBackfill(new UUID(1, 0), false));
+        assertThat(rollupService.findAggregate(entityId, 1, 0, 10 * DAY, Aggregation.AVG)).isNull();
+
+        verify(rollupRepository, never()).findAggregate(any(), any(Integer.class), any());
+    }
+
+    @Test
+    public void givenBackfilledEntity_whenFindAggregateOfRecentData_thenRollupsAreReadUpToTheLastCompleteHour() {
+        ReflectionTestUtils.setField(rollupService, "backfill", new TsRollupBackfill(entityId, false));
+        when(rollupRepository.findAggregate(any(), any(Integer.class), any())).thenReturn(new TsKvPartialAggregate());
+        long endTs = System.currentTimeMillis();
+
+        rollupService.findAggregate(entityId, 1, endTs - 2 * DAY, endTs, Aggregation.COUNT);
+
+        // the dirty hours of the recent or late data are read from the raw data by the query itself
+        verify(rollupRepository).findAggregate(entityId, 1, TsRollupRange.split(endTs - 2 * DAY, endTs));
+    }
+
+    @Test
+    public void givenShortInterval_whenFindAggregate_thenRollupsAreNotRead() {
+        ReflectionTestUtils.setField(rollupService, "backfill", new TsRollupBackfill(entityId, true));
+
+        assertThat(rollupService.findAggregate(entityId, 1, DAY + 1, DAY + HOUR, Aggregation.AVG)).isNull();
+
+        verify(rollupRepository, never()).findAggregate(any(), any(Integer.class), any());
+    }
+
+    @Test
+    public void givenBackfillInProgress_whenBackfilled_thenEntitiesAreCoveredInUuidOrder() {
+        mockScheduler();
+        UUID negativeMsb = new UUID(-1L, 0L);
+        when(rollupRepository.backfill(eq(10), anyLong(), eq(3600000L))).thenReturn(new TsRollupBackfill(entityId, false), new TsRollupBackfill(entityId, true));
+
+        assertThat(TsRollupBackfill.NOT_STARTED.covers(entityId)).isFalse();
+        assertThat(new TsRollupBackfill(entityId, false).covers(negativeMsb)).isFalse();
+        assertThat(new TsRollupBackfill(negativeMsb, false).covers(entityId)).isTrue();
+
+        rollupService.backfill();
+
+        verify(rollupRepository, times(2)).backfill(eq(10), anyLong(), eq(3600000L));
+        assertThat(ReflectionTestUtils.getField(rollupService, "backfill")).isEqualTo(new TsRollupBackfill(entityId, true));
+    }
+
+    @Test
+    public void givenBackfillLockedByOtherNode_whenBackfilled_thenRetriedAfterFlushInterval() {
+        ScheduledExecutorService scheduler = mockScheduler();
+        when(rollupRepository.backfill(eq(10), anyLong(), anyLong())).thenReturn(null);
+
+        rollupService.backfill();
+
+        verify(scheduler).schedule(any(Runnable.class), eq(10000L), eq(TimeUnit.MILLISECONDS));
+        assertThat(ReflectionTestUtils.getField(rollupService, "backfill")).isEqualTo(TsRollupBackfill.NOT_STARTED);
+    }
+
+    @Test
+    public void givenBackfillNotChecked_whenFlushed_thenHeartbeatIsNotRecorded() {
+        when(rollupRepository.claimDirty(eq(2), anyLong(), anyLong())).thenReturn(Map.of());
+
+        rollupService.flush();
+
+        // the heartbeat of this node must not hide that the rollups were not maintained before it started
+        verify(rollupRepository, never()).heartbeat(anyLong());
+    }
+
+    @Test
+    public void givenBackfillRestartedByOtherNode_whenFlushed_thenBackfillIsJoined() {
+        mockScheduler();
+        when(rollupRepository.backfill(eq(10), anyLong(), anyLong())).thenReturn(new TsRollupBackfill(entityId, true), new TsRollupBackfill(new UUID(0, 2), false), null);
+        when(rollupRepository.claimDirty(eq(2), anyLong(), anyLong())).thenReturn(Map.of());
+        rollupService.backfill();
+        TsRollupBackfill restarted = new TsRollupBackfill(new UUID(0, 1), false);
+        when(rollupRepository.heartbeat(anyLong())).thenReturn(restarted);
+
+        rollupService.flush();
+
+        verify(rollupRepository).heartbeat(anyLong());
+        verify(rollupRepository, times(3)).backfill(eq(10), anyLong(), anyLong());
+        assertThat(ReflectionTestUtils.getField(rollupService, "backfill")).isEqualTo(new TsRollupBackfill(new UUID(0, 2), false));
+        assertThat(rollupService.findAggregate(entityId, 1, 0, 10 * DAY, Aggregation.AVG)).isNull();
+    }
+
+    private ScheduledExecutorService mockScheduler() {
+        ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(scheduler).execute(any());
+        ReflectionTestUtils.setField(rollupService, "scheduler", scheduler);
+        return scheduler;
+    }
+
+    private TsKvEntity entity(int key, long ts) {
+        TsKvEntity entity = new TsKvEntity();
+        entity.setEntityId(entityId);
+        entity.setKey(key);
+        entity.setTs(ts);
+        return entity;
+    }
+
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.timeseries;
+
+import org.junit.Test;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.DoubleDataEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongUnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CassandraBaseTimeseriesDaoBatchTest {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final LongUnaryOperator DAYS = ts -> ts - ts % DAY;
+
+    @Test
+    public void testGroupByKeyAndPartition() {
+        List<TsKvEntry> entries = List.of(
+                entry("temperature", DAY + 2),
+                entry("humidity", DAY + 1),
+                entry("temperature", 1),
+                entry("temperature", DAY + 1),
+                entry("humidity", 2));
+
+        List<List<TsKvEntry>> batches = CassandraBaseTimeseriesDao.groupByPartition(entries, DAYS, 100);
+
+        assertThat(batches).hasSize(4);
+        assertThat(batches.get(0)).extracting(TsKvEntry::getTs).containsExactly(2L);
+        assertThat(batches.get(1)).extracting(TsKvEntry::getTs).containsExactly(DAY + 1);
+        assertThat(batches.get(2)).extracting(TsKvEntry::getTs).containsExactly(1L);
+        assertThat(batches.get(3)).extracting(TsKvEntry::getTs).containsExactly(DAY + 1, DAY + 2);
+        assertThat(batches.get(3)).extracting(TsKvEntry::getKey).containsOnly("temperature");
+    }
+
+    @Test
+    public void testSplitByMaxBatchSize() {
+        List<TsKvEntry> entries = List.of(
+                entry("temperature", 1),
+                entry("temperature", 2),
+                entry("temperature", 3),
+                new BasicTsKvEntry(4, new LongDataEntry("temperature", 4L)),
+                entry("temperature", 5));
+
+        List<List<TsKvEntry>> batches = CassandraBaseTimeseriesDao.groupByPartition(entries, DAYS, 2);
+
+        assertThat(batches).extracting(List::size).containsExactly(2, 2, 1);
+        assertThat(batches.get(1).get(1).getLongValue()).contains(4L);
+    }
+
+    private static TsKvEntry entry(String key, long ts) {
+        return new BasicTsKvEntry(ts, new DoubleDataEntry(key, 1.0));
+    }
+
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.timeseries;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TsKvPageIteratorTest {
+
+    @Test
+    public void testPagesAreLoadedFromLastTs() {
+        List<TsKvEntry> data = LongStream.range(0, 25).mapToObj(ts -> entry("temperature", ts * 10)).collect(Collectors.toList());
+        List<Long> loadedFrom = new ArrayList<>();
+
+        TsKvPageIterator iterator = new TsKvPageIterator(from -> {
+            loadedFrom.add(from);
+            return data.stream().filter(e -> e.getTs() >= from && e.getTs() < 1000).limit(10).collect(Collectors.toList());
+        }, 10, 0, 1000);
+
+        assertThat(Lists.newArrayList(iterator)).isEqualTo(data);
+        assertThat(loadedFrom).containsExactly(0L, 91L, 191L);
+    }
+
+    @Test
+    public void testEmptyRange() {
+        TsKvPageIterator iterator = new TsKvPageIterator(from -> {
+            throw new AssertionError("Must not be loaded");
+        }, 10, 100, 100);
+
+        assertThat(iterator.hasNext()).isFalse();
+    }
+
+    @Test
+    public void testMergeByTs() {
+        List<TsKvEntry> temperature = List.of(entry("temperature", 1), entry("temperature", 3), entry("temperature", 5));
+        List<TsKvEntry> humidity = List.of(entry("humidity", 2), entry("humidity", 3), entry("humidity", 10));
+
+        List<TsKvEntry> merged = Lists.newArrayList(TsKvPageIterator.mergeByTs(List.of(temperature.iterator(), humidity.iterator())));
+
+        assertThat(merged).containsExactly(temperature.get(0), humidity.get(0), humidity.get(1), temperature.get(1), temperature.get(2), humidity.get(2));
+    }
+
+    private static TsKvEntry entry(String key, long ts) {
+        return new BasicTsKvEntry(ts, new LongDataEntry(key, ts));
+    }
+
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.timeseries;
+
+import org.junit.Test;
+import org.thingsboard.server.common.data.device.profile.TelemetryWriteFilter;
+import org.thingsboard.server.common.data.device.profile.TelemetryWriteFilterType;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.DoubleDataEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.StringDataEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TsWriteFilterStateTest {
+
+    @Test
+    public void testDuplicateSuppression() {
+        TelemetryWriteFilter filter = filter(TelemetryWriteFilterType.DUPLICATE, 0);
+        TsWriteFilterState state = new TsWriteFilterState();
+
+        List<TsKvEntry> stored = new ArrayList<>();
+        stored.addAll(state.filter(filter, List.of(new BasicTsKvEntry(1, new StringDataEntry("status", "on")), longEntry(1, 5))));
+        stored.addAll(state.filter(filter, List.of(new BasicTsKvEntry(2, new StringDataEntry("status", "on")), longEntry(2, 5))));
+        stored.addAll(state.filter(filter, List.of(new BasicTsKvEntry(3, new StringDataEntry("status", "off")), doubleEntry(3, 5.0))));
+
+        assertThat(stored).extracting(TsKvEntry::getTs).containsExactly(1L, 1L, 3L, 3L);
+    }
+
+    @Test
+    public void testDeadband() {
+        TelemetryWriteFilter filter = filter(TelemetryWriteFilterType.DEADBAND, 0.5);
+        TsWriteFilterState state = new TsWriteFilterState();
+
+        List<TsKvEntry> stored = filterAll(state, filter, doubleEntry(1, 20.0), doubleEntry(2, 20.3), doubleEntry(3, 20.6),
+                doubleEntry(4, 20.2), doubleEntry(5, 19.0));
+
+        assertThat(stored).extracting(TsKvEntry::getTs).containsExactly(1L, 3L, 5L);
+    }
+
+    @Test
+    public void testPercentDeviation() {
+        TelemetryWriteFilter filter = filter(TelemetryWriteFilterType.DEADBAND, 0);
+        filter.setPercentDeviation(10);
+        TsWriteFilterState state = new TsWriteFilterState();
+
+        List<TsKvEntry> stored = filterAll(state, filter, longEntry(1, 100), longEntry(2, 109), longEntry(3, 111));
+
+        assertThat(stored).extracting(TsKvEntry::getTs).containsExactly(1L, 3L);
+    }
+
+    @Test
+    public void testSwingingDoorKeepsTurningPoints() {
+        TelemetryWriteFilter filter = filter(TelemetryWriteFilterType.SWINGING_DOOR, 0.1);
+        TsWriteFilterState state = new TsWriteFilterState();
+
+        List<TsKvEntry> stored = new ArrayList<>();
+        for (int ts = 0; ts <= 100; ts++) {
+            double value = ts <= 50 ? ts : 100 - ts;
+            stored.addAll(state.filter(filter, List.of(doubleEntry(ts, value))));
+        }
+        stored.addAll(state.filter(filter, List.of(doubleEntry(101, 50.0))));
+        // the point of ts 101 is held until the next point shows whether it ends the segment
+
+        assertThat(stored).extracting(TsKvEntry::getTs).containsExactly(0L, 50L, 100L);
+    }
+
+    @Test
+    public void testSwingingDoorMaxInterval() {
+        TelemetryWriteFilter filter = filter(TelemetryWriteFilterType.SWINGING_DOOR, 1);
+        filter.setMaxInterval(10);
+        TsWriteFilterState state = new TsWriteFilterState();
+
+        List<TsKvEntry> stored = new ArrayList<>();
+        for (int ts = 0; ts <= 25; ts++) {
+            stored.addAll(state.filter(filter, List.of(doubleEntry(ts, 1.0))));
+        }
+
+        assertThat(stored).extracting(TsKvEntry::getTs).containsExactly(0L, 9L, 10L, 19L, 20L);
+    }
+
+    @Test
+    public void testLateAndNotFilteredKeysAreStored() {
+        TelemetryWriteFilter filter = filter(TelemetryWriteFilterType.DUPLICATE, 0);
+        filter.setKeys(Set.of("temperature"));
+        TsWriteFilterState state = new TsWriteFilterState();
+
+        List<TsKvEntry> stored = filterAll(state, filter, doubleEntry(5, 1.0), doubleEntry(3, 1.0), doubleEntry(6, 1.0),
+                new BasicTsKvEntry(7, new LongDataEntry("humidity", 1L)), new BasicTsKvEntry(8, new LongDataEntry("humidity", 1L)));
+
+        assertThat(stored).extracting(TsKvEntry::getTs).containsExactly(5L, 3L, 7L, 8L);
+        assertThat(state.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testManyKeys() {
+        TelemetryWriteFilter filter = filter(TelemetryWriteFilterType.DUPLICATE, 0);
+        TsWriteFilterState state = new TsWriteFilterState();
+
+        for (int ts = 0; ts < 2; ts++) {
+            List<TsKvEntry> entries = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                entries.add(new BasicTsKvEntry(ts, new LongDataEntry("key" + i, (long) i)));
+            }
+            assertThat(state.filter(filter, entries)).hasSize(ts == 0 ? 100 : 0);
+        }
+        assertThat(state.size()).isEqualTo(100);
+    }
+
+    private static List<TsKvEntry> filterAll(TsWriteFilterState state, TelemetryWriteFilter filter, TsKvEntry... entries) {
+        List<TsKvEntry> stored = new ArrayList<>();
+        for (TsKvEntry entry : entries) {
+            stored.addAll(state.filter(filter, List.of(entry)));
+        }
+        return stored;
+    }
+
+    private static TelemetryWriteFilter filter(TelemetryWriteFilterType type, double absoluteDeviation) {
+        TelemetryWriteFilter filter = new TelemetryWriteFilter();
+        filter.setType(type);
+        filter.setAbsoluteDeviation(absoluteDeviation);
+        return filter;
+    }
+
+    private static TsKvEntry doubleEntry(long ts, double value) {
+        return new BasicTsKvEntry(ts, new DoubleDataEntry("temperature", value));
+    }
+
+    private static TsKvEntry longEntry(long ts, long value) {
+        return new BasicTsKvEntry(ts, new LongDataEntry("temperature", value));
+    }
+
+}
@@ -57,4 +57,16 @@ class TimeUtilsTest {
         assertThat(TimeUtils.calculateIntervalEnd(ts, IntervalType.QUARTER, ZoneId.of("America/New_York"))).isEqualTo(1711944000000L); // Monday, April 1, 2024 7:00:00 GMT+03:00 DST
     }
 
+    @Test
+    void testMonthIntervalStarts() {
+        long ts = 1704899727000L; // Wednesday, January 10 15:15:27 GMT
+        long endTs = 1711929600000L; // Monday, April 1, 2024 3:00:00 GMT+03:00
+        assertThat(TimeUtils.calculateIntervalStarts(ts, endTs, IntervalType.MONTH, ZoneId.of("Europe/Kyiv"))).containsExactly(
+                ts,
+                1706738400000L, // Thursday, February 1, 2024 0:00:00 GMT+02:00
+                1709244000000L, // Friday, March 1, 2024 0:00:00 GMT+02:00
+                1711918800000L); // Monday, April 1, 2024 0:00:00 GMT+03:00 DST
+        assertThat(TimeUtils.calculateIntervalStarts(ts, ts, IntervalType.MONTH, ZoneId.of("Europe/Kyiv"))).isEmpty();
+    }
+
 }
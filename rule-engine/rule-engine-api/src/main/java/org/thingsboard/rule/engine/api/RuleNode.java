@@ -70,4 +70,11 @@ public @interface RuleNode {
 
     int version() default 0;
 
+    /**
+     * Marks nodes that keep no state between messages and always call {@link TbContext#tellNext}, {@link TbContext#tellSuccess}
+     * or {@link TbContext#tellFailure} before {@link TbNode#onMsg} returns. The rule chain may execute such nodes inline,
+     * without passing the message through the mailbox of the rule node actor.
+     */
+    boolean stateless() default false;
+
 }
@@ -20,6 +20,7 @@ import org.thingsboard.server.common.data.util.TbPair;
 import org.thingsboard.server.common.msg.TbMsg;
 import org.thingsboard.server.common.msg.queue.PartitionChangeMsg;
 
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -31,6 +32,27 @@ public interface TbNode {
 
     void onMsg(TbContext ctx, TbMsg msg) throws ExecutionException, InterruptedException, TbNodeException;
 
+    /**
+     * Processes the messages that were queued to the rule node one after another and taken from its mailbox at once.
+     * The rule engine calls this method instead of {@link #onMsg(TbContext, TbMsg)} when there is more than one such message,
+     * so the node may handle them with a single call to the database or other services.
+     * Every message must still be routed or acknowledged on its own, e.g. with {@link TbContext#tellSuccess(TbMsg)}.
+     * <p>
+     * The default implementation processes the messages one by one and routes the message to the failure chain if its processing fails.
+     *
+     * @param ctx  the context of the rule node
+     * @param msgs the messages in the order they were queued
+     */
+    default void onMsgBatch(TbContext ctx, List<TbMsg> msgs) {
+        for (TbMsg msg : msgs) {
+            try {
+                onMsg(ctx, msg);
+            } catch (Exception e) {
+                ctx.tellFailure(msg, e);
+            }
+        }
+    }
+
     default void destroy() {
     }
 
@@ -26,6 +26,8 @@ import org.thingsboard.rule.engine.api.util.TbNodeUtils;
 import org.thingsboard.server.common.data.plugin.ComponentType;
 import org.thingsboard.server.common.msg.TbMsg;
 
+import java.util.List;
+
 @Slf4j
 @RuleNode(
         type = ComponentType.FILTER,
@@ -36,6 +38,7 @@ import org.thingsboard.server.common.msg.TbMsg;
         nodeDetails = "Sends messages with message types <b>\"Post attributes\", \"Post telemetry\", \"RPC Request\"</b>" +
                 " etc. via corresponding chain, otherwise <b>Other</b> chain is used.<br><br>" +
                 "Output connections: <i>Message type connection</i>, <code>Other</code> - if message type is custom or <code>Failure</code>",
+        stateless = true,
         uiResources = {"static/rulenode/rulenode-core-config.js"},
         configDirective = "tbNodeEmptyConfig")
 public class TbMsgTypeSwitchNode implements TbNode {
@@ -52,4 +55,11 @@ public class TbMsgTypeSwitchNode implements TbNode {
         ctx.tellNext(msg, msg.getInternalType().getRuleNodeConnection());
     }
 
+    @Override
+    public void onMsgBatch(TbContext ctx, List<TbMsg> msgs) {
+        for (TbMsg msg : msgs) {
+            ctx.tellNext(msg, msg.getInternalType().getRuleNodeConnection());
+        }
+    }
+
 }
@@ -19,6 +19,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.common.util.DonAsynchron;
@@ -31,6 +32,7 @@ import org.thingsboard.rule.engine.api.util.TbNodeUtils;
 import org.thingsboard.server.common.adaptor.JsonConverter;
 import org.thingsboard.server.common.data.AttributeScope;
 import org.thingsboard.server.common.data.StringUtils;
+import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.kv.AttributeKvEntry;
 import org.thingsboard.server.common.data.kv.KvEntry;
 import org.thingsboard.server.common.data.plugin.ComponentType;
@@ -38,9 +40,11 @@ import org.thingsboard.server.common.data.util.TbPair;
 import org.thingsboard.server.common.msg.TbMsg;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -84,7 +88,7 @@ public class TbMsgAttributesNode implements TbNode {
             return;
         }
         String src = msg.getData();
-        List<AttributeKvEntry> newAttributes = new ArrayList<>(JsonConverter.convertToAttributes(JsonParser.parseString(src)));
+        List<AttributeKvEntry> newAttributes = new ArrayList<>(JsonConverter.convertToAttributes(msg.getParsedData(JsonElement.class, JsonParser::parseString)));
         if (newAttributes.isEmpty()) {
             ctx.tellSuccess(msg);
             return;
@@ -109,6 +113,47 @@ public class TbMsgAttributesNode implements TbNode {
                 MoreExecutors.directExecutor());
     }
 
+    /**
+     * Saves the attributes of all the messages of the same originator, scope and device notification flag with one call to the telemetry service.
+     * The last value wins if the messages contain the same attribute. The messages that require a check of the current values
+     * or the attributes updated notification are processed one by one.
+     */
+    @Override
+    public void onMsgBatch(TbContext ctx, List<TbMsg> msgs) {
+        if (config.isUpdateAttributesOnlyOnValueChange()) {
+            TbNode.super.onMsgBatch(ctx, msgs);
+            return;
+        }
+        Map<SaveKey, SaveBatch> batches = new LinkedHashMap<>();
+        for (TbMsg msg : msgs) {
+            try {
+                if (!msg.isTypeOf(POST_ATTRIBUTES_REQUEST)) {
+                    ctx.tellFailure(msg, new IllegalArgumentException("Unsupported msg type: " + msg.getType()));
+                    continue;
+                }
+                Set<AttributeKvEntry> newAttributes = JsonConverter.convertToAttributes(msg.getParsedData(JsonElement.class, JsonParser::parseString));
+                if (newAttributes.isEmpty()) {
+                    ctx.tellSuccess(msg);
+                    continue;
+                }
+                AttributeScope scope = getScope(msg.getMetaData().getValue(SCOPE));
+                if (checkSendNotification(scope)) {
+                    saveAttr(new ArrayList<>(newAttributes), ctx, msg, scope, true);
+                    continue;
+                }
+                boolean notifyDevice = config.isNotifyDevice() || checkNotifyDeviceMdValue(msg.getMetaData().getValue(NOTIFY_DEVICE_METADATA_KEY));
+                SaveBatch batch = batches.computeIfAbsent(new SaveKey(msg.getOriginator(), scope, notifyDevice), key -> new SaveBatch());
+                batch.msgs.add(msg);
+                newAttributes.forEach(attribute -> batch.attributes.put(attribute.getKey(), attribute));
+            } catch (Exception e) {
+                ctx.tellFailure(msg, e);
+            }
+        }
+        batches.forEach((key, batch) -> ctx.getTelemetryService().saveAndNotify(ctx.getTenantId(), key.originator(), key.scope(),
+                new ArrayList<>(batch.attributes.values()), key.notifyDevice(), batch.msgs.size() == 1 ?
+                        new TelemetryNodeCallback(ctx, batch.msgs.get(0)) : new TelemetryNodeBatchCallback(ctx, batch.msgs)));
+    }
+
     void saveAttr(List<AttributeKvEntry> attributes, TbContext ctx, TbMsg msg, AttributeScope scope, boolean sendAttributesUpdateNotification) {
         if (attributes.isEmpty()) {
             ctx.tellSuccess(msg);
@@ -199,4 +244,12 @@ public class TbMsgAttributesNode implements TbNode {
         return hasChanges;
     }
 
+    private record SaveKey(EntityId originator, AttributeScope scope, boolean notifyDevice) {
+    }
+
+    private static class SaveBatch {
+        private final List<TbMsg> msgs = new ArrayList<>();
+        private final Map<String, AttributeKvEntry> attributes = new LinkedHashMap<>();
+    }
+
 }
@@ -15,6 +15,8 @@
  */
 package org.thingsboard.rule.engine.telemetry;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.rule.engine.api.RuleNode;
@@ -26,6 +28,8 @@ import org.thingsboard.rule.engine.api.util.TbNodeUtils;
 import org.thingsboard.server.common.adaptor.JsonConverter;
 import org.thingsboard.server.common.data.StringUtils;
 import org.thingsboard.server.common.data.TenantProfile;
+import org.thingsboard.server.common.data.id.CustomerId;
+import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
 import org.thingsboard.server.common.data.kv.KvEntry;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
@@ -34,6 +38,7 @@ import org.thingsboard.server.common.data.tenant.profile.DefaultTenantProfileCon
 import org.thingsboard.server.common.msg.TbMsg;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -82,16 +87,44 @@ public class TbMsgTimeseriesNode implements TbNode {
 
     @Override
     public void onMsg(TbContext ctx, TbMsg msg) {
+        List<TsKvEntry> tsKvEntryList = toTsKvEntries(ctx, msg);
+        if (tsKvEntryList != null) {
+            save(ctx, msg.getCustomerId(), msg.getOriginator(), tsKvEntryList, getTtl(msg), new TelemetryNodeCallback(ctx, msg));
+        }
+    }
+
+    /**
+     * Saves the time series of all the messages of the same originator, customer and TTL with one call to the telemetry service.
+     */
+    @Override
+    public void onMsgBatch(TbContext ctx, List<TbMsg> msgs) {
+        Map<SaveKey, SaveBatch> batches = new LinkedHashMap<>();
+        for (TbMsg msg : msgs) {
+            try {
+                List<TsKvEntry> tsKvEntryList = toTsKvEntries(ctx, msg);
+                if (tsKvEntryList != null) {
+                    SaveBatch batch = batches.computeIfAbsent(new SaveKey(msg.getOriginator(), msg.getCustomerId(), getTtl(msg)), key -> new SaveBatch());
+                    batch.msgs.add(msg);
+                    batch.entries.addAll(tsKvEntryList);
+                }
+            } catch (Exception e) {
+                ctx.tellFailure(msg, e);
+            }
+        }
+        batches.forEach((key, batch) -> save(ctx, key.customerId(), key.originator(), batch.entries, key.ttl(), batch.msgs.size() == 1 ?
+                new TelemetryNodeCallback(ctx, batch.msgs.get(0)) : new TelemetryNodeBatchCallback(ctx, batch.msgs)));
+    }
+
+    private List<TsKvEntry> toTsKvEntries(TbContext ctx, TbMsg msg) {
         if (!msg.isTypeOf(POST_TELEMETRY_REQUEST)) {
             ctx.tellFailure(msg, new IllegalArgumentException("Unsupported msg type: " + msg.getType()));
-            return;
+            return null;
         }
         long ts = computeTs(msg, config.isUseServerTs());
-        String src = msg.getData();
-        Map<Long, List<KvEntry>> tsKvMap = JsonConverter.convertToTelemetry(JsonParser.parseString(src), ts);
+        Map<Long, List<KvEntry>> tsKvMap = JsonConverter.convertToTelemetry(msg.getParsedData(JsonElement.class, JsonParser::parseString), ts);
         if (tsKvMap.isEmpty()) {
-            ctx.tellFailure(msg, new IllegalArgumentException("Msg body is empty: " + src));
-            return;
+            ctx.tellFailure(msg, new IllegalArgumentException("Msg body is empty: " + msg.getData()));
+            return null;
         }
         List<TsKvEntry> tsKvEntryList = new ArrayList<>();
         for (Map.Entry<Long, List<KvEntry>> tsKvEntry : tsKvMap.entrySet()) {
@@ -99,15 +132,23 @@ public class TbMsgTimeseriesNode implements TbNode {
                 tsKvEntryList.add(new BasicTsKvEntry(tsKvEntry.getKey(), kvEntry));
             }
         }
+        return tsKvEntryList;
+    }
+
+    private long getTtl(TbMsg msg) {
         String ttlValue = msg.getMetaData().getValue("TTL");
         long ttl = !StringUtils.isEmpty(ttlValue) ? Long.parseLong(ttlValue) : config.getDefaultTTL();
         if (ttl == 0L) {
             ttl = tenantProfileDefaultStorageTtl;
         }
+        return ttl;
+    }
+
+    private void save(TbContext ctx, CustomerId customerId, EntityId originator, List<TsKvEntry> tsKvEntryList, long ttl, FutureCallback<Void> callback) {
         if (config.isSkipLatestPersistence()) {
-            ctx.getTelemetryService().saveWithoutLatestAndNotify(ctx.getTenantId(), msg.getCustomerId(), msg.getOriginator(), tsKvEntryList, ttl, new TelemetryNodeCallback(ctx, msg));
+            ctx.getTelemetryService().saveWithoutLatestAndNotify(ctx.getTenantId(), customerId, originator, tsKvEntryList, ttl, callback);
         } else {
-            ctx.getTelemetryService().saveAndNotify(ctx.getTenantId(), msg.getCustomerId(), msg.getOriginator(), tsKvEntryList, ttl, new TelemetryNodeCallback(ctx, msg));
+            ctx.getTelemetryService().saveAndNotify(ctx.getTenantId(), customerId, originator, tsKvEntryList, ttl, callback);
         }
     }
 
@@ -120,4 +161,12 @@ public class TbMsgTimeseriesNode implements TbNode {
         ctx.removeListeners();
     }
 
+    private record SaveKey(EntityId originator, CustomerId customerId, long ttl) {
+    }
+
+    private static class SaveBatch {
+        private final List<TbMsg> msgs = new ArrayList<>();
+        private final List<TsKvEntry> entries = new ArrayList<>();
+    }
+
 }
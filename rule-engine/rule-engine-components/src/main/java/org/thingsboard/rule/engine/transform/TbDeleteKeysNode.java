@@ -46,6 +46,7 @@ import java.util.stream.Collectors;
         nodeDetails = "Deletes key-value pairs from the message or message metadata according to the configured " +
                 "keys and/or regular expressions.<br><br>" +
                 "Output connections: <code>Success</code>, <code>Failure</code>.",
+        stateless = true,
         uiResources = {"static/rulenode/rulenode-core-config.js"},
         configDirective = "tbTransformationNodeDeleteKeysConfig",
         icon = "remove_circle"
@@ -73,7 +74,7 @@ public class TbDeleteKeysNode extends TbAbstractTransformNodeWithTbMsgSource {
         boolean hasNoChanges = false;
         switch (deleteFrom) {
             case METADATA:
-                var metaDataMap = metaDataCopy.getData();
+                var metaDataMap = metaDataCopy.values();
                 var mdKeysToDelete = metaDataMap.keySet()
                         .stream()
                         .filter(this::matches)
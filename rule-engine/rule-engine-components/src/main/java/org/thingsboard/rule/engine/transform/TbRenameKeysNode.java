@@ -43,6 +43,7 @@ import java.util.concurrent.ExecutionException;
         nodeDetails = "Renames keys in the message or message metadata according to the provided mapping. " +
                 "If key to rename doesn't exist in the specified source (message or message metadata) it will be ignored.<br><br>" +
                 "Output connections: <code>Success</code>, <code>Failure</code>.",
+        stateless = true,
         uiResources = {"static/rulenode/rulenode-core-config.js"},
         configDirective = "tbTransformationNodeRenameKeysConfig",
         icon = "find_replace"
@@ -73,7 +74,7 @@ public class TbRenameKeysNode extends TbAbstractTransformNodeWithTbMsgSource {
         boolean msgChanged = false;
         switch (renameIn) {
             case METADATA:
-                Map<String, String> metaDataMap = metaDataCopy.getData();
+                Map<String, String> metaDataMap = metaDataCopy.values();
                 for (Map.Entry<String, String> entry : renameKeysMapping.entrySet()) {
                     String currentKeyName = entry.getKey();
                     String newKeyName = entry.getValue();
@@ -32,6 +32,7 @@ import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -88,6 +89,22 @@ class TbMsgTypeSwitchNodeTest {
         }
     }
 
+    @Test
+    void givenAllTypes_whenOnMsgBatch_thenRoutedInOrder() {
+        List<TbMsg> tbMsgList = new ArrayList<>();
+        for (var msgType : TbMsgType.values()) {
+            tbMsgList.add(getTbMsg(msgType));
+        }
+
+        node.onMsgBatch(ctx, tbMsgList);
+
+        var inOrder = inOrder(ctx);
+        for (TbMsg tbMsg : tbMsgList) {
+            inOrder.verify(ctx).tellNext(tbMsg, tbMsg.getInternalType().getRuleNodeConnection());
+        }
+        verify(ctx, never()).tellFailure(any(), any());
+    }
+
     private TbMsg getTbMsg(TbMsgType msgType) {
         return TbMsg.newMsg(msgType, DEVICE_ID, TbMsgMetaData.EMPTY, TbMsg.EMPTY_JSON_OBJECT);
     }
@@ -16,6 +16,7 @@
 package org.thingsboard.rule.engine.telemetry;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.util.concurrent.FutureCallback;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -51,9 +52,12 @@ import java.util.UUID;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.willAnswer;
 import static org.mockito.BDDMockito.willCallRealMethod;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
@@ -130,6 +134,38 @@ class TbMsgAttributesNodeTest extends AbstractRuleNodeUpgradeTest {
         assertThat(filtered).containsExactlyInAnyOrderElementsOf(expected);
     }
 
+    @Test
+    void givenMsgsOfSameOriginator_whenOnMsgBatch_thenSaveAttributesOnceWithLastValues() throws TbNodeException {
+        var ctxMock = mock(TbContext.class);
+        var telemetryServiceMock = mock(RuleEngineTelemetryService.class);
+        ObjectNode config = (ObjectNode) JacksonUtil.valueToTree(new TbMsgAttributesNodeConfiguration().defaultConfiguration());
+        config.put("updateAttributesOnlyOnValueChange", false);
+        when(ctxMock.getTenantId()).thenReturn(tenantId);
+        when(ctxMock.getTelemetryService()).thenReturn(telemetryServiceMock);
+        willAnswer(invocation -> {
+            FutureCallback<Void> callback = invocation.getArgument(5);
+            callback.onSuccess(null);
+            return null;
+        }).given(telemetryServiceMock).saveAndNotify(any(), any(), any(AttributeScope.class), anyList(), anyBoolean(), any());
+        var batchNode = new TbMsgAttributesNode();
+        batchNode.init(ctxMock, new TbNodeConfiguration(config));
+
+        TbMsg msg1 = TbMsg.newMsg(TbMsgType.POST_ATTRIBUTES_REQUEST, deviceId, new TbMsgMetaData(), "{\"firmware\":\"1.0\",\"mode\":\"eco\"}");
+        TbMsg msg2 = TbMsg.newMsg(TbMsgType.POST_ATTRIBUTES_REQUEST, deviceId, new TbMsgMetaData(), "{\"firmware\":\"1.1\"}");
+        TbMsg emptyMsg = TbMsg.newMsg(TbMsgType.POST_ATTRIBUTES_REQUEST, deviceId, new TbMsgMetaData(), TbMsg.EMPTY_JSON_OBJECT);
+
+        batchNode.onMsgBatch(ctxMock, List.of(msg1, msg2, emptyMsg));
+
+        ArgumentCaptor<List<AttributeKvEntry>> attributesCaptor = ArgumentCaptor.forClass(List.class);
+        verify(telemetryServiceMock).saveAndNotify(eq(tenantId), eq(deviceId), eq(AttributeScope.SERVER_SCOPE),
+                attributesCaptor.capture(), eq(true), any(TelemetryNodeBatchCallback.class));
+        assertThat(attributesCaptor.getValue()).extracting(AttributeKvEntry::getKey, AttributeKvEntry::getValueAsString)
+                .containsExactlyInAnyOrder(tuple("firmware", "1.1"), tuple("mode", "eco"));
+        verify(ctxMock).tellSuccess(msg1);
+        verify(ctxMock).tellSuccess(msg2);
+        verify(ctxMock).tellSuccess(emptyMsg);
+    }
+
     // Notify device backward-compatibility test arguments
     private static Stream<Arguments> givenNotifyDeviceMdValue_whenSaveAndNotify_thenVerifyExpectedArgumentForNotifyDeviceInSaveAndNotifyMethod() {
         return Stream.of(
@@ -15,6 +15,7 @@
  */
 package org.thingsboard.rule.engine.telemetry;
 
+import com.google.common.util.concurrent.FutureCallback;
 import com.google.gson.JsonParser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -215,6 +216,42 @@ public class TbMsgTimeseriesNodeTest {
         );
     }
 
+    @Test
+    public void givenMsgsOfTwoOriginatorsAndInvalidMsg_whenOnMsgBatch_thenSaveTimeseriesOncePerOriginator() throws TbNodeException {
+        init();
+        DeviceId otherDeviceId = new DeviceId(UUID.fromString("2b6b4d2e-7a0b-4b4a-9c2f-4a6c3e2f9a11"));
+        TbMsgMetaData metaData = new TbMsgMetaData();
+        metaData.putValue("ts", "1000");
+        TbMsg msg1 = TbMsg.newMsg(TbMsgType.POST_TELEMETRY_REQUEST, DEVICE_ID, metaData, "{\"temp\":45}");
+        TbMsg msg2 = TbMsg.newMsg(TbMsgType.POST_TELEMETRY_REQUEST, otherDeviceId, metaData, "{\"temp\":46}");
+        TbMsg invalidMsg = TbMsg.newMsg(TbMsgType.POST_ATTRIBUTES_REQUEST, DEVICE_ID, metaData, "{\"temp\":47}");
+        TbMsg msg3 = TbMsg.newMsg(TbMsgType.POST_TELEMETRY_REQUEST, DEVICE_ID, metaData, "{\"humidity\":77}");
+
+        when(ctxMock.getTelemetryService()).thenReturn(telemetryServiceMock);
+        when(ctxMock.getTenantId()).thenReturn(TENANT_ID);
+        doAnswer(invocation -> {
+            FutureCallback<Void> callback = invocation.getArgument(5);
+            callback.onSuccess(null);
+            return null;
+        }).when(telemetryServiceMock).saveAndNotify(any(), any(), any(), anyList(), anyLong(), any());
+
+        node.onMsgBatch(ctxMock, List.of(msg1, msg2, invalidMsg, msg3));
+
+        ArgumentCaptor<List<TsKvEntry>> entryListCaptor = ArgumentCaptor.forClass(List.class);
+        verify(telemetryServiceMock).saveAndNotify(eq(TENANT_ID), isNull(), eq(DEVICE_ID), entryListCaptor.capture(),
+                eq(tenantProfileDefaultStorageTtl), any(TelemetryNodeBatchCallback.class));
+        List<TsKvEntry> expectedList = getTsKvEntriesListWithTs("{\"temp\":45}", 1000);
+        expectedList.addAll(getTsKvEntriesListWithTs("{\"humidity\":77}", 1000));
+        assertThat(entryListCaptor.getValue()).containsExactlyElementsOf(expectedList);
+        verify(telemetryServiceMock).saveAndNotify(eq(TENANT_ID), isNull(), eq(otherDeviceId), eq(getTsKvEntriesListWithTs("{\"temp\":46}", 1000)),
+                eq(tenantProfileDefaultStorageTtl), any(TelemetryNodeCallback.class));
+        verify(ctxMock).tellFailure(eq(invalidMsg), any(IllegalArgumentException.class));
+        verify(ctxMock).tellSuccess(msg1);
+        verify(ctxMock).tellSuccess(msg2);
+        verify(ctxMock).tellSuccess(msg3);
+        verifyNoMoreInteractions(ctxMock, telemetryServiceMock);
+    }
+
     private void init() throws TbNodeException {
         var configuration = new TbNodeConfiguration(JacksonUtil.valueToTree(config));
         var tenantProfile = getTenantProfile();